@@ -27,7 +27,9 @@
  * <b>Synthetic operations</b>: aggregate operations are being implemented based on other Hot Rod operations. E.g. all
  * the {@link java.util.Map#putAll(java.util.Map)} is implemented through multiple individual puts. This means that the
  * these operations are not atomic and that they are costly, e.g. as the number of network round-trips is not one, but
- * the size of the added map. All these synthetic operations are documented as such.
+ * the size of the added map. All these synthetic operations are documented as such. Starting with version 1.3 of the
+ * protocol, {@link #putAll(java.util.Map)} and {@link #getAll(java.util.Set)} send a single request to each server
+ * owning some of the keys instead.
  * <p/>
  * <b>changing default behavior through {@link org.infinispan.client.hotrod.Flag}s</b>: it is possible to change the
  * default cache behaviour by using flags on an per invocation basis. E.g.
@@ -189,15 +191,20 @@
    Set<Entry<K, V>> entrySet();
 
    /**
-    * Synthetic operation. The client iterates over the set of keys and calls put for each one of them. This results in
-    * operation not being atomic (if a failure happens after few puts it is not rolled back) and costly (for each key in
-    * the parameter map a remote call is performed).
+    * Stores all the entries of the map. With version 1.3 of the protocol, the entries are grouped by the server owning
+    * their keys and every server receives its entries with a single request, the requests being sent in parallel.
+    * The operation is not atomic: if a failure happens after some servers stored their entries, these are not rolled
+    * back.
+    * <p/>
+    * With older protocol versions this is a synthetic operation: the client iterates over the set of keys and calls
+    * put for each one of them. This results in operation not being atomic (if a failure happens after few puts it is
+    * not rolled back) and costly (for each key in the parameter map a remote call is performed).
     */
    @Override
    void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit unit);
 
    /**
-    * Synthetic operation.
+    * Synthetic operation with protocol versions older than 1.3.
     *
     * @see #putAll(java.util.Map, long, java.util.concurrent.TimeUnit)
     */
@@ -205,7 +212,7 @@
    void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit);
 
    /**
-    * Synthetic operation.
+    * Synthetic operation with protocol versions older than 1.3.
     *
     * @see #putAll(java.util.Map, long, java.util.concurrent.TimeUnit)
     */
@@ -213,7 +220,7 @@
    NotifyingFuture<Void> putAllAsync(Map<? extends K, ? extends V> data);
 
    /**
-    * Synthetic operation.
+    * Synthetic operation with protocol versions older than 1.3.
     *
     * @see #putAll(java.util.Map, long, java.util.concurrent.TimeUnit)
     */
@@ -221,7 +228,7 @@
    NotifyingFuture<Void> putAllAsync(Map<? extends K, ? extends V> data, long lifespan, TimeUnit unit);
 
    /**
-    * Synthetic operation.
+    * Synthetic operation with protocol versions older than 1.3.
     *
     * @see #putAll(java.util.Map, long, java.util.concurrent.TimeUnit)
     */
@@ -229,7 +236,7 @@
    NotifyingFuture<Void> putAllAsync(Map<? extends K, ? extends V> data, long lifespan, TimeUnit lifespanUnit, long maxIdle, TimeUnit maxIdleUnit);
 
    /**
-    * Synthetic operation.
+    * Synthetic operation with protocol versions older than 1.3.
     *
     * @see #putAll(java.util.Map, long, java.util.concurrent.TimeUnit)
     */
@@ -271,6 +278,16 @@
     */
    Map<K, V> getBulk(int size);
 
+   /**
+    * Retrieves the values of several keys. With version 1.3 of the protocol, the keys are grouped by the server owning
+    * them and every server receives its keys with a single request, the requests being sent in parallel. With older
+    * protocol versions this is a synthetic operation performing a get for every key.
+    *
+    * @return an unmodifiable map from the keys having a value in the remote cache to their values
+    * @since 6.0
+    */
+   Map<K, V> getAll(Set<? extends K> keys);
+
 
    /**
     * Returns the HotRod protocol version supported by this RemoteCache implementation
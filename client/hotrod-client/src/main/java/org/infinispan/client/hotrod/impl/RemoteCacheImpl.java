@@ -3,14 +3,19 @@
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 
 import org.infinispan.client.hotrod.Flag;
@@ -23,6 +28,8 @@
 import org.infinispan.client.hotrod.exceptions.HotRodClientException;
 import org.infinispan.client.hotrod.exceptions.RemoteCacheManagerNotStartedException;
 import org.infinispan.client.hotrod.impl.async.NotifyingFutureImpl;
+import org.infinispan.client.hotrod.impl.async.ResponseFuture;
+import org.infinispan.client.hotrod.impl.operations.AsyncOperation;
 import org.infinispan.client.hotrod.impl.operations.BulkGetKeysOperation;
 import org.infinispan.client.hotrod.impl.operations.BulkGetOperation;
 import org.infinispan.client.hotrod.impl.operations.ClearOperation;
@@ -42,6 +49,7 @@
 import org.infinispan.client.hotrod.logging.Log;
 import org.infinispan.client.hotrod.logging.LogFactory;
 import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.commons.util.concurrent.FutureListener;
 import org.infinispan.commons.util.concurrent.NotifyingFuture;
 
 /**
@@ -97,6 +105,10 @@ public boolean removeWithVersion(K key, long version) {
    @Override
    public NotifyingFuture<Boolean> removeWithVersionAsync(final K key, final long version) {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isAsyncTransport()) {
+         RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(obj2bytes(key, true), version);
+         return convert(op.executeAsync(), new UpdatedConverter());
+      }
       final NotifyingFutureImpl<Boolean> result = new NotifyingFutureImpl<Boolean>();
       Future<Boolean> future = executorService.submit(new Callable<Boolean>() {
          @Override
@@ -121,6 +133,10 @@ public boolean replaceWithVersion(K key, V newValue, long version, int lifespanS
    @Override
    public NotifyingFuture<Boolean> replaceWithVersionAsync(final K key, final V newValue, final long version, final int lifespanSeconds, final int maxIdleSeconds) {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isAsyncTransport()) {
+         ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(obj2bytes(key, true), obj2bytes(newValue, false), lifespanSeconds, maxIdleSeconds, version);
+         return convert(op.executeAsync(), new UpdatedConverter());
+      }
       final NotifyingFutureImpl<Boolean> result = new NotifyingFutureImpl<Boolean>();
       Future<Boolean> future = executorService.submit(new Callable<Boolean>() {
          @Override
@@ -153,9 +169,26 @@ public MetadataValue<V> getWithMetadata(K key) {
    @Override
    public void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (!operationsFactory.isBulkOperationSupported()) {
+         for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue(), lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+         }
+         return;
+      }
+      if (map.isEmpty()) {
+         return;
+      }
+      int lifespanSecs = toSeconds(lifespan, lifespanUnit);
+      int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
+      applyDefaultExpirationFlags(lifespan, maxIdleTime);
+      if (log.isTraceEnabled()) {
+         log.tracef("About to add %d entries, lifespanSecs:%d, maxIdleSecs:%d", map.size(), lifespanSecs, maxIdleSecs);
+      }
+      Map<byte[], byte[]> entries = new HashMap<byte[], byte[]>(map.size() * 2);
       for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
-         put(entry.getKey(), entry.getValue(), lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+         entries.put(obj2bytes(entry.getKey(), true), obj2bytes(entry.getValue(), false));
       }
+      executeInParallel(operationsFactory.newPutAllOperations(entries, lifespanSecs, maxIdleSecs));
    }
 
    @Override
@@ -203,15 +236,19 @@ public ServerStatistics stats() {
    @SuppressWarnings("unchecked")
    public V put(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       assertRemoteCacheManagerIsStarted();
+      PutOperation op = newPutOperation(key, value, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+      byte[] result = op.execute();
+      return (V) bytes2obj(result);
+   }
+
+   private PutOperation newPutOperation(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       int lifespanSecs = toSeconds(lifespan, lifespanUnit);
       int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
       applyDefaultExpirationFlags(lifespan, maxIdleTime);
       if (log.isTraceEnabled()) {
          log.tracef("About to add (K,V): (%s, %s) lifespanSecs:%d, maxIdleSecs:%d", key, value, lifespanSecs, maxIdleSecs);
       }
-      PutOperation op = operationsFactory.newPutKeyValueOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
-      byte[] result = op.execute();
-      return (V) bytes2obj(result);
+      return operationsFactory.newPutKeyValueOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
    }
 
 
@@ -219,29 +256,41 @@ public V put(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleT
    @SuppressWarnings("unchecked")
    public V putIfAbsent(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       assertRemoteCacheManagerIsStarted();
+      PutIfAbsentOperation op = newPutIfAbsentOperation(key, value, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+      byte[] bytes = op.execute();
+      return (V) bytes2obj(bytes);
+   }
+
+   private PutIfAbsentOperation newPutIfAbsentOperation(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       int lifespanSecs = toSeconds(lifespan, lifespanUnit);
       int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
       applyDefaultExpirationFlags(lifespan, maxIdleTime);
-      PutIfAbsentOperation op = operationsFactory.newPutIfAbsentOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
-      byte[] bytes = op.execute();
-      return (V) bytes2obj(bytes);
+      return operationsFactory.newPutIfAbsentOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
    }
 
    @Override
    @SuppressWarnings("unchecked")
    public V replace(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       assertRemoteCacheManagerIsStarted();
+      ReplaceOperation op = newReplaceOperation(key, value, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+      byte[] bytes = op.execute();
+      return (V) bytes2obj(bytes);
+   }
+
+   private ReplaceOperation newReplaceOperation(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       int lifespanSecs = toSeconds(lifespan, lifespanUnit);
       int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
       applyDefaultExpirationFlags(lifespan, maxIdleTime);
-      ReplaceOperation op = operationsFactory.newReplaceOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
-      byte[] bytes = op.execute();
-      return (V) bytes2obj(bytes);
+      return operationsFactory.newReplaceOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
    }
 
    @Override
    public NotifyingFuture<V> putAsync(final K key, final V value, final long lifespan, final TimeUnit lifespanUnit, final long maxIdle, final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isAsyncTransport()) {
+         PutOperation op = newPutOperation(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+         return convert(op.executeAsync(), new ValueConverter());
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -258,6 +307,9 @@ public V call() throws Exception {
    @Override
    public NotifyingFuture<Void> clearAsync() {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isAsyncTransport()) {
+         return operationsFactory.newClearOperation().executeAsync();
+      }
       final NotifyingFutureImpl<Void> result = new NotifyingFutureImpl<Void>();
       Future<Void> future = executorService.submit(new Callable<Void>() {
          @Override
@@ -274,6 +326,10 @@ public Void call() throws Exception {
    @Override
    public NotifyingFuture<V> putIfAbsentAsync(final K key,final V value,final long lifespan,final TimeUnit lifespanUnit,final long maxIdle,final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isAsyncTransport()) {
+         PutIfAbsentOperation op = newPutIfAbsentOperation(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+         return convert(op.executeAsync(), new ValueConverter());
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -290,6 +346,10 @@ public V call() throws Exception {
    @Override
    public NotifyingFuture<V> removeAsync(final Object key) {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isAsyncTransport()) {
+         RemoveOperation op = operationsFactory.newRemoveOperation(obj2bytes(key, true));
+         return convert(op.executeAsync(), new ValueConverter());
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -306,6 +366,10 @@ public V call() throws Exception {
    @Override
    public NotifyingFuture<V> replaceAsync(final K key,final V value,final long lifespan,final TimeUnit lifespanUnit,final long maxIdle,final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isAsyncTransport()) {
+         ReplaceOperation op = newReplaceOperation(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+         return convert(op.executeAsync(), new ValueConverter());
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -340,6 +404,86 @@ public V get(Object key) {
       return result;
    }
 
+   @Override
+   @SuppressWarnings("unchecked")
+   public Map<K, V> getAll(Set<? extends K> keys) {
+      assertRemoteCacheManagerIsStarted();
+      Map<K, V> toReturn = new HashMap<K, V>();
+      if (!operationsFactory.isBulkOperationSupported()) {
+         for (K key : keys) {
+            V value = get(key);
+            if (value != null) {
+               toReturn.put(key, value);
+            }
+         }
+         return Collections.unmodifiableMap(toReturn);
+      }
+      if (keys.isEmpty()) {
+         return Collections.unmodifiableMap(toReturn);
+      }
+      Set<byte[]> keysBytes = new HashSet<byte[]>();
+      for (K key : keys) {
+         keysBytes.add(obj2bytes(key, true));
+      }
+      for (Map<byte[], byte[]> result : executeInParallel(operationsFactory.newGetAllOperations(keysBytes))) {
+         for (Map.Entry<byte[], byte[]> entry : result.entrySet()) {
+            toReturn.put((K) bytes2obj(entry.getKey()), (V) bytes2obj(entry.getValue()));
+         }
+      }
+      if (log.isTraceEnabled()) {
+         log.tracef("For %d keys returning %d entries", keys.size(), toReturn.size());
+      }
+      return Collections.unmodifiableMap(toReturn);
+   }
+
+   /**
+    * Executes the operations, which are directed to different servers, concurrently. All but the first one are sent
+    * asynchronously if the transport allows it, or handed to the executor otherwise. Since the executor may be busy
+    * running the calling thread itself, the operations it hasn't started yet are run by the calling thread.
+    */
+   private <T> List<T> executeInParallel(List<? extends AsyncOperation<T>> operations) {
+      List<T> results = new ArrayList<T>(operations.size());
+      List<Future<T>> futures = new ArrayList<Future<T>>(operations.size());
+      for (int i = 1; i < operations.size(); i++) {
+         final AsyncOperation<T> op = operations.get(i);
+         if (operationsFactory.isAsyncTransport()) {
+            futures.add(op.executeAsync());
+         } else {
+            FutureTask<T> task = new FutureTask<T>(new Callable<T>() {
+               @Override
+               public T call() {
+                  return op.execute();
+               }
+            });
+            executorService.execute(task);
+            futures.add(task);
+         }
+      }
+      results.add(operations.get(0).execute());
+      for (Future<T> future : futures) {
+         if (future instanceof FutureTask) {
+            // does nothing if an executor thread already picked it up
+            ((FutureTask<T>) future).run();
+         }
+         results.add(waitFor(future));
+      }
+      return results;
+   }
+
+   private static <T> T waitFor(Future<T> future) {
+      try {
+         return future.get();
+      } catch (ExecutionException e) {
+         if (e.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) e.getCause();
+         }
+         throw new HotRodClientException(e.getCause());
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new HotRodClientException(e);
+      }
+   }
+
    @Override
    public Map<K, V> getBulk() {
       return getBulk(0);
@@ -416,6 +560,10 @@ public RemoteCache<K, V> withFlags(Flag... flags) {
    @Override
    public NotifyingFuture<V> getAsync(final K key) {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isAsyncTransport()) {
+         GetOperation op = operationsFactory.newGetKeyOperation(obj2bytes(key, true));
+         return convert(op.executeAsync(), new ValueConverter());
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -433,6 +581,51 @@ public PingOperation.PingResult ping() {
       return operationsFactory.newFaultTolerantPingOperation().execute();
    }
 
+   private <S, T> NotifyingFuture<T> convert(NotifyingFuture<S> responseFuture, ResponseConverter<S, T> converter) {
+      responseFuture.attachListener(converter);
+      return converter.result;
+   }
+
+   /**
+    * Completes a future with the converted response of an operation executed asynchronously.
+    */
+   private abstract static class ResponseConverter<S, T> implements FutureListener<S> {
+      final ResponseFuture<T> result = new ResponseFuture<T>();
+
+      @Override
+      public void futureDone(Future<S> future) {
+         try {
+            result.complete(convert(future.get()));
+         } catch (CancellationException e) {
+            result.cancel(false);
+         } catch (ExecutionException e) {
+            result.fail(e.getCause());
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.fail(e);
+         } catch (RuntimeException e) {
+            result.fail(e);
+         }
+      }
+
+      abstract T convert(S response);
+   }
+
+   private class ValueConverter extends ResponseConverter<byte[], V> {
+      @Override
+      @SuppressWarnings("unchecked")
+      V convert(byte[] response) {
+         return (V) bytes2obj(response);
+      }
+   }
+
+   private static class UpdatedConverter extends ResponseConverter<VersionedOperationResponse, Boolean> {
+      @Override
+      Boolean convert(VersionedOperationResponse response) {
+         return response.getCode().isUpdated();
+      }
+   }
+
    private byte[] obj2bytes(Object o, boolean isKey) {
       try {
          return marshaller.objectToByteBuffer(o, isKey ? estimateKeySize : estimateValueSize);
@@ -0,0 +1,102 @@
+package org.infinispan.client.hotrod.impl.async;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
+
+/**
+ * Notifying future completed explicitly by the code receiving the response, rather than by a task running in an
+ * executor. Listeners attached after completion are notified straight away.
+ *
+ * @since 6.0
+ */
+public class ResponseFuture<T> implements NotifyingFuture<T> {
+
+   private final CountDownLatch done = new CountDownLatch(1);
+   private final AtomicBoolean completed = new AtomicBoolean();
+   private final CopyOnWriteArraySet<FutureListener<T>> listeners = new CopyOnWriteArraySet<FutureListener<T>>();
+   private volatile T value;
+   private volatile Throwable failure;
+   private volatile boolean cancelled;
+
+   public boolean complete(T value) {
+      if (!completed.compareAndSet(false, true))
+         return false;
+      this.value = value;
+      notifyFutureCompletion();
+      return true;
+   }
+
+   public boolean fail(Throwable failure) {
+      if (!completed.compareAndSet(false, true))
+         return false;
+      this.failure = failure;
+      notifyFutureCompletion();
+      return true;
+   }
+
+   @Override
+   public boolean cancel(boolean mayInterruptIfRunning) {
+      // The request might already be on the wire, its response is simply discarded
+      if (!completed.compareAndSet(false, true))
+         return false;
+      cancelled = true;
+      notifyFutureCompletion();
+      return true;
+   }
+
+   @Override
+   public NotifyingFuture<T> attachListener(FutureListener<T> futureListener) {
+      listeners.add(futureListener);
+      // Removing the listener makes sure it is notified exactly once
+      if (isDone() && listeners.remove(futureListener))
+         futureListener.futureDone(this);
+      return this;
+   }
+
+   private void notifyFutureCompletion() {
+      done.countDown();
+      for (FutureListener<T> listener : listeners) {
+         if (listeners.remove(listener))
+            listener.futureDone(this);
+      }
+   }
+
+   @Override
+   public boolean isCancelled() {
+      return cancelled;
+   }
+
+   @Override
+   public boolean isDone() {
+      return done.getCount() == 0;
+   }
+
+   @Override
+   public T get() throws InterruptedException, ExecutionException {
+      done.await();
+      return report();
+   }
+
+   @Override
+   public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+      if (!done.await(timeout, unit))
+         throw new TimeoutException();
+      return report();
+   }
+
+   private T report() throws ExecutionException {
+      if (cancelled)
+         throw new CancellationException();
+      if (failure != null)
+         throw new ExecutionException(failure);
+      return value;
+   }
+}
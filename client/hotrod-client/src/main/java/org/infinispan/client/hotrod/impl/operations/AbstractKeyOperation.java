@@ -21,7 +21,7 @@
  * @since 4.1
  */
 @Immutable
-public abstract class AbstractKeyOperation<T> extends RetryOnFailureOperation<T> {
+public abstract class AbstractKeyOperation<T> extends AsyncOperation<T> {
 
    private static final BasicLogger log = BasicLogFactory.getLog(AbstractKeyOperation.class);
 
@@ -42,14 +42,10 @@ protected Transport getTransport(int retryCount) {
       }
    }
 
-   protected short sendKeyOperation(byte[] key, Transport transport, byte opCode, byte opRespCode) {
-      // 1) write [header][key length][key]
+   protected HeaderParams writeKeyRequest(Transport transport, short opCode) {
       HeaderParams params = writeHeader(transport, opCode);
       transport.writeArray(key);
-      transport.flush();
-
-      // 2) now read the header
-      return readHeaderAndValidate(transport, params);
+      return params;
    }
 
    protected byte[] returnPossiblePrevValue(Transport transport) {
@@ -0,0 +1,139 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.Immutable;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.exceptions.HotRodTimeoutException;
+import org.infinispan.client.hotrod.exceptions.RemoteNodeSuspectException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.async.ResponseFuture;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.AsyncTransport;
+import org.infinispan.client.hotrod.impl.transport.ResponseHandler;
+import org.infinispan.client.hotrod.impl.transport.SyncResponseHandler;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
+
+/**
+ * Operation whose request is written as a whole before its response is read, so that the response can be read by
+ * the thread reading from an {@link AsyncTransport}'s connection instead of by the thread which sent the request.
+ * Only these operations can be executed with {@link #executeAsync()}, and they are the only ones which can be
+ * executed over an {@link AsyncTransport}.
+ *
+ * @param <T> the return type of this operation
+ * @since 6.0
+ */
+@Immutable
+public abstract class AsyncOperation<T> extends RetryOnFailureOperation<T> {
+
+   protected AsyncOperation(Codec codec, TransportFactory transportFactory,
+            byte[] cacheName, AtomicInteger topologyId, Flag[] flags) {
+      super(codec, transportFactory, cacheName, topologyId, flags);
+   }
+
+   /**
+    * Writes the whole request to the transport, without flushing it.
+    */
+   protected abstract HeaderParams writeRequest(Transport transport);
+
+   /**
+    * Reads the response to the request written by {@link #writeRequest(Transport)}. Over an {@link AsyncTransport}, it
+    * is called by the thread reading from the connection.
+    */
+   protected abstract T readResponse(Transport transport, HeaderParams params);
+
+   /**
+    * Sends the request and reads the response. Over an {@link AsyncTransport}, the response is read by the thread
+    * reading from the connection, and the calling thread only waits for the decoded response.
+    */
+   @Override
+   protected final T executeOperation(final Transport transport) {
+      final HeaderParams params = writeRequest(transport);
+      if (transport instanceof AsyncTransport) {
+         SyncResponseHandler<T> handler = new SyncResponseHandler<T>() {
+            @Override
+            protected T decodeResponse() {
+               return readResponse(transport, params);
+            }
+         };
+         ((AsyncTransport) transport).flush(handler);
+         return handler.await();
+      }
+      transport.flush();
+      return readResponse(transport, params);
+   }
+
+   /**
+    * Sends the request and returns straight away. The returned future is completed by the thread reading the
+    * response, failed requests are retried like in {@link #execute()}, and requests which didn't get a response within
+    * the transport's timeout fail with a {@link HotRodTimeoutException}. Requires a transport factory handing out
+    * {@link AsyncTransport}s.
+    */
+   public NotifyingFuture<T> executeAsync() {
+      ResponseFuture<T> future = new ResponseFuture<T>();
+      executeAsync(0, future);
+      return future;
+   }
+
+   private void executeAsync(final int retryCount, final ResponseFuture<T> future) {
+      Transport transport = null;
+      try {
+         transport = getTransport(retryCount);
+         final Transport requestTransport = transport;
+         final HeaderParams params = writeRequest(transport);
+         ((AsyncTransport) transport).flush(new ResponseHandler() {
+            @Override
+            public void responseReceived() {
+               try {
+                  T response = readResponse(requestTransport, params);
+                  // discarded if the request timed out or was cancelled
+                  future.complete(response);
+               } catch (TransportException te) {
+                  transportFactory.invalidateTransport(te.getServerAddress(), requestTransport);
+                  retryAsync(retryCount, te, future);
+               } catch (RemoteNodeSuspectException e) {
+                  retryAsync(retryCount, e, future);
+               } catch (RuntimeException e) {
+                  future.fail(e);
+               }
+            }
+
+            @Override
+            public void failed(TransportException te) {
+               transportFactory.invalidateTransport(te.getServerAddress(), requestTransport);
+               retryAsync(retryCount, te, future);
+            }
+
+            @Override
+            public void timedOut(HotRodTimeoutException e) {
+               future.fail(e);
+            }
+         });
+      } catch (TransportException te) {
+         transportFactory.invalidateTransport(te.getServerAddress(), transport);
+         retryAsync(retryCount, te, future);
+      } catch (RuntimeException e) {
+         future.fail(e);
+      } finally {
+         releaseTransport(transport);
+      }
+   }
+
+   private void retryAsync(int retryCount, HotRodClientException e, ResponseFuture<T> future) {
+      // nothing to retry once the request timed out or was cancelled
+      if (future.isDone())
+         return;
+      try {
+         logErrorAndThrowExceptionIfNeeded(retryCount, e);
+      } catch (HotRodClientException lastFailure) {
+         future.fail(lastFailure);
+         return;
+      }
+      executeAsync(retryCount + 1, future);
+   }
+}
@@ -16,7 +16,7 @@
  * @author Mircea.Markus@jboss.com
  * @since 4.1
  */
-public class BulkGetOperation extends RetryOnFailureOperation<Map<byte[], byte[]>> {
+public class BulkGetOperation extends AsyncOperation<Map<byte[], byte[]>> {
 
    private final int entryCount;
 
@@ -31,10 +31,14 @@ protected Transport getTransport(int retryCount) {
    }
 
    @Override
-   protected Map<byte[], byte[]> executeOperation(Transport transport) {
+   protected HeaderParams writeRequest(Transport transport) {
       HeaderParams params = writeHeader(transport, BULK_GET_REQUEST);
       transport.writeVInt(entryCount);
-      transport.flush();
+      return params;
+   }
+
+   @Override
+   protected Map<byte[], byte[]> readResponse(Transport transport, HeaderParams params) {
       readHeaderAndValidate(transport, params);
       Map<byte[], byte[]> result = new HashMap<byte[], byte[]>();
       while ( transport.readByte() == 1) { //there's more!
@@ -16,7 +16,7 @@
  * @since 4.1
  */
 @Immutable
-public class ClearOperation extends RetryOnFailureOperation<Void> {
+public class ClearOperation extends AsyncOperation<Void> {
 
    public ClearOperation(Codec codec, TransportFactory transportFactory,
             byte[] cacheName, AtomicInteger topologyId, Flag[] flags) {
@@ -29,10 +29,12 @@ protected Transport getTransport(int retryCount) {
    }
 
    @Override
-   protected Void executeOperation(Transport transport) {
-      HeaderParams params = writeHeader(transport, CLEAR_REQUEST);
-      transport.flush();
+   protected HeaderParams writeRequest(Transport transport) {
+      return writeHeader(transport, CLEAR_REQUEST);
+   }
 
+   @Override
+   protected Void readResponse(Transport transport, HeaderParams params) {
       readHeaderAndValidate(transport, params);
       return null;
    }
@@ -2,6 +2,7 @@
 
 import org.infinispan.client.hotrod.Flag;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
 
@@ -13,7 +14,7 @@
  * @author Galder Zamarreño
  * @since 5.2
  */
-public class FaultTolerantPingOperation extends RetryOnFailureOperation<PingOperation.PingResult> {
+public class FaultTolerantPingOperation extends AsyncOperation<PingOperation.PingResult> {
 
    protected FaultTolerantPingOperation(Codec codec, TransportFactory transportFactory,
          byte[] cacheName, AtomicInteger topologyId, Flag[] flags) {
@@ -26,8 +27,13 @@ protected Transport getTransport(int retryCount) {
    }
 
    @Override
-   protected PingOperation.PingResult executeOperation(Transport transport) {
-      return new PingOperation(codec, topologyId, transport, cacheName).execute();
+   protected HeaderParams writeRequest(Transport transport) {
+      return new PingOperation(codec, topologyId, transport, cacheName).writeRequest();
+   }
+
+   @Override
+   protected PingOperation.PingResult readResponse(Transport transport, HeaderParams params) {
+      return new PingOperation(codec, topologyId, transport, cacheName).readResponse(params);
    }
 
 }
@@ -0,0 +1,66 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import net.jcip.annotations.Immutable;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+import java.net.SocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads the values of several keys with a single request. The keys are expected to be owned by the same server, which
+ * is tried first, any other server is used when retrying. Only the keys having a value are part of the result.
+ *
+ * @since 6.0
+ */
+@Immutable
+public class GetAllOperation extends AsyncOperation<Map<byte[], byte[]>> {
+
+   private final Set<byte[]> keys;
+
+   private final SocketAddress server;
+
+   public GetAllOperation(Codec codec, TransportFactory transportFactory, Set<byte[]> keys, SocketAddress server,
+                          byte[] cacheName, AtomicInteger topologyId, Flag[] flags) {
+      super(codec, transportFactory, cacheName, topologyId, flags);
+      this.keys = keys;
+      this.server = server;
+   }
+
+   @Override
+   protected Transport getTransport(int retryCount) {
+      if (retryCount == 0 && server != null) {
+         return transportFactory.getAddressTransport(server);
+      } else {
+         return transportFactory.getTransport();
+      }
+   }
+
+   @Override
+   protected HeaderParams writeRequest(Transport transport) {
+      HeaderParams params = writeHeader(transport, GET_ALL_REQUEST);
+      transport.writeVInt(keys.size());
+      for (byte[] key : keys) {
+         transport.writeArray(key);
+      }
+      return params;
+   }
+
+   @Override
+   protected Map<byte[], byte[]> readResponse(Transport transport, HeaderParams params) {
+      readHeaderAndValidate(transport, params);
+      int size = transport.readVInt();
+      Map<byte[], byte[]> result = new HashMap<byte[], byte[]>(size * 2);
+      for (int i = 0; i < size; i++) {
+         result.put(transport.readArray(), transport.readArray());
+      }
+      return result;
+   }
+}
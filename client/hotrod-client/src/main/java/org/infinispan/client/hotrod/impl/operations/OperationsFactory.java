@@ -5,13 +5,19 @@
 import org.infinispan.client.hotrod.Flag;
 import org.infinispan.client.hotrod.RemoteCacheManager;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.Codec13;
 import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
 import org.infinispan.client.hotrod.impl.query.RemoteQuery;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
 
+import java.net.SocketAddress;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -125,6 +131,55 @@ public BulkGetKeysOperation newBulkGetKeysOperation(int scope) {
     		codec, transportFactory, cacheNameBytes, topologyId, flags(), scope);
    }
 
+   /**
+    * Creates one get all operation per server owning some of the keys, so that every server receives all the keys it
+    * owns with a single request. All the operations share the flags set for the current invocation.
+    */
+   public List<GetAllOperation> newGetAllOperations(Set<byte[]> keys) {
+      Flag[] flags = flags();
+      Map<SocketAddress, Set<byte[]>> keysByServer = new HashMap<SocketAddress, Set<byte[]>>();
+      for (byte[] key : keys) {
+         SocketAddress server = transportFactory.getServer(key);
+         Set<byte[]> serverKeys = keysByServer.get(server);
+         if (serverKeys == null) {
+            serverKeys = new HashSet<byte[]>();
+            keysByServer.put(server, serverKeys);
+         }
+         serverKeys.add(key);
+      }
+      List<GetAllOperation> operations = new ArrayList<GetAllOperation>(keysByServer.size());
+      for (Map.Entry<SocketAddress, Set<byte[]>> e : keysByServer.entrySet()) {
+         operations.add(new GetAllOperation(
+               codec, transportFactory, e.getValue(), e.getKey(), cacheNameBytes, topologyId, flags));
+      }
+      return operations;
+   }
+
+   /**
+    * Creates one put all operation per server owning some of the entries' keys, see
+    * {@link #newGetAllOperations(java.util.Set)}.
+    */
+   public List<PutAllOperation> newPutAllOperations(Map<byte[], byte[]> entries, int lifespanSecs, int maxIdleSecs) {
+      Flag[] flags = flags();
+      Map<SocketAddress, Map<byte[], byte[]>> entriesByServer = new HashMap<SocketAddress, Map<byte[], byte[]>>();
+      for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+         SocketAddress server = transportFactory.getServer(entry.getKey());
+         Map<byte[], byte[]> serverEntries = entriesByServer.get(server);
+         if (serverEntries == null) {
+            serverEntries = new HashMap<byte[], byte[]>();
+            entriesByServer.put(server, serverEntries);
+         }
+         serverEntries.put(entry.getKey(), entry.getValue());
+      }
+      List<PutAllOperation> operations = new ArrayList<PutAllOperation>(entriesByServer.size());
+      for (Map.Entry<SocketAddress, Map<byte[], byte[]>> e : entriesByServer.entrySet()) {
+         operations.add(new PutAllOperation(
+               codec, transportFactory, e.getValue(), e.getKey(), cacheNameBytes, topologyId, flags,
+               lifespanSecs, maxIdleSecs));
+      }
+      return operations;
+   }
+
    /**
     * Construct a ping request directed to a particular node.
     *
@@ -152,6 +207,21 @@ public QueryOperation newQueryOperation(RemoteQuery remoteQuery) {
             codec, transportFactory, cacheNameBytes, topologyId, flags(), remoteQuery);
    }
 
+   /**
+    * Returns true if the transports support {@link AsyncOperation#executeAsync()}, i.e. operations can
+    * complete without a thread waiting for their response.
+    */
+   public boolean isAsyncTransport() {
+      return transportFactory.isAsync();
+   }
+
+   /**
+    * Returns true if the servers are spoken to with a protocol version supporting the get all and put all operations.
+    */
+   public boolean isBulkOperationSupported() {
+      return codec instanceof Codec13;
+   }
+
    private Flag[] flags() {
       List<Flag> flags = this.flagsMap.get();
       this.flagsMap.remove();
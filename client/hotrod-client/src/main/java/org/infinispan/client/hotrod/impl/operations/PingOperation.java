@@ -9,6 +9,8 @@
 import org.infinispan.client.hotrod.impl.protocol.Codec;
 import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
 import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
+import org.infinispan.client.hotrod.impl.transport.AsyncTransport;
+import org.infinispan.client.hotrod.impl.transport.SyncResponseHandler;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.commons.logging.BasicLogFactory;
 import org.jboss.logging.BasicLogger;
@@ -37,10 +39,27 @@ public PingOperation(Codec codec, AtomicInteger topologyId, Transport transport,
 
    @Override
    public PingResult execute() {
-      try {
-         HeaderParams params = writeHeader(transport, HotRodConstants.PING_REQUEST);
-         transport.flush();
+      final HeaderParams params = writeRequest();
+      if (transport instanceof AsyncTransport) {
+         SyncResponseHandler<PingResult> handler = new SyncResponseHandler<PingResult>() {
+            @Override
+            protected PingResult decodeResponse() {
+               return readResponse(params);
+            }
+         };
+         ((AsyncTransport) transport).flush(handler);
+         return handler.await();
+      }
+      transport.flush();
+      return readResponse(params);
+   }
 
+   HeaderParams writeRequest() {
+      return writeHeader(transport, HotRodConstants.PING_REQUEST);
+   }
+
+   PingResult readResponse(HeaderParams params) {
+      try {
          short respStatus = readHeaderAndValidate(transport, params);
          if (respStatus == HotRodConstants.NO_ERROR_STATUS) {
             if (log.isTraceEnabled())
@@ -23,7 +23,7 @@
  * @author anistor@redhat.com
  * @since 6.0
  */
-public class QueryOperation extends RetryOnFailureOperation<QueryResponse> {
+public class QueryOperation extends AsyncOperation<QueryResponse> {
 
    private final RemoteQuery remoteQuery;
 
@@ -39,7 +39,7 @@ protected Transport getTransport(int retryCount) {
    }
 
    @Override
-   protected QueryResponse executeOperation(Transport transport) {
+   protected HeaderParams writeRequest(Transport transport) {
       HeaderParams params = writeHeader(transport, QUERY_REQUEST);
       QueryRequest queryRequest = new QueryRequest();
       queryRequest.setJpqlString(remoteQuery.getJpqlString());
@@ -63,12 +63,15 @@ protected QueryResponse executeOperation(Transport transport) {
          throw new CacheException(e);  //todo [anistor] need better exception handling
       }
       transport.writeArray(requestBytes);
-      transport.flush();
+      return params;
+   }
 
+   @Override
+   protected QueryResponse readResponse(Transport transport, HeaderParams params) {
       readHeaderAndValidate(transport, params);
       byte[] responseBytes = transport.readArray();
       try {
-         QueryResponse queryResponse = ProtobufUtil.fromByteArray(serCtx, responseBytes, QueryResponse.class);
+         QueryResponse queryResponse = ProtobufUtil.fromByteArray(remoteQuery.getSerializationContext(), responseBytes, QueryResponse.class);
          return queryResponse;
       } catch (IOException e) {
          throw new CacheException(e);  //todo [anistor] need better exception handling
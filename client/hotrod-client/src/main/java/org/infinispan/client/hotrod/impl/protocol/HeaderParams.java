@@ -91,6 +91,10 @@ private short toOpRespCode(short opCode) {
             return HotRodConstants.BULK_GET_KEYS_RESPONSE;
          case HotRodConstants.QUERY_REQUEST:
             return HotRodConstants.QUERY_RESPONSE;
+         case HotRodConstants.GET_ALL_REQUEST:
+            return HotRodConstants.GET_ALL_RESPONSE;
+         case HotRodConstants.PUT_ALL_REQUEST:
+            return HotRodConstants.PUT_ALL_RESPONSE;
          default:
             throw new IllegalStateException("Unknown operation code: " + opCode);
       }
@@ -16,6 +16,7 @@ public interface HotRodConstants {
    static final byte VERSION_10 = 10;
    static final byte VERSION_11 = 11;
    static final byte VERSION_12 = 12;
+   static final byte VERSION_13 = 13;
 
    //requests
    static final byte PUT_REQUEST = 0x01;
@@ -34,6 +35,8 @@ public interface HotRodConstants {
    static final byte GET_WITH_METADATA = 0x1B;
    static final byte BULK_GET_KEYS_REQUEST = 0x1D;
    static final byte QUERY_REQUEST = 0x1F;
+   static final byte GET_ALL_REQUEST = 0x21;
+   static final byte PUT_ALL_REQUEST = 0x23;
 
 
    //responses
@@ -53,6 +56,8 @@ public interface HotRodConstants {
    static final byte GET_WITH_METADATA_RESPONSE = 0x1C;
    static final byte BULK_GET_KEYS_RESPONSE = 0x1E;
    static final byte QUERY_RESPONSE = 0x20;
+   static final byte GET_ALL_RESPONSE = 0x22;
+   static final byte PUT_ALL_RESPONSE = 0x24;
    static final byte ERROR_RESPONSE = 0x50;
 
    //response status
@@ -0,0 +1,16 @@
+package org.infinispan.client.hotrod.impl.transport;
+
+/**
+ * A {@link Transport} which can send a request without blocking the caller until the response arrives.
+ *
+ * @since 6.0
+ */
+public interface AsyncTransport extends Transport {
+
+   /**
+    * Sends the request written so far. Instead of blocking on the next read, the caller is notified through the
+    * handler once the response can be read from this transport.
+    */
+   void flush(ResponseHandler handler);
+
+}
@@ -0,0 +1,31 @@
+package org.infinispan.client.hotrod.impl.transport;
+
+import org.infinispan.client.hotrod.exceptions.HotRodTimeoutException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+
+/**
+ * Callback notified when the response to a request sent through an {@link AsyncTransport} becomes available.
+ *
+ * @since 6.0
+ */
+public interface ResponseHandler {
+
+   /**
+    * Invoked by the thread reading from the connection once the response is available. The implementation must read
+    * the whole response from the transport the request was sent with before returning, and must not block on anything
+    * else, since the responses to the other requests sharing the connection are only read after it returns.
+    */
+   void responseReceived();
+
+   /**
+    * Invoked if the connection fails before the response was received.
+    */
+   void failed(TransportException e);
+
+   /**
+    * Invoked if the response didn't arrive within the transport's timeout. The handler is not notified any further: if
+    * the response arrives later on, the connection fails for the requests still waiting on it.
+    */
+   void timedOut(HotRodTimeoutException e);
+
+}
@@ -0,0 +1,64 @@
+package org.infinispan.client.hotrod.impl.transport;
+
+import java.util.concurrent.ExecutionException;
+
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.exceptions.HotRodTimeoutException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.async.ResponseFuture;
+
+/**
+ * Handler used to execute a request synchronously over an {@link AsyncTransport}: the response is decoded by the
+ * thread reading from the connection, and only the decoded response is handed over to the thread waiting in
+ * {@link #await()}, so that the reader never waits for the requesting thread.
+ *
+ * @param <T> the type of the decoded response
+ * @since 6.0
+ */
+public abstract class SyncResponseHandler<T> implements ResponseHandler {
+
+   private final ResponseFuture<T> response = new ResponseFuture<T>();
+
+   /**
+    * Reads the whole response from the transport the request was sent with. Called by the connection's reader thread.
+    */
+   protected abstract T decodeResponse();
+
+   @Override
+   public final void responseReceived() {
+      try {
+         response.complete(decodeResponse());
+      } catch (RuntimeException e) {
+         response.fail(e);
+      }
+   }
+
+   @Override
+   public final void failed(TransportException e) {
+      response.fail(e);
+   }
+
+   @Override
+   public final void timedOut(HotRodTimeoutException e) {
+      response.fail(e);
+   }
+
+   /**
+    * Waits for the decoded response, and rethrows the exception thrown while sending the request or decoding its
+    * response.
+    */
+   public T await() {
+      try {
+         return response.get();
+      } catch (InterruptedException e) {
+         // The response is discarded when it arrives
+         Thread.currentThread().interrupt();
+         throw new HotRodClientException(e);
+      } catch (ExecutionException e) {
+         Throwable cause = e.getCause();
+         if (cause instanceof RuntimeException)
+            throw (RuntimeException) cause;
+         throw new HotRodClientException(cause);
+      }
+   }
+}
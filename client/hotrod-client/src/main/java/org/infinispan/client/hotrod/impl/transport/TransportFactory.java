@@ -36,6 +36,17 @@ public interface TransportFactory {
 
    Transport getTransport(byte[] key);
 
+   /**
+    * Returns the server owning the given key according to the consistent hash, or null if no consistent hash is
+    * known yet.
+    */
+   SocketAddress getServer(byte[] key);
+
+   /**
+    * Returns a transport connected to the given server.
+    */
+   Transport getAddressTransport(SocketAddress server);
+
    boolean isTcpNoDelay();
 
    int getTransportCount();
@@ -47,4 +58,10 @@ public interface TransportFactory {
    void invalidateTransport(SocketAddress serverAddress, Transport transport);
 
    SSLContext getSSLContext();
+
+   /**
+    * Returns true if the transports handed out are {@link AsyncTransport}s, i.e. requests can complete without a
+    * thread waiting for their response.
+    */
+   boolean isAsync();
 }
@@ -0,0 +1,346 @@
+package org.infinispan.client.hotrod.impl.transport.nio;
+
+import static org.infinispan.commons.io.UnsignedNumeric.readUnsignedLong;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLContext;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.exceptions.HotRodTimeoutException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.transport.ResponseHandler;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.commons.util.Util;
+
+/**
+ * A single connection to a Hot Rod server shared by many concurrent requests.
+ * <p/>
+ * Requests are written as a whole under a write lock and their response handlers are registered by message id.
+ * A dedicated reader thread peeks at the magic and message id of every incoming response and hands the connection
+ * over to the handler of that request, which reads the rest of the response. Responses can therefore arrive in any
+ * order, and a request never needs its own socket or thread while it waits.
+ * <p/>
+ * Each request times out on its own: a request which didn't get its response within the socket timeout fails and its
+ * handler is unregistered, so that requests which never get a response don't accumulate. Since the body of a response
+ * can't be skipped without its handler, a response arriving after its request timed out invalidates the connection.
+ * <p/>
+ * Plain connections use a {@link SocketChannel} directly, since the streams of a channel's socket adaptor
+ * serialize reads and writes. SSL connections use the streams of the SSL socket.
+ *
+ * @since 6.0
+ */
+@ThreadSafe
+public class NioConnection implements Runnable {
+
+   private static final Log log = LogFactory.getLog(NioConnection.class, Log.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private static final AtomicLong ID_COUNTER = new AtomicLong(0);
+
+   /**
+    * Magic byte and the longest possible vlong message id.
+    */
+   private static final int RESPONSE_PREFIX_LIMIT = 11;
+
+   /**
+    * Bounds of the interval at which the pending requests are checked for timeouts, in milliseconds.
+    */
+   private static final long MIN_TIMEOUT_CHECK_INTERVAL = 10;
+   private static final long MAX_TIMEOUT_CHECK_INTERVAL = 1000;
+
+   private final SocketAddress serverAddress;
+   private final Socket socket;
+   private final SocketChannel socketChannel;
+   private final InputStream socketInputStream;
+   private final OutputStream socketOutputStream;
+   private final ConcurrentMap<Long, PendingResponse> pendingResponses = new ConcurrentHashMap<Long, PendingResponse>();
+   private final Object writeLock = new Object();
+   private final long id = ID_COUNTER.incrementAndGet();
+   private final Thread reader;
+   private final long responseTimeout;
+   private final ScheduledFuture<?> timeoutCheck;
+
+   private volatile boolean invalid;
+
+   public NioConnection(SocketAddress serverAddress, NioTransportFactory transportFactory) {
+      this.serverAddress = serverAddress;
+      try {
+         if (transportFactory.getSSLContext() != null) {
+            SSLContext sslContext = transportFactory.getSSLContext();
+            socketChannel = null; // We don't use a SocketChannel in the SSL case
+            socket = sslContext.getSocketFactory().createSocket();
+         } else {
+            socketChannel = SocketChannel.open();
+            socket = socketChannel.socket();
+         }
+         socket.connect(serverAddress, transportFactory.getConnectTimeout());
+         socket.setTcpNoDelay(transportFactory.isTcpNoDelay());
+         // The reader waits for responses indefinitely, requests time out individually
+         socket.setSoTimeout(0);
+         if (socketChannel != null) {
+            socketInputStream = new BufferedInputStream(new ChannelInputStream(socketChannel), socket.getReceiveBufferSize());
+            socketOutputStream = new ChannelOutputStream(socketChannel);
+         } else {
+            socketInputStream = new BufferedInputStream(socket.getInputStream(), socket.getReceiveBufferSize());
+            socketOutputStream = socket.getOutputStream();
+         }
+      } catch (Exception e) {
+         String message = String.format("Could not connect to server: %s", serverAddress);
+         log.tracef(e, "Could not connect to server: %s", serverAddress);
+         throw new TransportException(message, e, serverAddress);
+      }
+      responseTimeout = transportFactory.getSoTimeout();
+      if (responseTimeout > 0) {
+         long interval = Math.min(MAX_TIMEOUT_CHECK_INTERVAL, Math.max(MIN_TIMEOUT_CHECK_INTERVAL, responseTimeout / 10));
+         timeoutCheck = transportFactory.getTimeoutExecutor().scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+               checkTimeouts();
+            }
+         }, interval, interval, TimeUnit.MILLISECONDS);
+      } else {
+         timeoutCheck = null;
+      }
+      reader = new Thread(this, "HotRod-client-reader-" + id + "-" + serverAddress);
+      reader.setDaemon(true);
+      reader.start();
+   }
+
+   /**
+    * Writes a complete request and registers the handler to be notified of its response.
+    */
+   void send(long messageId, byte[] request, ResponseHandler handler) {
+      if (invalid)
+         throw new TransportException("Connection is no longer valid", serverAddress);
+      // Register before writing, the response might arrive before write() returns
+      long deadline = responseTimeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(responseTimeout) : 0;
+      pendingResponses.put(messageId, new PendingResponse(handler, deadline));
+      try {
+         synchronized (writeLock) {
+            socketOutputStream.write(request);
+            socketOutputStream.flush();
+         }
+         if (trace)
+            log.tracef("Wrote request for message %d (%d bytes) to %s", messageId, request.length, this);
+      } catch (IOException e) {
+         destroy();
+         // Unless the reader has failed the handler already
+         if (pendingResponses.remove(messageId) != null)
+            throw new TransportException(e, serverAddress);
+         return;
+      }
+      // If the connection failed in the meantime, the reader might have missed the handler
+      if (invalid && pendingResponses.remove(messageId) != null)
+         throw new TransportException("Connection is no longer valid", serverAddress);
+   }
+
+   @Override
+   public void run() {
+      TransportException failure = null;
+      try {
+         while (!invalid) {
+            socketInputStream.mark(RESPONSE_PREFIX_LIMIT);
+            if (socketInputStream.read() < 0)
+               throw new TransportException("End of stream reached!", serverAddress);
+            long messageId = readUnsignedLong(socketInputStream);
+            // Leave the whole header to the codec
+            socketInputStream.reset();
+
+            PendingResponse pending = pendingResponses.remove(messageId);
+            if (pending == null) {
+               // Errors for requests which could not be parsed carry message id 0, and responses to requests which
+               // timed out have no handler any longer. Since the body of a response can't be skipped without knowing
+               // its request, the connection can't be used any longer
+               throw new TransportException(String.format(
+                     "Received response for unknown or timed out message id %d", messageId), serverAddress);
+            }
+            if (trace)
+               log.tracef("Received response for message %d on %s", messageId, this);
+            try {
+               pending.handler.responseReceived();
+            } catch (Throwable t) {
+               log.tracef(t, "Response handler for message %d failed", messageId);
+            }
+         }
+      } catch (TransportException e) {
+         failure = e;
+      } catch (IOException e) {
+         failure = new TransportException(e, serverAddress);
+      } catch (RuntimeException e) {
+         failure = new TransportException(e, serverAddress);
+      } finally {
+         if (failure == null)
+            failure = new TransportException("Connection is no longer valid", serverAddress);
+         if (!invalid && trace)
+            log.tracef(failure, "Connection %s failed", this);
+         destroy();
+         failPendingResponses(failure);
+      }
+   }
+
+   /**
+    * Fails and unregisters the requests which didn't get their response in time. Whichever of the reader and the
+    * timeout check removes a request notifies its handler, so a handler is never notified twice.
+    */
+   private void checkTimeouts() {
+      long now = System.nanoTime();
+      for (Map.Entry<Long, PendingResponse> entry : pendingResponses.entrySet()) {
+         PendingResponse pending = entry.getValue();
+         if (now - pending.deadline >= 0 && pendingResponses.remove(entry.getKey(), pending)) {
+            try {
+               pending.handler.timedOut(new HotRodTimeoutException(String.format(
+                     "No response received from %s within %d ms", serverAddress, responseTimeout)));
+            } catch (Throwable t) {
+               log.tracef(t, "Response handler failed while notifying a timeout");
+            }
+         }
+      }
+   }
+
+   private void failPendingResponses(TransportException failure) {
+      for (Iterator<Map.Entry<Long, PendingResponse>> it = pendingResponses.entrySet().iterator(); it.hasNext(); ) {
+         ResponseHandler handler = it.next().getValue().handler;
+         it.remove();
+         try {
+            handler.failed(failure);
+         } catch (Throwable t) {
+            log.tracef(t, "Response handler failed while notifying %s", failure);
+         }
+      }
+   }
+
+   InputStream getInputStream() {
+      return socketInputStream;
+   }
+
+   public SocketAddress getServerAddress() {
+      return serverAddress;
+   }
+
+   public boolean isValid() {
+      return !invalid && !socket.isClosed();
+   }
+
+   /**
+    * Closes the connection as it is shared with other requests which could otherwise read a corrupted stream.
+    * Requests still waiting for their response fail.
+    */
+   public void invalidate() {
+      destroy();
+   }
+
+   public int getPendingResponses() {
+      return pendingResponses.size();
+   }
+
+   public void destroy() {
+      invalid = true;
+      if (timeoutCheck != null)
+         timeoutCheck.cancel(false);
+      try {
+         socketInputStream.close();
+         socketOutputStream.close();
+         if (socketChannel != null) socketChannel.close();
+         socket.close();
+         if (trace) {
+            log.tracef("Successfully closed socket: %s", socket);
+         }
+      } catch (IOException e) {
+         log.errorClosingConnection(this, e);
+         // Just in case an exception is thrown, make sure they're fully closed
+         Util.close(socketInputStream, socketOutputStream, socketChannel);
+         Util.close(socket);
+      }
+   }
+
+   @Override
+   public String toString() {
+      return "NioConnection{" +
+            "socket=" + socket +
+            ", serverAddress=" + serverAddress +
+            ", id =" + id +
+            "} ";
+   }
+
+   private static class PendingResponse {
+      final ResponseHandler handler;
+      final long deadline;
+
+      PendingResponse(ResponseHandler handler, long deadline) {
+         this.handler = handler;
+         this.deadline = deadline;
+      }
+   }
+
+   private static class ChannelInputStream extends InputStream {
+      private final SocketChannel channel;
+
+      ChannelInputStream(SocketChannel channel) {
+         this.channel = channel;
+      }
+
+      @Override
+      public int read() throws IOException {
+         byte[] b = new byte[1];
+         return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         if (len == 0)
+            return 0;
+         int read;
+         do {
+            read = channel.read(ByteBuffer.wrap(b, off, len));
+         } while (read == 0);
+         return read;
+      }
+
+      @Override
+      public void close() throws IOException {
+         channel.close();
+      }
+   }
+
+   private static class ChannelOutputStream extends OutputStream {
+      private final SocketChannel channel;
+
+      ChannelOutputStream(SocketChannel channel) {
+         this.channel = channel;
+      }
+
+      @Override
+      public void write(int b) throws IOException {
+         write(new byte[]{(byte) b}, 0, 1);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+         ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+         while (buffer.hasRemaining())
+            channel.write(buffer);
+      }
+
+      @Override
+      public void close() throws IOException {
+         channel.close();
+      }
+   }
+}
@@ -0,0 +1,209 @@
+package org.infinispan.client.hotrod.impl.transport.nio;
+
+import static org.infinispan.commons.io.UnsignedNumeric.readUnsignedInt;
+import static org.infinispan.commons.io.UnsignedNumeric.readUnsignedLong;
+import static org.infinispan.commons.io.UnsignedNumeric.writeUnsignedInt;
+import static org.infinispan.commons.io.UnsignedNumeric.writeUnsignedLong;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketAddress;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.transport.AbstractTransport;
+import org.infinispan.client.hotrod.impl.transport.AsyncTransport;
+import org.infinispan.client.hotrod.impl.transport.ResponseHandler;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+
+/**
+ * Transport used by a single operation over a shared {@link NioConnection}.
+ * <p/>
+ * The request is buffered until it is flushed with {@link #flush(ResponseHandler)}, at which point it is sent as a
+ * whole together with its message id. The response is read from this transport by the handler, which is called by
+ * the connection's reader thread, so the read methods can only be used from the handler. Synchronous operations wait
+ * for the response decoded by the handler, see {@link org.infinispan.client.hotrod.impl.transport.SyncResponseHandler},
+ * so {@link #flush()} is not supported.
+ *
+ * @since 6.0
+ */
+@NotThreadSafe
+public class NioTransport extends AbstractTransport implements AsyncTransport {
+
+   private static final Log log = LogFactory.getLog(NioTransport.class, Log.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private final NioConnection connection;
+   private final ByteArrayOutputStream request = new ByteArrayOutputStream(64);
+
+   public NioTransport(NioConnection connection, NioTransportFactory transportFactory) {
+      super(transportFactory);
+      this.connection = connection;
+   }
+
+   @Override
+   public void writeVInt(int vInt) {
+      try {
+         writeUnsignedInt(request, vInt);
+      } catch (IOException e) {
+         throw new TransportException(e, getServerAddress());
+      }
+   }
+
+   @Override
+   public void writeVLong(long l) {
+      try {
+         writeUnsignedLong(request, l);
+      } catch (IOException e) {
+         throw new TransportException(e, getServerAddress());
+      }
+   }
+
+   @Override
+   protected void writeBytes(byte[] toAppend) {
+      request.write(toAppend, 0, toAppend.length);
+   }
+
+   @Override
+   public void writeByte(short toWrite) {
+      request.write(toWrite);
+   }
+
+   /**
+    * Reading the response from the calling thread would hold up the responses of all the other requests sharing the
+    * connection, so requests must be sent with {@link #flush(ResponseHandler)}.
+    */
+   @Override
+   public void flush() {
+      throw new UnsupportedOperationException("Requests sent over a shared connection must be flushed with a ResponseHandler");
+   }
+
+   @Override
+   public void flush(ResponseHandler handler) {
+      byte[] bytes = request.toByteArray();
+      request.reset();
+      connection.send(readMessageId(bytes), bytes, handler);
+   }
+
+   /**
+    * The codec writes the message id right after the magic byte.
+    */
+   private long readMessageId(byte[] bytes) {
+      try {
+         ByteArrayInputStream in = new ByteArrayInputStream(bytes, 1, bytes.length - 1);
+         return readUnsignedLong(in);
+      } catch (IOException e) {
+         throw new TransportException(e, getServerAddress());
+      }
+   }
+
+   private InputStream input() {
+      return connection.getInputStream();
+   }
+
+   @Override
+   public long readVLong() {
+      try {
+         return readUnsignedLong(input());
+      } catch (IOException e) {
+         connection.invalidate();
+         throw new TransportException(e, getServerAddress());
+      }
+   }
+
+   @Override
+   public int readVInt() {
+      try {
+         return readUnsignedInt(input());
+      } catch (IOException e) {
+         connection.invalidate();
+         throw new TransportException(e, getServerAddress());
+      }
+   }
+
+   @Override
+   public short readByte() {
+      int resultInt;
+      try {
+         resultInt = input().read();
+      } catch (IOException e) {
+         connection.invalidate();
+         throw new TransportException(e, getServerAddress());
+      }
+      if (resultInt == -1) {
+         throw new TransportException("End of stream reached!", getServerAddress());
+      }
+      return (short) resultInt;
+   }
+
+   @Override
+   public byte[] readByteArray(int size) {
+      byte[] result = new byte[size];
+      int offset = 0;
+      try {
+         InputStream in = input();
+         while (offset < size) {
+            int read = in.read(result, offset, size - offset);
+            if (read == -1)
+               throw new TransportException("End of stream reached!", getServerAddress());
+            offset += read;
+         }
+      } catch (IOException e) {
+         connection.invalidate();
+         throw new TransportException(e, getServerAddress());
+      }
+      if (trace) {
+         log.tracef("Successfully read array with size: %d", size);
+      }
+      return result;
+   }
+
+   /**
+    * Nothing to release, the connection is shared and the responses are read by its reader thread.
+    */
+   @Override
+   public void release() {
+   }
+
+   @Override
+   public byte[] dumpStream() {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      try {
+         InputStream in = connection.getInputStream();
+         // The connection is invalidated after the dump, so only read what is already available
+         for (int i = 0; i < 32768 && in.available() > 0; i++) {
+            os.write(in.read());
+         }
+      } catch (IOException e) {
+         // Ignore
+      }
+      return os.toByteArray();
+   }
+
+   @Override
+   public SocketAddress getRemoteSocketAddress() {
+      return connection.getServerAddress();
+   }
+
+   public SocketAddress getServerAddress() {
+      return connection.getServerAddress();
+   }
+
+   public NioConnection getConnection() {
+      return connection;
+   }
+
+   @Override
+   public void invalidate() {
+      connection.invalidate();
+   }
+
+   @Override
+   public String toString() {
+      return "NioTransport{connection=" + connection + "}";
+   }
+}
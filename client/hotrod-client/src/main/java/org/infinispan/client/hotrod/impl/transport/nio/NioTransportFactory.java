@@ -0,0 +1,383 @@
+package org.infinispan.client.hotrod.impl.transport.nio;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.net.ssl.SSLContext;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.configuration.Configuration;
+import org.infinispan.client.hotrod.configuration.ServerConfiguration;
+import org.infinispan.client.hotrod.configuration.SslConfiguration;
+import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHash;
+import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHashFactory;
+import org.infinispan.client.hotrod.impl.operations.PingOperation;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.impl.transport.tcp.RequestBalancingStrategy;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.commons.util.SslContextFactory;
+import org.infinispan.commons.util.Util;
+
+/**
+ * Transport factory multiplexing all requests to a server over a small, fixed number of {@link NioConnection}s,
+ * instead of borrowing a socket per request from a pool. Every transport it hands out is an
+ * {@link org.infinispan.client.hotrod.impl.transport.AsyncTransport}, so the asynchronous
+ * {@link org.infinispan.client.hotrod.RemoteCache} methods complete from the connection's reader thread rather than
+ * blocking a thread of the async executor.
+ * <p/>
+ * Requests time out individually after the socket timeout, without closing the connection they were sent over. The
+ * number of connections opened to each server is the pool's {@code minIdle} setting (at least one). Enable it
+ * with {@link org.infinispan.client.hotrod.configuration.ConfigurationBuilder#transportFactory(Class)}.
+ *
+ * @since 6.0
+ */
+@ThreadSafe
+public class NioTransportFactory implements TransportFactory {
+
+   private static final Log log = LogFactory.getLog(NioTransportFactory.class, Log.class);
+
+   private final Object lock = new Object();
+   private final ConcurrentMap<SocketAddress, AtomicReferenceArray<NioConnection>> connections =
+         new ConcurrentHashMap<SocketAddress, AtomicReferenceArray<NioConnection>>();
+   private final AtomicInteger nextConnection = new AtomicInteger();
+   private RequestBalancingStrategy balancer;
+   private Collection<SocketAddress> servers;
+   private ConsistentHash consistentHash;
+   private final ConsistentHashFactory hashFactory = new ConsistentHashFactory();
+   private Codec codec;
+   private AtomicInteger topologyId;
+   private volatile ScheduledExecutorService timeoutExecutor;
+
+   private volatile boolean tcpNoDelay;
+   private volatile int soTimeout;
+   private volatile int connectTimeout;
+   private volatile int connectionsPerServer;
+   private volatile int maxActive;
+   private volatile int transportCount;
+   private volatile SSLContext sslContext;
+
+   @Override
+   public void start(Codec codec, Configuration configuration, AtomicInteger topologyId) {
+      synchronized (lock) {
+         this.codec = codec;
+         this.topologyId = topologyId;
+         hashFactory.init(configuration);
+         servers = new ArrayList<SocketAddress>();
+         for (ServerConfiguration server : configuration.servers()) {
+            servers.add(new InetSocketAddress(server.host(), server.port()));
+         }
+         servers = Collections.unmodifiableCollection(servers);
+         balancer = Util.getInstance(configuration.balancingStrategy());
+         tcpNoDelay = configuration.tcpNoDelay();
+         soTimeout = configuration.socketTimeout();
+         connectTimeout = configuration.connectionTimeout();
+         connectionsPerServer = Math.max(1, configuration.connectionPool().minIdle());
+         maxActive = configuration.connectionPool().maxActive();
+
+         if (configuration.ssl().enabled()) {
+            SslConfiguration ssl = configuration.ssl();
+            if (ssl.sslContext() != null) {
+               sslContext = ssl.sslContext();
+            } else {
+               sslContext = SslContextFactory.getContext(ssl.keyStoreFileName(), ssl.keyStorePassword(), ssl.trustStoreFileName(), ssl.trustStorePassword());
+            }
+         }
+
+         if (log.isDebugEnabled()) {
+            log.debugf("Statically configured servers: %s", servers);
+            log.debugf("Load balancer class: %s", balancer.getClass().getName());
+            log.debugf("Tcp no delay = %b; client socket timeout = %d ms; connect timeout = %d ms; connections per server = %d",
+                       tcpNoDelay, soTimeout, connectTimeout, connectionsPerServer);
+         }
+         balancer.setServers(servers);
+         updateTransportCount();
+         timeoutExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+               Thread thread = new Thread(r, "HotRod-client-timeouts");
+               thread.setDaemon(true);
+               return thread;
+            }
+         });
+      }
+
+      if (configuration.pingOnStartup())
+         pingServers();
+   }
+
+   private void pingServers() {
+      boolean pinged = false;
+      for (SocketAddress addr : getServers()) {
+         try {
+            // Connect to all statically configured nodes, the first one
+            // reachable provides the current topology
+            NioTransport transport = newTransport(addr);
+            if (!pinged) {
+               try {
+                  new PingOperation(codec, topologyId, transport).execute();
+                  pinged = true;
+               } finally {
+                  releaseTransport(transport);
+               }
+            }
+         } catch (Exception e) {
+            // Ignore exceptions from nodes that might not be up any more.
+            if (log.isTraceEnabled())
+               log.tracef(e, "Ignoring exception pinging configured servers %s to establish a connection",
+                     servers);
+         }
+      }
+   }
+
+   @Override
+   public void destroy() {
+      synchronized (lock) {
+         for (SocketAddress server : connections.keySet()) {
+            closeConnections(server);
+         }
+         if (timeoutExecutor != null)
+            timeoutExecutor.shutdownNow();
+      }
+   }
+
+   @Override
+   public void updateHashFunction(Map<SocketAddress, Set<Integer>> servers2Hash, int numKeyOwners, short hashFunctionVersion, int hashSpace) {
+      synchronized (lock) {
+         ConsistentHash hash = hashFactory.newConsistentHash(hashFunctionVersion);
+         if (hash == null) {
+            log.noHasHFunctionConfigured(hashFunctionVersion);
+         } else {
+            hash.init(servers2Hash, numKeyOwners, hashSpace);
+         }
+         consistentHash = hash;
+      }
+   }
+
+   @Override
+   public Transport getTransport() {
+      SocketAddress server;
+      synchronized (lock) {
+         server = balancer.nextServer();
+      }
+      return newTransport(server);
+   }
+
+   @Override
+   public Transport getTransport(byte[] key) {
+      SocketAddress server;
+      synchronized (lock) {
+         if (consistentHash != null) {
+            server = consistentHash.getServer(key);
+            if (log.isTraceEnabled()) {
+               log.tracef("Using consistent hash for determining the server: " + server);
+            }
+         } else {
+            server = balancer.nextServer();
+            if (log.isTraceEnabled()) {
+               log.tracef("Using the balancer for determining the server: %s", server);
+            }
+         }
+      }
+      return newTransport(server);
+   }
+
+   @Override
+   public SocketAddress getServer(byte[] key) {
+      synchronized (lock) {
+         return consistentHash != null ? consistentHash.getServer(key) : null;
+      }
+   }
+
+   @Override
+   public Transport getAddressTransport(SocketAddress server) {
+      return newTransport(server);
+   }
+
+   private NioTransport newTransport(SocketAddress server) {
+      return new NioTransport(getConnection(server), this);
+   }
+
+   /**
+    * Picks one of the server's connections in a round robin fashion, (re)connecting it if needed.
+    */
+   private NioConnection getConnection(SocketAddress server) {
+      AtomicReferenceArray<NioConnection> serverConnections = connections.get(server);
+      if (serverConnections == null) {
+         serverConnections = new AtomicReferenceArray<NioConnection>(connectionsPerServer);
+         AtomicReferenceArray<NioConnection> existing = connections.putIfAbsent(server, serverConnections);
+         if (existing != null)
+            serverConnections = existing;
+      }
+      int index = (nextConnection.getAndIncrement() & Integer.MAX_VALUE) % serverConnections.length();
+      NioConnection connection = serverConnections.get(index);
+      if (connection != null && connection.isValid())
+         return connection;
+
+      synchronized (serverConnections) {
+         connection = serverConnections.get(index);
+         if (connection == null || !connection.isValid()) {
+            if (connection != null)
+               connection.destroy();
+            connection = new NioConnection(server, this);
+            if (log.isTraceEnabled())
+               log.tracef("Created connection: %s", connection);
+            serverConnections.set(index, connection);
+         }
+         return connection;
+      }
+   }
+
+   @Override
+   public void releaseTransport(Transport transport) {
+      transport.release();
+   }
+
+   @Override
+   public void invalidateTransport(SocketAddress serverAddress, Transport transport) {
+      // Transport could be null, in which case all connections
+      // to the server address will be invalidated
+      if (transport != null) {
+         transport.invalidate();
+      } else if (serverAddress != null) {
+         closeConnections(serverAddress);
+      }
+   }
+
+   private void closeConnections(SocketAddress server) {
+      AtomicReferenceArray<NioConnection> serverConnections = connections.remove(server);
+      if (serverConnections != null) {
+         for (int i = 0; i < serverConnections.length(); i++) {
+            NioConnection connection = serverConnections.get(i);
+            if (connection != null)
+               connection.destroy();
+         }
+      }
+   }
+
+   @Override
+   public void updateServers(Collection<SocketAddress> newServers) {
+      synchronized (lock) {
+         Set<SocketAddress> addedServers = new HashSet<SocketAddress>(newServers);
+         addedServers.removeAll(servers);
+         Set<SocketAddress> failedServers = new HashSet<SocketAddress>(servers);
+         failedServers.removeAll(newServers);
+         if (log.isTraceEnabled()) {
+            log.tracef("Current list: %s", servers);
+            log.tracef("New list: %s", newServers);
+            log.tracef("Added servers: %s", addedServers);
+            log.tracef("Removed servers: %s", failedServers);
+         }
+         if (failedServers.isEmpty() && newServers.isEmpty()) {
+            log.debug("Same list of servers, not changing the pool");
+            return;
+         }
+
+         // Connections to new servers are opened on first use
+         for (SocketAddress server : addedServers) {
+            log.newServerAdded(server);
+         }
+
+         balancer.setServers(newServers);
+
+         for (SocketAddress server : failedServers) {
+            log.removingServer(server);
+            closeConnections(server);
+         }
+
+         servers = Collections.unmodifiableList(new ArrayList<SocketAddress>(newServers));
+         updateTransportCount();
+      }
+   }
+
+   public Collection<SocketAddress> getServers() {
+      synchronized (lock) {
+         return servers;
+      }
+   }
+
+   /**
+    * Note that the returned <code>ConsistentHash</code> may not be thread-safe.
+    */
+   public ConsistentHash getConsistentHash() {
+      synchronized (lock) {
+         return consistentHash;
+      }
+   }
+
+   @Override
+   public ConsistentHashFactory getConsistentHashFactory() {
+      return hashFactory;
+   }
+
+   @Override
+   public boolean isTcpNoDelay() {
+      return tcpNoDelay;
+   }
+
+   @Override
+   public int getTransportCount() {
+      if (Thread.currentThread().isInterrupted()) {
+         return -1;
+      }
+      return transportCount;
+   }
+
+   @Override
+   public int getSoTimeout() {
+      return soTimeout;
+   }
+
+   @Override
+   public int getConnectTimeout() {
+      return connectTimeout;
+   }
+
+   @Override
+   public SSLContext getSSLContext() {
+      return sslContext;
+   }
+
+   @Override
+   public boolean isAsync() {
+      return true;
+   }
+
+   /**
+    * Checks the requests of all the connections for timeouts.
+    */
+   ScheduledExecutorService getTimeoutExecutor() {
+      return timeoutExecutor;
+   }
+
+   public int getConnectionsPerServer() {
+      return connectionsPerServer;
+   }
+
+   private void updateTransportCount() {
+      synchronized (lock) {
+         // Same retry budget as with the pooled transport
+         if (maxActive > 0) {
+            transportCount = Math.max(maxActive * servers.size(), maxActive); //to avoid int overflow when maxActive is very high!
+         } else {
+            transportCount = 10 * servers.size();
+         }
+      }
+   }
+}
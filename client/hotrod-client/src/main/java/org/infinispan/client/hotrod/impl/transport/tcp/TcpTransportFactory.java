@@ -184,6 +184,18 @@ public Transport getTransport(byte[] key) {
       return borrowTransportFromPool(server);
    }
 
+   @Override
+   public SocketAddress getServer(byte[] key) {
+      synchronized (lock) {
+         return consistentHash != null ? consistentHash.getServer(key) : null;
+      }
+   }
+
+   @Override
+   public Transport getAddressTransport(SocketAddress server) {
+      return borrowTransportFromPool(server);
+   }
+
    @Override
    public void releaseTransport(Transport transport) {
       // The invalidateObject()/returnObject() calls could take a long time, so we hold the lock only until we get the connection pool reference
@@ -336,6 +348,11 @@ public SSLContext getSSLContext() {
       return sslContext;
    }
 
+   @Override
+   public boolean isAsync() {
+      return false;
+   }
+
    /**
     * Note that the returned <code>RequestBalancingStrategy</code> may not be thread-safe.
     */
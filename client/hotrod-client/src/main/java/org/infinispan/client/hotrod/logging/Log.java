@@ -1,6 +1,7 @@
 package org.infinispan.client.hotrod.logging;
 
 import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.impl.transport.nio.NioConnection;
 import org.infinispan.client.hotrod.impl.transport.tcp.TcpTransport;
 import org.infinispan.commons.CacheConfigurationException;
 import org.jboss.logging.BasicLogger;
@@ -125,4 +126,8 @@ public interface Log extends BasicLogger {
 
    @Message(value = "Cannot configure custom KeyStore and/or TrustStore when specifying a SSLContext", id = 4027)
    CacheConfigurationException xorSSLContext();
+
+   @LogMessage(level = WARN)
+   @Message(value = "Issues closing connection %s: %s", id = 4028)
+   void errorClosingConnection(NioConnection connection, IOException e);
 }
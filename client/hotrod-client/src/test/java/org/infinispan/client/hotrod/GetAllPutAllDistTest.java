@@ -0,0 +1,92 @@
+package org.infinispan.client.hotrod;
+
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killRemoteCacheManager;
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killServers;
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the multi-key get all and put all operations against a distributed cluster, with both the protocol version
+ * sending a request per server and the older one falling back to single key operations.
+ *
+ * @since 6.0
+ */
+@Test(testName = "client.hotrod.GetAllPutAllDistTest", groups = "functional")
+public class GetAllPutAllDistTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_SERVERS = 3;
+
+   private HotRodServer[] hotrodServers;
+   private RemoteCacheManager remoteCacheManager;
+   private RemoteCacheManager remoteCacheManager12;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      createCluster(hotRodCacheConfiguration(getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false)), NUM_SERVERS);
+      hotrodServers = new HotRodServer[NUM_SERVERS];
+      for (int i = 0; i < NUM_SERVERS; i++) {
+         hotrodServers[i] = TestHelper.startHotRodServer(manager(i));
+      }
+
+      remoteCacheManager = new RemoteCacheManager(TestHelper.getServersString(hotrodServers));
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.addServers(TestHelper.getServersString(hotrodServers))
+            .protocolVersion(ConfigurationProperties.PROTOCOL_VERSION_12);
+      remoteCacheManager12 = new RemoteCacheManager(builder.build());
+   }
+
+   @AfterClass
+   public void release() {
+      killRemoteCacheManager(remoteCacheManager);
+      killRemoteCacheManager(remoteCacheManager12);
+      killServers(hotrodServers);
+   }
+
+   public void testPutAllGetAll() {
+      doTestPutAllGetAll(remoteCacheManager.<Object, Object>getCache(), "k");
+   }
+
+   public void testPutAllGetAllWithOlderProtocol() {
+      doTestPutAllGetAll(remoteCacheManager12.<Object, Object>getCache(), "old");
+   }
+
+   public void testEmpty() {
+      RemoteCache<Object, Object> remoteCache = remoteCacheManager.getCache();
+      remoteCache.putAll(new HashMap<Object, Object>());
+      assertTrue(remoteCache.getAll(new HashSet<Object>()).isEmpty());
+   }
+
+   private void doTestPutAllGetAll(RemoteCache<Object, Object> remoteCache, String prefix) {
+      Map<Object, Object> data = new HashMap<Object, Object>();
+      for (int i = 0; i < 100; i++) {
+         data.put(prefix + i, "v" + i);
+      }
+      remoteCache.putAll(data);
+
+      for (int i = 0; i < 100; i++) {
+         assertEquals("v" + i, remoteCache.get(prefix + i));
+      }
+
+      Set<Object> keys = new HashSet<Object>(data.keySet());
+      keys.add(prefix + "missing");
+      Map<Object, Object> result = remoteCache.getAll(keys);
+      assertEquals(data, result);
+      assertFalse(result.containsKey(prefix + "missing"));
+   }
+
+}
@@ -0,0 +1,70 @@
+package org.infinispan.client.hotrod;
+
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.transport.nio.NioTransportFactory;
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Runs the async API tests over connections multiplexed by {@link NioTransportFactory}.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "client.hotrod.NioRemoteAsyncAPITest")
+public class NioRemoteAsyncAPITest extends RemoteAsyncAPITest {
+
+   @Override
+   protected Properties clientProperties() {
+      Properties props = super.clientProperties();
+      props.put(ConfigurationProperties.TRANSPORT_FACTORY, NioTransportFactory.class.getName());
+      return props;
+   }
+
+   public void testManyRequestsInFlight() throws Exception {
+      List<Future<String>> puts = new ArrayList<Future<String>>();
+      for (int i = 0; i < 500; i++) {
+         puts.add(c.putAsync("k" + i, "v" + i));
+      }
+      for (Future<String> f : puts) {
+         f.get(10, TimeUnit.SECONDS);
+      }
+
+      List<Future<String>> gets = new ArrayList<Future<String>>();
+      for (int i = 0; i < 500; i++) {
+         gets.add(c.getAsync("k" + i));
+      }
+      for (int i = 0; i < 500; i++) {
+         assertEquals("v" + i, gets.get(i).get(10, TimeUnit.SECONDS));
+      }
+   }
+
+   public void testListenerNotified() throws Exception {
+      CountDownLatch latch = new CountDownLatch(2);
+      NotifyingFuture<String> f = c.putAsync("listenerKey", "v");
+      f.attachListener(countDownListener(latch));
+      f.get();
+      // Attaching to a completed future notifies straight away
+      f.attachListener(countDownListener(latch));
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+   }
+
+   private FutureListener<String> countDownListener(final CountDownLatch latch) {
+      return new FutureListener<String>() {
+         @Override
+         public void futureDone(Future<String> future) {
+            latch.countDown();
+         }
+      };
+   }
+}
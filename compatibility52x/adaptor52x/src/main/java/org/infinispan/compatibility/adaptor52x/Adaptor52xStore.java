@@ -17,6 +17,7 @@
 import org.infinispan.persistence.PersistenceUtil;
 import org.infinispan.persistence.TaskContextImpl;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.BatchingCacheWriter;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.util.Util;
 
@@ -30,7 +31,7 @@
  * @author Mircea Markus
  * @since 6.0
  */
-public class Adaptor52xStore implements AdvancedLoadWriteStore {
+public class Adaptor52xStore implements AdvancedLoadWriteStore, BatchingCacheWriter {
 
    private InitializationContext ctx;
    private Adaptor52xStoreConfiguration configuration;
@@ -201,6 +202,18 @@ public boolean delete(Object key) {
       return false;
    }
 
+   @Override
+   public void writeBatch(Iterable entries) {
+      for (Object entry : entries)
+         write((MarshalledEntry) entry);
+   }
+
+   @Override
+   public void deleteBatch(Iterable keys) {
+      for (Object key : keys)
+         delete(key);
+   }
+
    private PersistenceException newPersistenceException(Throwable cause) {
       return new PersistenceException(cause);
    }
@@ -20,6 +20,7 @@
 import javax.transaction.xa.XAResource;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * An advanced interface that exposes additional methods not available on {@link Cache}.
@@ -340,6 +341,17 @@
     */
    V putIfAbsent(K key, V value, Metadata metadata);
 
+   /**
+    * An overloaded form of {@link #putAll(java.util.Map)}, which takes in an instance of
+    * {@link org.infinispan.metadata.Metadata} which is stored alongside every entry of the map.
+    *
+    * @param map the values to store
+    * @param metadata information to store alongside the values
+    *
+    * @since 6.0
+    */
+   void putAll(Map<? extends K, ? extends V> map, Metadata metadata);
+
    /**
     * Asynchronous version of {@link #put(Object, Object, Metadata)} which stores
     * metadata alongside the value.  This method does not block on remote calls,
@@ -1364,6 +1364,11 @@ public V putIfAbsent(K key, V value, Metadata metadata) {
       return putIfAbsent(key, value, metadata, null, null);
    }
 
+   @Override
+   public void putAll(Map<? extends K, ? extends V> map, Metadata metadata) {
+      putAll(map, metadata, null, null);
+   }
+
    @Override
    public NotifyingFuture<V> putAsync(K key, V value, Metadata metadata) {
       return putAsync(key, value, metadata, null, null);
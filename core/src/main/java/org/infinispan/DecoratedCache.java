@@ -481,6 +481,11 @@ public V putIfAbsent(K key, V value, Metadata metadata) {
       return cacheImplementation.putIfAbsent(key, value, metadata, flags, classLoader.get());
    }
 
+   @Override
+   public void putAll(Map<? extends K, ? extends V> map, Metadata metadata) {
+      cacheImplementation.putAll(map, metadata, flags, classLoader.get());
+   }
+
    @Override
    public boolean replace(K key, V oldValue, V value, Metadata metadata) {
       return cacheImplementation.replace(key, oldValue, value, metadata, flags, classLoader.get());
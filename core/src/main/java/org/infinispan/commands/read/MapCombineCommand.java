@@ -31,6 +31,7 @@
    private String taskId;
    private boolean reducePhaseDistributed;
    private boolean emitCompositeIntermediateKeys;
+   private int maxCollectorSize;
    private MapReduceManager mrManager;
    private UUID uuid;
 
@@ -89,6 +90,14 @@ public void setReducePhaseDistributed(boolean reducePhaseDistributed) {
       this.reducePhaseDistributed = reducePhaseDistributed;
    }
 
+   public int getMaxCollectorSize() {
+      return maxCollectorSize;
+   }
+
+   public void setMaxCollectorSize(int maxCollectorSize) {
+      this.maxCollectorSize = maxCollectorSize;
+   }
+
    public Set<KIn> getKeys() {
       return keys;
    }
@@ -118,7 +127,7 @@ public UUID getUUID() {
    @Override
    public Object[] getParameters() {
       return new Object[] { taskId, keys, mapper, combiner, reducePhaseDistributed,
-               emitCompositeIntermediateKeys, uuid };
+               emitCompositeIntermediateKeys, maxCollectorSize, uuid };
    }
 
    @SuppressWarnings("unchecked")
@@ -133,6 +142,7 @@ public void setParameters(int commandId, Object[] args) {
       combiner = (Reducer<KOut,VOut>) args[i++];
       reducePhaseDistributed = (Boolean) args[i++];
       emitCompositeIntermediateKeys = (Boolean) args[i++];
+      maxCollectorSize = (Integer) args[i++];
       uuid = (UUID) args[i++];
    }
 
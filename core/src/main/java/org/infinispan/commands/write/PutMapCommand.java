@@ -1,5 +1,7 @@
 package org.infinispan.commands.write;
 
+import org.infinispan.atomic.Delta;
+import org.infinispan.atomic.DeltaAware;
 import org.infinispan.metadata.Metadata;
 import org.infinispan.commands.AbstractFlagAffectedCommand;
 import org.infinispan.commands.MetadataAwareCommand;
@@ -62,7 +64,13 @@ public Object perform(InvocationContext ctx) throws Throwable {
             previousValues.put(key, value);
             notifier.notifyCacheEntryModified(
                   key, value, value == null, true, ctx, this);
-            me.setValue(e.getValue());
+            Object newValue = e.getValue();
+            if (newValue instanceof Delta) {
+               // merge the delta with the existing value, as PutKeyValueCommand does
+               me.setValue(((Delta) newValue).merge(value instanceof DeltaAware ? (DeltaAware) value : null));
+            } else {
+               me.setValue(newValue);
+            }
             me.setChanged(true);
          }
       }
@@ -15,14 +15,19 @@ public class AsyncConfiguration {
    private final ReplicationQueue replicationQueue;
    private final long replicationQueueInterval;
    private final int replicationQueueMaxElements;
+   private final long replicationQueueMaxBytes;
+   private final boolean replicationQueueAdaptive;
    private final boolean useReplicationQueue;
 
    AsyncConfiguration(boolean asyncMarshalling, ReplicationQueue replicationQueue, long replicationQueueInterval,
-         int replicationQueueMaxElements, boolean useReplicationQueue) {
+         int replicationQueueMaxElements, long replicationQueueMaxBytes, boolean replicationQueueAdaptive,
+         boolean useReplicationQueue) {
       this.asyncMarshalling = asyncMarshalling;
       this.replicationQueue = replicationQueue;
       this.replicationQueueInterval = replicationQueueInterval;
       this.replicationQueueMaxElements = replicationQueueMaxElements;
+      this.replicationQueueMaxBytes = replicationQueueMaxBytes;
+      this.replicationQueueAdaptive = replicationQueueAdaptive;
       this.useReplicationQueue = useReplicationQueue;
    }
 
@@ -59,6 +64,24 @@ public int replQueueMaxElements() {
       return replicationQueueMaxElements;
    }
 
+   /**
+    * If useReplQueue is set to true, this attribute triggers flushing of the queue when the estimated marshalled
+    * size of the queued commands reaches a specific threshold. A value <= 0 means the queue is only flushed based on
+    * the number of elements and the interval.
+    */
+   public long replQueueMaxBytes() {
+      return replicationQueueMaxBytes;
+   }
+
+   /**
+    * If useReplQueue is set to true and this attribute is true, the queue is flushed by the asynchronous thread a
+    * short while after commands are added, instead of periodically. The delay follows the time taken by recent
+    * flushes and is at most {@link #replQueueInterval()}, so the batches grow with the load.
+    */
+   public boolean replQueueAdaptive() {
+      return replicationQueueAdaptive;
+   }
+
    /**
     * If true, this forces all async communications to be queued up and sent out periodically as a
     * batch.
@@ -74,6 +97,8 @@ public String toString() {
             ", replicationQueue=" + replicationQueue +
             ", replicationQueueInterval=" + replicationQueueInterval +
             ", replicationQueueMaxElements=" + replicationQueueMaxElements +
+            ", replicationQueueMaxBytes=" + replicationQueueMaxBytes +
+            ", replicationQueueAdaptive=" + replicationQueueAdaptive +
             ", useReplicationQueue=" + useReplicationQueue +
             '}';
    }
@@ -90,6 +115,8 @@ public boolean equals(Object o) {
          return false;
       if (replicationQueueMaxElements != that.replicationQueueMaxElements)
          return false;
+      if (replicationQueueMaxBytes != that.replicationQueueMaxBytes) return false;
+      if (replicationQueueAdaptive != that.replicationQueueAdaptive) return false;
       if (useReplicationQueue != that.useReplicationQueue) return false;
       if (replicationQueue != null ? !replicationQueue.equals(that.replicationQueue) : that.replicationQueue != null)
          return false;
@@ -103,6 +130,8 @@ public int hashCode() {
       result = 31 * result + (replicationQueue != null ? replicationQueue.hashCode() : 0);
       result = 31 * result + (int) (replicationQueueInterval ^ (replicationQueueInterval >>> 32));
       result = 31 * result + replicationQueueMaxElements;
+      result = 31 * result + (int) (replicationQueueMaxBytes ^ (replicationQueueMaxBytes >>> 32));
+      result = 31 * result + (replicationQueueAdaptive ? 1 : 0);
       result = 31 * result + (useReplicationQueue ? 1 : 0);
       return result;
    }
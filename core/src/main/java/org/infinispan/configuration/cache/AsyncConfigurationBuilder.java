@@ -19,6 +19,8 @@ public class AsyncConfigurationBuilder extends AbstractClusteringConfigurationCh
    private ReplicationQueue replicationQueue;
    private long replicationQueueInterval = TimeUnit.SECONDS.toMillis(5);
    private int replicationQueueMaxElements = 1000;
+   private long replicationQueueMaxBytes = -1;
+   private boolean replicationQueueAdaptive = false;
    private boolean useReplicationQueue = false;
 
    protected AsyncConfigurationBuilder(ClusteringConfigurationBuilder builder) {
@@ -89,6 +91,27 @@ public AsyncConfigurationBuilder replQueueMaxElements(int elements) {
       return this;
    }
 
+   /**
+    * If useReplQueue is set to true, this attribute triggers flushing of the queue when the
+    * estimated marshalled size of the queued commands reaches a specific threshold. A value <= 0
+    * means the queue is only flushed based on the number of elements and the interval.
+    */
+   public AsyncConfigurationBuilder replQueueMaxBytes(long bytes) {
+      this.replicationQueueMaxBytes = bytes;
+      return this;
+   }
+
+   /**
+    * If useReplQueue is set to true, enables adaptive batching: the queue is flushed by the
+    * asynchronous thread a short while after commands are added, instead of periodically. The
+    * delay follows the time taken by recent flushes and is at most the replQueueInterval, so the
+    * batches grow with the load.
+    */
+   public AsyncConfigurationBuilder replQueueAdaptive(boolean adaptive) {
+      this.replicationQueueAdaptive = adaptive;
+      return this;
+   }
+
    /**
     * If true, forces all async communications to be queued up and sent out periodically as a
     * batch.
@@ -111,7 +134,8 @@ void validate() {
    @Override
    public
    AsyncConfiguration create() {
-      return new AsyncConfiguration(asyncMarshalling, replicationQueue, replicationQueueInterval, replicationQueueMaxElements, useReplicationQueue);
+      return new AsyncConfiguration(asyncMarshalling, replicationQueue, replicationQueueInterval, replicationQueueMaxElements,
+            replicationQueueMaxBytes, replicationQueueAdaptive, useReplicationQueue);
    }
 
    @Override
@@ -120,6 +144,8 @@ public AsyncConfigurationBuilder read(AsyncConfiguration template) {
       this.replicationQueue = template.replQueue();
       this.replicationQueueInterval = template.replQueueInterval();
       this.replicationQueueMaxElements = template.replQueueMaxElements();
+      this.replicationQueueMaxBytes = template.replQueueMaxBytes();
+      this.replicationQueueAdaptive = template.replQueueAdaptive();
       this.useReplicationQueue = template.useReplQueue();
 
       return this;
@@ -132,6 +158,8 @@ public String toString() {
             ", replicationQueue=" + replicationQueue +
             ", replicationQueueInterval=" + replicationQueueInterval +
             ", replicationQueueMaxElements=" + replicationQueueMaxElements +
+            ", replicationQueueMaxBytes=" + replicationQueueMaxBytes +
+            ", replicationQueueAdaptive=" + replicationQueueAdaptive +
             ", useReplicationQueue=" + useReplicationQueue +
             '}';
    }
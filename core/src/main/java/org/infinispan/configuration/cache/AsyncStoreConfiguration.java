@@ -12,14 +12,16 @@ public class AsyncStoreConfiguration {
    private final boolean enabled;
    private long flushLockTimeout;
    private final int modificationQueueSize;
+   private final long modificationQueueMaxBytes;
    private long shutdownTimeout;
    private final int threadPoolSize;
 
-   AsyncStoreConfiguration(boolean enabled, long flushLockTimeout, int modificationQueueSize, long shutdownTimeout,
-                           int threadPoolSize) {
+   AsyncStoreConfiguration(boolean enabled, long flushLockTimeout, int modificationQueueSize,
+                           long modificationQueueMaxBytes, long shutdownTimeout, int threadPoolSize) {
       this.enabled = enabled;
       this.flushLockTimeout = flushLockTimeout;
       this.modificationQueueSize = modificationQueueSize;
+      this.modificationQueueMaxBytes = modificationQueueMaxBytes;
       this.shutdownTimeout = shutdownTimeout;
       this.threadPoolSize = threadPoolSize;
    }
@@ -60,6 +62,15 @@ public int modificationQueueSize() {
       return modificationQueueSize;
    }
 
+   /**
+    * Maximum number of bytes taken by the marshalled entries in the modification queue of the async
+    * store. Like {@link #modificationQueueSize()}, writers block while the queue is full. A value
+    * <= 0 means the queue is only bounded by the number of modifications.
+    */
+   public long modificationQueueMaxBytes() {
+      return modificationQueueMaxBytes;
+   }
+
    /**
     * Timeout to stop the cache store. When the store is stopped it's possible that some
     * modifications still need to be applied; you likely want to set a very large timeout to make
@@ -87,6 +98,7 @@ public String toString() {
             "enabled=" + enabled +
             ", flushLockTimeout=" + flushLockTimeout +
             ", modificationQueueSize=" + modificationQueueSize +
+            ", modificationQueueMaxBytes=" + modificationQueueMaxBytes +
             ", shutdownTimeout=" + shutdownTimeout +
             ", threadPoolSize=" + threadPoolSize +
             '}';
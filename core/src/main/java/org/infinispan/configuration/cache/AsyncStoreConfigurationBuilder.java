@@ -16,6 +16,7 @@
    private boolean enabled = false;
    private long flushLockTimeout = 1;
    private int modificationQueueSize = 1024;
+   private long modificationQueueMaxBytes = -1;
    private long shutdownTimeout = TimeUnit.SECONDS.toMillis(25);
    private int threadPoolSize = 1;
 
@@ -69,6 +70,16 @@ public AsyncStoreConfigurationBuilder<S> modificationQueueSize(int i) {
       return this;
    }
 
+   /**
+    * Sets the maximum number of bytes taken by the marshalled entries in the modification queue of
+    * the async store. Like with {@link #modificationQueueSize(int)}, writers block while the queue
+    * is full. A value <= 0 means the queue is only bounded by the number of modifications.
+    */
+   public AsyncStoreConfigurationBuilder<S> modificationQueueMaxBytes(long l) {
+      this.modificationQueueMaxBytes = l;
+      return this;
+   }
+
    /**
     * Timeout to stop the cache store. When the store is stopped it's possible that some
     * modifications still need to be applied; you likely want to set a very large timeout to make
@@ -103,7 +114,8 @@ void validate() {
 
    @Override
    public AsyncStoreConfiguration create() {
-      return new AsyncStoreConfiguration(enabled, flushLockTimeout, modificationQueueSize, shutdownTimeout, threadPoolSize);
+      return new AsyncStoreConfiguration(enabled, flushLockTimeout, modificationQueueSize, modificationQueueMaxBytes,
+                                         shutdownTimeout, threadPoolSize);
    }
 
    @Override
@@ -111,6 +123,7 @@ public AsyncStoreConfigurationBuilder<S> read(AsyncStoreConfiguration template)
       this.enabled = template.enabled();
       this.flushLockTimeout = template.flushLockTimeout();
       this.modificationQueueSize = template.modificationQueueSize();
+      this.modificationQueueMaxBytes = template.modificationQueueMaxBytes();
       this.shutdownTimeout = template.shutdownTimeout();
       this.threadPoolSize = template.threadPoolSize();
 
@@ -123,6 +136,7 @@ public String toString() {
             "enabled=" + enabled +
             ", flushLockTimeout=" + flushLockTimeout +
             ", modificationQueueSize=" + modificationQueueSize +
+            ", modificationQueueMaxBytes=" + modificationQueueMaxBytes +
             ", shutdownTimeout=" + shutdownTimeout +
             ", threadPoolSize=" + threadPoolSize +
             '}';
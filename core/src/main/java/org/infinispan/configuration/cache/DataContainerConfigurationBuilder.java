@@ -2,6 +2,7 @@
 
 import java.util.Properties;
 
+import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.configuration.Builder;
 import org.infinispan.commons.equivalence.AnyEquivalence;
 import org.infinispan.commons.equivalence.Equivalence;
@@ -18,6 +19,7 @@ public class DataContainerConfigurationBuilder extends AbstractConfigurationChil
 
    // No default here. DataContainerFactory figures out default.
    private DataContainer dataContainer;
+   private boolean offHeap = false;
    private Equivalence keyEquivalence = AnyEquivalence.getInstance();
    private Equivalence valueEquivalence = AnyEquivalence.getInstance();
    // TODO: What are properties used for? Is it just legacy?
@@ -37,6 +39,20 @@ public DataContainerConfigurationBuilder dataContainer(DataContainer dataContain
       return this;
    }
 
+   /**
+    * Whether entries should be stored in native memory, outside of the Java heap, by means of an
+    * {@link org.infinispan.container.offheap.OffHeapDataContainer}.  Keys, values and metadata are marshalled with
+    * the cache marshaller, and keys are compared by their marshalled form.  Eviction settings still apply.
+    * Cannot be combined with a custom {@link #dataContainer(DataContainer)}.
+    *
+    * @param offHeap true to store entries off-heap
+    * @return this configuration builder
+    */
+   public DataContainerConfigurationBuilder offHeap(boolean offHeap) {
+      this.offHeap = offHeap;
+      return this;
+   }
+
    /**
     * Add key/value property pair to this data container configuration
     *
@@ -92,13 +108,17 @@ public <V> DataContainerConfigurationBuilder valueEquivalence(Equivalence<V> val
 
    @Override
    public void validate() {
+      if (offHeap && dataContainer != null)
+         throw new CacheConfigurationException("A custom data container cannot be used when off-heap storage is enabled");
+      if (offHeap && getBuilder().eviction().maxMemory() > 0)
+         throw new CacheConfigurationException("Eviction maxMemory is not supported when off-heap storage is enabled");
    }
 
    @Override
    public DataContainerConfiguration create() {
       return new DataContainerConfiguration(dataContainer,
             TypedProperties.toTypedProperties(properties), keyEquivalence,
-            valueEquivalence);
+            valueEquivalence, offHeap);
    }
 
    @Override
@@ -107,6 +127,7 @@ public DataContainerConfigurationBuilder read(DataContainerConfiguration templat
       this.properties = template.properties();
       this.keyEquivalence = template.keyEquivalence();
       this.valueEquivalence = template.valueEquivalence();
+      this.offHeap = template.offHeap();
 
       return this;
    }
@@ -118,6 +139,7 @@ public String toString() {
             ", properties=" + properties +
             ", keyEquivalence=" + keyEquivalence +
             ", valueEquivalence=" + valueEquivalence +
+            ", offHeap=" + offHeap +
             '}';
    }
 
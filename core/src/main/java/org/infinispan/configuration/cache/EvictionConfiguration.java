@@ -1,5 +1,7 @@
 package org.infinispan.configuration.cache;
 
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
 
@@ -9,13 +11,18 @@
 public class EvictionConfiguration {
    
    private final int maxEntries;
+   private final long maxMemory;
    private final EvictionStrategy strategy;
    private final EvictionThreadPolicy threadPolicy;
+   private final EntrySizeCalculator<Object, InternalCacheEntry> sizeCalculator;
    
-   EvictionConfiguration(int maxEntries, EvictionStrategy strategy, EvictionThreadPolicy threadPolicy) {
+   EvictionConfiguration(int maxEntries, long maxMemory, EvictionStrategy strategy, EvictionThreadPolicy threadPolicy,
+         EntrySizeCalculator<Object, InternalCacheEntry> sizeCalculator) {
       this.maxEntries = maxEntries;
+      this.maxMemory = maxMemory;
       this.strategy = strategy;
       this.threadPolicy = threadPolicy;
+      this.sizeCalculator = sizeCalculator;
    }
    
    /**
@@ -42,12 +49,30 @@ public int maxEntries() {
       return maxEntries;
    }
 
+   /**
+    * Maximum amount of memory, in bytes, taken by the entries of a cache instance, or -1 if the cache is not bounded
+    * by memory size.
+    */
+   public long maxMemory() {
+      return maxMemory;
+   }
+
+   /**
+    * Estimates the memory size of each entry when the cache is bounded by {@link #maxMemory()}. If null, sizes are
+    * estimated by marshalling keys and values.
+    */
+   public EntrySizeCalculator<Object, InternalCacheEntry> sizeCalculator() {
+      return sizeCalculator;
+   }
+
    @Override
    public String toString() {
       return "EvictionConfiguration{" +
             "maxEntries=" + maxEntries +
+            ", maxMemory=" + maxMemory +
             ", strategy=" + strategy +
             ", threadPolicy=" + threadPolicy +
+            ", sizeCalculator=" + sizeCalculator +
             '}';
    }
 
@@ -59,8 +84,11 @@ public boolean equals(Object o) {
       EvictionConfiguration that = (EvictionConfiguration) o;
 
       if (maxEntries != that.maxEntries) return false;
+      if (maxMemory != that.maxMemory) return false;
       if (strategy != that.strategy) return false;
       if (threadPolicy != that.threadPolicy) return false;
+      if (sizeCalculator != null ? !sizeCalculator.equals(that.sizeCalculator) : that.sizeCalculator != null)
+         return false;
 
       return true;
    }
@@ -68,8 +96,10 @@ public boolean equals(Object o) {
    @Override
    public int hashCode() {
       int result = maxEntries;
+      result = 31 * result + (int) (maxMemory ^ (maxMemory >>> 32));
       result = 31 * result + (strategy != null ? strategy.hashCode() : 0);
       result = 31 * result + (threadPolicy != null ? threadPolicy.hashCode() : 0);
+      result = 31 * result + (sizeCalculator != null ? sizeCalculator.hashCode() : 0);
       return result;
    }
 
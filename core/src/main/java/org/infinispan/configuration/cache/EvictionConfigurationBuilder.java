@@ -2,6 +2,8 @@
 
 import org.infinispan.commons.configuration.Builder;
 import org.infinispan.commons.CacheConfigurationException;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
 import org.infinispan.util.logging.Log;
@@ -15,6 +17,8 @@ public class EvictionConfigurationBuilder extends AbstractConfigurationChildBuil
    private static final Log log = LogFactory.getLog(EvictionConfigurationBuilder.class);
 
    private int maxEntries = -1;
+   private long maxMemory = -1;
+   private EntrySizeCalculator<Object, InternalCacheEntry> sizeCalculator;
    private EvictionStrategy strategy = EvictionStrategy.NONE;
    private EvictionThreadPolicy threadPolicy = EvictionThreadPolicy.DEFAULT;
 
@@ -60,30 +64,67 @@ public EvictionConfigurationBuilder maxEntries(int maxEntries) {
       return this;
    }
 
+   /**
+    * Maximum amount of memory, in bytes, taken by the entries of a cache instance. When set, the cache is bounded by
+    * the estimated memory size of its entries rather than by their number, so caches holding values of widely
+    * varying sizes stay within a predictable footprint. Cannot be combined with {@link #maxEntries(int)}.
+    *
+    * @param maxMemory
+    * @see #sizeCalculator(EntrySizeCalculator)
+    */
+   public EvictionConfigurationBuilder maxMemory(long maxMemory) {
+      this.maxMemory = maxMemory;
+      return this;
+   }
+
+   long maxMemory() {
+      return maxMemory;
+   }
+
+   /**
+    * Estimates the memory size of each entry when the cache is bounded by {@link #maxMemory(long)}. The calculator
+    * receives the key and the {@link InternalCacheEntry} holding the value; if not set, sizes are estimated by marshalling keys and values
+    * with the cache marshaller.
+    *
+    * @param sizeCalculator
+    */
+   public EvictionConfigurationBuilder sizeCalculator(EntrySizeCalculator<Object, InternalCacheEntry> sizeCalculator) {
+      this.sizeCalculator = sizeCalculator;
+      return this;
+   }
+
    @Override
    public void validate() {
       if (!strategy.isEnabled() && getBuilder().persistence().passivation())
          log.passivationWithoutEviction();
       if(strategy == EvictionStrategy.FIFO)
          log.warnFifoStrategyIsDeprecated();
-      if (strategy.isEnabled() && maxEntries <= 0)
+      if (maxEntries > 0 && maxMemory > 0)
+         throw new CacheConfigurationException("Eviction maxEntries and maxMemory cannot be both configured");
+      if (strategy.isEnabled() && maxEntries <= 0 && maxMemory <= 0)
          throw new CacheConfigurationException("Eviction maxEntries value cannot be less than or equal to zero if eviction is enabled");
       if (maxEntries > 0 && !strategy.isEnabled()) {
          strategy = EvictionStrategy.LIRS;
          log.debugf("Max entries configured (%d) without eviction strategy. Eviction strategy overriden to %s", maxEntries, strategy);
       }
+      if (maxMemory > 0 && !strategy.isEnabled()) {
+         strategy = EvictionStrategy.LIRS;
+         log.debugf("Max memory configured (%d) without eviction strategy. Eviction strategy overriden to %s", maxMemory, strategy);
+      }
    }
 
    @Override
    public EvictionConfiguration create() {
-      return new EvictionConfiguration(maxEntries, strategy, threadPolicy);
+      return new EvictionConfiguration(maxEntries, maxMemory, strategy, threadPolicy, sizeCalculator);
    }
 
    @Override
    public EvictionConfigurationBuilder read(EvictionConfiguration template) {
       this.maxEntries = template.maxEntries();
+      this.maxMemory = template.maxMemory();
       this.strategy = template.strategy();
       this.threadPolicy = template.threadPolicy();
+      this.sizeCalculator = template.sizeCalculator();
 
       return this;
    }
@@ -92,8 +133,10 @@ public EvictionConfigurationBuilder read(EvictionConfiguration template) {
    public String toString() {
       return "EvictionConfigurationBuilder{" +
             "maxEntries=" + maxEntries +
+            ", maxMemory=" + maxMemory +
             ", strategy=" + strategy +
             ", threadPolicy=" + threadPolicy +
+            ", sizeCalculator=" + sizeCalculator +
             '}';
    }
 
@@ -10,11 +10,20 @@ public class IndexingConfiguration extends AbstractTypedPropertiesConfiguration
 
    private final boolean enabled;
    private final boolean indexLocalOnly;
+   private final boolean async;
+   private final long refreshInterval;
+   private final int maxQueueSize;
+   private final int maxBatchSize;
 
-   IndexingConfiguration(TypedProperties properties, boolean enabled, boolean indexLocalOnly) {
+   IndexingConfiguration(TypedProperties properties, boolean enabled, boolean indexLocalOnly, boolean async,
+                         long refreshInterval, int maxQueueSize, int maxBatchSize) {
       super(properties);
       this.enabled = enabled;
       this.indexLocalOnly = indexLocalOnly;
+      this.async = async;
+      this.refreshInterval = refreshInterval;
+      this.maxQueueSize = maxQueueSize;
+      this.maxBatchSize = maxBatchSize;
    }
 
    /**
@@ -32,6 +41,36 @@ public boolean indexLocalOnly() {
       return indexLocalOnly;
    }
 
+   /**
+    * If true, index changes are queued and applied in batches by a background thread, instead of being applied
+    * before the write returns. Queries may then miss the most recent writes, for at most {@link #refreshInterval()}
+    * while the queue is not full.
+    */
+   public boolean async() {
+      return async;
+   }
+
+   /**
+    * The maximum time, in milliseconds, a queued index change waits before the batch containing it is applied.
+    */
+   public long refreshInterval() {
+      return refreshInterval;
+   }
+
+   /**
+    * The maximum number of index changes waiting in the queue. Writers block when the queue is full.
+    */
+   public int maxQueueSize() {
+      return maxQueueSize;
+   }
+
+   /**
+    * The maximum number of index changes applied in a single batch.
+    */
+   public int maxBatchSize() {
+      return maxBatchSize;
+   }
+
    /**
     * <p>
     * These properties are passed directly to the embedded Hibernate Search engine, so for the
@@ -54,6 +93,10 @@ public String toString() {
       return "IndexingConfiguration{" +
             "enabled=" + enabled +
             ", indexLocalOnly=" + indexLocalOnly +
+            ", async=" + async +
+            ", refreshInterval=" + refreshInterval +
+            ", maxQueueSize=" + maxQueueSize +
+            ", maxBatchSize=" + maxBatchSize +
             '}';
    }
 
@@ -66,6 +109,10 @@ public boolean equals(Object o) {
 
       if (enabled != that.enabled) return false;
       if (indexLocalOnly != that.indexLocalOnly) return false;
+      if (async != that.async) return false;
+      if (refreshInterval != that.refreshInterval) return false;
+      if (maxQueueSize != that.maxQueueSize) return false;
+      if (maxBatchSize != that.maxBatchSize) return false;
 
       return true;
    }
@@ -74,6 +121,10 @@ public boolean equals(Object o) {
    public int hashCode() {
       int result = (enabled ? 1 : 0);
       result = 31 * result + (indexLocalOnly ? 1 : 0);
+      result = 31 * result + (async ? 1 : 0);
+      result = 31 * result + (int) (refreshInterval ^ (refreshInterval >>> 32));
+      result = 31 * result + maxQueueSize;
+      result = 31 * result + maxBatchSize;
       return result;
    }
 
@@ -3,6 +3,7 @@
 import java.util.Map;
 import java.util.Properties;
 
+import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.configuration.Builder;
 import org.infinispan.commons.util.TypedProperties;
 import org.infinispan.util.logging.Log;
@@ -17,6 +18,10 @@ public class IndexingConfigurationBuilder extends AbstractConfigurationChildBuil
 
    private boolean enabled = false;
    private boolean indexLocalOnly = false;
+   private boolean async = false;
+   private long refreshInterval = 1000;
+   private int maxQueueSize = 10000;
+   private int maxBatchSize = 1000;
    private Properties properties = new Properties();
 
    IndexingConfigurationBuilder(ConfigurationBuilder builder) {
@@ -61,6 +66,43 @@ boolean indexLocalOnly() {
       return indexLocalOnly;
    }
 
+   /**
+    * If true, index changes are queued and applied in batches by a background thread, instead of being applied
+    * before the write returns. Successive changes of the same entry are coalesced. This trades a bounded delay
+    * before writes become visible to queries for a higher write throughput. False by default.
+    */
+   public IndexingConfigurationBuilder async(boolean async) {
+      this.async = async;
+      return this;
+   }
+
+   /**
+    * The maximum time, in milliseconds, a queued index change waits before the batch containing it is applied.
+    * Only used if {@link #async(boolean)} is enabled. Defaults to 1000.
+    */
+   public IndexingConfigurationBuilder refreshInterval(long refreshInterval) {
+      this.refreshInterval = refreshInterval;
+      return this;
+   }
+
+   /**
+    * The maximum number of index changes waiting in the queue. Writers block when the queue is full. Only used if
+    * {@link #async(boolean)} is enabled. Defaults to 10000.
+    */
+   public IndexingConfigurationBuilder maxQueueSize(int maxQueueSize) {
+      this.maxQueueSize = maxQueueSize;
+      return this;
+   }
+
+   /**
+    * The maximum number of index changes applied in a single batch. Only used if {@link #async(boolean)} is
+    * enabled. Defaults to 1000.
+    */
+   public IndexingConfigurationBuilder maxBatchSize(int maxBatchSize) {
+      this.maxBatchSize = maxBatchSize;
+      return this;
+   }
+
    /**
     * <p>
     * Defines a single property. Can be used multiple times to define all needed properties, but the
@@ -147,17 +189,30 @@ public void validate() {
             throw log.invalidConfigurationIndexingWithoutModule();
          }
       }
+      if (async) {
+         if (refreshInterval <= 0)
+            throw new CacheConfigurationException("Indexing refreshInterval must be positive");
+         if (maxQueueSize <= 0)
+            throw new CacheConfigurationException("Indexing maxQueueSize must be positive");
+         if (maxBatchSize <= 0)
+            throw new CacheConfigurationException("Indexing maxBatchSize must be positive");
+      }
    }
 
    @Override
    public IndexingConfiguration create() {
-      return new IndexingConfiguration(TypedProperties.toTypedProperties(properties), enabled, indexLocalOnly);
+      return new IndexingConfiguration(TypedProperties.toTypedProperties(properties), enabled, indexLocalOnly, async,
+            refreshInterval, maxQueueSize, maxBatchSize);
    }
 
    @Override
    public IndexingConfigurationBuilder read(IndexingConfiguration template) {
       this.enabled = template.enabled();
       this.indexLocalOnly = template.indexLocalOnly();
+      this.async = template.async();
+      this.refreshInterval = template.refreshInterval();
+      this.maxQueueSize = template.maxQueueSize();
+      this.maxBatchSize = template.maxBatchSize();
       this.properties = new Properties();
 
       TypedProperties templateProperties = template.properties();
@@ -175,6 +230,10 @@ public String toString() {
       return "IndexingConfigurationBuilder{" +
             "enabled=" + enabled +
             ", indexLocalOnly=" + indexLocalOnly +
+            ", async=" + async +
+            ", refreshInterval=" + refreshInterval +
+            ", maxQueueSize=" + maxQueueSize +
+            ", maxBatchSize=" + maxBatchSize +
             ", properties=" + properties +
             '}';
    }
@@ -14,14 +14,18 @@ public class LockingConfiguration {
    private final IsolationLevel isolationLevel;
    private long lockAcquisitionTimeout;
    private final boolean useLockStriping;
+   private final boolean useLockPooling;
+   private final boolean adaptiveLockStriping;
    private final boolean writeSkewCheck;
 
    LockingConfiguration(int concurrencyLevel, IsolationLevel isolationLevel, long lockAcquisitionTimeout,
-         boolean useLockStriping, boolean writeSkewCheck) {
+         boolean useLockStriping, boolean useLockPooling, boolean adaptiveLockStriping, boolean writeSkewCheck) {
       this.concurrencyLevel = concurrencyLevel;
       this.isolationLevel = isolationLevel;
       this.lockAcquisitionTimeout = lockAcquisitionTimeout;
       this.useLockStriping = useLockStriping;
+      this.useLockPooling = useLockPooling;
+      this.adaptiveLockStriping = adaptiveLockStriping;
       this.writeSkewCheck = writeSkewCheck;
    }
 
@@ -76,6 +80,24 @@ public boolean useLockStriping() {
       return useLockStriping;
    }
 
+   /**
+    * Only applicable if lock striping is disabled. If true, the locks created per entry are recycled once the entry
+    * is unlocked, and the locks are looked up in a table which can be read without blocking. This reduces the
+    * allocation and contention caused by locking many different entries.
+    */
+   public boolean useLockPooling() {
+      return useLockPooling;
+   }
+
+   /**
+    * Only applicable if lock striping is enabled. If true, the wait times of the contended lock acquisitions are
+    * tracked per key and per stripe, and the most contended keys are given a dedicated lock instead of sharing a
+    * stripe with other keys. The most contended keys are reported through JMX.
+    */
+   public boolean adaptiveLockStriping() {
+      return adaptiveLockStriping;
+   }
+
    /**
     * This setting is only applicable in the case of REPEATABLE_READ. When write skew check is set
     * to false, if the writer at commit time discovers that the working entry and the underlying
@@ -93,6 +115,8 @@ public String toString() {
             ", isolationLevel=" + isolationLevel +
             ", lockAcquisitionTimeout=" + lockAcquisitionTimeout +
             ", useLockStriping=" + useLockStriping +
+            ", useLockPooling=" + useLockPooling +
+            ", adaptiveLockStriping=" + adaptiveLockStriping +
             ", writeSkewCheck=" + writeSkewCheck +
             '}';
    }
@@ -107,6 +131,8 @@ public boolean equals(Object o) {
       if (concurrencyLevel != that.concurrencyLevel) return false;
       if (lockAcquisitionTimeout != that.lockAcquisitionTimeout) return false;
       if (useLockStriping != that.useLockStriping) return false;
+      if (useLockPooling != that.useLockPooling) return false;
+      if (adaptiveLockStriping != that.adaptiveLockStriping) return false;
       if (writeSkewCheck != that.writeSkewCheck) return false;
       if (isolationLevel != that.isolationLevel) return false;
 
@@ -119,6 +145,8 @@ public int hashCode() {
       result = 31 * result + (isolationLevel != null ? isolationLevel.hashCode() : 0);
       result = 31 * result + (int) (lockAcquisitionTimeout ^ (lockAcquisitionTimeout >>> 32));
       result = 31 * result + (useLockStriping ? 1 : 0);
+      result = 31 * result + (useLockPooling ? 1 : 0);
+      result = 31 * result + (adaptiveLockStriping ? 1 : 0);
       result = 31 * result + (writeSkewCheck ? 1 : 0);
       return result;
    }
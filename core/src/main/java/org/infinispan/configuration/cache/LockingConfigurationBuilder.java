@@ -23,6 +23,8 @@ public class LockingConfigurationBuilder extends AbstractConfigurationChildBuild
    private IsolationLevel isolationLevel = IsolationLevel.READ_COMMITTED;
    private long lockAcquisitionTimeout = TimeUnit.SECONDS.toMillis(10);
    private boolean useLockStriping = false;
+   private boolean useLockPooling = false;
+   private boolean adaptiveLockStriping = false;
    private boolean writeSkewCheck = false;
 
    protected LockingConfigurationBuilder(ConfigurationBuilder builder) {
@@ -86,6 +88,26 @@ public LockingConfigurationBuilder useLockStriping(boolean b) {
       return this;
    }
 
+   /**
+    * Only applicable if lock striping is disabled. If true, the locks created per entry are recycled once the entry
+    * is unlocked, and the locks are looked up in a table which can be read without blocking. This reduces the
+    * allocation and contention caused by locking many different entries.
+    */
+   public LockingConfigurationBuilder useLockPooling(boolean b) {
+      this.useLockPooling = b;
+      return this;
+   }
+
+   /**
+    * Only applicable if lock striping is enabled. If true, the wait times of the contended lock acquisitions are
+    * tracked per key and per stripe, and the most contended keys are given a dedicated lock instead of sharing a
+    * stripe with other keys. The most contended keys are reported through JMX.
+    */
+   public LockingConfigurationBuilder adaptiveLockStriping(boolean b) {
+      this.adaptiveLockStriping = b;
+      return this;
+   }
+
    /**
     * This setting is only applicable in the case of REPEATABLE_READ. When write skew check is set
     * to false, if the writer at commit time discovers that the working entry and the underlying
@@ -125,7 +147,8 @@ && clustering().cacheMode() != CacheMode.LOCAL)
 
    @Override
    public LockingConfiguration create() {
-      return new LockingConfiguration(concurrencyLevel, isolationLevel, lockAcquisitionTimeout, useLockStriping, writeSkewCheck);
+      return new LockingConfiguration(concurrencyLevel, isolationLevel, lockAcquisitionTimeout, useLockStriping, useLockPooling,
+            adaptiveLockStriping, writeSkewCheck);
    }
 
    @Override
@@ -134,6 +157,8 @@ public LockingConfigurationBuilder read(LockingConfiguration template) {
       isolationLevel = template.isolationLevel();
       lockAcquisitionTimeout = template.lockAcquisitionTimeout();
       useLockStriping = template.useLockStriping();
+      useLockPooling = template.useLockPooling();
+      adaptiveLockStriping = template.adaptiveLockStriping();
       writeSkewCheck = template.writeSkewCheck();
 
       return this;
@@ -146,6 +171,8 @@ public String toString() {
             ", isolationLevel=" + isolationLevel +
             ", lockAcquisitionTimeout=" + lockAcquisitionTimeout +
             ", useLockStriping=" + useLockStriping +
+            ", useLockPooling=" + useLockPooling +
+            ", adaptiveLockStriping=" + adaptiveLockStriping +
             ", writeSkewCheck=" + writeSkewCheck +
             '}';
    }
@@ -0,0 +1,103 @@
+package org.infinispan.configuration.cache;
+
+import org.infinispan.commons.CacheConfigurationException;
+import org.infinispan.commons.configuration.Builder;
+
+/**
+ * Log-structured file cache store configuration builder.
+ *
+ * @since 6.0
+ */
+public class LogFileStoreConfigurationBuilder
+      extends AbstractStoreConfigurationBuilder<LogFileStoreConfiguration, LogFileStoreConfigurationBuilder> {
+
+   private String location = "Infinispan-LogFileStore";
+
+   private long maxFileSize = 16 * 1024 * 1024;
+
+   private double compactionThreshold = 0.5;
+
+   private boolean syncWrites = false;
+
+   public LogFileStoreConfigurationBuilder(PersistenceConfigurationBuilder builder) {
+      super(builder);
+   }
+
+   @Override
+   public LogFileStoreConfigurationBuilder self() {
+      return this;
+   }
+
+   /**
+    * Sets a location on disk where the store can write. Log files are kept in a sub-directory named after the cache.
+    */
+   public LogFileStoreConfigurationBuilder location(String location) {
+      this.location = location;
+      return this;
+   }
+
+   /**
+    * Size, in bytes, after which a new log file is started. Smaller files are compacted more often, but each
+    * compaction has less data to copy. Defaults to 16MB.
+    */
+   public LogFileStoreConfigurationBuilder maxFileSize(long maxFileSize) {
+      this.maxFileSize = maxFileSize;
+      return this;
+   }
+
+   /**
+    * Fraction of a log file taken by overwritten or removed records after which the file is compacted, that is
+    * its live records are copied to the end of the log and the file deleted. Lower values save disk space at the cost
+    * of more frequent copying. Must be greater than 0 and not greater than 1. Defaults to 0.5.
+    */
+   public LogFileStoreConfigurationBuilder compactionThreshold(double compactionThreshold) {
+      this.compactionThreshold = compactionThreshold;
+      return this;
+   }
+
+   /**
+    * If true, every write is forced to disk before returning. Defaults to false.
+    */
+   public LogFileStoreConfigurationBuilder syncWrites(boolean syncWrites) {
+      this.syncWrites = syncWrites;
+      return this;
+   }
+
+   @Override
+   public void validate() {
+      super.validate();
+      if (maxFileSize <= 0)
+         throw new CacheConfigurationException("Log file store maxFileSize must be greater than zero");
+      if (compactionThreshold <= 0 || compactionThreshold > 1)
+         throw new CacheConfigurationException("Log file store compactionThreshold must be greater than 0 and not greater than 1");
+   }
+
+   @Override
+   public LogFileStoreConfiguration create() {
+      return new LogFileStoreConfiguration(purgeOnStartup, fetchPersistentState, ignoreModifications,
+                                           async.create(), singletonStore.create(), preload,
+                                           shared, properties, location, maxFileSize, compactionThreshold, syncWrites);
+   }
+
+   @Override
+   public Builder<?> read(LogFileStoreConfiguration template) {
+      // LogFileStore-specific configuration
+      location = template.location();
+      maxFileSize = template.maxFileSize();
+      compactionThreshold = template.compactionThreshold();
+      syncWrites = template.syncWrites();
+
+      // AbstractStore-specific configuration
+      fetchPersistentState = template.fetchPersistentState();
+      ignoreModifications = template.ignoreModifications();
+      properties = template.properties();
+      purgeOnStartup = template.purgeOnStartup();
+      async.read(template.async());
+      singletonStore.read(template.singletonStore());
+      preload = template.preload();
+      shared = template.shared();
+
+      return this;
+   }
+
+}
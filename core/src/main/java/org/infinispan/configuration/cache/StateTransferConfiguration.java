@@ -12,15 +12,19 @@ public class StateTransferConfiguration {
    private Boolean originalFetchInMemoryState;
    private long timeout;
    private int chunkSize;
+   private long chunkBytes;
+   private int maxInFlightChunks;
    private boolean awaitInitialTransfer;
    private Boolean originalAwaitInitialTransfer;
 
    StateTransferConfiguration(boolean fetchInMemoryState, Boolean originalFetchInMemoryState, long timeout, int chunkSize,
-                              boolean awaitInitialTransfer, Boolean originalAwaitInitialTransfer) {
+                              long chunkBytes, int maxInFlightChunks, boolean awaitInitialTransfer, Boolean originalAwaitInitialTransfer) {
       this.fetchInMemoryState = fetchInMemoryState;
       this.originalFetchInMemoryState = originalFetchInMemoryState;
       this.timeout = timeout;
       this.chunkSize = chunkSize;
+      this.chunkBytes = chunkBytes;
+      this.maxInFlightChunks = maxInFlightChunks;
       this.awaitInitialTransfer = awaitInitialTransfer;
       this.originalAwaitInitialTransfer = originalAwaitInitialTransfer;
    }
@@ -69,6 +73,22 @@ public int chunkSize() {
       return chunkSize;
    }
 
+   /**
+    * If &gt; 0, a batch of cache entries is also sent as soon as the estimated size of its marshalled keys and values
+    * reaches {@code chunkBytes}. If &lt;= 0, batches are only limited by {@link #chunkSize()}.
+    */
+   public long chunkBytes() {
+      return chunkBytes;
+   }
+
+   /**
+    * The maximum number of batches of cache entries a node sends to another node before the latter confirms it has
+    * applied them.
+    */
+   public int maxInFlightChunks() {
+      return maxInFlightChunks;
+   }
+
    /**
     * If {@code true}, this will cause the first call to method {@code CacheManager.getCache()} on the joiner node to
     * block and wait until the joining is complete and the cache has finished receiving state from neighboring caches
@@ -92,6 +112,8 @@ protected Boolean originalAwaitInitialTransfer() {
    public String toString() {
       return "StateTransferConfiguration{" +
             "chunkSize=" + chunkSize +
+            ", chunkBytes=" + chunkBytes +
+            ", maxInFlightChunks=" + maxInFlightChunks +
             ", fetchInMemoryState=" + fetchInMemoryState +
             ", originalFetchInMemoryState=" + originalFetchInMemoryState +
             ", timeout=" + timeout +
@@ -108,6 +130,8 @@ public boolean equals(Object o) {
       StateTransferConfiguration that = (StateTransferConfiguration) o;
 
       if (chunkSize != that.chunkSize) return false;
+      if (chunkBytes != that.chunkBytes) return false;
+      if (maxInFlightChunks != that.maxInFlightChunks) return false;
       if (fetchInMemoryState != that.fetchInMemoryState) return false;
       if (timeout != that.timeout) return false;
       if (originalFetchInMemoryState != null ? !originalFetchInMemoryState.equals(that.originalFetchInMemoryState) : that.originalFetchInMemoryState != null)
@@ -125,6 +149,8 @@ public int hashCode() {
       result = 31 * result + (originalFetchInMemoryState != null ? originalFetchInMemoryState.hashCode() : 0);
       result = 31 * result + (int) (timeout ^ (timeout >>> 32));
       result = 31 * result + chunkSize;
+      result = 31 * result + (int) (chunkBytes ^ (chunkBytes >>> 32));
+      result = 31 * result + maxInFlightChunks;
       result = 31 * result + (awaitInitialTransfer ? 1 : 0);
       result = 31 * result + (originalAwaitInitialTransfer != null ? originalAwaitInitialTransfer.hashCode() : 0);
       return result;
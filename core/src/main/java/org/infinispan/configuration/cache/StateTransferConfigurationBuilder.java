@@ -21,6 +21,8 @@ public class StateTransferConfigurationBuilder extends
    private Boolean fetchInMemoryState = null;
    private Boolean awaitInitialTransfer = null;
    private int chunkSize = 10000;
+   private long chunkBytes = 0;
+   private int maxInFlightChunks = 1;
    private long timeout = TimeUnit.MINUTES.toMillis(4);
 
    StateTransferConfigurationBuilder(ClusteringConfigurationBuilder builder) {
@@ -62,6 +64,26 @@ public StateTransferConfigurationBuilder chunkSize(int i) {
       return this;
    }
 
+   /**
+    * If &gt; 0, a batch of cache entries is also sent as soon as the estimated size of its marshalled keys and values
+    * reaches {@code chunkBytes}, so that caches with big values don't produce huge messages. If &lt;= 0, batches are
+    * only limited by {@link #chunkSize(int)}.
+    */
+   public StateTransferConfigurationBuilder chunkBytes(long l) {
+      this.chunkBytes = l;
+      return this;
+   }
+
+   /**
+    * The maximum number of batches of cache entries a node sends to another node before the latter confirms it has
+    * applied them. The default, 1, sends each batch only after the previous one was applied. Bigger values stream the
+    * state, so that the receiver applies several batches in parallel while the sender prepares the next ones.
+    */
+   public StateTransferConfigurationBuilder maxInFlightChunks(int i) {
+      this.maxInFlightChunks = i;
+      return this;
+   }
+
    /**
     * This is the maximum amount of time - in milliseconds - to wait for state from neighboring
     * caches, before throwing an exception and aborting startup.
@@ -89,6 +111,8 @@ public void validate() {
             && !getClusteringBuilder().cacheMode().isReplicated() && !getClusteringBuilder().cacheMode().isDistributed())
          throw new CacheConfigurationException(
                "awaitInitialTransfer can be enabled only if cache mode is distributed or replicated.");
+      if (maxInFlightChunks < 1)
+         throw new CacheConfigurationException("maxInFlightChunks must be greater than 0");
    }
 
    @Override
@@ -118,7 +142,7 @@ public  StateTransferConfiguration create() {
          _awaitInitialTransfer = false;
       }
       return new StateTransferConfiguration(_fetchInMemoryState, fetchInMemoryState,
-            timeout, chunkSize, _awaitInitialTransfer, awaitInitialTransfer);
+            timeout, chunkSize, chunkBytes, maxInFlightChunks, _awaitInitialTransfer, awaitInitialTransfer);
    }
 
    @Override
@@ -127,6 +151,8 @@ public StateTransferConfigurationBuilder read(StateTransferConfiguration templat
       this.awaitInitialTransfer = template.originalAwaitInitialTransfer();
       this.timeout = template.timeout();
       this.chunkSize = template.chunkSize();
+      this.chunkBytes = template.chunkBytes();
+      this.maxInFlightChunks = template.maxInFlightChunks();
       return this;
    }
 
@@ -134,6 +160,8 @@ public StateTransferConfigurationBuilder read(StateTransferConfiguration templat
    public String toString() {
       return "StateTransferConfigurationBuilder{" +
             "chunkSize=" + chunkSize +
+            ", chunkBytes=" + chunkBytes +
+            ", maxInFlightChunks=" + maxInFlightChunks +
             ", fetchInMemoryState=" + fetchInMemoryState +
             ", awaitInitialTransfer=" + awaitInitialTransfer +
             ", timeout=" + timeout +
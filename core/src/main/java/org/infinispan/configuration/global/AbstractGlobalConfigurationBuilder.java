@@ -38,6 +38,11 @@ public ExecutorFactoryConfigurationBuilder persistenceExecutor() {
       return globalConfig.persistenceExecutor();
    }
 
+   @Override
+   public ExecutorFactoryConfigurationBuilder mapReduceExecutor() {
+      return globalConfig.mapReduceExecutor();
+   }
+
    @Override
    public ExecutorFactoryConfigurationBuilder asyncTransportExecutor() {
       return globalConfig.asyncTransportExecutor();
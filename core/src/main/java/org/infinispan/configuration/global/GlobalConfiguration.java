@@ -39,6 +39,7 @@ public class GlobalConfiguration {
 
    private final ExecutorFactoryConfiguration asyncListenerExecutor;
    private final ExecutorFactoryConfiguration persistenceExecutor;
+   private final ExecutorFactoryConfiguration mapReduceExecutor;
    private final ExecutorFactoryConfiguration asyncTransportExecutor;
    private final ExecutorFactoryConfiguration remoteCommandsExecutor;
    private final ExecutorFactoryConfiguration totalOrderExecutor;
@@ -57,9 +58,11 @@ public class GlobalConfiguration {
          ScheduledExecutorFactoryConfiguration evictionScheduledExecutor,
          ScheduledExecutorFactoryConfiguration replicationQueueScheduledExecutor, GlobalJmxStatisticsConfiguration globalJmxStatistics,
          TransportConfiguration transport, SerializationConfiguration serialization, ShutdownConfiguration shutdown,
-         List<?> modules, SiteConfiguration site,ClassLoader cl, ExecutorFactoryConfiguration totalOrderExecutor, ExecutorFactoryConfiguration persistenceExecutor) {
+         List<?> modules, SiteConfiguration site,ClassLoader cl, ExecutorFactoryConfiguration totalOrderExecutor, ExecutorFactoryConfiguration persistenceExecutor,
+         ExecutorFactoryConfiguration mapReduceExecutor) {
       this.asyncListenerExecutor = asyncListenerExecutor;
       this.persistenceExecutor = persistenceExecutor;
+      this.mapReduceExecutor = mapReduceExecutor;
       this.asyncTransportExecutor = asyncTransportExecutor;
       this.remoteCommandsExecutor = remoteCommandsExecutor;
       this.evictionScheduledExecutor = evictionScheduledExecutor;
@@ -86,6 +89,14 @@ public ExecutorFactoryConfiguration persistenceExecutor() {
       return persistenceExecutor;
    }
 
+   /**
+    * The executor mapping the local keys of a map/reduce task in parallel. Its {@code maxThreads} property also
+    * bounds the number of parts the keys are split in.
+    */
+   public ExecutorFactoryConfiguration mapReduceExecutor() {
+      return mapReduceExecutor;
+   }
+
    public ExecutorFactoryConfiguration asyncTransportExecutor() {
       return asyncTransportExecutor;
    }
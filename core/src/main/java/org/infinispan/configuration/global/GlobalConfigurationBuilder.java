@@ -20,6 +20,7 @@ public class GlobalConfigurationBuilder implements GlobalConfigurationChildBuild
    private final ExecutorFactoryConfigurationBuilder asyncTransportExecutor;
    private final ExecutorFactoryConfigurationBuilder asyncListenerExecutor;
    private final ExecutorFactoryConfigurationBuilder persistenceExecutor;
+   private final ExecutorFactoryConfigurationBuilder mapReduceExecutor;
    private final ExecutorFactoryConfigurationBuilder remoteCommandsExecutor;
    private final ExecutorFactoryConfigurationBuilder totalOrderExecutor;
    private final ScheduledExecutorFactoryConfigurationBuilder evictionScheduledExecutor;
@@ -35,6 +36,7 @@ public GlobalConfigurationBuilder() {
       this.serialization = new SerializationConfigurationBuilder(this);
       this.asyncListenerExecutor = new ExecutorFactoryConfigurationBuilder(this);
       this.persistenceExecutor = new ExecutorFactoryConfigurationBuilder(this);
+      this.mapReduceExecutor = new ExecutorFactoryConfigurationBuilder(this);
       this.asyncTransportExecutor = new ExecutorFactoryConfigurationBuilder(this);
       this.remoteCommandsExecutor = new ExecutorFactoryConfigurationBuilder(this);
       this.evictionScheduledExecutor = new ScheduledExecutorFactoryConfigurationBuilder(this);
@@ -115,6 +117,15 @@ public ExecutorFactoryConfigurationBuilder persistenceExecutor() {
       return persistenceExecutor;
    }
 
+   /**
+    * Configures the executor mapping the local keys of a map/reduce task in parallel. It defaults to one thread per
+    * core, and its {@code maxThreads} property also bounds the number of parts the keys are split in.
+    */
+   @Override
+   public ExecutorFactoryConfigurationBuilder mapReduceExecutor() {
+      return mapReduceExecutor;
+   }
+
    @Override
    public ExecutorFactoryConfigurationBuilder remoteCommandsExecutor() {
       return remoteCommandsExecutor;
@@ -166,7 +177,7 @@ public ExecutorFactoryConfigurationBuilder totalOrderExecutor() {
 
    @SuppressWarnings("unchecked")
    public void validate() {
-      for (AbstractGlobalConfigurationBuilder<?> validatable : asList(asyncListenerExecutor, persistenceExecutor, asyncTransportExecutor,
+      for (AbstractGlobalConfigurationBuilder<?> validatable : asList(asyncListenerExecutor, persistenceExecutor, mapReduceExecutor, asyncTransportExecutor,
             remoteCommandsExecutor, evictionScheduledExecutor, replicationQueueScheduledExecutor, globalJmxStatistics, transport,
             serialization, shutdown, site, totalOrderExecutor)) {
          validatable.validate();
@@ -196,7 +207,8 @@ public GlobalConfiguration build() {
             site.create(),
             cl.get(),
             totalOrderExecutor.create(),
-            persistenceExecutor.create()
+            persistenceExecutor.create(),
+            mapReduceExecutor.create()
             );
    }
 
@@ -211,6 +223,7 @@ public GlobalConfigurationBuilder read(GlobalConfiguration template) {
 
       asyncListenerExecutor.read(template.asyncListenerExecutor());
       persistenceExecutor.read(template.asyncListenerExecutor());
+      mapReduceExecutor.read(template.mapReduceExecutor());
       asyncTransportExecutor.read(template.asyncTransportExecutor());
       remoteCommandsExecutor.read(template.remoteCommandsExecutor());
       evictionScheduledExecutor.read(template.evictionScheduledExecutor());
@@ -240,6 +253,7 @@ public String toString() {
       return "GlobalConfigurationBuilder{" +
             "asyncListenerExecutor=" + asyncListenerExecutor +
             "persistenceExecutor=" + persistenceExecutor +
+            ", mapReduceExecutor=" + mapReduceExecutor +
             ", cl=" + cl +
             ", transport=" + transport +
             ", globalJmxStatistics=" + globalJmxStatistics +
@@ -265,6 +279,8 @@ public boolean equals(Object o) {
          return false;
       if (persistenceExecutor != null ? !persistenceExecutor.equals(that.persistenceExecutor) : that.persistenceExecutor!= null)
          return false;
+      if (mapReduceExecutor != null ? !mapReduceExecutor.equals(that.mapReduceExecutor) : that.mapReduceExecutor != null)
+         return false;
       if (asyncTransportExecutor != null ? !asyncTransportExecutor.equals(that.asyncTransportExecutor) : that.asyncTransportExecutor != null)
          return false;
       if (remoteCommandsExecutor != null ? !remoteCommandsExecutor.equals(that.remoteCommandsExecutor) : that.remoteCommandsExecutor != null)
@@ -296,6 +312,7 @@ public int hashCode() {
       result = 31 * result + (serialization != null ? serialization.hashCode() : 0);
       result = 31 * result + (asyncTransportExecutor != null ? asyncTransportExecutor.hashCode() : 0);
       result = 31 * result + (asyncListenerExecutor != null ? asyncListenerExecutor.hashCode() : 0);
+      result = 31 * result + (mapReduceExecutor != null ? mapReduceExecutor.hashCode() : 0);
       result = 31 * result + (remoteCommandsExecutor != null ? remoteCommandsExecutor.hashCode() : 0);
       result = 31 * result + (evictionScheduledExecutor != null ? evictionScheduledExecutor.hashCode() : 0);
       result = 31 * result + (replicationQueueScheduledExecutor != null ? replicationQueueScheduledExecutor.hashCode() : 0);
@@ -11,6 +11,8 @@ public interface GlobalConfigurationChildBuilder {
 
    ExecutorFactoryConfigurationBuilder persistenceExecutor();
 
+   ExecutorFactoryConfigurationBuilder mapReduceExecutor();
+
    ExecutorFactoryConfigurationBuilder asyncTransportExecutor();
    
    ExecutorFactoryConfigurationBuilder remoteCommandsExecutor();
@@ -12,18 +12,22 @@ public enum Attribute {
     // must be first
     UNKNOWN(null),
 
+    ADAPTIVE_LOCK_STRIPING("adaptiveLockStriping"),
     AFTER("after"),
     ALLOW_DUPLICATE_DOMAINS("allowDuplicateDomains"),
     ALWAYS_PROVIDE_IN_MEMORY_STATE("alwaysProvideInMemoryState"),
+    ASYNC("async"),
     ASYNC_MARSHALLING("asyncMarshalling"),
     AUTO_COMMIT("autoCommit"),
     BEFORE("before"),
     CACHE_MANAGER_NAME("cacheManagerName"),
     CACHE_STOP_TIMEOUT("cacheStopTimeout"),
     CAPACITY_FACTOR("capacityFactor"),
+    CHUNK_BYTES("chunkBytes"),
     CHUNK_SIZE("chunkSize"),
     CLASS("class"),
     CLUSTER_NAME("clusterName"),
+    COMPACTION_THRESHOLD("compactionThreshold"),
     CONCURRENCY_LEVEL("concurrencyLevel"),
     DISTRIBUTED_SYNC_TIMEOUT("distributedSyncTimeout"),
     EAGER_LOCK_SINGLE_NODE("eagerLockSingleNode"),
@@ -55,18 +59,25 @@ public enum Attribute {
     LOG_FLUSH_TIMEOUT("logFlushTimeout"),
     MACHINE_ID("machineId"),
     MARSHALLER_CLASS("marshallerClass"),
+    MAX_BATCH_SIZE("maxBatchSize"),
     MAX_ENTRIES("maxEntries"),
+    MAX_FILE_SIZE("maxFileSize"),
     MAX_IDLE("maxIdle"),
+    MAX_IN_FLIGHT_CHUNKS("maxInFlightChunks"),
+    MAX_MEMORY("maxMemory"),
     MAX_NON_PROGRESSING_LOG_WRITES("maxProgressingLogWrites"),
+    MAX_QUEUE_SIZE("maxQueueSize"),
     MBEAN_SERVER_LOOKUP("mBeanServerLookup"),
     MODE("mode"),
     NODE_NAME("nodeName"),
+    MODIFICATION_QUEUE_MAX_BYTES("modificationQueueMaxBytes"),
     MODIFICATION_QUEUE_SIZE("modificationQueueSize"),
     NAME("name"),
     NUM_OWNERS("numOwners"),
     NUM_SEGMENTS("numSegments"),
     NUM_RETRIES("numRetries"),
     NUM_VIRTUAL_NODES("numVirtualNodes"),
+    OFF_HEAP("offHeap"),
     ON_REHASH("onRehash"),
     PASSIVATION("passivation"),
     POSITION("position"),
@@ -77,12 +88,15 @@ public enum Attribute {
     RACK_ID("rackId"),
     REAPER_ENABLED("reaperEnabled"),
     RECOVERY_INFO_CACHE_NAME("recoveryInfoCacheName"),
+    REFRESH_INTERVAL("refreshInterval"),
     REHASH_ENABLED("rehashEnabled"),
     REHASH_RPC_TIMEOUT("rehashRpcTimeout"),
     REHASH_WAIT("rehashWait"),
     REMOTE_CALL_TIMEOUT("remoteCallTimeout"),
+    REPL_QUEUE_ADAPTIVE("replQueueAdaptive"),
     REPL_QUEUE_INTERVAL("replQueueInterval"),
     REPL_QUEUE_CLASS("replQueueClass"),
+    REPL_QUEUE_MAX_BYTES("replQueueMaxBytes"),
     REPL_QUEUE_MAX_ELEMENTS("replQueueMaxElements"),
     REPL_TIMEOUT("replTimeout"),
     RETRY_WAIT_TIME_INCREASE_FACTOR("retryWaitTimeIncreaseFactor"),
@@ -96,6 +110,7 @@ public enum Attribute {
     STRATEGY("strategy"),
     STREAM_BUFFER_SIZE("streamBufferSize"),
     SYNC_COMMIT_PHASE("syncCommitPhase"),
+    SYNC_WRITES("syncWrites"),
     SYNC_ROLLBACK_PHASE("syncRollbackPhase"),
     STRICT_PEER_TO_PEER("strictPeerToPeer"),
     THREAD_POLICY("threadPolicy"),
@@ -106,6 +121,7 @@ public enum Attribute {
     TRANSPORT_CLASS("transportClass"),
     UNRELIABLE_RETURN_VALUES("unreliableReturnValues"),
     USE_EAGER_LOCKING("useEagerLocking"),
+    USE_LOCK_POOLING("useLockPooling"),
     USE_LOCK_STRIPING("useLockStriping"),
     SUPPORTS_CONCURRENT_UPDATES("supportsConcurrentUpdates"),
     USE_REPL_QUEUE("useReplQueue"),
@@ -18,6 +18,7 @@ public enum Element {
     ASYNC("async"),
     ASYNC_LISTENER_EXECUTOR("asyncListenerExecutor"),
     PERSISTENCE_EXECUTOR("persistenceExecutor"),
+    MAP_REDUCE_EXECUTOR("mapReduceExecutor"),
     ASYNC_TRANSPORT_EXECUTOR("asyncTransportExecutor"),
     REMOTE_COMMNAND_EXECUTOR("remoteCommandsExecutor"),
     CLUSTERING("clustering"),
@@ -31,6 +32,7 @@ public enum Element {
     EVICTION_SCHEDULED_EXECUTOR("evictionScheduledExecutor"),
     EXPIRATION("expiration"),
     SINGLE_FILE_STORE("singleFile"),
+    LOG_FILE_STORE("logFile"),
     GROUPS("groups"),
     GROUPER("grouper"),
     GLOBAL("global"),
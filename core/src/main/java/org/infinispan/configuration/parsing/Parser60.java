@@ -500,6 +500,9 @@ private void parseLocking(final XMLExtendedStreamReader reader, final Configurat
          String value = replaceProperties(reader.getAttributeValue(i));
          Attribute attribute = Attribute.forName(reader.getAttributeLocalName(i));
          switch (attribute) {
+            case ADAPTIVE_LOCK_STRIPING:
+               builder.locking().adaptiveLockStriping(Boolean.parseBoolean(value));
+               break;
             case CONCURRENCY_LEVEL:
                builder.locking().concurrencyLevel(Integer.parseInt(value));
                break;
@@ -512,6 +515,9 @@ private void parseLocking(final XMLExtendedStreamReader reader, final Configurat
             case USE_LOCK_STRIPING:
                builder.locking().useLockStriping(Boolean.parseBoolean(value));
                break;
+            case USE_LOCK_POOLING:
+               builder.locking().useLockPooling(Boolean.parseBoolean(value));
+               break;
             case WRITE_SKEW_CHECK:
                builder.locking().writeSkewCheck(Boolean.parseBoolean(value));
                break;
@@ -551,6 +557,9 @@ private void parsePersistence(final XMLExtendedStreamReader reader, final Config
             case SINGLE_FILE_STORE:
                parseSingleFileStore(reader, holder);
                break;
+            case LOG_FILE_STORE:
+               parseLogFileStore(reader, holder);
+               break;
             case STORE:
                parseStore(reader, holder);
                break;
@@ -583,6 +592,35 @@ private void parseSingleFileStore(XMLExtendedStreamReader reader, ConfigurationB
       parseStoreChildren(reader, storeBuilder);
    }
 
+   private void parseLogFileStore(XMLExtendedStreamReader reader, ConfigurationBuilderHolder holder) throws XMLStreamException {
+      ConfigurationBuilder builder = holder.getCurrentConfigurationBuilder();
+      LogFileStoreConfigurationBuilder storeBuilder = builder.persistence().addLogFileStore();
+      for (int i = 0; i < reader.getAttributeCount(); i++) {
+         ParseUtils.requireNoNamespaceAttribute(reader, i);
+         String value = replaceProperties(reader.getAttributeValue(i));
+         String attrName = reader.getAttributeLocalName(i);
+         Attribute attribute = Attribute.forName(attrName);
+         switch (attribute) {
+            case LOCATION:
+               storeBuilder.location(value);
+               break;
+            case MAX_FILE_SIZE:
+               storeBuilder.maxFileSize(Long.parseLong(value));
+               break;
+            case COMPACTION_THRESHOLD:
+               storeBuilder.compactionThreshold(Double.parseDouble(value));
+               break;
+            case SYNC_WRITES:
+               storeBuilder.syncWrites(Boolean.parseBoolean(value));
+               break;
+            default:
+               parseCommonStoreAttributes(reader, storeBuilder, attrName, value, i);
+               break;
+         }
+      }
+      parseStoreChildren(reader, storeBuilder);
+   }
+
    private void parseClusterLoader(XMLExtendedStreamReader reader, ConfigurationBuilderHolder holder) throws XMLStreamException {
       ConfigurationBuilder builder = holder.getCurrentConfigurationBuilder();
       ClusterLoaderConfigurationBuilder cclb = builder.persistence().addClusterLoader();
@@ -774,6 +812,9 @@ public static void parseAsyncStore(final XMLExtendedStreamReader reader, final S
             case MODIFICATION_QUEUE_SIZE:
                storeBuilder.async().modificationQueueSize(Integer.parseInt(value));
                break;
+            case MODIFICATION_QUEUE_MAX_BYTES:
+               storeBuilder.async().modificationQueueMaxBytes(Long.parseLong(value));
+               break;
             case SHUTDOWN_TIMEOUT:
                storeBuilder.async().shutdownTimeout(Long.parseLong(value));
                break;
@@ -851,6 +892,18 @@ private void parseIndexing(final XMLExtendedStreamReader reader, final Configura
             case INDEX_LOCAL_ONLY:
                   builder.indexing().indexLocalOnly(Boolean.parseBoolean(value));
                break;
+            case ASYNC:
+               builder.indexing().async(Boolean.parseBoolean(value));
+               break;
+            case REFRESH_INTERVAL:
+               builder.indexing().refreshInterval(Long.parseLong(value));
+               break;
+            case MAX_QUEUE_SIZE:
+               builder.indexing().maxQueueSize(Integer.parseInt(value));
+               break;
+            case MAX_BATCH_SIZE:
+               builder.indexing().maxBatchSize(Integer.parseInt(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -916,6 +969,9 @@ private void parseEviction(final XMLExtendedStreamReader reader, final Configura
             case MAX_ENTRIES:
                builder.eviction().maxEntries(Integer.parseInt(value));
                break;
+            case MAX_MEMORY:
+               builder.eviction().maxMemory(Long.parseLong(value));
+               break;
             case STRATEGY:
                builder.eviction().strategy(EvictionStrategy.valueOf(value));
                break;
@@ -973,6 +1029,9 @@ private void parseDataContainer(final XMLExtendedStreamReader reader, final Conf
             case VALUE_EQUIVALENCE:
                builder.dataContainer().valueEquivalence(Util.<Equivalence>getInstance(value, holder.getClassLoader()));
                break;
+            case OFF_HEAP:
+               builder.dataContainer().offHeap(Boolean.parseBoolean(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -1181,6 +1240,12 @@ private void parseStateTransfer(final XMLExtendedStreamReader reader, final Conf
             case CHUNK_SIZE:
                builder.clustering().stateTransfer().chunkSize(Integer.parseInt(value));
                break;
+            case CHUNK_BYTES:
+               builder.clustering().stateTransfer().chunkBytes(Long.parseLong(value));
+               break;
+            case MAX_IN_FLIGHT_CHUNKS:
+               builder.clustering().stateTransfer().maxInFlightChunks(Integer.parseInt(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -1329,6 +1394,12 @@ private void parseAsync(final XMLExtendedStreamReader reader, final Configuratio
             case REPL_QUEUE_MAX_ELEMENTS:
                builder.clustering().async().replQueueMaxElements(Integer.parseInt(value));
                break;
+            case REPL_QUEUE_MAX_BYTES:
+               builder.clustering().async().replQueueMaxBytes(Long.parseLong(value));
+               break;
+            case REPL_QUEUE_ADAPTIVE:
+               builder.clustering().async().replQueueAdaptive(Boolean.parseBoolean(value));
+               break;
             case USE_REPL_QUEUE:
                builder.clustering().async().useReplQueue(Boolean.parseBoolean(value));
                break;
@@ -1358,6 +1429,11 @@ private void parseGlobal(final XMLExtendedStreamReader reader, final Configurati
                              holder.getClassLoader());
                break;
             }
+            case MAP_REDUCE_EXECUTOR: {
+               parseExecutor(reader, holder.getGlobalConfigurationBuilder().mapReduceExecutor(),
+                             holder.getClassLoader());
+               break;
+            }
             case ASYNC_TRANSPORT_EXECUTOR: {
                parseExecutor(reader, holder.getGlobalConfigurationBuilder().asyncTransportExecutor(),
                              holder.getClassLoader());
@@ -7,6 +7,7 @@
 import org.infinispan.commons.util.CollectionFactory;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.eviction.EvictionManager;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
@@ -45,6 +46,7 @@ public class DefaultDataContainer implements DataContainer {
    final protected ConcurrentMap<Object, InternalCacheEntry> entries;
    protected InternalEntryFactory entryFactory;
    final protected DefaultEvictionListener evictionListener;
+   final protected ExpirationIndex expirationIndex;
    private EvictionManager evictionManager;
    private PassivationManager passivator;
    private ActivationManager activator;
@@ -55,6 +57,7 @@ public DefaultDataContainer(int concurrencyLevel) {
       // If no comparing implementations passed, could fallback on JDK CHM
       entries = CollectionFactory.makeConcurrentMap(128, concurrencyLevel);
       evictionListener = null;
+      expirationIndex = new ExpirationIndex();
    }
 
    public DefaultDataContainer(int concurrencyLevel,
@@ -62,38 +65,53 @@ public DefaultDataContainer(int concurrencyLevel,
       // If at least one comparing implementation give, use ComparingCHMv8
       entries = CollectionFactory.makeConcurrentMap(128, concurrencyLevel, keyEq, valueEq);
       evictionListener = null;
+      expirationIndex = new ExpirationIndex(keyEq);
    }
 
    protected DefaultDataContainer(int concurrencyLevel, int maxEntries,
          EvictionStrategy strategy, EvictionThreadPolicy policy,
          Equivalence keyEquivalence, Equivalence valueEquivalence) {
-      // translate eviction policy and strategy
+      evictionListener = createEvictionListener(policy);
+      expirationIndex = new ExpirationIndex(keyEquivalence);
+      entries = new BoundedConcurrentHashMap<Object, InternalCacheEntry>(
+            maxEntries, concurrencyLevel, toEviction(strategy), evictionListener,
+            keyEquivalence, valueEquivalence);
+   }
+
+   protected DefaultDataContainer(int concurrencyLevel, long maxMemory,
+         EvictionStrategy strategy, EvictionThreadPolicy policy,
+         EntrySizeCalculator<Object, InternalCacheEntry> sizeCalculator,
+         Equivalence keyEquivalence, Equivalence valueEquivalence) {
+      evictionListener = createEvictionListener(policy);
+      expirationIndex = new ExpirationIndex(keyEquivalence);
+      entries = new BoundedConcurrentHashMap<Object, InternalCacheEntry>(
+            maxMemory, concurrencyLevel, toEviction(strategy), evictionListener,
+            sizeCalculator, keyEquivalence, valueEquivalence);
+   }
+
+   private DefaultEvictionListener createEvictionListener(EvictionThreadPolicy policy) {
+      // translate eviction policy
       switch (policy) {
          case PIGGYBACK:
          case DEFAULT:
-            evictionListener = new DefaultEvictionListener();
-            break;
+            return new DefaultEvictionListener();
          default:
-            throw new IllegalArgumentException("No such eviction thread policy " + strategy);
+            throw new IllegalArgumentException("No such eviction thread policy " + policy);
       }
+   }
 
-      Eviction eviction;
+   private static Eviction toEviction(EvictionStrategy strategy) {
+      // translate eviction strategy
       switch (strategy) {
          case FIFO:
          case UNORDERED:
          case LRU:
-            eviction = Eviction.LRU;
-            break;
+            return Eviction.LRU;
          case LIRS:
-            eviction = Eviction.LIRS;
-            break;
+            return Eviction.LIRS;
          default:
             throw new IllegalArgumentException("No such eviction strategy " + strategy);
       }
-
-      entries = new BoundedConcurrentHashMap<Object, InternalCacheEntry>(
-            maxEntries, concurrencyLevel, eviction, evictionListener,
-            keyEquivalence, valueEquivalence);
    }
 
    @Inject
@@ -114,6 +132,14 @@ public static DataContainer boundedDataContainer(int concurrencyLevel, int maxEn
             policy, keyEquivalence, valueEquivalence);
    }
 
+   public static DataContainer memoryBoundedDataContainer(int concurrencyLevel, long maxMemory,
+            EvictionStrategy strategy, EvictionThreadPolicy policy,
+            EntrySizeCalculator<Object, InternalCacheEntry> sizeCalculator,
+            Equivalence keyEquivalence, Equivalence valueEquivalence) {
+      return new DefaultDataContainer(concurrencyLevel, maxMemory, strategy,
+            policy, sizeCalculator, keyEquivalence, valueEquivalence);
+   }
+
    public static DataContainer unBoundedDataContainer(int concurrencyLevel,
          Equivalence keyEquivalence, Equivalence valueEquivalence) {
       return new DefaultDataContainer(concurrencyLevel, keyEquivalence, valueEquivalence);
@@ -135,6 +161,7 @@ public InternalCacheEntry get(Object k) {
          long currentTimeMillis = timeService.wallClockTime();
          if (e.isExpired(currentTimeMillis)) {
             entries.remove(k);
+            expirationIndex.remove(k, e);
             e = null;
          } else {
             e.touch(currentTimeMillis);
@@ -159,6 +186,7 @@ public void put(Object k, Object v, Metadata metadata) {
          e = entryFactory.create(k, v, metadata);
       }
       entries.put(k, e);
+      expirationIndex.add(e);
    }
 
    @Override
@@ -166,6 +194,7 @@ public boolean containsKey(Object k) {
       InternalCacheEntry ice = peek(k);
       if (ice != null && ice.canExpire() && ice.isExpired(timeService.wallClockTime())) {
          entries.remove(k);
+         expirationIndex.remove(k, ice);
          ice = null;
       }
       return ice != null;
@@ -174,6 +203,7 @@ public boolean containsKey(Object k) {
    @Override
    public InternalCacheEntry remove(Object k) {
       InternalCacheEntry e = entries.remove(k);
+      if (e != null) expirationIndex.remove(k, e);
       return e == null || (e.canExpire() && e.isExpired(timeService.wallClockTime())) ? null : e;
    }
 
@@ -185,6 +215,7 @@ public int size() {
    @Override
    public void clear() {
       entries.clear();
+      expirationIndex.clear();
    }
 
    @Override
@@ -204,13 +235,8 @@ public Set<InternalCacheEntry> entrySet() {
 
    @Override
    public void purgeExpired() {
-      long currentTimeMillis = timeService.wallClockTime();
-      for (Iterator<InternalCacheEntry> purgeCandidates = entries.values().iterator(); purgeCandidates.hasNext();) {
-         InternalCacheEntry e = purgeCandidates.next();
-         if (e.isExpired(currentTimeMillis)) {
-            purgeCandidates.remove();
-         }
-      }
+      // only visits the entries due to expire, rather than the whole container
+      expirationIndex.purge(entries, timeService.wallClockTime());
    }
 
    @Override
@@ -222,6 +248,9 @@ private final class DefaultEvictionListener implements EvictionListener<Object,
 
       @Override
       public void onEntryEviction(Map<Object, InternalCacheEntry> evicted) {
+         for (Map.Entry<Object, InternalCacheEntry> e : evicted.entrySet()) {
+            expirationIndex.remove(e.getKey(), e.getValue());
+         }
          evictionManager.onEntryEviction(evicted);
       }
 
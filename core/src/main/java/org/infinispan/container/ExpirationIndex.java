@@ -0,0 +1,163 @@
+package org.infinispan.container;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.commons.equivalence.AnyEquivalence;
+import org.infinispan.commons.equivalence.Equivalence;
+import org.infinispan.commons.util.CollectionFactory;
+import org.infinispan.container.entries.InternalCacheEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Index of the entries that can expire, bucketed by expiry time, so that expired entries can be purged without
+ * scanning the whole container.
+ * <p/>
+ * The container keeps the index up to date: an entry is indexed when it is written, its record is replaced when it is
+ * overwritten and dropped when it is removed or evicted, so the index never holds more than one record per entry of
+ * the container. Transient entries whose expiry time moved forward because they have been accessed are re-indexed
+ * when their bucket is purged, so purging costs are proportional to the number of entries that expired (or were due
+ * to) since the last purge, rather than to the size of the container.
+ *
+ * @since 6.0
+ */
+@ThreadSafe
+public final class ExpirationIndex {
+
+   /**
+    * Width of the time buckets, in milliseconds.
+    */
+   static final long BUCKET_MILLIS = 100;
+
+   private final ConcurrentNavigableMap<Long, Set<Record>> buckets = new ConcurrentSkipListMap<Long, Set<Record>>();
+   private final ConcurrentMap<Object, Record> records;
+
+   public ExpirationIndex() {
+      this(AnyEquivalence.getInstance());
+   }
+
+   /**
+    * @param keyEquivalence the equivalence of the keys of the container
+    */
+   public ExpirationIndex(Equivalence<Object> keyEquivalence) {
+      records = CollectionFactory.makeConcurrentMap(keyEquivalence, AnyEquivalence.<Record>getInstance());
+   }
+
+   /**
+    * Indexes an entry that has just been stored in the container, replacing the record of the entry it overwrote.
+    *
+    * @param entry the stored entry; if it cannot expire, only the record of the previous entry is dropped
+    */
+   public void add(InternalCacheEntry entry) {
+      if (entry.canExpire()) {
+         Record record = new Record(entry, entry.getExpiryTime());
+         Record previous = records.put(entry.getKey(), record);
+         if (previous != null) unlink(previous);
+         link(record);
+      } else {
+         Record previous = records.remove(entry.getKey());
+         if (previous != null) unlink(previous);
+      }
+   }
+
+   /**
+    * Drops the record of an entry that has been removed or evicted from the container. Nothing happens if the key has
+    * been written again since, as the record belongs to the new entry then.
+    */
+   public void remove(Object key, InternalCacheEntry entry) {
+      Record record = records.get(key);
+      if (record != null && record.entry == entry && records.remove(key, record)) {
+         unlink(record);
+      }
+   }
+
+   private void link(Record record) {
+      Long bucket = record.expiryTime / BUCKET_MILLIS;
+      while (true) {
+         Set<Record> set = buckets.get(bucket);
+         if (set == null) {
+            set = Collections.newSetFromMap(new ConcurrentHashMap<Record, Boolean>());
+            Set<Record> existing = buckets.putIfAbsent(bucket, set);
+            if (existing != null) set = existing;
+         }
+         set.add(record);
+         // a concurrent purge might have discarded the bucket before the record was added to it
+         if (buckets.get(bucket) == set) return;
+         set.remove(record);
+      }
+   }
+
+   private void unlink(Record record) {
+      Set<Record> set = buckets.get(record.expiryTime / BUCKET_MILLIS);
+      if (set != null) set.remove(record);
+   }
+
+   /**
+    * Removes all the indexed entries that expired from the container.
+    *
+    * @param entries the container's entries, by key
+    * @param now the current wall clock time
+    * @return the number of entries removed from the container
+    */
+   public int purge(ConcurrentMap<Object, InternalCacheEntry> entries, long now) {
+      int purged = 0;
+      List<Record> notExpired = null;
+      for (Map.Entry<Long, Set<Record>> bucket : buckets.headMap(now / BUCKET_MILLIS, true).entrySet()) {
+         // records linked concurrently find out the bucket is gone and link themselves again
+         buckets.remove(bucket.getKey(), bucket.getValue());
+         for (Record r : bucket.getValue()) {
+            Object key = r.entry.getKey();
+            // the record was replaced or dropped while the bucket was being purged
+            if (records.get(key) != r) continue;
+
+            InternalCacheEntry current = entries.get(key);
+            if (current != r.entry) {
+               records.remove(key, r);
+            } else if (current.isExpired(now)) {
+               if (entries.remove(key, current)) purged++;
+               records.remove(key, r);
+            } else {
+               // not due yet in the current bucket, or accessed since it was indexed
+               if (notExpired == null) notExpired = new ArrayList<Record>();
+               notExpired.add(r);
+            }
+         }
+      }
+      if (notExpired != null) {
+         for (Record r : notExpired) {
+            Record moved = new Record(r.entry, r.entry.getExpiryTime());
+            if (records.replace(r.entry.getKey(), r, moved)) link(moved);
+         }
+      }
+      return purged;
+   }
+
+   /**
+    * @return the number of records in the index
+    */
+   public int size() {
+      return records.size();
+   }
+
+   public void clear() {
+      records.clear();
+      buckets.clear();
+   }
+
+   private static final class Record {
+      final InternalCacheEntry entry;
+      final long expiryTime;
+
+      Record(InternalCacheEntry entry, long expiryTime) {
+         this.entry = entry;
+         this.expiryTime = expiryTime;
+      }
+   }
+}
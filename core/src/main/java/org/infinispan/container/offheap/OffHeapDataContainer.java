@@ -0,0 +1,804 @@
+package org.infinispan.container.offheap;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.commons.CacheException;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.container.entries.ExpiryHelper;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.EvictionManager;
+import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.eviction.PassivationManager;
+import org.infinispan.factories.annotations.ComponentName;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Start;
+import org.infinispan.factories.annotations.Stop;
+import org.infinispan.jmx.annotations.DataType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.persistence.manager.PersistenceManager;
+import org.infinispan.util.CoreImmutables;
+import org.infinispan.util.TimeService;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
+
+/**
+ * A {@link DataContainer} which keeps marshalled keys, values and {@link Metadata} in native memory, so that the
+ * amount of heap used by the container does not depend on the number or the size of the entries it holds.
+ * <p />
+ * The container is split into segments, each one guarded by its own lock and holding an off-heap hash index (an
+ * array of bucket addresses) plus a doubly linked list of its entries, which is used for iteration, expiration and,
+ * when the container is bounded, for picking eviction victims.  Each entry is a single native memory block laid out
+ * as follows:
+ * <pre>
+ *    next bucket entry (8) | lru prev (8) | lru next (8) | hash (4) | key length (4) | value length (4) |
+ *    metadata length (4) | created (8) | last used (8) | lifespan (8) | max idle (8) | key | value | metadata
+ * </pre>
+ * Keys are compared by their marshalled form, so two keys are considered equal if and only if the cache marshaller
+ * produces the same bytes for them; any {@link org.infinispan.commons.equivalence.Equivalence} configured for the
+ * data container is therefore not used.
+ * <p />
+ * Entries returned by this container are copies rebuilt from native memory, so changes made to them are not
+ * reflected in the container until they are {@link #put(Object, Object, Metadata) put} again.  When bounded, the
+ * {@link EvictionStrategy#LIRS} strategy is approximated with LRU ordering, while {@link EvictionStrategy#FIFO}
+ * keeps insertion order.
+ *
+ * @since 6.0
+ */
+@ThreadSafe
+@MBean(objectName = "OffHeapDataContainer", description = "Data container storing entries in native memory")
+public class OffHeapDataContainer implements DataContainer {
+
+   private static final Log log = LogFactory.getLog(OffHeapDataContainer.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private static final int NEXT_OFFSET = 0;
+   private static final int LRU_PREV_OFFSET = 8;
+   private static final int LRU_NEXT_OFFSET = 16;
+   private static final int HASH_OFFSET = 24;
+   private static final int KEY_LENGTH_OFFSET = 28;
+   private static final int VALUE_LENGTH_OFFSET = 32;
+   private static final int METADATA_LENGTH_OFFSET = 36;
+   private static final int CREATED_OFFSET = 40;
+   private static final int LAST_USED_OFFSET = 48;
+   private static final int LIFESPAN_OFFSET = 56;
+   private static final int MAX_IDLE_OFFSET = 64;
+   private static final int HEADER_SIZE = 72;
+
+   private static final int INITIAL_BUCKETS_PER_SEGMENT = 16;
+   private static final int MAXIMUM_BUCKETS_PER_SEGMENT = 1 << 30;
+
+   private final Segment[] segments;
+   private final int segmentShift;
+   private final int segmentMask;
+   private final int maxEntriesPerSegment;
+   private final boolean accessOrder;
+   private final AtomicLong allocatedMemory = new AtomicLong();
+
+   private StreamingMarshaller marshaller;
+   private InternalEntryFactory entryFactory;
+   private EvictionManager evictionManager;
+   private PassivationManager passivator;
+   private ActivationManager activator;
+   private PersistenceManager persistenceManager;
+   private TimeService timeService;
+
+   /**
+    * Creates an unbounded off-heap container.
+    */
+   public OffHeapDataContainer(int concurrencyLevel) {
+      this(concurrencyLevel, -1, EvictionStrategy.NONE);
+   }
+
+   /**
+    * Creates an off-heap container holding at most (approximately) <tt>maxEntries</tt> entries.  A negative
+    * <tt>maxEntries</tt> or an {@link EvictionStrategy#NONE} strategy produce an unbounded container.
+    */
+   public OffHeapDataContainer(int concurrencyLevel, int maxEntries, EvictionStrategy strategy) {
+      int shift = 0;
+      int segmentCount = 1;
+      while (segmentCount < concurrencyLevel) {
+         ++shift;
+         segmentCount <<= 1;
+      }
+      segmentShift = 32 - shift;
+      segmentMask = segmentCount - 1;
+      segments = new Segment[segmentCount];
+      for (int i = 0; i < segmentCount; i++) {
+         segments[i] = new Segment();
+         segments[i].allocate();
+      }
+
+      if (maxEntries < 0 || strategy == null || !strategy.isEnabled()) {
+         maxEntriesPerSegment = -1;
+      } else {
+         int perSegment = maxEntries / segmentCount;
+         if (perSegment * segmentCount < maxEntries) perSegment++;
+         maxEntriesPerSegment = Math.max(perSegment, 1);
+      }
+      accessOrder = strategy != EvictionStrategy.FIFO;
+   }
+
+   @Inject
+   public void initialize(@ComponentName(CACHE_MARSHALLER) StreamingMarshaller marshaller, EvictionManager evictionManager,
+         PassivationManager passivator, InternalEntryFactory entryFactory, ActivationManager activator,
+         PersistenceManager persistenceManager, TimeService timeService) {
+      this.marshaller = marshaller;
+      this.evictionManager = evictionManager;
+      this.passivator = passivator;
+      this.entryFactory = entryFactory;
+      this.activator = activator;
+      this.persistenceManager = persistenceManager;
+      this.timeService = timeService;
+   }
+
+   @Start
+   public void start() {
+      // a no-op unless the container is being restarted
+      for (Segment segment : segments)
+         segment.allocate();
+   }
+
+   /**
+    * Releases the native memory of the container. Operations still in flight afterwards, e.g. remote commands or the
+    * eviction thread, see an empty container, and writes fail with an {@link IllegalStateException}.
+    */
+   @Stop(priority = 1000)
+   public void stop() {
+      // runs after clear(), so that every entry block is already released
+      for (Segment segment : segments)
+         segment.release();
+   }
+
+   @Override
+   public InternalCacheEntry get(Object k) {
+      return lookup(k, true);
+   }
+
+   @Override
+   public InternalCacheEntry peek(Object k) {
+      return lookup(k, false);
+   }
+
+   private InternalCacheEntry lookup(Object k, boolean touch) {
+      byte[] key = marshall(k);
+      int hash = hash(key);
+      Segment segment = segmentFor(hash);
+      EntrySnapshot snapshot;
+      segment.lock.lock();
+      try {
+         long address = segment.find(hash, key);
+         if (address == 0)
+            return null;
+         if (touch) {
+            long now = timeService.wallClockTime();
+            if (isExpired(address, now)) {
+               segment.unlink(address);
+               return null;
+            }
+            OffHeapMemory.putLong(address + LAST_USED_OFFSET, now);
+            if (accessOrder) segment.moveToHead(address);
+         }
+         snapshot = new EntrySnapshot(address, false);
+      } finally {
+         segment.lock.unlock();
+      }
+      return snapshot.toEntry(k);
+   }
+
+   @Override
+   public void put(Object k, Object v, Metadata metadata) {
+      byte[] key = marshall(k);
+      byte[] value = marshall(v);
+      byte[] meta = metadata == null ? null : marshall(metadata);
+      int hash = hash(key);
+      long now = timeService.wallClockTime();
+      long address = allocateEntry(hash, key, value, meta, now,
+                                   metadata == null ? -1 : metadata.lifespan(),
+                                   metadata == null ? -1 : metadata.maxIdle());
+      Segment segment = segmentFor(hash);
+      Map<Object, InternalCacheEntry> evicted = null;
+      boolean created;
+      segment.lock.lock();
+      try {
+         if (segment.isReleased()) {
+            freeEntry(address);
+            throw new IllegalStateException("Cannot write to a stopped off-heap data container");
+         }
+         long existing = segment.find(hash, key);
+         created = existing == 0;
+         if (!created)
+            segment.unlink(existing);
+         segment.link(address);
+         if (maxEntriesPerSegment > 0)
+            evicted = segment.evictIfNeeded(address);
+      } finally {
+         segment.lock.unlock();
+      }
+      if (created && maxEntriesPerSegment > 0 && activator != null)
+         activator.activate(k);
+      if (evicted != null && evictionManager != null)
+         evictionManager.onEntryEviction(evicted);
+   }
+
+   @Override
+   public boolean containsKey(Object k) {
+      byte[] key = marshall(k);
+      int hash = hash(key);
+      Segment segment = segmentFor(hash);
+      segment.lock.lock();
+      try {
+         long address = segment.find(hash, key);
+         if (address != 0 && isExpired(address, timeService.wallClockTime())) {
+            segment.unlink(address);
+            address = 0;
+         }
+         return address != 0;
+      } finally {
+         segment.lock.unlock();
+      }
+   }
+
+   @Override
+   public InternalCacheEntry remove(Object k) {
+      byte[] key = marshall(k);
+      int hash = hash(key);
+      Segment segment = segmentFor(hash);
+      EntrySnapshot snapshot = null;
+      segment.lock.lock();
+      try {
+         long address = segment.find(hash, key);
+         if (address != 0) {
+            if (!isExpired(address, timeService.wallClockTime()))
+               snapshot = new EntrySnapshot(address, false);
+            segment.unlink(address);
+         }
+      } finally {
+         segment.lock.unlock();
+      }
+      // Mimic the bounded DefaultDataContainer, which removes explicitly removed entries from the stores too
+      if (maxEntriesPerSegment > 0 && persistenceManager != null)
+         persistenceManager.deleteFromAllStores(k, false);
+      return snapshot == null ? null : snapshot.toEntry(k);
+   }
+
+   @Override
+   public int size() {
+      int size = 0;
+      for (Segment segment : segments)
+         size += segment.count;
+      return size;
+   }
+
+   @Override
+   public void clear() {
+      for (Segment segment : segments) {
+         segment.lock.lock();
+         try {
+            segment.clear();
+         } finally {
+            segment.lock.unlock();
+         }
+      }
+   }
+
+   @Override
+   public Set<Object> keySet() {
+      return new KeySet();
+   }
+
+   @Override
+   public Collection<Object> values() {
+      return new Values();
+   }
+
+   @Override
+   public Set<InternalCacheEntry> entrySet() {
+      return new EntrySet();
+   }
+
+   @Override
+   public void purgeExpired() {
+      long now = timeService.wallClockTime();
+      int purged = 0;
+      for (Segment segment : segments) {
+         segment.lock.lock();
+         try {
+            // the list of a released segment is empty
+            long address = segment.lruHead;
+            while (address != 0) {
+               long next = OffHeapMemory.getLong(address + LRU_NEXT_OFFSET);
+               if (isExpired(address, now)) {
+                  segment.unlink(address);
+                  purged++;
+               }
+               address = next;
+            }
+         } finally {
+            segment.lock.unlock();
+         }
+      }
+      if (trace) log.tracef("Purged %d expired entries from off-heap container", purged);
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry> iterator() {
+      return new EntryIterator();
+   }
+
+   @ManagedAttribute(
+         description = "Amount of native memory used by the entries and hash index of this container",
+         displayName = "Allocated native memory",
+         measurementType = MeasurementType.DYNAMIC,
+         dataType = DataType.MEASUREMENT
+   )
+   public long getAllocatedMemory() {
+      return allocatedMemory.get();
+   }
+
+   @ManagedAttribute(
+         description = "Number of entries stored in native memory",
+         displayName = "Number of entries",
+         measurementType = MeasurementType.DYNAMIC,
+         dataType = DataType.MEASUREMENT
+   )
+   public int getNumberOfEntries() {
+      return size();
+   }
+
+   @ManagedAttribute(
+         description = "Number of segments the off-heap index is split into",
+         displayName = "Number of segments",
+         dataType = DataType.TRAIT
+   )
+   public int getNumberOfSegments() {
+      return segments.length;
+   }
+
+   private Segment segmentFor(int hash) {
+      return segments[(hash >>> segmentShift) & segmentMask];
+   }
+
+   private long allocateEntry(int hash, byte[] key, byte[] value, byte[] metadata, long now, long lifespan, long maxIdle) {
+      int metadataLength = metadata == null ? -1 : metadata.length;
+      long size = HEADER_SIZE + key.length + value.length + Math.max(metadataLength, 0);
+      long address = OffHeapMemory.allocate(size);
+      allocatedMemory.addAndGet(size);
+      OffHeapMemory.putLong(address + NEXT_OFFSET, 0);
+      OffHeapMemory.putLong(address + LRU_PREV_OFFSET, 0);
+      OffHeapMemory.putLong(address + LRU_NEXT_OFFSET, 0);
+      OffHeapMemory.putInt(address + HASH_OFFSET, hash);
+      OffHeapMemory.putInt(address + KEY_LENGTH_OFFSET, key.length);
+      OffHeapMemory.putInt(address + VALUE_LENGTH_OFFSET, value.length);
+      OffHeapMemory.putInt(address + METADATA_LENGTH_OFFSET, metadataLength);
+      OffHeapMemory.putLong(address + CREATED_OFFSET, now);
+      OffHeapMemory.putLong(address + LAST_USED_OFFSET, now);
+      OffHeapMemory.putLong(address + LIFESPAN_OFFSET, lifespan);
+      OffHeapMemory.putLong(address + MAX_IDLE_OFFSET, maxIdle);
+      long offset = address + HEADER_SIZE;
+      OffHeapMemory.putBytes(offset, key);
+      offset += key.length;
+      OffHeapMemory.putBytes(offset, value);
+      offset += value.length;
+      if (metadata != null)
+         OffHeapMemory.putBytes(offset, metadata);
+      return address;
+   }
+
+   private void freeEntry(long address) {
+      long size = HEADER_SIZE + OffHeapMemory.getInt(address + KEY_LENGTH_OFFSET)
+            + OffHeapMemory.getInt(address + VALUE_LENGTH_OFFSET)
+            + Math.max(OffHeapMemory.getInt(address + METADATA_LENGTH_OFFSET), 0);
+      OffHeapMemory.free(address);
+      allocatedMemory.addAndGet(-size);
+   }
+
+   private static boolean isExpired(long address, long now) {
+      return ExpiryHelper.isExpiredTransientMortal(OffHeapMemory.getLong(address + MAX_IDLE_OFFSET),
+                                                   OffHeapMemory.getLong(address + LAST_USED_OFFSET),
+                                                   OffHeapMemory.getLong(address + LIFESPAN_OFFSET),
+                                                   OffHeapMemory.getLong(address + CREATED_OFFSET), now);
+   }
+
+   private static int hash(byte[] bytes) {
+      int h = 1;
+      for (byte b : bytes)
+         h = 31 * h + b;
+      // Spread bits to regularize both segment and index locations, same as BoundedConcurrentHashMap
+      h += h << 15 ^ 0xffffcd7d;
+      h ^= h >>> 10;
+      h += h << 3;
+      h ^= h >>> 6;
+      h += (h << 2) + (h << 14);
+      return h ^ h >>> 16;
+   }
+
+   private byte[] marshall(Object o) {
+      try {
+         return marshaller.objectToByteBuffer(o);
+      } catch (IOException e) {
+         throw new CacheException("Unable to marshall " + o + " into native memory", e);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheException(e);
+      }
+   }
+
+   private Object unmarshall(byte[] bytes) {
+      try {
+         return marshaller.objectFromByteBuffer(bytes);
+      } catch (IOException e) {
+         throw new CacheException("Unable to unmarshall entry stored in native memory", e);
+      } catch (ClassNotFoundException e) {
+         throw new CacheException("Unable to unmarshall entry stored in native memory", e);
+      }
+   }
+
+   /**
+    * A heap copy of an entry block, taken under the segment lock so that unmarshalling can happen outside of it.
+    */
+   private final class EntrySnapshot {
+      final byte[] key;
+      final byte[] value;
+      final byte[] metadata;
+      final long created;
+      final long lastUsed;
+      final long lifespan;
+      final long maxIdle;
+
+      EntrySnapshot(long address, boolean copyKey) {
+         int keyLength = OffHeapMemory.getInt(address + KEY_LENGTH_OFFSET);
+         int valueLength = OffHeapMemory.getInt(address + VALUE_LENGTH_OFFSET);
+         int metadataLength = OffHeapMemory.getInt(address + METADATA_LENGTH_OFFSET);
+         long offset = address + HEADER_SIZE;
+         key = copyKey ? OffHeapMemory.getBytes(offset, keyLength) : null;
+         offset += keyLength;
+         value = OffHeapMemory.getBytes(offset, valueLength);
+         offset += valueLength;
+         metadata = metadataLength < 0 ? null : OffHeapMemory.getBytes(offset, metadataLength);
+         created = OffHeapMemory.getLong(address + CREATED_OFFSET);
+         lastUsed = OffHeapMemory.getLong(address + LAST_USED_OFFSET);
+         lifespan = OffHeapMemory.getLong(address + LIFESPAN_OFFSET);
+         maxIdle = OffHeapMemory.getLong(address + MAX_IDLE_OFFSET);
+      }
+
+      InternalCacheEntry toEntry(Object k) {
+         Object key = k != null ? k : unmarshall(this.key);
+         Metadata meta = metadata == null ? null : (Metadata) unmarshall(metadata);
+         return entryFactory.create(key, unmarshall(value), meta, created, lifespan, lastUsed, maxIdle);
+      }
+   }
+
+   private final class Segment {
+      final ReentrantLock lock = new ReentrantLock();
+      // all fields below are guarded by lock, count is volatile so that size() can read it without locking
+      volatile int count;
+      long buckets;
+      int bucketCount;
+      long lruHead;
+      long lruTail;
+
+      void allocate() {
+         lock.lock();
+         try {
+            if (buckets == 0) {
+               bucketCount = INITIAL_BUCKETS_PER_SEGMENT;
+               buckets = OffHeapMemory.allocateZeroed(bucketCount * 8L);
+               allocatedMemory.addAndGet(bucketCount * 8L);
+            }
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      void release() {
+         lock.lock();
+         try {
+            clear();
+            if (buckets != 0) {
+               OffHeapMemory.free(buckets);
+               allocatedMemory.addAndGet(-bucketCount * 8L);
+               buckets = 0;
+               bucketCount = 0;
+            }
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      /**
+       * After {@link #release()}, the segment has no hash index anymore and must be treated as empty: its index must
+       * not be read, nor entries linked to it.
+       */
+      boolean isReleased() {
+         return buckets == 0;
+      }
+
+      long bucketAddress(int hash) {
+         return buckets + ((hash & (bucketCount - 1)) * 8L);
+      }
+
+      long find(int hash, byte[] key) {
+         if (isReleased())
+            return 0;
+         long address = OffHeapMemory.getLong(bucketAddress(hash));
+         while (address != 0) {
+            if (OffHeapMemory.getInt(address + HASH_OFFSET) == hash
+                  && OffHeapMemory.getInt(address + KEY_LENGTH_OFFSET) == key.length
+                  && OffHeapMemory.equals(address + HEADER_SIZE, key))
+               return address;
+            address = OffHeapMemory.getLong(address + NEXT_OFFSET);
+         }
+         return 0;
+      }
+
+      void link(long address) {
+         if (count + 1 > bucketCount * 3 / 4 && bucketCount < MAXIMUM_BUCKETS_PER_SEGMENT)
+            rehash();
+         long bucket = bucketAddress(OffHeapMemory.getInt(address + HASH_OFFSET));
+         OffHeapMemory.putLong(address + NEXT_OFFSET, OffHeapMemory.getLong(bucket));
+         OffHeapMemory.putLong(bucket, address);
+         addToHead(address);
+         count = count + 1;
+      }
+
+      /**
+       * Removes the entry from both the hash index and the lru list and releases its memory.
+       */
+      void unlink(long address) {
+         long bucket = bucketAddress(OffHeapMemory.getInt(address + HASH_OFFSET));
+         long previous = 0;
+         long current = OffHeapMemory.getLong(bucket);
+         while (current != 0 && current != address) {
+            previous = current;
+            current = OffHeapMemory.getLong(current + NEXT_OFFSET);
+         }
+         long next = OffHeapMemory.getLong(address + NEXT_OFFSET);
+         if (previous == 0)
+            OffHeapMemory.putLong(bucket, next);
+         else
+            OffHeapMemory.putLong(previous + NEXT_OFFSET, next);
+         removeFromList(address);
+         freeEntry(address);
+         count = count - 1;
+      }
+
+      void moveToHead(long address) {
+         if (lruHead != address) {
+            removeFromList(address);
+            addToHead(address);
+         }
+      }
+
+      Map<Object, InternalCacheEntry> evictIfNeeded(long justAdded) {
+         Map<Object, InternalCacheEntry> evicted = null;
+         while (count > maxEntriesPerSegment && lruTail != 0 && lruTail != justAdded) {
+            long victim = lruTail;
+            InternalCacheEntry entry = new EntrySnapshot(victim, true).toEntry(null);
+            // passivate before removing, so that the entry is never missing from both memory and the stores
+            if (passivator != null)
+               passivator.passivate(entry);
+            unlink(victim);
+            if (evicted == null)
+               evicted = new HashMap<Object, InternalCacheEntry>();
+            evicted.put(entry.getKey(), entry);
+         }
+         return evicted;
+      }
+
+      void clear() {
+         long address = lruHead;
+         while (address != 0) {
+            long next = OffHeapMemory.getLong(address + LRU_NEXT_OFFSET);
+            freeEntry(address);
+            address = next;
+         }
+         lruHead = 0;
+         lruTail = 0;
+         if (buckets != 0)
+            OffHeapMemory.zero(buckets, bucketCount * 8L);
+         count = 0;
+      }
+
+      /**
+       * Snapshots the entries of this segment, from the most to the least recently used one.
+       */
+      List<EntrySnapshot> snapshot() {
+         lock.lock();
+         try {
+            if (isReleased())
+               return Collections.emptyList();
+            List<EntrySnapshot> snapshots = new ArrayList<EntrySnapshot>(count);
+            for (long address = lruHead; address != 0; address = OffHeapMemory.getLong(address + LRU_NEXT_OFFSET))
+               snapshots.add(new EntrySnapshot(address, true));
+            return snapshots;
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      private void addToHead(long address) {
+         OffHeapMemory.putLong(address + LRU_PREV_OFFSET, 0);
+         OffHeapMemory.putLong(address + LRU_NEXT_OFFSET, lruHead);
+         if (lruHead != 0)
+            OffHeapMemory.putLong(lruHead + LRU_PREV_OFFSET, address);
+         lruHead = address;
+         if (lruTail == 0)
+            lruTail = address;
+      }
+
+      private void removeFromList(long address) {
+         long prev = OffHeapMemory.getLong(address + LRU_PREV_OFFSET);
+         long next = OffHeapMemory.getLong(address + LRU_NEXT_OFFSET);
+         if (prev == 0)
+            lruHead = next;
+         else
+            OffHeapMemory.putLong(prev + LRU_NEXT_OFFSET, next);
+         if (next == 0)
+            lruTail = prev;
+         else
+            OffHeapMemory.putLong(next + LRU_PREV_OFFSET, prev);
+      }
+
+      private void rehash() {
+         int newBucketCount = bucketCount << 1;
+         long newBuckets = OffHeapMemory.allocateZeroed(newBucketCount * 8L);
+         for (long address = lruHead; address != 0; address = OffHeapMemory.getLong(address + LRU_NEXT_OFFSET)) {
+            int hash = OffHeapMemory.getInt(address + HASH_OFFSET);
+            long bucket = newBuckets + ((hash & (newBucketCount - 1)) * 8L);
+            OffHeapMemory.putLong(address + NEXT_OFFSET, OffHeapMemory.getLong(bucket));
+            OffHeapMemory.putLong(bucket, address);
+         }
+         OffHeapMemory.free(buckets);
+         allocatedMemory.addAndGet((newBucketCount - bucketCount) * 8L);
+         buckets = newBuckets;
+         bucketCount = newBucketCount;
+      }
+   }
+
+   /**
+    * Iterates over the container one segment at a time, unmarshalling each entry lazily.
+    */
+   private class EntryIterator implements Iterator<InternalCacheEntry> {
+      private int nextSegment;
+      private Iterator<EntrySnapshot> current = Collections.<EntrySnapshot>emptyList().iterator();
+
+      @Override
+      public boolean hasNext() {
+         while (!current.hasNext() && nextSegment < segments.length)
+            current = segments[nextSegment++].snapshot().iterator();
+         return current.hasNext();
+      }
+
+      @Override
+      public InternalCacheEntry next() {
+         if (!hasNext())
+            throw new NoSuchElementException();
+         return current.next().toEntry(null);
+      }
+
+      @Override
+      public void remove() {
+         throw new UnsupportedOperationException();
+      }
+   }
+
+   private class EntrySet extends AbstractSet<InternalCacheEntry> {
+      @Override
+      public Iterator<InternalCacheEntry> iterator() {
+         final Iterator<InternalCacheEntry> it = new EntryIterator();
+         return new Iterator<InternalCacheEntry>() {
+            @Override
+            public boolean hasNext() {
+               return it.hasNext();
+            }
+
+            @Override
+            public InternalCacheEntry next() {
+               return CoreImmutables.immutableInternalCacheEntry(it.next());
+            }
+
+            @Override
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+
+      @Override
+      public boolean contains(Object o) {
+         if (!(o instanceof Map.Entry))
+            return false;
+         Map.Entry e = (Map.Entry) o;
+         InternalCacheEntry ice = peek(e.getKey());
+         return ice != null && ice.getValue().equals(e.getValue());
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+
+   private class KeySet extends AbstractSet<Object> {
+      @Override
+      public Iterator<Object> iterator() {
+         final Iterator<InternalCacheEntry> it = new EntryIterator();
+         return new Iterator<Object>() {
+            @Override
+            public boolean hasNext() {
+               return it.hasNext();
+            }
+
+            @Override
+            public Object next() {
+               return it.next().getKey();
+            }
+
+            @Override
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+
+      @Override
+      public boolean contains(Object o) {
+         return peek(o) != null;
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+
+   private class Values extends AbstractCollection<Object> {
+      @Override
+      public Iterator<Object> iterator() {
+         final Iterator<InternalCacheEntry> it = new EntryIterator();
+         return new Iterator<Object>() {
+            @Override
+            public boolean hasNext() {
+               return it.hasNext();
+            }
+
+            @Override
+            public Object next() {
+               return it.next().getValue();
+            }
+
+            @Override
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+}
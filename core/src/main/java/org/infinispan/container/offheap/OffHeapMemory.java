@@ -0,0 +1,110 @@
+package org.infinispan.container.offheap;
+
+import java.security.AccessController;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
+
+import sun.misc.Unsafe;
+
+/**
+ * Thin wrapper around {@link Unsafe} giving access to native memory which is not managed by the garbage collector.
+ * Addresses returned by {@link #allocate(long)} must be released with {@link #free(long)}; no bound checking is
+ * performed by any of the accessors.
+ *
+ * @since 6.0
+ */
+public final class OffHeapMemory {
+
+   private static final Unsafe UNSAFE = getUnsafe();
+   private static final long BYTE_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+
+   private OffHeapMemory() {
+   }
+
+   public static long allocate(long size) {
+      return UNSAFE.allocateMemory(size);
+   }
+
+   public static long allocateZeroed(long size) {
+      long address = UNSAFE.allocateMemory(size);
+      zero(address, size);
+      return address;
+   }
+
+   public static void zero(long address, long size) {
+      UNSAFE.setMemory(address, size, (byte) 0);
+   }
+
+   public static void free(long address) {
+      UNSAFE.freeMemory(address);
+   }
+
+   public static long getLong(long address) {
+      return UNSAFE.getLong(address);
+   }
+
+   public static void putLong(long address, long value) {
+      UNSAFE.putLong(address, value);
+   }
+
+   public static int getInt(long address) {
+      return UNSAFE.getInt(address);
+   }
+
+   public static void putInt(long address, int value) {
+      UNSAFE.putInt(address, value);
+   }
+
+   public static byte getByte(long address) {
+      return UNSAFE.getByte(address);
+   }
+
+   /**
+    * Copies the whole of <tt>src</tt> into native memory starting at <tt>address</tt>.
+    */
+   public static void putBytes(long address, byte[] src) {
+      UNSAFE.copyMemory(src, BYTE_ARRAY_BASE_OFFSET, null, address, src.length);
+   }
+
+   /**
+    * Copies <tt>length</tt> bytes starting at <tt>address</tt> into a new byte array.
+    */
+   public static byte[] getBytes(long address, int length) {
+      byte[] dst = new byte[length];
+      UNSAFE.copyMemory(null, address, dst, BYTE_ARRAY_BASE_OFFSET, length);
+      return dst;
+   }
+
+   /**
+    * Compares <tt>bytes</tt> with the <tt>bytes.length</tt> bytes stored starting at <tt>address</tt>.
+    */
+   public static boolean equals(long address, byte[] bytes) {
+      for (int i = 0; i < bytes.length; i++) {
+         if (UNSAFE.getByte(address + i) != bytes[i])
+            return false;
+      }
+      return true;
+   }
+
+   private static Unsafe getUnsafe() {
+      try {
+         return Unsafe.getUnsafe();
+      } catch (SecurityException tryReflectionInstead) {}
+      try {
+         return AccessController.doPrivileged(new PrivilegedExceptionAction<Unsafe>() {
+            @Override
+            public Unsafe run() throws Exception {
+               for (java.lang.reflect.Field f : Unsafe.class.getDeclaredFields()) {
+                  f.setAccessible(true);
+                  Object x = f.get(null);
+                  if (Unsafe.class.isInstance(x))
+                     return Unsafe.class.cast(x);
+               }
+               throw new NoSuchFieldError("the Unsafe");
+            }
+         });
+      } catch (PrivilegedActionException e) {
+         throw new RuntimeException("Could not access native memory", e.getCause());
+      }
+   }
+}
@@ -6,11 +6,16 @@
 import org.infinispan.commands.read.MapCombineCommand;
 import org.infinispan.commands.read.ReduceCommand;
 import org.infinispan.commons.CacheException;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.commons.util.Util;
 import org.infinispan.commons.util.CollectionFactory;
 import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.global.GlobalConfiguration;
 import org.infinispan.context.Flag;
 import org.infinispan.distexec.mapreduce.spi.MapReduceTaskLifecycleService;
 import org.infinispan.distribution.DistributionManager;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.factories.KnownComponentNames;
 import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.interceptors.locking.ClusteringDependentLogic;
@@ -27,21 +32,30 @@
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.infinispan.distexec.mapreduce.MapReduceTask.DEFAULT_TMP_CACHE_CONFIGURATION_NAME;
 import static org.infinispan.factories.KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR;
+import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
+import static org.infinispan.factories.KnownComponentNames.MAP_REDUCE_EXECUTOR;
 
 /**
  * Default implementation of {@link MapReduceManager}.
@@ -56,12 +70,16 @@ public class MapReduceManagerImpl implements MapReduceManager {
 
    private static final Log log = LogFactory.getLog(MapReduceManagerImpl.class);
    private static final int CANCELLATION_CHECK_FREQUENCY = 32; // Should be a power of two so that the compiler can replace a % with a bitmask
+   static final int MIN_KEYS_PER_MAP_PART = 1024;
    private ClusteringDependentLogic cdl;
    private EmbeddedCacheManager cacheManager;
    private PersistenceManager persistenceManager;
    private ExecutorService executorService;
    private TimeService timeService;
+   private StreamingMarshaller marshaller;
    private int chunkSize;
+   private ExecutorService mapExecutor;
+   private int mapParallelism;
 
    MapReduceManagerImpl() {
    }
@@ -69,13 +87,20 @@ public class MapReduceManagerImpl implements MapReduceManager {
    @Inject
    public void init(EmbeddedCacheManager cacheManager, PersistenceManager persistenceManager,
             @ComponentName(ASYNC_TRANSPORT_EXECUTOR) ExecutorService asyncTransportExecutor,
-            ClusteringDependentLogic cdl, TimeService timeService, Configuration configuration) {
+            ClusteringDependentLogic cdl, TimeService timeService, Configuration configuration,
+            @ComponentName(CACHE_MARSHALLER) StreamingMarshaller marshaller,
+            @ComponentName(MAP_REDUCE_EXECUTOR) ExecutorService mapExecutor, GlobalConfiguration globalConfiguration) {
       this.cacheManager = cacheManager;
       this.persistenceManager = persistenceManager;
       this.cdl = cdl;
       this.executorService = asyncTransportExecutor;
       this.timeService = timeService;
+      this.marshaller = marshaller;
       this.chunkSize = configuration.clustering().stateTransfer().chunkSize();
+      this.mapExecutor = mapExecutor;
+      // the local keys are split in at most as many parts as the map/reduce executor has threads
+      this.mapParallelism = globalConfiguration.mapReduceExecutor().properties().getIntProperty("maxThreads",
+            KnownComponentNames.getDefaultThreads(MAP_REDUCE_EXECUTOR));
    }
 
    @Override
@@ -165,23 +190,29 @@ protected <KIn, VIn, KOut, VOut> CollectableCollector<KOut, VOut> map(
       } else {
          inputKeysCopy = new HashSet<KIn>(keys);
       }
-      // hook map function into lifecycle and execute it
-      MapReduceTaskLifecycleService taskLifecycleService = MapReduceTaskLifecycleService.getInstance();
-      DefaultCollector<KOut, VOut> collector = new DefaultCollector<KOut, VOut>();
-      log.tracef("For m/r task %s invoking %s with input keys %s",  mcc.getTaskId(), mcc, inputKeys);
-      int interruptCount = 0;
+      List<List<KIn>> parts = splitBySegment(inputKeys, dm);
+      log.tracef("For m/r task %s invoking %s with input keys %s in %s parts",  mcc.getTaskId(), mcc, inputKeys, parts.size());
       long start = log.isTraceEnabled() ? timeService.time() : 0;
-      try {
-         taskLifecycleService.onPreExecute(mapper, cache);
-         for (KIn key : inputKeys) {
-            if (checkInterrupt(interruptCount++) && Thread.currentThread().isInterrupted())
-               throw new InterruptedException();
 
-            VIn value = cache.get(key);
-            mapper.map(key, value, collector);
-            if (inputKeysSpecified) {
-               inputKeysCopy.remove(key);
-            }
+      // the first part is mapped in this thread by the received mapper, the other parts by clones in the pool
+      AtomicBoolean stopped = new AtomicBoolean();
+      List<Future<CollectableCollector<KOut, VOut>>> futures = new ArrayList<Future<CollectableCollector<KOut, VOut>>>();
+      int maxCollectorSize = (mcc.getMaxCollectorSize() + parts.size() - 1) / parts.size();
+      CollectableCollector<KOut, VOut> collector = null;
+      try {
+         for (int i = 1; i < parts.size(); i++) {
+            Reducer<KOut, VOut> combiner = mcc.getCombiner() != null ?
+                  Util.cloneWithMarshaller(marshaller, mcc.getCombiner()) : null;
+            futures.add(mapExecutor.submit(new LocalMapTask<KIn, VIn, KOut, VOut>(mcc.getTaskId(), cache,
+                  Util.cloneWithMarshaller(marshaller, mapper), combiner, parts.get(i), maxCollectorSize, stopped)));
+         }
+         collector = new LocalMapTask<KIn, VIn, KOut, VOut>(mcc.getTaskId(), cache, mapper, mcc.getCombiner(),
+               parts.get(0), maxCollectorSize, stopped).mapKeys();
+         for (Future<CollectableCollector<KOut, VOut>> future : futures) {
+            collector.merge(getPart(future));
+         }
+         if (inputKeysSpecified) {
+            inputKeysCopy.removeAll(inputKeys);
          }
 
          if (persistenceManager != null) {
@@ -191,19 +222,107 @@ protected <KIn, VIn, KOut, VOut> CollectableCollector<KOut, VOut> map(
             } else {
                keyFilter = new CompositeFilter(new PrimaryOwnerFilter(cdl), new CollectionKeyFilter(inputKeys));
             }
-            persistenceManager.processOnAllStores(keyFilter, new MapReduceCacheLoaderTask(mapper, collector),
-                                                  true, false);
+            MapReduceTaskLifecycleService taskLifecycleService = MapReduceTaskLifecycleService.getInstance();
+            taskLifecycleService.onPreExecute(mapper, cache);
+            try {
+               persistenceManager.processOnAllStores(keyFilter, new MapReduceCacheLoaderTask(mapper, collector),
+                                                     true, false);
+            } finally {
+               taskLifecycleService.onPostExecute(mapper);
+            }
          }
+      } catch (InterruptedException e) {
+         closeAll(collector, futures, stopped);
+         throw e;
+      } catch (RuntimeException e) {
+         closeAll(collector, futures, stopped);
+         throw e;
       } finally {
          if (log.isTraceEnabled()) {
             log.tracef("Map phase for task %s took %s milliseconds",
                        mcc.getTaskId(), timeService.timeDuration(start, TimeUnit.MILLISECONDS));
          }
-         taskLifecycleService.onPostExecute(mapper);
       }
       return collector;
    }
 
+   /**
+    * Splits the keys in at most {@link #mapParallelism} parts of whole segments, each holding at least
+    * {@link #MIN_KEYS_PER_MAP_PART} keys.
+    */
+   private <KIn> List<List<KIn>> splitBySegment(Set<KIn> keys, DistributionManager dm) {
+      int numParts = Math.max(1, Math.min(mapParallelism, keys.size() / MIN_KEYS_PER_MAP_PART));
+      List<List<KIn>> parts = new ArrayList<List<KIn>>(numParts);
+      if (numParts == 1) {
+         parts.add(new ArrayList<KIn>(keys));
+         return parts;
+      }
+
+      int keysPerPart = (keys.size() + numParts - 1) / numParts;
+      List<KIn> part = new ArrayList<KIn>(keysPerPart);
+      if (dm == null) {
+         // no segments, so split the keys evenly
+         for (KIn key : keys) {
+            part.add(key);
+            if (part.size() == keysPerPart) {
+               parts.add(part);
+               part = new ArrayList<KIn>(keysPerPart);
+            }
+         }
+      } else {
+         ConsistentHash ch = dm.getReadConsistentHash();
+         List<List<KIn>> segments = new ArrayList<List<KIn>>(ch.getNumSegments());
+         for (int i = 0; i < ch.getNumSegments(); i++) {
+            segments.add(new ArrayList<KIn>());
+         }
+         for (KIn key : keys) {
+            segments.get(ch.getSegment(key)).add(key);
+         }
+         for (List<KIn> segment : segments) {
+            part.addAll(segment);
+            if (part.size() >= keysPerPart) {
+               parts.add(part);
+               part = new ArrayList<KIn>(keysPerPart);
+            }
+         }
+      }
+      if (!part.isEmpty()) {
+         parts.add(part);
+      }
+      return parts;
+   }
+
+   private <KOut, VOut> CollectableCollector<KOut, VOut> getPart(Future<CollectableCollector<KOut, VOut>> future)
+         throws InterruptedException {
+      try {
+         return future.get();
+      } catch (ExecutionException e) {
+         Throwable cause = e.getCause();
+         if (cause instanceof InterruptedException)
+            throw (InterruptedException) cause;
+         if (cause instanceof RuntimeException)
+            throw (RuntimeException) cause;
+         throw new CacheException(cause);
+      }
+   }
+
+   private <KOut, VOut> void closeAll(CollectableCollector<KOut, VOut> collector,
+         List<Future<CollectableCollector<KOut, VOut>>> futures, AtomicBoolean stopped) {
+      stopped.set(true);
+      if (collector != null) {
+         collector.close();
+      }
+      for (Future<CollectableCollector<KOut, VOut>> future : futures) {
+         if (future.isDone()) {
+            try {
+               future.get().close();
+            } catch (Exception e) {
+               // the part failed, so it already released its collector
+            }
+         }
+      }
+   }
+
    protected <KIn, VIn, KOut, VOut> Set<KOut> combine(MapCombineCommand<KIn, VIn, KOut, VOut> mcc,
             CollectableCollector<KOut, VOut> collector) throws Exception{
 
@@ -218,81 +337,48 @@ protected <KIn, VIn, KOut, VOut> Set<KOut> combine(MapCombineCommand<KIn, VIn, K
          tmpCache = cacheManager.getCache(taskId);
       }
       if (tmpCache == null) {
+         collector.close();
          throw new IllegalStateException("Temporary cache for MapReduceTask " + taskId
                   + " not found on " + cdl.getAddress());
       }
-      DistributionManager dm = tmpCache.getAdvancedCache().getDistributionManager();
-
-      if (combiner != null) {
-         Cache<?, ?> cache = cacheManager.getCache(mcc.getCacheName());
-         log.tracef("For m/r task %s invoking combiner %s at %s",  taskId, mcc, cdl.getAddress());
-         MapReduceTaskLifecycleService taskLifecycleService = MapReduceTaskLifecycleService.getInstance();
-         Map<KOut, List<VOut>> combinedMap = new ConcurrentHashMap<KOut, List<VOut>>();
-         long start = log.isTraceEnabled() ? timeService.time() : 0;
-         try {
-            taskLifecycleService.onPreExecute(combiner, cache);
-            Map<KOut, List<VOut>> collectedValues = collector.collectedValues();
-            for (Entry<KOut, List<VOut>> e : collectedValues.entrySet()) {
-               List<VOut> mapped = e.getValue();
-               List<VOut> combined;
-               if (mapped.size() == 1) {
-                  combined = mapped;
-               } else {
-                  combined = Arrays.asList(combiner.reduce(e.getKey(), mapped.iterator()));
-               }
-               combinedMap.put(e.getKey(), combined);
-               log.tracef("For m/r task %s combined %s to %s at %s" , taskId, e.getKey(), combined, cdl.getAddress());
-            }
-         } finally {
-            if (log.isTraceEnabled()) {
-               log.tracef("Combine for task %s took %s milliseconds", mcc.getTaskId(),
-                          timeService.timeDuration(start, TimeUnit.MILLISECONDS));
-            }
-            taskLifecycleService.onPostExecute(combiner);
-         }
-         migrateIntermediateKeys(mcc, taskId, emitCompositeIntermediateKeys, mapPhaseKeys, tmpCache, dm, combinedMap);
-      } else {
-         // Combiner not specified so lets insert each key/uncombined-List pair into tmp cache
-
-         Map<KOut, List<VOut>> collectedValues = collector.collectedValues();
-         migrateIntermediateKeys(mcc, taskId, emitCompositeIntermediateKeys, mapPhaseKeys, tmpCache, dm, collectedValues);
-      }
-      return mapPhaseKeys;
-   }
-
-   private <KIn, VIn, KOut, VOut> void migrateIntermediateKeys(MapCombineCommand<KIn, VIn, KOut, VOut> mcc, String taskId, boolean emitCompositeIntermediateKeys, Set<KOut> mapPhaseKeys, Cache<Object, DeltaAwareList<VOut>> tmpCache, DistributionManager dm, Map<KOut, List<VOut>> collectedValues) {
-      Map<Address, List<KOut>> keysToNodes = mapKeysToNodes(dm, taskId, collectedValues.keySet(),
-            emitCompositeIntermediateKeys);
+      IntermediateKeyMigrator<VOut> migrator = new IntermediateKeyMigrator<VOut>(taskId, tmpCache);
 
+      MapReduceTaskLifecycleService taskLifecycleService = MapReduceTaskLifecycleService.getInstance();
       long start = log.isTraceEnabled() ? timeService.time() : 0;
       try {
-         for (Entry<Address, List<KOut>> entry : keysToNodes.entrySet()) {
-            List<KOut> keysHashedToAddress = entry.getValue();
-            try {
-               log.tracef("For m/r task %s migrating intermediate keys %s to %s", taskId, keysHashedToAddress, entry.getKey());
-               for (KOut key : keysHashedToAddress) {
-                  List<VOut> values = collectedValues.get(key);
-                  for (int i = 0; i < values.size(); i += chunkSize) {
-                     List<VOut> chunk = values.subList(i, Math.min(values.size(), i + chunkSize));
-                     DeltaAwareList<VOut> delta = new DeltaAwareList<VOut>(chunk);
-                     if (emitCompositeIntermediateKeys) {
-                        tmpCache.put(new IntermediateCompositeKey<KOut>(taskId, key), delta);
-                     } else {
-                        tmpCache.put(key, delta);
-                     }
-                  }
-                  mapPhaseKeys.add(key);
-               }
-            } catch (Exception e) {
-               throw new CacheException("Could not move intermediate keys/values for M/R task " + taskId, e);
+         if (combiner != null) {
+            log.tracef("For m/r task %s invoking combiner %s at %s",  taskId, mcc, cdl.getAddress());
+            Cache<?, ?> cache = cacheManager.getCache(mcc.getCacheName());
+            taskLifecycleService.onPreExecute(combiner, cache);
+         }
+         // the collector returns the keys grouped, so each key is combined and migrated once
+         Iterator<Entry<KOut, List<VOut>>> it = collector.iterator();
+         while (it.hasNext()) {
+            Entry<KOut, List<VOut>> e = it.next();
+            List<VOut> values = e.getValue();
+            if (combiner != null && values.size() > 1) {
+               values = Collections.singletonList(combiner.reduce(e.getKey(), values.iterator()));
+               log.tracef("For m/r task %s combined %s to %s at %s" , taskId, e.getKey(), values, cdl.getAddress());
             }
+            if (emitCompositeIntermediateKeys) {
+               migrator.migrate(new IntermediateCompositeKey<KOut>(taskId, e.getKey()), values);
+            } else {
+               migrator.migrate(e.getKey(), values);
+            }
+            mapPhaseKeys.add(e.getKey());
          }
+         migrator.flush();
       } finally {
+         collector.close();
          if (log.isTraceEnabled()) {
-            log.tracef("Migrating keys for task %s took %s milliseconds (Migrated %s keys)",
+            log.tracef("Combining and migrating keys for task %s took %s milliseconds (Migrated %s keys)",
                   mcc.getTaskId(), timeService.timeDuration(start, TimeUnit.MILLISECONDS), mapPhaseKeys.size());
          }
+         if (combiner != null) {
+            taskLifecycleService.onPostExecute(combiner);
+         }
       }
+      return mapPhaseKeys;
    }
 
    private <KIn, VIn, KOut, VOut> Map<KOut, List<VOut>> combineForLocalReduction(
@@ -311,8 +397,9 @@ private <KIn, VIn, KOut, VOut> Map<KOut, List<VOut>> combineForLocalReduction(
          try {
             Cache<?, ?> cache = cacheManager.getCache(mcc.getCacheName());
             taskLifecycleService.onPreExecute(combiner, cache);
-            Map<KOut, List<VOut>> collectedValues = collector.collectedValues();
-            for (Entry<KOut, List<VOut>> e : collectedValues.entrySet()) {
+            Iterator<Entry<KOut, List<VOut>>> it = collector.iterator();
+            while (it.hasNext()) {
+               Entry<KOut, List<VOut>> e = it.next();
                VOut combined;
                List<VOut> list = e.getValue();
                List<VOut> l = new LinkedList<VOut>();
@@ -326,6 +413,7 @@ private <KIn, VIn, KOut, VOut> Map<KOut, List<VOut>> combineForLocalReduction(
                log.tracef("For m/r task %s combined %s to %s at %s" , taskId, e.getKey(), combined, cdl.getAddress());
             }
          } finally {
+            collector.close();
             if (log.isTraceEnabled()) {
                log.tracef("Combine for task %s took %s milliseconds", mcc.getTaskId(),
                           timeService.timeDuration(start, TimeUnit.MILLISECONDS));
@@ -396,10 +484,185 @@ public void emit(KOut key, VOut value) {
       public Map<KOut, List<VOut>> collectedValues() {
          return store;
       }
+
+      @Override
+      public Iterator<Entry<KOut, List<VOut>>> iterator() {
+         return store.entrySet().iterator();
+      }
+
+      @Override
+      public void merge(CollectableCollector<KOut, VOut> other) {
+         for (Entry<KOut, List<VOut>> e : other.collectedValues().entrySet()) {
+            List<VOut> list = store.get(e.getKey());
+            if (list == null) {
+               store.put(e.getKey(), e.getValue());
+            } else {
+               list.addAll(e.getValue());
+            }
+         }
+      }
+
+      @Override
+      public void close() {
+      }
    }
 
-   private interface CollectableCollector<K,V> extends Collector<K, V>{
+   interface CollectableCollector<K,V> extends Collector<K, V>{
       Map<K, List<V>> collectedValues();
+
+      /**
+       * Returns all the collected values, grouped by key, without necessarily loading all of them in memory.
+       */
+      Iterator<Entry<K, List<V>>> iterator();
+
+      /**
+       * Moves all the values collected by another collector of the same type to this one.
+       */
+      void merge(CollectableCollector<K, V> other);
+
+      /**
+       * Releases the resources used by the collector, once the collected values are no longer needed.
+       */
+      void close();
+   }
+
+   /**
+    * Maps a part of the local keys with its own collector.
+    */
+   private class LocalMapTask<KIn, VIn, KOut, VOut> implements Callable<CollectableCollector<KOut, VOut>> {
+      private final String taskId;
+      private final Cache<KIn, VIn> cache;
+      private final Mapper<KIn, VIn, KOut, VOut> mapper;
+      private final Reducer<KOut, VOut> combiner;
+      private final List<KIn> keys;
+      private final int maxCollectorSize;
+      private final AtomicBoolean stopped;
+
+      LocalMapTask(String taskId, Cache<KIn, VIn> cache, Mapper<KIn, VIn, KOut, VOut> mapper,
+                   Reducer<KOut, VOut> combiner, List<KIn> keys, int maxCollectorSize, AtomicBoolean stopped) {
+         this.taskId = taskId;
+         this.cache = cache;
+         this.mapper = mapper;
+         this.combiner = combiner;
+         this.keys = keys;
+         this.maxCollectorSize = maxCollectorSize;
+         this.stopped = stopped;
+      }
+
+      @Override
+      public CollectableCollector<KOut, VOut> call() throws Exception {
+         return mapKeys();
+      }
+
+      CollectableCollector<KOut, VOut> mapKeys() throws InterruptedException {
+         MapReduceTaskLifecycleService taskLifecycleService = MapReduceTaskLifecycleService.getInstance();
+         CollectableCollector<KOut, VOut> collector;
+         if (maxCollectorSize > 0) {
+            collector = new SpillingCollector<KOut, VOut>(taskId, combiner, maxCollectorSize, marshaller);
+         } else {
+            collector = new DefaultCollector<KOut, VOut>();
+         }
+         // a spilling collector applies the combiner while the mapper runs
+         boolean combining = maxCollectorSize > 0 && combiner != null;
+         int interruptCount = 0;
+         try {
+            taskLifecycleService.onPreExecute(mapper, cache);
+            if (combining) {
+               taskLifecycleService.onPreExecute(combiner, cache);
+            }
+            for (KIn key : keys) {
+               if (checkInterrupt(interruptCount++) && (stopped.get() || Thread.currentThread().isInterrupted()))
+                  throw new InterruptedException();
+
+               VIn value = cache.get(key);
+               mapper.map(key, value, collector);
+            }
+            return collector;
+         } catch (InterruptedException e) {
+            stopped.set(true);
+            collector.close();
+            throw e;
+         } catch (RuntimeException e) {
+            stopped.set(true);
+            collector.close();
+            throw e;
+         } finally {
+            if (combining) {
+               taskLifecycleService.onPostExecute(combiner);
+            }
+            taskLifecycleService.onPostExecute(mapper);
+         }
+      }
+   }
+
+   /**
+    * Groups the intermediate keys by primary owner and writes each group to the temporary cache with one putAll,
+    * once the values sent to that owner reach the chunk size.
+    * <p>
+    * The primary owner locks the keys of a putAll in iteration order, so the keys are sent sorted by hash code and
+    * a group never contains two keys with the same hash code: concurrent putAlls from different nodes then always
+    * lock their common keys in the same order and can not deadlock.
+    */
+   private class IntermediateKeyMigrator<VOut> {
+      private final String taskId;
+      private final Cache<Object, DeltaAwareList<VOut>> tmpCache;
+      private final DistributionManager dm;
+      private final Map<Address, Batch<VOut>> batches = new HashMap<Address, Batch<VOut>>();
+
+      IntermediateKeyMigrator(String taskId, Cache<Object, DeltaAwareList<VOut>> tmpCache) {
+         this.taskId = taskId;
+         this.tmpCache = tmpCache;
+         this.dm = tmpCache.getAdvancedCache().getDistributionManager();
+      }
+
+      void migrate(Object key, List<VOut> values) {
+         Address owner = dm != null ? dm.getPrimaryLocation(key) : null;
+         int hash = key == null ? 0 : key.hashCode();
+         for (int i = 0; i < values.size(); i += chunkSize) {
+            List<VOut> chunk = values.subList(i, Math.min(values.size(), i + chunkSize));
+            Batch<VOut> batch = batches.get(owner);
+            if (batch != null && batch.values.containsKey(hash)) {
+               write(owner);
+               batch = null;
+            }
+            if (batch == null) {
+               batch = new Batch<VOut>();
+               batches.put(owner, batch);
+            }
+            batch.keys.put(hash, key);
+            batch.values.put(hash, new DeltaAwareList<VOut>(chunk));
+            batch.size += chunk.size();
+            if (batch.size >= chunkSize) {
+               write(owner);
+            }
+         }
+      }
+
+      void flush() {
+         for (Address owner : new ArrayList<Address>(batches.keySet())) {
+            write(owner);
+         }
+      }
+
+      private void write(Address owner) {
+         Batch<VOut> batch = batches.remove(owner);
+         Map<Object, DeltaAwareList<VOut>> sorted = new LinkedHashMap<Object, DeltaAwareList<VOut>>();
+         for (Entry<Integer, DeltaAwareList<VOut>> e : batch.values.entrySet()) {
+            sorted.put(batch.keys.get(e.getKey()), e.getValue());
+         }
+         log.tracef("For m/r task %s migrating intermediate keys %s to %s", taskId, sorted.keySet(), owner);
+         try {
+            tmpCache.putAll(sorted);
+         } catch (Exception e) {
+            throw new CacheException("Could not move intermediate keys/values for M/R task " + taskId, e);
+         }
+      }
+   }
+
+   private static class Batch<VOut> {
+      final Map<Integer, Object> keys = new HashMap<Integer, Object>();
+      final SortedMap<Integer, DeltaAwareList<VOut>> values = new TreeMap<Integer, DeltaAwareList<VOut>>();
+      int size;
    }
 
    private static class DeltaAwareList<E> extends LinkedList<E> implements DeltaAware, Delta{
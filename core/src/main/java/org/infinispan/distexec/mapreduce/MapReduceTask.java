@@ -157,6 +157,7 @@
    protected final ClusteringDependentLogic clusteringDependentLogic;
    protected final boolean isLocalOnly;
    protected RpcOptionsBuilder rpcOptionsBuilder;
+   protected int maxCollectorSize;
 
    /**
     * Create a new MapReduceTask given a master cache node. All distributed task executions will be
@@ -292,6 +293,27 @@ public MapReduceTask<KIn, VIn, KOut, VOut> combinedWith(Reducer<KOut, VOut> comb
       return this;
    }
 
+   /**
+    * Limits the number of intermediate values each node keeps in memory during the map phase.
+    * <p>
+    * Once a node has collected that many values it applies the Combiner, if one is specified, to the values of each
+    * intermediate key. If more than half of the limit is still in use afterwards, the collected keys and values are
+    * sorted and spilled to a temporary file, and all the spilled runs are merged back once the map phase ends. The
+    * Combiner may therefore be invoked several times for the same key and must accept its own output as input.
+    * <p>
+    * The default value 0 keeps all the intermediate values in memory.
+    *
+    * @param maxCollectorSize the maximum number of intermediate values to keep in memory, or 0 for no limit
+    * @return this MapReduceTask itself
+    * @since 6.0
+    */
+   public MapReduceTask<KIn, VIn, KOut, VOut> maxCollectorSize(int maxCollectorSize) {
+      if (maxCollectorSize < 0)
+         throw new IllegalArgumentException("The maximum collector size can not be negative");
+      this.maxCollectorSize = maxCollectorSize;
+      return this;
+   }
+
    /**
     * See {@link #timeout(TimeUnit)}.
     *
@@ -587,6 +609,7 @@ private MapCombineCommand<KIn, VIn, KOut, VOut> buildMapCombineCommand(
       MapCombineCommand<KIn, VIn, KOut, VOut> c = factory.buildMapCombineCommand(taskId, m, r, keys);
       c.setReducePhaseDistributed(reducePhaseDistributed);
       c.setEmitCompositeIntermediateKeys(emitCompositeIntermediateKeys);
+      c.setMaxCollectorSize(maxCollectorSize);
       return c;
    }
 
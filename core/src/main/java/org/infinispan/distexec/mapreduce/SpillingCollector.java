@@ -0,0 +1,365 @@
+package org.infinispan.distexec.mapreduce;
+
+import org.infinispan.commons.CacheException;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * A collector keeping at most a given number of intermediate values in memory.
+ * <p>
+ * When the limit is reached the values of each key are combined, if a combiner is available, and if that does not
+ * free at least half of the buffer, the buffered keys are sorted by hash code and spilled to a temporary file. The
+ * iterator merges the spilled runs with the values still in memory, returning all the values of a key in one entry.
+ * <p>
+ * This is an internal class, not intended to be used by clients.
+ *
+ * @since 6.0
+ */
+class SpillingCollector<K, V> implements MapReduceManagerImpl.CollectableCollector<K, V> {
+
+   private static final Log log = LogFactory.getLog(SpillingCollector.class);
+
+   private static final Comparator<Entry<?, ?>> HASH_ORDER = new Comparator<Entry<?, ?>>() {
+      @Override
+      public int compare(Entry<?, ?> e1, Entry<?, ?> e2) {
+         int h1 = hash(e1.getKey());
+         int h2 = hash(e2.getKey());
+         return h1 < h2 ? -1 : (h1 == h2 ? 0 : 1);
+      }
+   };
+
+   private final String taskId;
+   private final Reducer<K, V> combiner;
+   private final int maxCollectorSize;
+   private final StreamingMarshaller marshaller;
+   private final List<File> runs = new ArrayList<File>();
+   private Map<K, List<V>> buffer = new HashMap<K, List<V>>();
+   private int bufferedValues;
+   private MergingIterator merger;
+
+   SpillingCollector(String taskId, Reducer<K, V> combiner, int maxCollectorSize, StreamingMarshaller marshaller) {
+      this.taskId = taskId;
+      this.combiner = combiner;
+      this.maxCollectorSize = maxCollectorSize;
+      this.marshaller = marshaller;
+   }
+
+   @Override
+   public synchronized void emit(K key, V value) {
+      List<V> values = buffer.get(key);
+      if (values == null) {
+         values = new LinkedList<V>();
+         buffer.put(key, values);
+      }
+      values.add(value);
+      if (++bufferedValues >= maxCollectorSize) {
+         combine();
+         if (bufferedValues > maxCollectorSize / 2) {
+            spill();
+         }
+      }
+   }
+
+   @Override
+   public synchronized Map<K, List<V>> collectedValues() {
+      if (runs.isEmpty())
+         return buffer;
+
+      Map<K, List<V>> merged = new HashMap<K, List<V>>();
+      try {
+         Iterator<Entry<K, List<V>>> it = iterator();
+         while (it.hasNext()) {
+            Entry<K, List<V>> e = it.next();
+            merged.put(e.getKey(), e.getValue());
+         }
+      } finally {
+         close();
+      }
+      return merged;
+   }
+
+   @Override
+   public synchronized Iterator<Entry<K, List<V>>> iterator() {
+      if (runs.isEmpty())
+         return buffer.entrySet().iterator();
+
+      List<Entry<K, List<V>>> sorted = new ArrayList<Entry<K, List<V>>>(buffer.entrySet());
+      Collections.sort(sorted, HASH_ORDER);
+      buffer = new HashMap<K, List<V>>();
+      bufferedValues = 0;
+      merger = new MergingIterator(sorted);
+      return merger;
+   }
+
+   /**
+    * Takes over the runs spilled by another spilling collector and adds the values it still holds in memory.
+    */
+   @Override
+   public synchronized void merge(MapReduceManagerImpl.CollectableCollector<K, V> other) {
+      SpillingCollector<K, V> collector = (SpillingCollector<K, V>) other;
+      synchronized (collector) {
+         runs.addAll(collector.runs);
+         collector.runs.clear();
+         for (Entry<K, List<V>> e : collector.buffer.entrySet()) {
+            List<V> values = buffer.get(e.getKey());
+            if (values == null) {
+               buffer.put(e.getKey(), e.getValue());
+            } else {
+               values.addAll(e.getValue());
+            }
+            bufferedValues += e.getValue().size();
+         }
+         collector.buffer = new HashMap<K, List<V>>();
+         collector.bufferedValues = 0;
+      }
+      if (bufferedValues >= maxCollectorSize) {
+         combine();
+         if (bufferedValues > maxCollectorSize / 2) {
+            spill();
+         }
+      }
+   }
+
+   @Override
+   public synchronized void close() {
+      if (merger != null) {
+         merger.close();
+         merger = null;
+      }
+      for (File run : runs) {
+         if (!run.delete())
+            log.debugf("Could not delete spilled run %s of m/r task %s", run, taskId);
+      }
+      runs.clear();
+   }
+
+   int getSpilledRuns() {
+      return runs.size();
+   }
+
+   private void combine() {
+      if (combiner == null)
+         return;
+
+      for (Entry<K, List<V>> e : buffer.entrySet()) {
+         List<V> values = e.getValue();
+         if (values.size() > 1) {
+            V combined = combiner.reduce(e.getKey(), values.iterator());
+            values.clear();
+            values.add(combined);
+         }
+      }
+      bufferedValues = buffer.size();
+   }
+
+   private void spill() {
+      List<Entry<K, List<V>>> sorted = new ArrayList<Entry<K, List<V>>>(buffer.entrySet());
+      Collections.sort(sorted, HASH_ORDER);
+      File run = null;
+      try {
+         run = File.createTempFile("mapreduce-" + taskId + "-", ".run");
+         run.deleteOnExit();
+         runs.add(run);
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)));
+         try {
+            out.writeInt(sorted.size());
+            for (Entry<K, List<V>> e : sorted) {
+               writeObject(out, e.getKey());
+               writeObject(out, new ArrayList<V>(e.getValue()));
+            }
+         } finally {
+            out.close();
+         }
+      } catch (Exception e) {
+         throw new CacheException("Could not spill intermediate values of m/r task " + taskId + " to " + run, e);
+      }
+      log.tracef("For m/r task %s spilled %s keys with %s values to %s", taskId, sorted.size(), bufferedValues, run);
+      buffer = new HashMap<K, List<V>>();
+      bufferedValues = 0;
+   }
+
+   private void writeObject(DataOutputStream out, Object o) throws IOException, InterruptedException {
+      byte[] bytes = marshaller.objectToByteBuffer(o);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+   }
+
+   private Object readObject(DataInputStream in) throws IOException, ClassNotFoundException {
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      return marshaller.objectFromByteBuffer(bytes);
+   }
+
+   private static int hash(Object key) {
+      return key == null ? 0 : key.hashCode();
+   }
+
+   /**
+    * A sorted source of entries, either the spilled run in a file or the entries still in memory.
+    */
+   private abstract class Run {
+      Entry<K, List<V>> current;
+
+      abstract void advance();
+
+      void close() {
+      }
+   }
+
+   private class MemoryRun extends Run {
+      private final Iterator<Entry<K, List<V>>> it;
+
+      MemoryRun(List<Entry<K, List<V>>> sorted) {
+         it = sorted.iterator();
+         advance();
+      }
+
+      @Override
+      void advance() {
+         current = it.hasNext() ? it.next() : null;
+      }
+   }
+
+   private class FileRun extends Run {
+      private final File file;
+      private final DataInputStream in;
+      private int remaining;
+
+      FileRun(File file) throws IOException {
+         this.file = file;
+         this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+         this.remaining = in.readInt();
+         advance();
+      }
+
+      @SuppressWarnings("unchecked")
+      @Override
+      void advance() {
+         if (remaining == 0) {
+            current = null;
+            close();
+            return;
+         }
+         remaining--;
+         try {
+            K key = (K) readObject(in);
+            List<V> values = (List<V>) readObject(in);
+            current = new AbstractMap.SimpleEntry<K, List<V>>(key, values);
+         } catch (Exception e) {
+            close();
+            throw new CacheException("Could not read intermediate values of m/r task " + taskId + " from " + file, e);
+         }
+      }
+
+      @Override
+      void close() {
+         try {
+            in.close();
+         } catch (IOException e) {
+            log.debugf(e, "Could not close spilled run %s of m/r task %s", file, taskId);
+         }
+      }
+   }
+
+   /**
+    * Merges the sorted runs, grouping the values of the keys with the same hash code.
+    */
+   private class MergingIterator implements Iterator<Entry<K, List<V>>> {
+      private final PriorityQueue<Run> queue = new PriorityQueue<Run>(runs.size() + 1, new Comparator<Run>() {
+         @Override
+         public int compare(Run r1, Run r2) {
+            return HASH_ORDER.compare(r1.current, r2.current);
+         }
+      });
+      private final List<Run> open = new ArrayList<Run>();
+      private Iterator<Entry<K, List<V>>> group = Collections.<Entry<K, List<V>>>emptyList().iterator();
+
+      MergingIterator(List<Entry<K, List<V>>> inMemory) {
+         try {
+            for (File file : runs) {
+               add(new FileRun(file));
+            }
+         } catch (IOException e) {
+            close();
+            throw new CacheException("Could not read intermediate values of m/r task " + taskId, e);
+         }
+         add(new MemoryRun(inMemory));
+      }
+
+      private void add(Run run) {
+         open.add(run);
+         if (run.current != null)
+            queue.add(run);
+      }
+
+      @Override
+      public boolean hasNext() {
+         return group.hasNext() || !queue.isEmpty();
+      }
+
+      @Override
+      public Entry<K, List<V>> next() {
+         if (!group.hasNext()) {
+            if (queue.isEmpty())
+               throw new NoSuchElementException();
+            group = nextGroup();
+         }
+         return group.next();
+      }
+
+      private Iterator<Entry<K, List<V>>> nextGroup() {
+         Map<K, List<V>> values = new LinkedHashMap<K, List<V>>(4);
+         int hash = hash(queue.peek().current.getKey());
+         while (!queue.isEmpty() && hash(queue.peek().current.getKey()) == hash) {
+            Run run = queue.poll();
+            while (run.current != null && hash(run.current.getKey()) == hash) {
+               List<V> keyValues = values.get(run.current.getKey());
+               if (keyValues == null) {
+                  values.put(run.current.getKey(), run.current.getValue());
+               } else {
+                  keyValues.addAll(run.current.getValue());
+               }
+               run.advance();
+            }
+            if (run.current != null)
+               queue.add(run);
+         }
+         return values.entrySet().iterator();
+      }
+
+      @Override
+      public void remove() {
+         throw new UnsupportedOperationException();
+      }
+
+      void close() {
+         for (Run run : open) {
+            run.close();
+         }
+         queue.clear();
+      }
+   }
+}
@@ -4,6 +4,7 @@
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -45,6 +46,13 @@ public class DefaultConsistentHash implements ConsistentHash {
    private final List<Address>[] segmentOwners;
    private final int segmentSize;
 
+   /**
+    * Lookup tables derived from the routing table, so that the per-key methods don't allocate: the primary owner of
+    * each segment and the segments owned by each node.
+    */
+   private final Address[] primaryOwners;
+   private final Map<Address, BitSet> ownedSegments;
+
    public DefaultConsistentHash(Hash hashFunction, int numOwners, int numSegments, List<Address> members,
                                 Map<Address, Float> capacityFactors, List<Address>[] segmentOwners) {
       if (numSegments < 1)
@@ -58,11 +66,22 @@ public DefaultConsistentHash(Hash hashFunction, int numOwners, int numSegments,
       this.members = new ArrayList<Address>(members);
       this.capacityFactors = capacityFactors != null ? new HashMap<Address, Float>(capacityFactors) : null;
       this.segmentOwners = new List[numSegments];
+      this.primaryOwners = new Address[numSegments];
+      this.ownedSegments = new HashMap<Address, BitSet>();
       for (int i = 0; i < numSegments; i++) {
          if (segmentOwners[i] == null || segmentOwners[i].isEmpty()) {
             throw new IllegalArgumentException("Segment owner list cannot be null or empty");
          }
          this.segmentOwners[i] = Immutables.immutableListCopy(segmentOwners[i]);
+         this.primaryOwners[i] = segmentOwners[i].get(0);
+         for (Address owner : segmentOwners[i]) {
+            BitSet segments = ownedSegments.get(owner);
+            if (segments == null) {
+               segments = new BitSet(numSegments);
+               ownedSegments.put(owner, segments);
+            }
+            segments.set(i);
+         }
       }
       this.segmentSize = (int)Math.ceil((float)Integer.MAX_VALUE / numSegments);
    }
@@ -87,8 +106,9 @@ public Set<Integer> getSegmentsForOwner(Address owner) {
       }
 
       Set<Integer> segments = new HashSet<Integer>();
-      for (int segment = 0; segment < segmentOwners.length; segment++) {
-         if (segmentOwners[segment].contains(owner)) {
+      BitSet owned = ownedSegments.get(owner);
+      if (owned != null) {
+         for (int segment = owned.nextSetBit(0); segment >= 0; segment = owned.nextSetBit(segment + 1)) {
             segments.add(segment);
          }
       }
@@ -120,7 +140,7 @@ public List<Address> locateOwnersForSegment(int segmentId) {
 
    @Override
    public Address locatePrimaryOwnerForSegment(int segmentId) {
-      return segmentOwners[segmentId].get(0);
+      return primaryOwners[segmentId];
    }
 
    @Override
@@ -145,26 +165,23 @@ public List<Address> locateOwners(Object key) {
 
    @Override
    public Set<Address> locateAllOwners(Collection<Object> keys) {
-      // Use a HashSet assuming most of the time the number of keys is small.
-      HashSet<Integer> segments = new HashSet<Integer>();
-      for (Object key : keys) {
-         segments.add(getSegment(key));
-      }
+      // Only add the owners of each segment once, without boxing the segment ids
+      BitSet segments = new BitSet(numSegments);
       HashSet<Address> ownersUnion = new HashSet<Address>();
-      for (Integer segment : segments) {
-         ownersUnion.addAll(segmentOwners[segment]);
+      for (Object key : keys) {
+         int segment = getSegment(key);
+         if (!segments.get(segment)) {
+            segments.set(segment);
+            ownersUnion.addAll(segmentOwners[segment]);
+         }
       }
       return ownersUnion;
    }
 
    @Override
    public boolean isKeyLocalToNode(Address nodeAddress, Object key) {
-      int segment = getSegment(key);
-      for (Address a : segmentOwners[segment]) {
-         if (a.equals(nodeAddress))
-            return true;
-      }
-      return false;
+      BitSet segments = ownedSegments.get(nodeAddress);
+      return segments != null && segments.get(getSegment(key));
    }
 
    @Override
@@ -27,6 +27,11 @@ public class ReplicatedConsistentHash implements ConsistentHash {
    private final Set<Address> membersSet;
    private final Set<Integer> segments;
 
+   /**
+    * The owners of the segments primary-owned by each member, primary owner first, indexed like {@code members}.
+    */
+   private final List<Address>[] ownersByPrimaryOwner;
+
    public ReplicatedConsistentHash(Hash hashFunction, List<Address> members, int[] primaryOwners) {
       this.hashFunction = hashFunction;
       this.members = Collections.unmodifiableList(new ArrayList<Address>(members));
@@ -37,6 +42,18 @@ public ReplicatedConsistentHash(Hash hashFunction, List<Address> members, int[]
          segmentIds.add(i);
       }
       segments = Collections.unmodifiableSet(segmentIds);
+      ownersByPrimaryOwner = new List[members.size()];
+      for (int i = 0; i < members.size(); i++) {
+         Address primaryOwner = members.get(i);
+         List<Address> owners = new ArrayList<Address>(members.size());
+         owners.add(primaryOwner);
+         for (Address member : members) {
+            if (!member.equals(primaryOwner)) {
+               owners.add(member);
+            }
+         }
+         ownersByPrimaryOwner[i] = Collections.unmodifiableList(owners);
+      }
    }
 
    @Override
@@ -67,15 +84,7 @@ public int getSegment(Object key) {
 
    @Override
    public List<Address> locateOwnersForSegment(int segmentId) {
-      Address primaryOwner = locatePrimaryOwnerForSegment(segmentId);
-      List<Address> owners = new ArrayList<Address>(members.size());
-      owners.add(primaryOwner);
-      for (Address member : members) {
-         if (!member.equals(primaryOwner)) {
-            owners.add(member);
-         }
-      }
-      return owners;
+      return ownersByPrimaryOwner[primaryOwners[segmentId]];
    }
 
    @Override
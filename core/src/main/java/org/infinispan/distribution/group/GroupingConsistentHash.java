@@ -4,6 +4,7 @@
 import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.remoting.transport.Address;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
@@ -86,13 +87,14 @@ public List<Address> locateOwners(Object key) {
    public Set<Address> locateAllOwners(Collection<Object> keys) {
       // We have to duplicate the work in DefaultConsistentHash.locateAllOwners
       // because there's no way to call back from DCH to our getSegment(key) method.
-      HashSet<Integer> segments = new HashSet<Integer>();
-      for (Object key : keys) {
-         segments.add(getSegment(key));
-      }
+      BitSet segments = new BitSet(getNumSegments());
       HashSet<Address> owners = new HashSet<Address>();
-      for (Integer segment : segments) {
-         owners.addAll(locateOwnersForSegment(segment));
+      for (Object key : keys) {
+         int segment = getSegment(key);
+         if (!segments.get(segment)) {
+            segments.set(segment);
+            owners.addAll(locateOwnersForSegment(segment));
+         }
       }
       return owners;
    }
@@ -0,0 +1,18 @@
+package org.infinispan.eviction;
+
+/**
+ * Estimates the amount of memory taken by an entry, so that containers can be bounded by memory size rather than by
+ * number of entries.  Implementations are invoked on every write, so they should be cheap and, for a given key and
+ * value, always return the same size.
+ *
+ * @since 6.0
+ */
+public interface EntrySizeCalculator<K, V> {
+
+   /**
+    * @param key the key of the entry
+    * @param value the value of the entry
+    * @return the estimated size of the entry, in bytes
+    */
+   long calculateSize(K key, V value);
+}
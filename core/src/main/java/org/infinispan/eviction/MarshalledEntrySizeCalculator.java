@@ -0,0 +1,56 @@
+package org.infinispan.eviction;
+
+import org.infinispan.commons.CacheException;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.factories.KnownComponentNames;
+import org.infinispan.factories.annotations.ComponentName;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.marshall.core.MarshalledValue;
+
+/**
+ * Default {@link EntrySizeCalculator} used by memory bounded data containers. Keys and values are sized by the
+ * length of their marshalled form, which is a reasonable and portable approximation of their footprint on the heap,
+ * plus a fixed overhead accounting for the internal cache entry, its metadata and the container's own structures.
+ * Values already stored in marshalled form, byte arrays and strings are sized without marshalling them.
+ *
+ * @since 6.0
+ */
+public class MarshalledEntrySizeCalculator implements EntrySizeCalculator<Object, InternalCacheEntry> {
+
+   /**
+    * Estimated footprint of an internal cache entry with its metadata and the hash entry referencing it.
+    */
+   static final long ENTRY_OVERHEAD = 96;
+
+   private StreamingMarshaller marshaller;
+
+   @Inject
+   public void inject(@ComponentName(KnownComponentNames.CACHE_MARSHALLER) StreamingMarshaller marshaller) {
+      this.marshaller = marshaller;
+   }
+
+   @Override
+   public long calculateSize(Object key, InternalCacheEntry entry) {
+      return ENTRY_OVERHEAD + sizeOf(key) + sizeOf(entry.getValue());
+   }
+
+   private long sizeOf(Object o) {
+      if (o == null)
+         return 0;
+      if (o instanceof MarshalledValue)
+         return ((MarshalledValue) o).getRaw().size();
+      if (o instanceof byte[])
+         return ((byte[]) o).length;
+      if (o instanceof String)
+         return 2L * ((String) o).length();
+      try {
+         return marshaller.objectToByteBuffer(o).length;
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheException("Interrupted while estimating the size of " + o, e);
+      } catch (Exception e) {
+         throw new CacheException("Unable to estimate the size of " + o, e);
+      }
+   }
+}
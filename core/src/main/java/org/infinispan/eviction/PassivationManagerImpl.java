@@ -18,6 +18,8 @@
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -36,6 +38,10 @@ public class PassivationManagerImpl implements PassivationManager {
    private DataContainer container;
    private TimeService timeService;
    private static final boolean trace = log.isTraceEnabled();
+   /**
+    * Number of entries handed to the stores at once by {@link #passivateAll()}.
+    */
+   private static final int PASSIVATE_ALL_BATCH_SIZE = 1000;
    private MarshalledEntryFactory marshalledEntryFactory;
 
    @Inject
@@ -89,11 +95,17 @@ public void passivateAll() throws PersistenceException {
       if (enabled) {
          long start = timeService.time();
          log.passivatingAllEntries();
+         List<MarshalledEntry> batch = new ArrayList<MarshalledEntry>(PASSIVATE_ALL_BATCH_SIZE);
          for (InternalCacheEntry e : container) {
             if (trace) log.tracef("Passivating %s", e.getKey());
-            persistenceManager.writeToAllStores(marshalledEntryFactory.newMarshalledEntry(e.getKey(), e.getValue(),
-                                                                        internalMetadata(e)), false);
+            batch.add(marshalledEntryFactory.newMarshalledEntry(e.getKey(), e.getValue(), internalMetadata(e)));
+            if (batch.size() == PASSIVATE_ALL_BATCH_SIZE) {
+               persistenceManager.writeBatchToAllStores(batch, false);
+               batch.clear();
+            }
          }
+         if (!batch.isEmpty())
+            persistenceManager.writeBatchToAllStores(batch, false);
          log.passivatedEntries(container.size(),
                                Util.prettyPrintTime(timeService.timeDuration(start, TimeUnit.MILLISECONDS)));
       }
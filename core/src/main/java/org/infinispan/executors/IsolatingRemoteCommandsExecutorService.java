@@ -0,0 +1,370 @@
+package org.infinispan.executors;
+
+import org.infinispan.commands.remote.CacheRpcCommand;
+import org.infinispan.commons.CacheConfigurationException;
+import org.infinispan.commons.executors.ExecutorFactory;
+import org.infinispan.commons.util.CollectionFactory;
+import org.infinispan.commons.util.TypedProperties;
+import org.infinispan.jmx.annotations.DataType;
+import org.infinispan.jmx.annotations.DisplayType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Parameter;
+import org.infinispan.jmx.annotations.Units;
+import org.infinispan.remoting.RemoteCommandCategory;
+import org.infinispan.remoting.RemoteCommandRunnable;
+import org.infinispan.util.Histogram;
+import org.infinispan.util.TimeService;
+import org.infinispan.util.concurrent.BlockingRunnable;
+import org.infinispan.util.concurrent.BlockingTaskAwareExecutorService;
+import org.infinispan.util.concurrent.BlockingTaskAwareExecutorServiceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The executor used for remote commands. Depending on the {@code isolation} executor property, commands run either in
+ * a single shared pool or in separate pools per cache, per {@link RemoteCommandCategory} or per cache and category,
+ * so that e.g. a burst of state transfer commands for one cache cannot starve the remote gets of another one. Tasks
+ * not related to a cache command always run in the shared pool.
+ * <p/>
+ * The following executor properties are recognized, in addition to the ones of the {@link ExecutorFactory}:
+ * <ul>
+ *    <li>{@code isolation}: one of {@code NONE} (the default), {@code CACHE}, {@code COMMAND} or
+ *    {@code CACHE_AND_COMMAND}</li>
+ *    <li>{@code isolatedMaxThreads}: the {@code maxThreads} of each isolated pool, defaults to {@code maxThreads}</li>
+ *    <li>{@code isolatedQueueSize}: the {@code queueSize} of each isolated pool, defaults to {@code queueSize}</li>
+ * </ul>
+ * The pools are created lazily. The queue depth, the time spent waiting for a thread and the number of rejections,
+ * i.e. of commands run in the caller's thread because the pool was exhausted, are exposed via JMX for every pool.
+ *
+ * @since 6.0
+ */
+@MBean(objectName = "RemoteCommandsExecutor", description = "Executes the commands received from other nodes")
+public final class IsolatingRemoteCommandsExecutorService extends AbstractExecutorService
+      implements BlockingTaskAwareExecutorService {
+
+   public static final String ISOLATION = "isolation";
+   public static final String ISOLATED_MAX_THREADS = "isolatedMaxThreads";
+   public static final String ISOLATED_QUEUE_SIZE = "isolatedQueueSize";
+   public static final String SHARED_POOL = "shared";
+
+   public enum Isolation {
+      NONE, CACHE, COMMAND, CACHE_AND_COMMAND
+   }
+
+   private final ExecutorFactory factory;
+   private final Properties executorProperties;
+   private final TimeService timeService;
+   private final Isolation isolation;
+   private final ConcurrentMap<String, Pool> pools = CollectionFactory.makeConcurrentMap();
+   private final Histogram waitTimesMicros = new Histogram();
+   private volatile boolean shutdown;
+
+   public IsolatingRemoteCommandsExecutorService(ExecutorFactory factory, Properties executorProperties,
+                                                 TimeService timeService) {
+      this.factory = factory;
+      this.executorProperties = executorProperties;
+      this.timeService = timeService;
+      String isolationName = executorProperties.getProperty(ISOLATION, Isolation.NONE.name());
+      try {
+         this.isolation = Isolation.valueOf(isolationName.trim().toUpperCase(Locale.ENGLISH));
+      } catch (IllegalArgumentException e) {
+         throw new CacheConfigurationException("Invalid remote commands executor isolation '" + isolationName + "'");
+      }
+   }
+
+   @Override
+   public void execute(BlockingRunnable runnable) {
+      String poolName = SHARED_POOL;
+      if (runnable instanceof RemoteCommandRunnable) {
+         poolName = poolName(((RemoteCommandRunnable) runnable).getCommand());
+      }
+      getPool(poolName).execute(runnable);
+   }
+
+   @Override
+   public void execute(Runnable command) {
+      getPool(SHARED_POOL).execute(command);
+   }
+
+   @Override
+   public void checkForReadyTasks() {
+      for (Pool pool : pools.values()) {
+         pool.executor.checkForReadyTasks();
+      }
+   }
+
+   @Override
+   public void shutdown() {
+      synchronized (pools) {
+         shutdown = true;
+      }
+      for (Pool pool : pools.values()) {
+         pool.executor.shutdown();
+      }
+   }
+
+   @Override
+   public List<Runnable> shutdownNow() {
+      synchronized (pools) {
+         shutdown = true;
+      }
+      List<Runnable> runnableList = new ArrayList<Runnable>();
+      for (Pool pool : pools.values()) {
+         runnableList.addAll(pool.executor.shutdownNow());
+      }
+      return runnableList;
+   }
+
+   @Override
+   public boolean isShutdown() {
+      return shutdown;
+   }
+
+   @Override
+   public boolean isTerminated() {
+      if (!shutdown)
+         return false;
+      for (Pool pool : pools.values()) {
+         if (!pool.executor.isTerminated())
+            return false;
+      }
+      return true;
+   }
+
+   @Override
+   public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      long endTime = timeService.expectedEndTime(timeout, unit);
+      for (Pool pool : pools.values()) {
+         long remaining = timeService.remainingTime(endTime, TimeUnit.NANOSECONDS);
+         if (!pool.executor.awaitTermination(remaining, TimeUnit.NANOSECONDS))
+            return false;
+      }
+      return isTerminated();
+   }
+
+   String poolName(CacheRpcCommand command) {
+      switch (isolation) {
+         case CACHE:
+            return command.getCacheName();
+         case COMMAND:
+            return RemoteCommandCategory.of(command).name();
+         case CACHE_AND_COMMAND:
+            return command.getCacheName() + '/' + RemoteCommandCategory.of(command).name();
+         default:
+            return SHARED_POOL;
+      }
+   }
+
+   private Pool getPool(String name) {
+      Pool pool = pools.get(name);
+      if (pool == null) {
+         synchronized (pools) {
+            if (shutdown) {
+               throw new RejectedExecutionException("Executor Service is already shutdown");
+            }
+            pool = pools.get(name);
+            if (pool == null) {
+               pool = new Pool(createExecutor(name));
+               pools.put(name, pool);
+            }
+         }
+      }
+      return pool;
+   }
+
+   private ExecutorService createExecutor(String poolName) {
+      Properties props = executorProperties;
+      if (!SHARED_POOL.equals(poolName)) {
+         TypedProperties tp = TypedProperties.toTypedProperties(executorProperties);
+         props = new Properties();
+         props.putAll(executorProperties);
+         if (tp.containsKey(ISOLATED_MAX_THREADS))
+            props.setProperty("maxThreads", tp.getProperty(ISOLATED_MAX_THREADS));
+         if (tp.containsKey(ISOLATED_QUEUE_SIZE))
+            props.setProperty("queueSize", tp.getProperty(ISOLATED_QUEUE_SIZE));
+         props.setProperty("threadNamePrefix",
+                           tp.getProperty("threadNamePrefix", tp.getProperty("componentName", "Thread")) + "-" + poolName);
+      }
+      return factory.getExecutor(props);
+   }
+
+   @ManagedAttribute(description = "How remote commands are split between thread pools", displayName = "Isolation", dataType = DataType.TRAIT)
+   public String getIsolation() {
+      return isolation.name();
+   }
+
+   @ManagedAttribute(description = "Names of the thread pools started so far", displayName = "Pools", dataType = DataType.TRAIT)
+   public String getPoolNames() {
+      return new TreeSet<String>(pools.keySet()).toString();
+   }
+
+   @ManagedAttribute(description = "Number of commands waiting for a thread in all the pools", displayName = "Queue depth", displayType = DisplayType.SUMMARY)
+   public int getQueueDepth() {
+      int queued = 0;
+      for (Pool pool : pools.values()) {
+         queued += pool.queued.get();
+      }
+      return queued;
+   }
+
+   @ManagedAttribute(description = "Number of commands run in the caller's thread because their pool was exhausted", displayName = "Rejected commands", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getRejectedCount() {
+      long rejected = 0;
+      for (Pool pool : pools.values()) {
+         rejected += pool.rejected.get();
+      }
+      return rejected;
+   }
+
+   @ManagedAttribute(description = "Number of commands that started executing", displayName = "Executed commands", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getExecutedCount() {
+      return waitTimesMicros.getCount();
+   }
+
+   @ManagedAttribute(description = "Average time a command waits before it starts executing, in microseconds", displayName = "Average wait time", units = Units.MICROSECONDS, displayType = DisplayType.SUMMARY)
+   public double getAverageWaitTime() {
+      return waitTimesMicros.getMean();
+   }
+
+   @ManagedAttribute(description = "99th percentile of the time a command waits before it starts executing, in microseconds", displayName = "99th percentile wait time", units = Units.MICROSECONDS, displayType = DisplayType.SUMMARY)
+   public long getWaitTime99thPercentile() {
+      return waitTimesMicros.getValueAtPercentile(99);
+   }
+
+   @ManagedAttribute(description = "Maximum time a command waited before it started executing, in microseconds", displayName = "Maximum wait time", units = Units.MICROSECONDS, displayType = DisplayType.SUMMARY)
+   public long getMaxWaitTime() {
+      return waitTimesMicros.getMax();
+   }
+
+   @ManagedOperation(description = "Returns the number of commands waiting for a thread in a pool", displayName = "Pool queue depth")
+   public int poolQueueDepth(@Parameter(name = "pool", description = "The name of the pool") String poolName) {
+      Pool pool = pools.get(poolName);
+      return pool == null ? 0 : pool.queued.get();
+   }
+
+   @ManagedOperation(description = "Returns the number of commands run in the caller's thread because a pool was exhausted", displayName = "Pool rejected commands")
+   public long poolRejectedCount(@Parameter(name = "pool", description = "The name of the pool") String poolName) {
+      Pool pool = pools.get(poolName);
+      return pool == null ? 0 : pool.rejected.get();
+   }
+
+   @ManagedOperation(description = "Returns a percentile of the time commands wait for a thread in a pool, in microseconds", displayName = "Pool wait time percentile")
+   public long poolWaitTimePercentile(@Parameter(name = "pool", description = "The name of the pool") String poolName,
+                                      @Parameter(name = "percentile", description = "The percentile, between 0 and 100") double percentile) {
+      Pool pool = pools.get(poolName);
+      return pool == null ? 0 : pool.waitTimesMicros.getValueAtPercentile(percentile);
+   }
+
+   @ManagedOperation(description = "Resets statistics gathered by this component", displayName = "Reset statistics")
+   public void resetStatistics() {
+      waitTimesMicros.reset();
+      for (Pool pool : pools.values()) {
+         pool.rejected.set(0);
+         pool.waitTimesMicros.reset();
+      }
+   }
+
+   private class Pool {
+      final BlockingTaskAwareExecutorService executor;
+      final AtomicInteger queued = new AtomicInteger();
+      final AtomicLong rejected = new AtomicLong();
+      final Histogram waitTimesMicros = new Histogram();
+
+      Pool(ExecutorService executorService) {
+         if (executorService instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor threadPool = (ThreadPoolExecutor) executorService;
+            threadPool.setRejectedExecutionHandler(new CountingRejectedExecutionHandler(
+                  threadPool.getRejectedExecutionHandler(), rejected));
+         }
+         this.executor = new BlockingTaskAwareExecutorServiceImpl(executorService, timeService);
+      }
+
+      void execute(BlockingRunnable runnable) {
+         queued.incrementAndGet();
+         try {
+            executor.execute(new TimedRunnable(this, runnable, runnable));
+         } catch (RuntimeException e) {
+            queued.decrementAndGet();
+            throw e;
+         }
+      }
+
+      void execute(Runnable runnable) {
+         queued.incrementAndGet();
+         try {
+            executor.execute((Runnable) new TimedRunnable(this, runnable, null));
+         } catch (RuntimeException e) {
+            queued.decrementAndGet();
+            throw e;
+         }
+      }
+
+      void started(long submitTime) {
+         queued.decrementAndGet();
+         long waitTime = timeService.timeDuration(submitTime, TimeUnit.MICROSECONDS);
+         waitTimesMicros.record(waitTime);
+         IsolatingRemoteCommandsExecutorService.this.waitTimesMicros.record(waitTime);
+      }
+   }
+
+   private class TimedRunnable implements BlockingRunnable {
+      private final Pool pool;
+      private final Runnable runnable;
+      private final BlockingRunnable blockingRunnable;
+      private final long submitTime = timeService.time();
+
+      TimedRunnable(Pool pool, Runnable runnable, BlockingRunnable blockingRunnable) {
+         this.pool = pool;
+         this.runnable = runnable;
+         this.blockingRunnable = blockingRunnable;
+      }
+
+      @Override
+      public boolean isReady() {
+         return blockingRunnable == null || blockingRunnable.isReady();
+      }
+
+      @Override
+      public void run() {
+         pool.started(submitTime);
+         runnable.run();
+      }
+
+      @Override
+      public String toString() {
+         return runnable.toString();
+      }
+   }
+
+   private static class CountingRejectedExecutionHandler implements RejectedExecutionHandler {
+      private final RejectedExecutionHandler delegate;
+      private final AtomicLong counter;
+
+      CountingRejectedExecutionHandler(RejectedExecutionHandler delegate, AtomicLong counter) {
+         this.delegate = delegate;
+         this.counter = counter;
+      }
+
+      @Override
+      public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+         counter.incrementAndGet();
+         delegate.rejectedExecution(r, executor);
+      }
+   }
+}
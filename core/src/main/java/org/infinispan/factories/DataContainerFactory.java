@@ -5,8 +5,12 @@
 import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.DefaultDataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.offheap.OffHeapDataContainer;
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
+import org.infinispan.eviction.MarshalledEntrySizeCalculator;
 import org.infinispan.factories.annotations.DefaultFactoryFor;
 
 /**
@@ -25,6 +29,9 @@ public class DataContainerFactory extends AbstractNamedCacheComponentFactory imp
    public <T> T construct(Class<T> componentType) {
       if (configuration.dataContainer().dataContainer() != null) {
          return (T) configuration.dataContainer().dataContainer();
+      } else if (configuration.dataContainer().offHeap()) {
+         return (T) new OffHeapDataContainer(configuration.locking().concurrencyLevel(),
+               configuration.eviction().maxEntries(), configuration.eviction().strategy());
       } else {
          EvictionStrategy st = configuration.eviction().strategy();
          int level = configuration.locking().concurrencyLevel();
@@ -39,6 +46,18 @@ public <T> T construct(Class<T> componentType) {
             case LRU:
             case FIFO:
             case LIRS:
+               EvictionThreadPolicy policy = configuration.eviction().threadPolicy();
+               long maxMemory = configuration.eviction().maxMemory();
+               if (maxMemory > 0) {
+                  EntrySizeCalculator<Object, InternalCacheEntry> sizeCalculator = configuration.eviction().sizeCalculator();
+                  if (sizeCalculator == null) {
+                     sizeCalculator = new MarshalledEntrySizeCalculator();
+                     componentRegistry.wireDependencies(sizeCalculator);
+                  }
+                  return (T) DefaultDataContainer.memoryBoundedDataContainer(
+                     level, maxMemory, st, policy, sizeCalculator, keyEquivalence, valueEquivalence);
+               }
+
                int maxEntries = configuration.eviction().maxEntries();
                //handle case when < 0 value signifies unbounded container 
                if(maxEntries < 0) {
@@ -46,8 +65,6 @@ public <T> T construct(Class<T> componentType) {
                          level, keyEquivalence, valueEquivalence);
                }
 
-               EvictionThreadPolicy policy = configuration.eviction().threadPolicy();
-
                return (T) DefaultDataContainer.boundedDataContainer(
                   level, maxEntries, st, policy, keyEquivalence, valueEquivalence);
             default:
@@ -35,9 +35,13 @@
 import org.infinispan.transaction.xa.TransactionFactory;
 import org.infinispan.transaction.xa.recovery.RecoveryAdminOperations;
 import org.infinispan.util.concurrent.locks.containers.LockContainer;
+import org.infinispan.util.concurrent.locks.containers.OwnableReentrantContentionAwareLockContainer;
 import org.infinispan.util.concurrent.locks.containers.OwnableReentrantPerEntryLockContainer;
+import org.infinispan.util.concurrent.locks.containers.OwnableReentrantPooledLockContainer;
 import org.infinispan.util.concurrent.locks.containers.OwnableReentrantStripedLockContainer;
+import org.infinispan.util.concurrent.locks.containers.ReentrantContentionAwareLockContainer;
 import org.infinispan.util.concurrent.locks.containers.ReentrantPerEntryLockContainer;
+import org.infinispan.util.concurrent.locks.containers.ReentrantPooledLockContainer;
 import org.infinispan.util.concurrent.locks.containers.ReentrantStripedLockContainer;
 import org.infinispan.xsite.BackupSender;
 import org.infinispan.xsite.BackupSenderImpl;
@@ -105,11 +109,23 @@ public <T> T construct(Class<T> componentType) {
             return (T) new EvictionManagerImpl();
          } else if (componentType.equals(LockContainer.class)) {
             boolean  notTransactional = !isTransactional;
-            LockContainer<?> lockContainer = configuration.locking().useLockStriping() ?
-                  notTransactional ? new ReentrantStripedLockContainer(configuration.locking().concurrencyLevel())
-                        : new OwnableReentrantStripedLockContainer(configuration.locking().concurrencyLevel()) :
-                  notTransactional ? new ReentrantPerEntryLockContainer(configuration.locking().concurrencyLevel())
-                        : new OwnableReentrantPerEntryLockContainer(configuration.locking().concurrencyLevel());
+            int concurrencyLevel = configuration.locking().concurrencyLevel();
+            LockContainer<?> lockContainer;
+            if (configuration.locking().useLockStriping()) {
+               if (configuration.locking().adaptiveLockStriping()) {
+                  lockContainer = notTransactional ? new ReentrantContentionAwareLockContainer(concurrencyLevel)
+                        : new OwnableReentrantContentionAwareLockContainer(concurrencyLevel);
+               } else {
+                  lockContainer = notTransactional ? new ReentrantStripedLockContainer(concurrencyLevel)
+                        : new OwnableReentrantStripedLockContainer(concurrencyLevel);
+               }
+            } else if (configuration.locking().useLockPooling()) {
+               lockContainer = notTransactional ? new ReentrantPooledLockContainer(concurrencyLevel)
+                     : new OwnableReentrantPooledLockContainer(concurrencyLevel);
+            } else {
+               lockContainer = notTransactional ? new ReentrantPerEntryLockContainer(concurrencyLevel)
+                     : new OwnableReentrantPerEntryLockContainer(concurrencyLevel);
+            }
             return (T) lockContainer;
          } else if (componentType.equals(L1Manager.class)) {
             return (T) new L1ManagerImpl();
@@ -2,6 +2,7 @@
 
 import org.infinispan.commons.executors.ExecutorFactory;
 import org.infinispan.commons.CacheConfigurationException;
+import org.infinispan.executors.IsolatingRemoteCommandsExecutorService;
 import org.infinispan.executors.LazyInitializingBlockingTaskAwareExecutorService;
 import org.infinispan.util.concurrent.BlockingTaskAwareExecutorService;
 import org.infinispan.executors.LazyInitializingExecutorService;
@@ -31,6 +32,7 @@ public class NamedExecutorsFactory extends NamedComponentFactory implements Auto
    private ExecutorService notificationExecutor;
    private ExecutorService asyncTransportExecutor;
    private ExecutorService persistenceExecutor;
+   private ExecutorService mapReduceExecutor;
    private BlockingTaskAwareExecutorService remoteCommandsExecutor;
    private ScheduledExecutorService evictionExecutor;
    private ScheduledExecutorService asyncReplicationExecutor;
@@ -62,6 +64,15 @@ public <T> T construct(Class<T> componentType, String componentName) {
                }
             }
             return (T) persistenceExecutor;
+         } else if (componentName.equals(MAP_REDUCE_EXECUTOR)) {
+            synchronized (this) {
+               if (mapReduceExecutor == null) {
+                  mapReduceExecutor = buildAndConfigureExecutorService(
+                        globalConfiguration.mapReduceExecutor().factory(),
+                        globalConfiguration.mapReduceExecutor().properties(), componentName, nodeName);
+               }
+            }
+            return (T) mapReduceExecutor;
          } else if (componentName.equals(ASYNC_TRANSPORT_EXECUTOR)) {
             synchronized (this) {
                if (asyncTransportExecutor == null) {
@@ -123,6 +134,7 @@ public void stop() {
       if (remoteCommandsExecutor != null) remoteCommandsExecutor.shutdownNow();
       if (notificationExecutor != null) notificationExecutor.shutdownNow();
       if (persistenceExecutor != null) persistenceExecutor.shutdownNow();
+      if (mapReduceExecutor != null) mapReduceExecutor.shutdownNow();
       if (asyncTransportExecutor != null) asyncTransportExecutor.shutdownNow();
       if (asyncReplicationExecutor != null) asyncReplicationExecutor.shutdownNow();
       if (evictionExecutor != null) evictionExecutor.shutdownNow();
@@ -162,6 +174,9 @@ private BlockingTaskAwareExecutorService buildAndConfigureBlockingTaskAwareExecu
       setDefaultThreads(KnownComponentNames.getDefaultThreads(componentName), props);
       setDefaultThreadPrio(KnownComponentNames.getDefaultThreadPrio(componentName), props);
       setDefaultQueueSize(KnownComponentNames.getDefaultQueueSize(componentName), props);
+      if (componentName.equals(REMOTE_COMMAND_EXECUTOR)) {
+         return new IsolatingRemoteCommandsExecutorService(f, props, globalComponentRegistry.getTimeService());
+      }
       return new LazyInitializingBlockingTaskAwareExecutorService(f, props, globalComponentRegistry.getTimeService());
    }
 
@@ -8,6 +8,7 @@
 import org.infinispan.commands.write.RemoveCommand;
 import org.infinispan.commands.write.ReplaceCommand;
 import org.infinispan.commands.write.WriteCommand;
+import org.infinispan.commons.util.concurrent.jdk8backported.LongAdder;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.container.DataContainer;
 import org.infinispan.context.Flag;
@@ -21,6 +22,7 @@
 import org.infinispan.jmx.annotations.ManagedOperation;
 import org.infinispan.jmx.annotations.MeasurementType;
 import org.infinispan.jmx.annotations.Units;
+import org.infinispan.util.Histogram;
 import org.infinispan.util.TimeService;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -30,25 +32,27 @@
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Captures cache management statistics
+ * Captures cache management statistics.
+ * <p/>
+ * The counters are striped {@link LongAdder}s and the latencies are also recorded, in nanoseconds, in lock-free
+ * {@link Histogram}s, so that threads updating the statistics concurrently rarely contend with each other.
  *
  * @author Jerry Gauthier
  * @since 4.0
  */
 @MBean(objectName = "Statistics", description = "General statistics such as timings, hit/miss ratio, etc.")
 public class CacheMgmtInterceptor extends JmxStatsCommandInterceptor {
-   private final AtomicLong hitTimes = new AtomicLong(0);
-   private final AtomicLong missTimes = new AtomicLong(0);
-   private final AtomicLong storeTimes = new AtomicLong(0);
-   private final AtomicLong removeTimes = new AtomicLong(0);
-   private final AtomicLong hits = new AtomicLong(0);
-   private final AtomicLong misses = new AtomicLong(0);
-   private final AtomicLong stores = new AtomicLong(0);
-   private final AtomicLong evictions = new AtomicLong(0);
+   private final LongAdder hits = new LongAdder();
+   private final LongAdder misses = new LongAdder();
+   private final LongAdder stores = new LongAdder();
+   private final LongAdder evictions = new LongAdder();
    private final AtomicLong startNanoseconds = new AtomicLong(0);
    private final AtomicLong resetNanoseconds = new AtomicLong(0);
-   private final AtomicLong removeHits = new AtomicLong(0);
-   private final AtomicLong removeMisses = new AtomicLong(0);
+   private final LongAdder removeHits = new LongAdder();
+   private final LongAdder removeMisses = new LongAdder();
+   private final Histogram readTimeHistogram = new Histogram();
+   private final Histogram writeTimeHistogram = new Histogram();
+   private final Histogram removeTimeHistogram = new Histogram();
 
    private DataContainer dataContainer;
    private TimeService timeService;
@@ -77,7 +81,7 @@ public void start() {
    public Object visitEvictCommand(InvocationContext ctx, EvictCommand command) throws Throwable {
       Object returnValue = invokeNextInterceptor(ctx, command);
       if (getStatisticsEnabled(command))
-         evictions.incrementAndGet();
+         evictions.increment();
 
       return returnValue;
    }
@@ -91,17 +95,14 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
 
       Object retval = invokeNextInterceptor(ctx, command);
 
-      if (statisticsEnabled) {
-         long intervalMilliseconds = timeService.timeDuration(start, TimeUnit.MILLISECONDS);
-         if (ctx.isOriginLocal()) {
-            if (retval == null) {
-               missTimes.getAndAdd(intervalMilliseconds);
-               misses.incrementAndGet();
-            } else {
-               hitTimes.getAndAdd(intervalMilliseconds);
-               hits.incrementAndGet();
-            }
+      if (statisticsEnabled && ctx.isOriginLocal()) {
+         long intervalNanoseconds = timeService.timeDuration(start, TimeUnit.NANOSECONDS);
+         if (retval == null) {
+            misses.increment();
+         } else {
+            hits.increment();
          }
+         readTimeHistogram.record(intervalNanoseconds);
       }
 
       return retval;
@@ -117,11 +118,11 @@ public Object visitPutMapCommand(InvocationContext ctx, PutMapCommand command) t
       final Object retval = invokeNextInterceptor(ctx, command);
 
       if (statisticsEnabled) {
-         final long intervalMilliseconds = timeService.timeDuration(start, TimeUnit.MILLISECONDS);
+         final long intervalNanoseconds = timeService.timeDuration(start, TimeUnit.NANOSECONDS);
          final Map<Object, Object> data = command.getMap();
          if (data != null && ctx.isOriginLocal() && !data.isEmpty()) {
-            storeTimes.getAndAdd(intervalMilliseconds);
-            stores.getAndAdd(data.size());
+            stores.add(data.size());
+            writeTimeHistogram.record(intervalNanoseconds);
          }
       }
 
@@ -148,9 +149,9 @@ private Object updateStoreStatistics(InvocationContext ctx, WriteCommand command
       Object retval = invokeNextInterceptor(ctx, command);
 
       if (statisticsEnabled && ctx.isOriginLocal() && command.isSuccessful()) {
-         long intervalMilliseconds = timeService.timeDuration(start, TimeUnit.MILLISECONDS);
-         storeTimes.getAndAdd(intervalMilliseconds);
-         stores.incrementAndGet();
+         long intervalNanoseconds = timeService.timeDuration(start, TimeUnit.NANOSECONDS);
+         stores.increment();
+         writeTimeHistogram.record(intervalNanoseconds);
       }
 
       return retval;
@@ -167,11 +168,11 @@ public Object visitRemoveCommand(InvocationContext ctx, RemoveCommand command) t
 
       if (statisticsEnabled && ctx.isOriginLocal()) {
          if (retval == null) {
-            removeMisses.incrementAndGet();
+            removeMisses.increment();
          } else {
-            long intervalMilliseconds = timeService.timeDuration(start, TimeUnit.MILLISECONDS);
-            removeTimes.getAndAdd(intervalMilliseconds);
-            removeHits.incrementAndGet();
+            long intervalNanoseconds = timeService.timeDuration(start, TimeUnit.NANOSECONDS);
+            removeHits.increment();
+            removeTimeHistogram.record(intervalNanoseconds);
          }
       }
 
@@ -184,7 +185,7 @@ public Object visitRemoveCommand(InvocationContext ctx, RemoveCommand command) t
          measurementType = MeasurementType.TRENDSUP,
          displayType = DisplayType.SUMMARY)
    public long getHits() {
-      return hits.get();
+      return hits.sum();
    }
 
    @ManagedAttribute(
@@ -194,7 +195,7 @@ public long getHits() {
          displayType = DisplayType.SUMMARY
    )
    public long getMisses() {
-      return misses.get();
+      return misses.sum();
    }
 
    @ManagedAttribute(
@@ -204,7 +205,7 @@ public long getMisses() {
          displayType = DisplayType.SUMMARY
    )
    public long getRemoveHits() {
-      return removeHits.get();
+      return removeHits.sum();
    }
 
    @ManagedAttribute(
@@ -214,7 +215,7 @@ public long getRemoveHits() {
          displayType = DisplayType.SUMMARY
    )
    public long getRemoveMisses() {
-      return removeMisses.get();
+      return removeMisses.sum();
    }
 
    @ManagedAttribute(
@@ -224,7 +225,7 @@ public long getRemoveMisses() {
          displayType = DisplayType.SUMMARY
    )
    public long getStores() {
-      return stores.get();
+      return stores.sum();
    }
 
    @ManagedAttribute(
@@ -234,7 +235,7 @@ public long getStores() {
          displayType = DisplayType.SUMMARY
    )
    public long getEvictions() {
-      return evictions.get();
+      return evictions.sum();
    }
 
    @ManagedAttribute(
@@ -245,8 +246,8 @@ public long getEvictions() {
    )
    @SuppressWarnings("unused")
    public double getHitRatio() {
-      long hitsL = hits.get();
-      double total = hitsL + misses.get();
+      long hitsL = hits.sum();
+      double total = hitsL + misses.sum();
       // The reason for <= is that equality checks
       // should be avoided for floating point numbers.
       if (total <= 0)
@@ -262,9 +263,10 @@ public double getHitRatio() {
    )
    @SuppressWarnings("unused")
    public double getReadWriteRatio() {
-      if (stores.get() == 0)
+      long storesL = stores.sum();
+      if (storesL == 0)
          return 0;
-      return (((double) (hits.get() + misses.get()) / (double) stores.get()));
+      return (((double) (hits.sum() + misses.sum()) / (double) storesL));
    }
 
    @ManagedAttribute(
@@ -275,10 +277,10 @@ public double getReadWriteRatio() {
    )
    @SuppressWarnings("unused")
    public long getAverageReadTime() {
-      long total = hits.get() + misses.get();
+      long total = hits.sum() + misses.sum();
       if (total == 0)
          return 0;
-      return (hitTimes.get() + missTimes.get()) / total;
+      return TimeUnit.NANOSECONDS.toMillis(readTimeHistogram.getSum() / total);
    }
 
    @ManagedAttribute(
@@ -289,9 +291,10 @@ public long getAverageReadTime() {
    )
    @SuppressWarnings("unused")
    public long getAverageWriteTime() {
-      if (stores.get() == 0)
+      long storesL = stores.sum();
+      if (storesL == 0)
          return 0;
-      return (storeTimes.get()) / stores.get();
+      return TimeUnit.NANOSECONDS.toMillis(writeTimeHistogram.getSum() / storesL);
    }
 
    @ManagedAttribute(
@@ -305,7 +308,97 @@ public long getAverageRemoveTime() {
       long removes = getRemoveHits();
       if (removes == 0)
          return 0;
-      return (removeTimes.get()) / removes;
+      return TimeUnit.NANOSECONDS.toMillis(removeTimeHistogram.getSum() / removes);
+   }
+
+   @ManagedAttribute(
+         description = "Median number of nanoseconds for a read operation on the cache",
+         displayName = "Median read time",
+         units = Units.NANOSECONDS,
+         displayType = DisplayType.SUMMARY
+   )
+   public long getReadTimeMedian() {
+      return readTimeHistogram.getValueAtPercentile(50);
+   }
+
+   @ManagedAttribute(
+         description = "99th percentile of the number of nanoseconds for a read operation on the cache",
+         displayName = "99th percentile read time",
+         units = Units.NANOSECONDS,
+         displayType = DisplayType.SUMMARY
+   )
+   public long getReadTime99thPercentile() {
+      return readTimeHistogram.getValueAtPercentile(99);
+   }
+
+   @ManagedAttribute(
+         description = "99.9th percentile of the number of nanoseconds for a read operation on the cache",
+         displayName = "99.9th percentile read time",
+         units = Units.NANOSECONDS,
+         displayType = DisplayType.SUMMARY
+   )
+   public long getReadTime999thPercentile() {
+      return readTimeHistogram.getValueAtPercentile(99.9);
+   }
+
+   @ManagedAttribute(
+         description = "Median number of nanoseconds for a write operation on the cache",
+         displayName = "Median write time",
+         units = Units.NANOSECONDS,
+         displayType = DisplayType.SUMMARY
+   )
+   public long getWriteTimeMedian() {
+      return writeTimeHistogram.getValueAtPercentile(50);
+   }
+
+   @ManagedAttribute(
+         description = "99th percentile of the number of nanoseconds for a write operation on the cache",
+         displayName = "99th percentile write time",
+         units = Units.NANOSECONDS,
+         displayType = DisplayType.SUMMARY
+   )
+   public long getWriteTime99thPercentile() {
+      return writeTimeHistogram.getValueAtPercentile(99);
+   }
+
+   @ManagedAttribute(
+         description = "99.9th percentile of the number of nanoseconds for a write operation on the cache",
+         displayName = "99.9th percentile write time",
+         units = Units.NANOSECONDS,
+         displayType = DisplayType.SUMMARY
+   )
+   public long getWriteTime999thPercentile() {
+      return writeTimeHistogram.getValueAtPercentile(99.9);
+   }
+
+   @ManagedAttribute(
+         description = "Median number of nanoseconds for a successful remove operation on the cache",
+         displayName = "Median remove time",
+         units = Units.NANOSECONDS,
+         displayType = DisplayType.SUMMARY
+   )
+   public long getRemoveTimeMedian() {
+      return removeTimeHistogram.getValueAtPercentile(50);
+   }
+
+   @ManagedAttribute(
+         description = "99th percentile of the number of nanoseconds for a successful remove operation on the cache",
+         displayName = "99th percentile remove time",
+         units = Units.NANOSECONDS,
+         displayType = DisplayType.SUMMARY
+   )
+   public long getRemoveTime99thPercentile() {
+      return removeTimeHistogram.getValueAtPercentile(99);
+   }
+
+   @ManagedAttribute(
+         description = "99.9th percentile of the number of nanoseconds for a successful remove operation on the cache",
+         displayName = "99.9th percentile remove time",
+         units = Units.NANOSECONDS,
+         displayType = DisplayType.SUMMARY
+   )
+   public long getRemoveTime999thPercentile() {
+      return removeTimeHistogram.getValueAtPercentile(99.9);
    }
 
    @ManagedAttribute(
@@ -345,15 +438,15 @@ public long getTimeSinceReset() {
          displayName = "Reset Statistics (Statistics)"
    )
    public void resetStatistics() {
-      hits.set(0);
-      misses.set(0);
-      stores.set(0);
-      evictions.set(0);
-      hitTimes.set(0);
-      missTimes.set(0);
-      storeTimes.set(0);
-      removeHits.set(0);
-      removeMisses.set(0);
+      hits.reset();
+      misses.reset();
+      stores.reset();
+      evictions.reset();
+      removeHits.reset();
+      removeMisses.reset();
+      readTimeHistogram.reset();
+      writeTimeHistogram.reset();
+      removeTimeHistogram.reset();
       resetNanoseconds.set(timeService.time());
    }
 
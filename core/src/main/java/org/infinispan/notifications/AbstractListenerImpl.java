@@ -18,13 +18,18 @@
 import java.lang.reflect.Method;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Functionality common to both {@link org.infinispan.notifications.cachemanagerlistener.CacheManagerNotifierImpl} and
@@ -34,6 +39,12 @@
  */
 public abstract class AbstractListenerImpl {
 
+   /**
+    * Maximum number of events a listener queue delivers before giving its thread back to the executor, so that a busy
+    * listener does not starve the others sharing the asynchronous notification executor.
+    */
+   private static final int MAX_EVENTS_PER_DRAIN = 1024;
+
    protected final Map<Class<? extends Annotation>, List<ListenerInvocation>> listenersMap = new HashMap<Class<? extends Annotation>, List<ListenerInvocation>>(16, 0.99f);
 
 
@@ -113,6 +124,13 @@ public Set<Object> getListeners() {
     */
    protected void validateAndAddListenerInvocation(Object listener, KeyFilter filter, ClassLoader classLoader) {
       Listener l = testListenerClassValidity(listener.getClass());
+      boolean bulk = l.bulkSize() > 1;
+      ListenerQueue queue = null;
+      if (!l.sync() && l.asyncQueueSize() > 0) {
+         queue = new ListenerQueue(listener, l.asyncQueueSize(), l.overflowPolicy(), l.bulkSize());
+      } else if (bulk) {
+         throw new IncorrectListenerException(String.format("Cache listener class %s can only use bulk delivery if it is asynchronous and has an event queue", listener.getClass().getName()));
+      }
       boolean foundMethods = false;
       Map<Class<? extends Annotation>, Class<?>> allowedListeners = getAllowedMethodAnnotations();
       // now try all methods on the listener for anything that we like.  Note that only PUBLIC methods are scanned.
@@ -122,9 +140,12 @@ protected void validateAndAddListenerInvocation(Object listener, KeyFilter filte
             Class<? extends Annotation> key = annotationEntry.getKey();
             Class<?> value = annotationEntry.getValue();
             if (m.isAnnotationPresent(key)) {
-               testListenerMethodValidity(m, value, key.getName());
+               if (bulk)
+                  testBulkListenerMethodValidity(m, key.getName());
+               else
+                  testListenerMethodValidity(m, value, key.getName());
                m.setAccessible(true);
-               addListenerInvocation(key, new ListenerInvocation(listener, m, l.sync(), l.primaryOnly(), filter, classLoader));
+               addListenerInvocation(key, new ListenerInvocation(listener, m, l.sync(), l.primaryOnly(), filter, classLoader, queue));
                foundMethods = true;
             }
          }
@@ -159,6 +180,13 @@ protected static void testListenerMethodValidity(Method m, Class<?> allowedParam
          throw new IncorrectListenerException("Methods annotated with " + annotationName + " should have a return type of void.");
    }
 
+   protected static void testBulkListenerMethodValidity(Method m, String annotationName) {
+      if (m.getParameterTypes().length != 1 || !m.getParameterTypes()[0].isAssignableFrom(List.class))
+         throw new IncorrectListenerException("Methods annotated with " + annotationName + " on a listener with bulk delivery must accept exactly one parameter, of assignable from type " + List.class.getName());
+      if (!m.getReturnType().equals(void.class))
+         throw new IncorrectListenerException("Methods annotated with " + annotationName + " should have a return type of void.");
+   }
+
    protected abstract Transaction suspendIfNeeded();
 
    protected abstract void resumeIfNeeded(Transaction transaction);
@@ -174,14 +202,21 @@ protected class ListenerInvocation {
       public final boolean onlyPrimary;
       public final WeakReference<ClassLoader> classLoader;
       public final KeyFilter filter;
+      public final ListenerQueue queue;
 
       public ListenerInvocation(Object target, Method method, boolean sync, boolean onlyPrimary, KeyFilter filter, ClassLoader classLoader) {
+         this(target, method, sync, onlyPrimary, filter, classLoader, null);
+      }
+
+      public ListenerInvocation(Object target, Method method, boolean sync, boolean onlyPrimary, KeyFilter filter,
+                                ClassLoader classLoader, ListenerQueue queue) {
          this.target = target;
          this.method = method;
          this.sync = sync;
          this.onlyPrimary = onlyPrimary;
          this.filter = filter;
          this.classLoader = new WeakReference<ClassLoader>(classLoader);
+         this.queue = queue;
       }
 
       public void invoke(final Object event) {
@@ -194,36 +229,15 @@ public void invoke(final Object event, boolean isLocalNodePrimaryOwner) {
 
       private void invoke(final Object event, boolean isLocalNodePrimaryOwner, boolean unKeyed) {
          if (unKeyed || shouldInvoke(event, isLocalNodePrimaryOwner)) {
+            if (queue != null) {
+               queue.enqueue(this, event);
+               return;
+            }
             Runnable r = new Runnable() {
 
                @Override
                public void run() {
-                  ClassLoader contextClassLoader = null;
-                  Transaction transaction = suspendIfNeeded();
-                  if (classLoader != null && classLoader.get() != null) {
-                     contextClassLoader = setContextClassLoader(classLoader.get());
-                  }
-                  try {
-                     method.invoke(target, event);
-                  } catch (InvocationTargetException exception) {
-                     Throwable cause = getRealException(exception);
-                     if (sync) {
-                        throw new CacheException(String.format(
-                              "Caught exception [%s] while invoking method [%s] on listener instance: %s"
-                              , cause.getClass().getName(), method, target
-                        ), cause);
-                     } else {
-                        getLog().unableToInvokeListenerMethod(method, target, cause);
-                     }
-                  } catch (IllegalAccessException exception) {
-                     getLog().unableToInvokeListenerMethod(method, target, exception);
-                     removeListener(target);
-                  } finally {
-                     if (classLoader != null && classLoader.get() != null) {
-                        setContextClassLoader(contextClassLoader);
-                     }
-                     resumeIfNeeded(transaction);
-                  }
+                  invokeNow(event);
                }
             };
 
@@ -234,6 +248,35 @@ public void run() {
          }
       }
 
+      void invokeNow(Object event) {
+         ClassLoader contextClassLoader = null;
+         Transaction transaction = suspendIfNeeded();
+         if (classLoader != null && classLoader.get() != null) {
+            contextClassLoader = setContextClassLoader(classLoader.get());
+         }
+         try {
+            method.invoke(target, event);
+         } catch (InvocationTargetException exception) {
+            Throwable cause = getRealException(exception);
+            if (sync) {
+               throw new CacheException(String.format(
+                     "Caught exception [%s] while invoking method [%s] on listener instance: %s"
+                     , cause.getClass().getName(), method, target
+               ), cause);
+            } else {
+               getLog().unableToInvokeListenerMethod(method, target, cause);
+            }
+         } catch (IllegalAccessException exception) {
+            getLog().unableToInvokeListenerMethod(method, target, exception);
+            removeListener(target);
+         } finally {
+            if (classLoader != null && classLoader.get() != null) {
+               setContextClassLoader(contextClassLoader);
+            }
+            resumeIfNeeded(transaction);
+         }
+      }
+
       private boolean shouldInvoke(Object event, boolean isLocalNodePrimaryOwner) {
          if (onlyPrimary && !isLocalNodePrimaryOwner) return false;
          return filter == null ||
@@ -241,6 +284,115 @@ private boolean shouldInvoke(Object event, boolean isLocalNodePrimaryOwner) {
       }
    }
 
+   /**
+    * The bounded event queue of an asynchronous listener. The queue is drained by at most one task at a time, running
+    * in the asynchronous notification executor, so the listener receives the events in the order they were queued.
+    */
+   protected class ListenerQueue implements Runnable {
+      private final Object target;
+      private final BlockingQueue<QueuedEvent> queue;
+      private final Listener.OverflowPolicy overflowPolicy;
+      private final int bulkSize;
+      private final AtomicBoolean draining = new AtomicBoolean();
+      private final AtomicBoolean droppedEvents = new AtomicBoolean();
+
+      ListenerQueue(Object target, int capacity, Listener.OverflowPolicy overflowPolicy, int bulkSize) {
+         this.target = target;
+         this.queue = new ArrayBlockingQueue<QueuedEvent>(capacity);
+         this.overflowPolicy = overflowPolicy;
+         this.bulkSize = bulkSize;
+      }
+
+      void enqueue(ListenerInvocation invocation, Object event) {
+         QueuedEvent queuedEvent = new QueuedEvent(invocation, event);
+         switch (overflowPolicy) {
+            case BLOCK:
+               try {
+                  queue.put(queuedEvent);
+               } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  dropped(queuedEvent);
+               }
+               break;
+            case DROP_NEWEST:
+               if (!queue.offer(queuedEvent))
+                  dropped(queuedEvent);
+               break;
+            case DROP_OLDEST:
+               while (!queue.offer(queuedEvent)) {
+                  QueuedEvent oldest = queue.poll();
+                  if (oldest != null)
+                     dropped(oldest);
+               }
+               break;
+         }
+         scheduleDrain();
+      }
+
+      private void dropped(QueuedEvent queuedEvent) {
+         if (droppedEvents.compareAndSet(false, true))
+            getLog().droppingListenerEvents(target);
+         if (getLog().isTraceEnabled())
+            getLog().tracef("Dropped event %s for listener %s", queuedEvent.event, target);
+      }
+
+      private void scheduleDrain() {
+         if (draining.compareAndSet(false, true)) {
+            try {
+               asyncProcessor.execute(this);
+            } catch (RejectedExecutionException e) {
+               draining.set(false);
+               throw e;
+            }
+         }
+      }
+
+      @Override
+      public void run() {
+         try {
+            int delivered = 0;
+            QueuedEvent next = queue.poll();
+            while (next != null) {
+               QueuedEvent first = next;
+               next = null;
+               if (bulkSize > 1) {
+                  List<Object> events = new ArrayList<Object>(Math.min(bulkSize, queue.size() + 1));
+                  events.add(first.event);
+                  while (events.size() < bulkSize) {
+                     next = queue.poll();
+                     if (next == null || !next.invocation.method.equals(first.invocation.method))
+                        break;
+                     events.add(next.event);
+                     next = null;
+                  }
+                  first.invocation.invokeNow(Collections.unmodifiableList(events));
+                  delivered += events.size();
+               } else {
+                  first.invocation.invokeNow(first.event);
+                  delivered++;
+               }
+               if (next == null && delivered < MAX_EVENTS_PER_DRAIN)
+                  next = queue.poll();
+            }
+         } finally {
+            draining.set(false);
+         }
+         // events queued while the flag was still set did not schedule a drain
+         if (!queue.isEmpty())
+            scheduleDrain();
+      }
+   }
+
+   private static class QueuedEvent {
+      final ListenerInvocation invocation;
+      final Object event;
+
+      QueuedEvent(ListenerInvocation invocation, Object event) {
+         this.invocation = invocation;
+         this.event = event;
+      }
+   }
+
    private Throwable getRealException(Throwable re) {
       if (re.getCause() == null) return re;
       Throwable cause = re.getCause();
@@ -35,6 +35,8 @@
  * made in a <i>separate</i> thread, which will not cause any blocking on the caller or network thread.  The separate
  * thread is taken from a pool, which can be configured using {@link org.infinispan.config.GlobalConfiguration#setAsyncListenerExecutorProperties(java.util.Properties)}
  * and {@link org.infinispan.config.GlobalConfiguration#setAsyncListenerExecutorFactoryClass(String)}.
+ * Asynchronous listeners can also get their own bounded event queue, which preserves the order of the events, see
+ * {@link #asyncQueueSize()}, {@link #overflowPolicy()} and {@link #bulkSize()}.
  * <p/>
  * <b>Summary of Notification Annotations</b> <table border="1" cellpadding="1" cellspacing="1" summary="Summary of
  * notification annotations"> <tr> <th bgcolor="#CCCCFF" align="left">Annotation</th> <th bgcolor="#CCCCFF"
@@ -213,4 +215,58 @@
     *  @since 5.3
     */
    boolean primaryOnly() default false;
+
+   /**
+    * When greater than 0 and {@link #sync()} is <tt>false</tt>, the events for this listener are put in a queue of
+    * this capacity instead of being handed to the asynchronous notification executor one by one. The queue is drained
+    * by a single executor thread at a time, so the listener receives the events in the order they were fired, and in
+    * particular the events for a key in the order the key was updated. What happens when the queue is full is
+    * controlled by {@link #overflowPolicy()}.
+    * <p/>
+    * When 0, asynchronous events are delivered in no particular order.
+    *
+    * @return the capacity of the listener's event queue, or 0 to not use a queue
+    * @since 6.0
+    */
+   int asyncQueueSize() default 0;
+
+   /**
+    * Specifies what happens to an event fired while the listener's queue is full.  Only used when
+    * {@link #asyncQueueSize()} is greater than 0.  Defaults to {@link OverflowPolicy#BLOCK}.
+    *
+    * @return the overflow policy of the listener's event queue
+    * @since 6.0
+    */
+   OverflowPolicy overflowPolicy() default OverflowPolicy.BLOCK;
+
+   /**
+    * When greater than 1, consecutive queued events for the same listener method are delivered together, in a
+    * {@link java.util.List} of at most this many events, and the annotated methods must accept a {@link java.util.List}
+    * instead of a single event.  Requires {@link #asyncQueueSize()} to be greater than 0.
+    *
+    * @return the maximum number of events delivered in a single invocation
+    * @since 6.0
+    */
+   int bulkSize() default 1;
+
+   /**
+    * What to do with an event fired while the queue of an asynchronous listener is full.
+    *
+    * @since 6.0
+    */
+   enum OverflowPolicy {
+      /**
+       * The thread firing the event waits until there is space in the queue.  This slows down writers to the pace of
+       * the listener, so the listener must not write to the cache itself.
+       */
+      BLOCK,
+      /**
+       * The event is discarded.
+       */
+      DROP_NEWEST,
+      /**
+       * The oldest queued event is discarded to make room for the new one.
+       */
+      DROP_OLDEST
+   }
 }
@@ -7,6 +7,8 @@
 import org.infinispan.metadata.InternalMetadata;
 import org.infinispan.metadata.InternalMetadataImpl;
 import org.infinispan.persistence.spi.AdvancedCacheLoader;
+import org.infinispan.persistence.spi.BatchingCacheWriter;
+import org.infinispan.persistence.spi.CacheWriter;
 import org.infinispan.util.concurrent.WithinThreadExecutor;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -73,6 +75,30 @@ public static InternalMetadata internalMetadata(InternalCacheEntry ice) {
       return ice.getMetadata() == null ? null : new InternalMetadataImpl(ice);
    }
 
+   /**
+    * Writes all the entries to the given writer, as a single batch if the writer supports it or one by one otherwise.
+    */
+   public static void writeBatch(CacheWriter writer, Iterable<MarshalledEntry> entries) {
+      if (writer instanceof BatchingCacheWriter) {
+         ((BatchingCacheWriter) writer).writeBatch(entries);
+      } else {
+         for (MarshalledEntry entry : entries)
+            writer.write(entry);
+      }
+   }
+
+   /**
+    * Deletes all the keys from the given writer, as a single batch if the writer supports it or one by one otherwise.
+    */
+   public static void deleteBatch(CacheWriter writer, Iterable<Object> keys) {
+      if (writer instanceof BatchingCacheWriter) {
+         ((BatchingCacheWriter) writer).deleteBatch(keys);
+      } else {
+         for (Object key : keys)
+            writer.delete(key);
+      }
+   }
+
    public static InternalMetadata internalMetadata(InternalCacheValue icv) {
       return icv.getMetadata() == null ? null : new InternalMetadataImpl(icv.getMetadata(), icv.getCreated(), icv.getLastUsed());
    }
@@ -7,13 +7,18 @@
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.persistence.spi.PersistenceException;
 import org.infinispan.persistence.modifications.Modification;
+import org.infinispan.persistence.modifications.ModificationsList;
 import org.infinispan.persistence.modifications.Remove;
 import org.infinispan.persistence.modifications.Store;
 import org.infinispan.commons.util.CollectionFactory;
+import org.infinispan.persistence.PersistenceUtil;
+import org.infinispan.persistence.spi.BatchingCacheWriter;
 import org.infinispan.persistence.spi.CacheWriter;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.persistence.support.DelegatingCacheWriter;
+import org.infinispan.util.DefaultTimeService;
+import org.infinispan.util.TimeService;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -28,6 +33,7 @@
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -48,6 +54,14 @@
  * <p/>
  * Write operations affecting same key are now coalesced so that only the final state is actually stored.
  * <p/>
+ * The coalesced modifications are pushed to the underlying store in batches, using
+ * {@link BatchingCacheWriter#writeBatch(Iterable)} and {@link BatchingCacheWriter#deleteBatch(Iterable)} if the store
+ * supports them.
+ * <p/>
+ * Besides the number of buffered modifications (<code>modificationQueueSize</code>), the buffer can be bounded by
+ * the number of bytes taken by the buffered entries (<code>modificationQueueMaxBytes</code>). Writers block when
+ * either limit is reached, until the buffered modifications are handed to the underlying store.
+ * <p/>
  *
  * @author Manik Surtani
  * @author Galder Zamarreño
@@ -66,6 +80,12 @@ public class AsyncCacheWriter extends DelegatingCacheWriter {
    private int concurrencyLevel;
    private long shutdownTimeout;
    private String cacheName;
+   private TimeService timeService;
+
+   private final AtomicLong receivedModifications = new AtomicLong(0);
+   private final AtomicLong appliedModifications = new AtomicLong(0);
+   private final AtomicLong flushes = new AtomicLong(0);
+   private final AtomicLong flushTime = new AtomicLong(0);
 
    protected BufferLock stateLock;
    @GuardedBy("stateLock")
@@ -88,6 +108,7 @@ public void init(InitializationContext ctx) {
       long cacheStopTimeout = cacheCfg != null ? cacheCfg.transaction().cacheStopTimeout() : 30000;
       Long configuredAsyncStopTimeout = this.asyncConfiguration.shutdownTimeout();
       cacheName = cache != null ? cache.getName() : null;
+      timeService = cache != null ? ctx.getTimeService() : new DefaultTimeService();
 
       // Async store shutdown timeout cannot be bigger than
       // the overall cache stop timeout, so limit it accordingly.
@@ -103,7 +124,7 @@ public void init(InitializationContext ctx) {
    public void start() {
       log.debugf("Async cache loader starting %s", this);
       state.set(newState(false, null));
-      stateLock = new BufferLock(asyncConfiguration.modificationQueueSize());
+      stateLock = new BufferLock(asyncConfiguration.modificationQueueSize(), asyncConfiguration.modificationQueueMaxBytes());
 
       int poolSize = asyncConfiguration.threadPoolSize();
       executor = new ThreadPoolExecutor(0, poolSize, 120L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
@@ -147,19 +168,42 @@ public boolean delete(Object key) {
       return true;
    }
 
+   @Override
+   public void writeBatch(Iterable entries) {
+      List<Modification> mods = new ArrayList<Modification>();
+      for (MarshalledEntry entry : (Iterable<MarshalledEntry>) entries)
+         mods.add(new Store(entry.getKey(), entry));
+      put(new ModificationsList(mods), mods.size());
+   }
+
+   @Override
+   public void deleteBatch(Iterable keys) {
+      List<Modification> mods = new ArrayList<Modification>();
+      for (Object key : keys)
+         mods.add(new Remove(key));
+      put(new ModificationsList(mods), mods.size());
+   }
+
    protected void applyModificationsSync(List<Modification> mods) throws PersistenceException {
+      // modifications are coalesced per key, so their relative order does not matter
+      List<MarshalledEntry> toWrite = new ArrayList<MarshalledEntry>(mods.size());
+      List<Object> toDelete = new ArrayList<Object>();
       for (Modification m : mods) {
          switch (m.getType()) {
             case STORE:
-               actual.write(((Store) m).getStoredValue());
+               toWrite.add(((Store) m).getStoredValue());
                break;
             case REMOVE:
-               actual.delete(((Remove) m).getKey());
+               toDelete.add(((Remove) m).getKey());
                break;
             default:
                throw new IllegalArgumentException("Unknown modification type " + m.getType());
          }
       }
+      if (!toWrite.isEmpty())
+         PersistenceUtil.writeBatch(actual, toWrite);
+      if (!toDelete.isEmpty())
+         PersistenceUtil.deleteBatch(actual, toDelete);
    }
 
 
@@ -169,7 +213,8 @@ State newState(boolean clear, State next) {
    }
 
    private void put(Modification mod, int count) {
-      stateLock.writeLock(count);
+      // marshalling happens before taking the lock, so that it never delays the coordinator
+      stateLock.writeLock(count, sizeOf(mod));
       try {
          if (log.isTraceEnabled())
             log.tracef("Queue modification: %s", mod);
@@ -178,6 +223,67 @@ private void put(Modification mod, int count) {
       } finally {
          stateLock.writeUnlock();
       }
+      receivedModifications.addAndGet(count);
+   }
+
+   /**
+    * Estimates the number of bytes a modification takes in the buffer, from the marshalled form of its entries. Returns
+    * 0 if the buffer is not bounded by size, to avoid marshalling the entries in the caller's thread.
+    */
+   private long sizeOf(Modification mod) {
+      if (!stateLock.isByteBounded())
+         return 0;
+      switch (mod.getType()) {
+         case STORE:
+            MarshalledEntry entry = ((Store) mod).getStoredValue();
+            long size = entry.getKeyBytes().getLength();
+            if (entry.getValueBytes() != null)
+               size += entry.getValueBytes().getLength();
+            if (entry.getMetadataBytes() != null)
+               size += entry.getMetadataBytes().getLength();
+            return size;
+         case LIST:
+            long total = 0;
+            for (Modification m : ((ModificationsList) mod).getList())
+               total += sizeOf(m);
+            return total;
+         default:
+            return 0;
+      }
+   }
+
+   /**
+    * Returns the number of modifications which have not been applied to the underlying store yet.
+    */
+   public int getQueueDepth() {
+      int depth = 0;
+      for (State s = state.get(); s != null; s = s.next)
+         depth += s.modifications.size();
+      return depth;
+   }
+
+   /**
+    * Returns the average time, in milliseconds, taken to apply a batch of modifications to the underlying store.
+    */
+   public long getAverageFlushTime() {
+      long count = flushes.get();
+      return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(flushTime.get() / count);
+   }
+
+   /**
+    * Returns the number of modifications received for each modification applied to the underlying store, which is
+    * greater than 1 when writes to the same key are coalesced. Returns 0 if nothing has been applied yet.
+    */
+   public double getCoalesceRatio() {
+      long applied = appliedModifications.get();
+      return applied == 0 ? 0 : (double) receivedModifications.get() / applied;
+   }
+
+   public void resetStatistics() {
+      receivedModifications.set(0);
+      appliedModifications.set(0);
+      flushes.set(0);
+      flushTime.set(0);
    }
 
    public AtomicReference<State> getState() {
@@ -225,7 +331,7 @@ public void run() {
                            mods.add(e.getValue());
                         else {
                            if (!head.clear && head.modifications.putIfAbsent(e.getKey(), e.getValue()) == null)
-                              stateLock.add(1);
+                              stateLock.add(1, sizeOf(e.getValue()));
                            s.modifications.remove(e.getKey());
                         }
                      }
@@ -326,7 +432,11 @@ private void retryWork(int maxRetries) {
                log.debugf("Retrying due to previous failure. %s attempts left.", maxRetries - attempt);
 
             try {
+               long start = timeService.time();
                AsyncCacheWriter.this.applyModificationsSync(modifications);
+               flushTime.addAndGet(timeService.timeDuration(start, TimeUnit.NANOSECONDS));
+               flushes.incrementAndGet();
+               appliedModifications.addAndGet(modifications.size());
                return;
             } catch (Exception e) {
                if (log.isDebugEnabled())
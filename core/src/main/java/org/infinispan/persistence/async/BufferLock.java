@@ -1,5 +1,6 @@
 package org.infinispan.persistence.async;
 
+import java.util.concurrent.locks.AbstractQueuedLongSynchronizer;
 import java.util.concurrent.locks.AbstractQueuedSynchronizer;
 
 /**
@@ -10,7 +11,8 @@
  * data off to the back-end store.
  * <p/>
  * Additionally, {@link #writeLock(int)} blocks if the buffer is full, and {@link #readLock()}
- * blocks if no data is available.
+ * blocks if no data is available. The buffer is full when either the number of items or, if a
+ * byte limit is set, the number of bytes taken by the items reaches its limit.
  * <p/>
  * This lock implementation is <em>not</em> reentrant!
  *
@@ -55,6 +57,44 @@ protected boolean tryReleaseShared(int state) {
       }
    }
 
+   /**
+    * AQS state is the number of bytes taken by the 'items' in the buffer. AcquireShared blocks if
+    * the buffer is full (>= size).
+    */
+   private static class ByteCounter extends AbstractQueuedLongSynchronizer {
+      private static final long serialVersionUID = -3297262209519880385L;
+      private final long size;
+
+      ByteCounter(long size) {
+         this.size = size;
+      }
+
+      long add(long count) {
+         for (;;) {
+            long state = getState();
+            if (compareAndSetState(state, state + count))
+               return state + count;
+         }
+      }
+
+      @Override
+      protected long tryAcquireShared(long count) {
+         for (;;) {
+            long state = getState();
+            if (state >= size)
+               return -1;
+            if (compareAndSetState(state, state + count))
+               return state + count >= size ? 0 : 1;
+         }
+      }
+
+      @Override
+      protected boolean tryReleaseShared(long state) {
+         setState(state);
+         return state < size;
+      }
+   }
+
    /**
     * AQS state is 0 if no data is available, 1 otherwise. AcquireShared blocks if no data is
     * available.
@@ -119,6 +159,7 @@ protected boolean tryReleaseShared(int unused) {
 
    private final Sync sync;
    private final Counter counter;
+   private final ByteCounter byteCounter;
    private final Available available;
 
    /**
@@ -128,11 +169,32 @@ protected boolean tryReleaseShared(int unused) {
     *           the buffer size
     */
    BufferLock(int size) {
+      this(size, 0);
+   }
+
+   /**
+    * Create a new BufferLock with the specified buffer size and byte limit.
+    *
+    * @param size
+    *           the buffer size
+    * @param maxBytes
+    *           the maximum number of bytes taken by the items in the buffer, or a value
+    *           <= 0 for no limit
+    */
+   BufferLock(int size, long maxBytes) {
       sync = new Sync();
       counter = size > 0 ? new Counter(size) : null;
+      byteCounter = maxBytes > 0 ? new ByteCounter(maxBytes) : null;
       available = new Available();
    }
 
+   /**
+    * Returns true if the buffer limits the number of bytes taken by its items.
+    */
+   boolean isByteBounded() {
+      return byteCounter != null;
+   }
+
    /**
     * Acquires the write lock and consumes the specified amount of buffer space. Blocks if the
     * buffer is full or if the object is currently locked for reading.
@@ -141,8 +203,23 @@ protected boolean tryReleaseShared(int unused) {
     *           number of items the caller intends to write
     */
    void writeLock(int count) {
+      writeLock(count, 0);
+   }
+
+   /**
+    * Acquires the write lock and consumes the specified amount of buffer space. Blocks if the
+    * buffer is full or if the object is currently locked for reading.
+    *
+    * @param count
+    *           number of items the caller intends to write
+    * @param bytes
+    *           number of bytes taken by the items the caller intends to write
+    */
+   void writeLock(int count, long bytes) {
       if (counter != null)
          counter.acquireShared(count);
+      if (byteCounter != null)
+         byteCounter.acquireShared(bytes);
       sync.acquireShared(1);
    }
 
@@ -177,8 +254,22 @@ void readUnlock() {
     *           number of available items in the buffer
     */
    void reset(int count) {
+      reset(count, 0);
+   }
+
+   /**
+    * Resets the buffer counters to the specified numbers.
+    *
+    * @param count
+    *           number of available items in the buffer
+    * @param bytes
+    *           number of bytes taken by the available items in the buffer
+    */
+   void reset(int count, long bytes) {
       if (counter != null)
          counter.releaseShared(count);
+      if (byteCounter != null)
+         byteCounter.releaseShared(bytes);
       available.releaseShared(count);
    }
 
@@ -189,6 +280,20 @@ void reset(int count) {
     *           number of items to add to the buffer counter
     */
    void add(int count) {
+      add(count, 0);
+   }
+
+   /**
+    * Modifies the buffer counters by the specified values.
+    *
+    * @param count
+    *           number of items to add to the buffer counter
+    * @param bytes
+    *           number of bytes to add to the buffer byte counter
+    */
+   void add(int count, long bytes) {
+      if (byteCounter != null)
+         byteCounter.add(bytes);
       if (counter != null)
          count = counter.add(count);
       available.releaseShared(count);
@@ -0,0 +1,831 @@
+package org.infinispan.persistence.file;
+
+import org.infinispan.commons.equivalence.AnyEquivalence;
+import org.infinispan.commons.equivalence.Equivalence;
+import org.infinispan.commons.io.ByteBufferFactory;
+import org.infinispan.commons.util.CollectionFactory;
+import org.infinispan.configuration.cache.LogFileStoreConfiguration;
+import org.infinispan.executors.ExecutorAllCompletionService;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.PersistenceUtil;
+import org.infinispan.persistence.TaskContextImpl;
+import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.BatchingCacheWriter;
+import org.infinispan.persistence.spi.InitializationContext;
+import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A log-structured, filesystem-based implementation of a {@link org.infinispan.persistence.spi.CacheLoader}. All
+ * writes, including removals, are appended to the current log file in
+ * <tt>&lt;location&gt;/&lt;cache name&gt;/</tt>; a new log file is started whenever the current one reaches its
+ * maximum size. Keys and the position of their latest record are kept in an in-memory index.
+ * <p/>
+ * Appending turns every write into a sequential write and never modifies data which is already on disk, so reads
+ * need no locking at all: they look up the index and read the record with a positional read. Writers only serialize
+ * on the append itself.
+ * <p/>
+ * Overwritten and removed records are left behind as garbage. When the garbage in a log file exceeds the configured
+ * compaction threshold, a background thread copies its remaining live records to the end of the log and deletes the
+ * file. Removals are recorded as tombstones, which are carried forward by compaction until no older log file could
+ * contain a record they shadow.
+ * <p/>
+ * The on-disk format of a log file is a 4 bytes magic header followed by records, each made of:
+ * <ul>
+ * <li>4 bytes: key length</li>
+ * <li>4 bytes: data length, -1 for a tombstone</li>
+ * <li>4 bytes: metadata length</li>
+ * <li>8 bytes: expiry time</li>
+ * <li>serialized key, data and metadata</li>
+ * </ul>
+ * <p/>
+ * Like {@link SingleFileStore}, this store keeps all keys in memory.
+ *
+ * @since 6.0
+ */
+public class LogFileStore implements AdvancedLoadWriteStore, BatchingCacheWriter {
+
+   private static final Log log = LogFactory.getLog(LogFileStore.class);
+
+   private static final byte[] MAGIC = new byte[] { 'L', 'F', 'S', '1' };
+   private static final String FILE_SUFFIX = ".log";
+   static final int HEADER_SIZE = 4 + 4 + 4 + 8;
+   private static final int TOMBSTONE = -1;
+   /**
+    * Maximum number of expired entries whose tombstones are appended while holding the append lock once.
+    */
+   private static final int PURGE_BATCH_SIZE = 1024;
+
+   private LogFileStoreConfiguration configuration;
+
+   protected InitializationContext ctx;
+
+   private File directory;
+   private ConcurrentMap<Object, IndexEntry> index;
+   private final ConcurrentNavigableMap<Integer, LogFile> files = new ConcurrentSkipListMap<Integer, LogFile>();
+
+   /**
+    * Serializes appends, and the index updates which depend on them, so that the order of the records in the log
+    * always matches the order of the updates in the index.
+    */
+   private final ReentrantLock appendLock = new ReentrantLock();
+   private volatile LogFile current;
+   private ExecutorService compactor;
+   private volatile boolean stopping;
+
+   /** {@inheritDoc} */
+   @Override
+   public void init(InitializationContext ctx) {
+      this.ctx = ctx;
+      this.configuration = ctx.getConfiguration();
+   }
+
+   /** {@inheritDoc} */
+   @Override
+   public void start() {
+      try {
+         String location = configuration.location();
+         if (location == null || location.trim().length() == 0)
+            location = "Infinispan-LogFileStore";
+
+         final String cacheName = ctx.getCache().getName();
+         directory = new File(location, cacheName);
+         if (!directory.mkdirs() && !directory.exists()) {
+            throw log.directoryCannotBeCreated(directory.getAbsolutePath());
+         }
+
+         Equivalence<Object> keyEq = ctx.getCache().getCacheConfiguration().dataContainer().keyEquivalence();
+         index = CollectionFactory.makeConcurrentMap(keyEq, AnyEquivalence.<IndexEntry>getInstance());
+         rebuildIndex();
+
+         stopping = false;
+         compactor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+               Thread t = new Thread(r, "LogFileStoreCompactor-" + cacheName);
+               t.setDaemon(true);
+               return t;
+            }
+         });
+         appendLock.lock();
+         try {
+            if (files.isEmpty())
+               roll();
+            else
+               current = files.lastEntry().getValue();
+            // compact whatever was left behind by the previous run
+            for (LogFile f : files.values())
+               maybeCompact(f);
+         } finally {
+            appendLock.unlock();
+         }
+      } catch (PersistenceException e) {
+         throw e;
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   /** {@inheritDoc} */
+   @Override
+   public void stop() {
+      stopping = true;
+      if (compactor != null) {
+         // do not interrupt the compactor, that would close the file channel it is using
+         compactor.shutdown();
+         try {
+            compactor.awaitTermination(10, TimeUnit.SECONDS);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+         compactor = null;
+      }
+      appendLock.lock();
+      try {
+         for (LogFile f : files.values())
+            f.close();
+         files.clear();
+         current = null;
+         index = null;
+      } finally {
+         appendLock.unlock();
+      }
+   }
+
+   /**
+    * Rebuilds the in-memory index by replaying all log files, oldest first.
+    */
+   private void rebuildIndex() throws Exception {
+      File[] logs = directory.listFiles(new FileFilter() {
+         @Override
+         public boolean accept(File f) {
+            return f.isFile() && f.getName().endsWith(FILE_SUFFIX);
+         }
+      });
+      if (logs == null)
+         return;
+
+      for (File f : logs) {
+         int id;
+         try {
+            id = Integer.parseInt(f.getName().substring(0, f.getName().length() - FILE_SUFFIX.length()));
+         } catch (NumberFormatException e) {
+            continue;
+         }
+         LogFile logFile = new LogFile(id, f);
+         byte[] header = new byte[MAGIC.length];
+         if (logFile.channel.read(ByteBuffer.wrap(header), 0) != MAGIC.length || !Arrays.equals(MAGIC, header)) {
+            // unknown file format
+            logFile.close();
+            throw new PersistenceException("Unknown file format " + f.getAbsolutePath());
+         }
+         files.put(id, logFile);
+      }
+
+      for (final LogFile f : files.values()) {
+         long end = scan(f, new RecordVisitor() {
+            @Override
+            public void visit(Object key, long offset, int size, ByteBuffer header) {
+               int keyLen = header.getInt(0);
+               int dataLen = header.getInt(4);
+               if (dataLen == TOMBSTONE) {
+                  IndexEntry old = index.remove(key);
+                  if (old != null)
+                     discard(old);
+                  f.garbage.addAndGet(size);
+               } else {
+                  IndexEntry ie = new IndexEntry(f.id, offset, size, keyLen, dataLen, header.getInt(8), header.getLong(12));
+                  IndexEntry old = index.put(key, ie);
+                  if (old != null)
+                     discard(old);
+               }
+            }
+         });
+         if (end < f.channel.size()) {
+            // incomplete record at the end of the file, e.g. after a crash
+            log.truncatingLogFile(f.file.getAbsolutePath(), end);
+            f.channel.truncate(end);
+         }
+         f.size = end;
+      }
+   }
+
+   /**
+    * Visits all the complete records of a log file, in order.
+    *
+    * @return the offset following the last complete record
+    */
+   private long scan(LogFile f, RecordVisitor visitor) throws Exception {
+      long fileSize = f.channel.size();
+      long offset = MAGIC.length;
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      byte[] keyBuf = new byte[64];
+      while (offset + HEADER_SIZE <= fileSize) {
+         header.clear();
+         readFully(f.channel, header, offset);
+         int keyLen = header.getInt(0);
+         int dataLen = header.getInt(4);
+         int metadataLen = header.getInt(8);
+         if (keyLen <= 0 || dataLen < TOMBSTONE || metadataLen < 0)
+            break;
+         long size = (long) HEADER_SIZE + keyLen + Math.max(dataLen, 0) + metadataLen;
+         if (offset + size > fileSize)
+            break;
+
+         if (keyBuf.length < keyLen)
+            keyBuf = new byte[keyLen];
+         readFully(f.channel, ByteBuffer.wrap(keyBuf, 0, keyLen), offset + HEADER_SIZE);
+         Object key = ctx.getMarshaller().objectFromByteBuffer(keyBuf, 0, keyLen);
+         visitor.visit(key, offset, (int) size, header);
+         offset += size;
+      }
+      return offset;
+   }
+
+   /**
+    * {@inheritDoc}
+    * <p/>
+    * All keys are kept in memory, so this does not hit the disk.
+    */
+   @Override
+   public boolean contains(Object key) {
+      IndexEntry ie = index.get(key);
+      return ie != null && !ie.isExpired(ctx.getTimeService().wallClockTime());
+   }
+
+   /** {@inheritDoc} */
+   @Override
+   public void write(MarshalledEntry marshalledEntry) {
+      // serialize the record before taking the lock
+      ByteBuffer buf = record(marshalledEntry);
+      appendLock.lock();
+      try {
+         appendEntry(marshalledEntry.getKey(), buf);
+         sync();
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      } finally {
+         appendLock.unlock();
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    * <p/>
+    * All records are appended while holding the append lock once, and the log is forced to disk only once for the
+    * whole batch when synchronous writes are enabled.
+    */
+   @Override
+   public void writeBatch(Iterable entries) {
+      List<MarshalledEntry> batch = new ArrayList<MarshalledEntry>();
+      List<ByteBuffer> records = new ArrayList<ByteBuffer>();
+      for (MarshalledEntry entry : (Iterable<MarshalledEntry>) entries) {
+         batch.add(entry);
+         records.add(record(entry));
+      }
+      appendLock.lock();
+      try {
+         for (int i = 0; i < batch.size(); i++)
+            appendEntry(batch.get(i).getKey(), records.get(i));
+         sync();
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      } finally {
+         appendLock.unlock();
+      }
+   }
+
+   private ByteBuffer record(MarshalledEntry marshalledEntry) {
+      org.infinispan.commons.io.ByteBuffer key = marshalledEntry.getKeyBytes();
+      org.infinispan.commons.io.ByteBuffer data = marshalledEntry.getValueBytes();
+      org.infinispan.commons.io.ByteBuffer metadata = marshalledEntry.getMetadataBytes();
+
+      int metadataLength = metadata == null ? 0 : metadata.getLength();
+      long expiryTime = metadata != null ? marshalledEntry.getMetadata().expiryTime() : -1;
+      int len = HEADER_SIZE + key.getLength() + data.getLength() + metadataLength;
+      ByteBuffer buf = ByteBuffer.allocate(len);
+      buf.putInt(key.getLength());
+      buf.putInt(data.getLength());
+      buf.putInt(metadataLength);
+      buf.putLong(expiryTime);
+      buf.put(key.getBuf(), key.getOffset(), key.getLength());
+      buf.put(data.getBuf(), data.getOffset(), data.getLength());
+      if (metadata != null)
+         buf.put(metadata.getBuf(), metadata.getOffset(), metadata.getLength());
+      buf.flip();
+      return buf;
+   }
+
+   /**
+    * Appends a serialized entry and points the index to it. Call only while holding the append lock.
+    */
+   private void appendEntry(Object key, ByteBuffer record) throws IOException {
+      IndexEntry ie = append(record, record.getInt(0), record.getInt(4), record.getInt(8), record.getLong(12));
+      IndexEntry old = index.put(key, ie);
+      if (old != null)
+         discard(old);
+   }
+
+   /** {@inheritDoc} */
+   @Override
+   public boolean delete(Object key) {
+      if (!index.containsKey(key))
+         return false;
+      try {
+         ByteBuffer tombstone = tombstone(key);
+         appendLock.lock();
+         try {
+            boolean removed = removeAndAppendTombstone(key, null, tombstone);
+            sync();
+            return removed;
+         } finally {
+            appendLock.unlock();
+         }
+      } catch (PersistenceException e) {
+         throw e;
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   /** {@inheritDoc} */
+   @Override
+   public void deleteBatch(Iterable keys) {
+      try {
+         List<Object> batch = new ArrayList<Object>();
+         List<ByteBuffer> tombstones = new ArrayList<ByteBuffer>();
+         for (Object key : keys) {
+            if (index.containsKey(key)) {
+               batch.add(key);
+               tombstones.add(tombstone(key));
+            }
+         }
+         if (batch.isEmpty())
+            return;
+         appendLock.lock();
+         try {
+            for (int i = 0; i < batch.size(); i++)
+               removeAndAppendTombstone(batch.get(i), null, tombstones.get(i));
+            sync();
+         } finally {
+            appendLock.unlock();
+         }
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   private ByteBuffer tombstone(Object key) throws Exception {
+      byte[] keyBytes = ctx.getMarshaller().objectToByteBuffer(key);
+      ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + keyBytes.length);
+      buf.putInt(keyBytes.length);
+      buf.putInt(TOMBSTONE);
+      buf.putInt(0);
+      buf.putLong(-1);
+      buf.put(keyBytes);
+      buf.flip();
+      return buf;
+   }
+
+   /**
+    * Removes the key from the index and records the removal in the log. Call only while holding the append lock.
+    *
+    * @param expected if not null, only removes the key if it still maps to this index entry
+    */
+   private boolean removeAndAppendTombstone(Object key, IndexEntry expected, ByteBuffer tombstone) throws IOException {
+      IndexEntry old;
+      if (expected == null) {
+         old = index.remove(key);
+      } else {
+         old = index.remove(key, expected) ? expected : null;
+      }
+      if (old == null)
+         return false;
+      // no older record can be resurrected by replaying the log once the tombstone is written
+      discard(append(tombstone, tombstone.remaining() - HEADER_SIZE, TOMBSTONE, 0, -1));
+      discard(old);
+      return true;
+   }
+
+   /**
+    * Appends a record to the current log file. Call only while holding the append lock, and call {@link #sync()}
+    * once the appended records need to be durable.
+    */
+   private IndexEntry append(ByteBuffer record, int keyLen, int dataLen, int metadataLen, long expiryTime) throws IOException {
+      int len = record.remaining();
+      LogFile f = current;
+      if (f.size > MAGIC.length && f.size + len > configuration.maxFileSize()) {
+         roll();
+         f = current;
+      }
+      long offset = f.size;
+      writeFully(f.channel, record, offset);
+      f.size = offset + len;
+      return new IndexEntry(f.id, offset, len, keyLen, dataLen, metadataLen, expiryTime);
+   }
+
+   /**
+    * Forces the current log file to disk if synchronous writes are enabled. Call only while holding the append lock.
+    */
+   private void sync() throws IOException {
+      if (configuration.syncWrites())
+         current.channel.force(false);
+   }
+
+   /**
+    * Starts a new log file. Call only while holding the append lock.
+    */
+   private void roll() throws IOException {
+      // records appended since the last sync must not be lost when the file stops being the current one
+      if (current != null)
+         sync();
+      int id = files.isEmpty() ? 0 : files.lastKey() + 1;
+      LogFile f = new LogFile(id, new File(directory, id + FILE_SUFFIX));
+      f.channel.truncate(0);
+      writeFully(f.channel, ByteBuffer.wrap(MAGIC), 0);
+      f.size = MAGIC.length;
+      files.put(id, f);
+      LogFile previous = current;
+      current = f;
+      if (previous != null)
+         maybeCompact(previous);
+   }
+
+   /**
+    * Accounts for a record which is not live anymore.
+    */
+   private void discard(IndexEntry ie) {
+      LogFile f = files.get(ie.fileId);
+      if (f != null) {
+         f.garbage.addAndGet(ie.size);
+         maybeCompact(f);
+      }
+   }
+
+   private void maybeCompact(LogFile f) {
+      if (f != current && !stopping && compactor != null
+            && f.garbage.get() >= configuration.compactionThreshold() * (f.size - MAGIC.length)
+            && f.compacting.compareAndSet(false, true)) {
+         compactor.execute(new Compaction(f));
+      }
+   }
+
+   /** {@inheritDoc} */
+   @Override
+   public void clear() {
+      appendLock.lock();
+      try {
+         index.clear();
+         int next = files.isEmpty() ? 0 : files.lastKey() + 1;
+         for (LogFile f : files.values()) {
+            f.close();
+            if (!f.file.delete())
+               log.debugf("Could not delete log file %s", f.file);
+         }
+         files.clear();
+         current = null;
+         // keep on numbering files from where we were, so that stale compactions cannot clash with new files
+         LogFile f = new LogFile(next, new File(directory, next + FILE_SUFFIX));
+         f.channel.truncate(0);
+         writeFully(f.channel, ByteBuffer.wrap(MAGIC), 0);
+         f.size = MAGIC.length;
+         files.put(next, f);
+         current = f;
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      } finally {
+         appendLock.unlock();
+      }
+   }
+
+   /** {@inheritDoc} */
+   @Override
+   public MarshalledEntry load(Object key) {
+      return _load(key, true, true);
+   }
+
+   private MarshalledEntry _load(Object key, boolean loadValue, boolean loadMetadata) {
+      byte[] data;
+      IndexEntry ie;
+      for (;;) {
+         ie = index.get(key);
+         if (ie == null || ie.isExpired(ctx.getTimeService().wallClockTime()))
+            return null;
+
+         data = new byte[ie.keyLen + (loadValue ? ie.dataLen : 0) + (loadMetadata ? ie.metadataLen : 0)];
+         LogFile f = files.get(ie.fileId);
+         if (f != null) {
+            try {
+               readFully(f.channel, ByteBuffer.wrap(data), ie.offset + HEADER_SIZE);
+               break;
+            } catch (ClosedChannelException e) {
+               // the file has been compacted or cleared concurrently, check the index again
+            } catch (IOException e) {
+               throw new PersistenceException(e);
+            }
+         }
+         if (index.get(key) == ie)
+            throw new PersistenceException("Log file " + ie.fileId + " is not available");
+      }
+
+      ByteBufferFactory factory = ctx.getByteBufferFactory();
+      org.infinispan.commons.io.ByteBuffer keyBb = factory.newByteBuffer(data, 0, ie.keyLen);
+      org.infinispan.commons.io.ByteBuffer valueBb = null;
+      org.infinispan.commons.io.ByteBuffer metadataBb = null;
+      if (loadValue) {
+         valueBb = factory.newByteBuffer(data, ie.keyLen, ie.dataLen);
+         if (loadMetadata && ie.metadataLen > 0)
+            metadataBb = factory.newByteBuffer(data, ie.keyLen + ie.dataLen, ie.metadataLen);
+      }
+      return ctx.getMarshalledEntryFactory().newMarshalledEntry(keyBb, valueBb, metadataBb);
+   }
+
+   /** {@inheritDoc} */
+   @Override
+   public void process(KeyFilter filter, final CacheLoaderTask task, Executor executor, final boolean fetchValue, final boolean fetchMetadata) {
+      filter = PersistenceUtil.notNull(filter);
+      List<Object> keysToLoad = new ArrayList<Object>(index.size());
+      for (Object k : index.keySet()) {
+         if (filter.shouldLoadKey(k))
+            keysToLoad.add(k);
+      }
+
+      ExecutorAllCompletionService eacs = new ExecutorAllCompletionService(executor);
+
+      final TaskContextImpl taskContext = new TaskContextImpl();
+      for (final Object key : keysToLoad) {
+         if (taskContext.isStopped())
+            break;
+
+         eacs.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+               try {
+                  final MarshalledEntry marshalledEntry = _load(key, fetchValue, fetchMetadata);
+                  if (marshalledEntry != null) {
+                     task.processEntry(marshalledEntry, taskContext);
+                  }
+                  return null;
+               } catch (Exception e) {
+                  log.errorExecutingParallelStoreTask(e);
+                  throw e;
+               }
+            }
+         });
+      }
+      eacs.waitUntilAllCompleted();
+      if (eacs.isExceptionThrown()) {
+         throw new PersistenceException("Execution exception!", eacs.getFirstException());
+      }
+   }
+
+   /** {@inheritDoc} */
+   @Override
+   public void purge(Executor threadPool, final PurgeListener task) {
+      threadPool.execute(new Runnable() {
+         @Override
+         public void run() {
+            long now = ctx.getTimeService().wallClockTime();
+            List<Object> keys = new ArrayList<Object>(PURGE_BATCH_SIZE);
+            List<IndexEntry> entries = new ArrayList<IndexEntry>(PURGE_BATCH_SIZE);
+            try {
+               for (Map.Entry<Object, IndexEntry> e : index.entrySet()) {
+                  IndexEntry ie = e.getValue();
+                  if (ie.isExpired(now)) {
+                     keys.add(e.getKey());
+                     entries.add(ie);
+                     if (keys.size() == PURGE_BATCH_SIZE) {
+                        purgeBatch(keys, entries, task);
+                        keys.clear();
+                        entries.clear();
+                     }
+                  }
+               }
+               if (!keys.isEmpty())
+                  purgeBatch(keys, entries, task);
+            } catch (PersistenceException ex) {
+               throw ex;
+            } catch (Exception ex) {
+               throw new PersistenceException(ex);
+            }
+         }
+      });
+   }
+
+   /**
+    * Appends the tombstones of a batch of expired entries and forces the log to disk once for the whole batch. An
+    * entry updated since it was found expired is not purged.
+    */
+   private void purgeBatch(List<Object> keys, List<IndexEntry> entries, PurgeListener task) throws Exception {
+      List<ByteBuffer> tombstones = new ArrayList<ByteBuffer>(keys.size());
+      for (Object key : keys)
+         tombstones.add(tombstone(key));
+      boolean[] purged = new boolean[keys.size()];
+      appendLock.lock();
+      try {
+         for (int i = 0; i < keys.size(); i++)
+            purged[i] = removeAndAppendTombstone(keys.get(i), entries.get(i), tombstones.get(i));
+         sync();
+      } finally {
+         appendLock.unlock();
+      }
+      if (task != null) {
+         for (int i = 0; i < keys.size(); i++) {
+            if (purged[i])
+               task.entryPurged(keys.get(i));
+         }
+      }
+   }
+
+   @Override
+   public int size() {
+      return index.size();
+   }
+
+   int getLogFileCount() {
+      return files.size();
+   }
+
+   public LogFileStoreConfiguration getConfiguration() {
+      return configuration;
+   }
+
+   private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+      while (buf.hasRemaining()) {
+         int read = channel.read(buf, position);
+         if (read < 0)
+            throw new EOFException();
+         position += read;
+      }
+   }
+
+   private static void writeFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+      while (buf.hasRemaining()) {
+         position += channel.write(buf, position);
+      }
+   }
+
+   /**
+    * Copies the live records of a log file to the end of the log, and deletes it.
+    */
+   private final class Compaction implements Runnable {
+      private final LogFile file;
+
+      Compaction(LogFile file) {
+         this.file = file;
+      }
+
+      @Override
+      public void run() {
+         try {
+            scan(file, new RecordVisitor() {
+               @Override
+               public void visit(Object key, long offset, int size, ByteBuffer header) throws Exception {
+                  if (stopping)
+                     throw new InterruptedException();
+
+                  int dataLen = header.getInt(4);
+                  if (dataLen == TOMBSTONE) {
+                     // nothing left to shadow if no log file is older than this one
+                     if (files.firstKey() == file.id || index.containsKey(key))
+                        return;
+                  } else {
+                     IndexEntry ie = index.get(key);
+                     if (ie == null || ie.fileId != file.id || ie.offset != offset)
+                        return;
+                  }
+
+                  ByteBuffer record = ByteBuffer.allocate(size);
+                  readFully(file.channel, record, offset);
+                  record.flip();
+                  appendLock.lock();
+                  try {
+                     // check again, the key might have been written since
+                     if (dataLen == TOMBSTONE) {
+                        if (!index.containsKey(key))
+                           discard(append(record, header.getInt(0), TOMBSTONE, 0, -1));
+                     } else {
+                        IndexEntry ie = index.get(key);
+                        if (ie != null && ie.fileId == file.id && ie.offset == offset)
+                           index.put(key, append(record, ie.keyLen, ie.dataLen, ie.metadataLen, ie.expiryTime));
+                     }
+                     sync();
+                  } finally {
+                     appendLock.unlock();
+                  }
+               }
+            });
+            appendLock.lock();
+            try {
+               if (files.remove(file.id, file)) {
+                  file.close();
+                  if (!file.file.delete())
+                     log.debugf("Could not delete log file %s", file.file);
+               }
+            } finally {
+               appendLock.unlock();
+            }
+         } catch (InterruptedException e) {
+            // store stopping
+            file.compacting.set(false);
+         } catch (Exception e) {
+            // the file might have been removed by a concurrent clear
+            if (files.get(file.id) == file)
+               log.errorCompactingLogFile(file.file.getAbsolutePath(), e);
+            file.compacting.set(false);
+         }
+      }
+   }
+
+   private interface RecordVisitor {
+      void visit(Object key, long offset, int size, ByteBuffer header) throws Exception;
+   }
+
+   /**
+    * A log file and its statistics.
+    */
+   private static final class LogFile {
+      final int id;
+      final File file;
+      final FileChannel channel;
+
+      /**
+       * Offset of the end of the last record. Only modified while holding the append lock.
+       */
+      volatile long size;
+
+      /**
+       * Number of bytes taken by records which are not live anymore.
+       */
+      final AtomicLong garbage = new AtomicLong();
+
+      final AtomicBoolean compacting = new AtomicBoolean();
+
+      LogFile(int id, File file) throws IOException {
+         this.id = id;
+         this.file = file;
+         this.channel = new RandomAccessFile(file, "rw").getChannel();
+      }
+
+      void close() {
+         try {
+            channel.close();
+         } catch (IOException e) {
+            log.debugf(e, "Error closing log file %s", file);
+         }
+      }
+   }
+
+   /**
+    * Location and attributes of the latest record of a key.
+    */
+   private static final class IndexEntry {
+      final int fileId;
+      final long offset;
+      final int size;
+      final int keyLen;
+      final int dataLen;
+      final int metadataLen;
+      final long expiryTime;
+
+      IndexEntry(int fileId, long offset, int size, int keyLen, int dataLen, int metadataLen, long expiryTime) {
+         this.fileId = fileId;
+         this.offset = offset;
+         this.size = size;
+         this.keyLen = keyLen;
+         this.dataLen = dataLen;
+         this.metadataLen = metadataLen;
+         this.expiryTime = expiryTime;
+      }
+
+      boolean isExpired(long now) {
+         return expiryTime > 0 && expiryTime < now;
+      }
+   }
+}
@@ -12,6 +12,7 @@
 import org.infinispan.persistence.PersistenceUtil;
 import org.infinispan.persistence.TaskContextImpl;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.BatchingCacheWriter;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -21,16 +22,22 @@
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * A filesystem-based implementation of a {@link org.infinispan.persistence.spi.CacheLoader}. This file store
@@ -54,13 +61,20 @@
  * source.
  * <p/>
  * This class is fully thread safe, yet allows for concurrent load / store
- * of individual cache entries.
+ * of individual cache entries. When the store is unbounded, loads do not
+ * acquire any shared monitor: the index is a concurrent map and readers pin
+ * the {@link FileEntry} they are reading with a reference count, so that its
+ * space is not reused before the read completes.
+ * <p/>
+ * The entries which can expire are also kept in an index sorted by expiry
+ * time, so that purging only visits the expired entries and doesn't block
+ * concurrent writers.
  *
  * @author Karsten Blees
  * @author Mircea Markus
  * @since 6.0
  */
-public class SingleFileStore implements AdvancedLoadWriteStore {
+public class SingleFileStore implements AdvancedLoadWriteStore, BatchingCacheWriter {
 
 
    private static final Log log = LogFactory.getLog(SingleFileStore.class);
@@ -69,6 +83,23 @@ public class SingleFileStore implements AdvancedLoadWriteStore {
    private static final byte[] ZERO_INT = { 0, 0, 0, 0 };
    private static final int KEYLEN_POS = 4;
    private static final int KEY_POS = 4 + 4 + 4 + 4 + 8;
+   /**
+    * Maximum number of bytes written at once by {@link #writeBatch(Iterable)}; longer runs of adjacent entries are
+    * split, so that the write buffer stays small.
+    */
+   private static final int MAX_RUN_SIZE = 4 * 1024 * 1024;
+
+   /**
+    * Orders the file entries by expiry time. Live entries never share their offset, which breaks the ties.
+    */
+   private static final Comparator<FileEntry> EXPIRY_COMPARATOR = new Comparator<FileEntry>() {
+      @Override
+      public int compare(FileEntry fe1, FileEntry fe2) {
+         if (fe1.expiryTime != fe2.expiryTime)
+            return fe1.expiryTime < fe2.expiryTime ? -1 : 1;
+         return fe1.offset < fe2.offset ? -1 : fe1.offset == fe2.offset ? 0 : 1;
+      }
+   };
 
    private SingleFileStoreConfiguration configuration;
 
@@ -77,6 +108,7 @@ public class SingleFileStore implements AdvancedLoadWriteStore {
    private FileChannel file;
    private Map<Object, FileEntry> entries;
    private SortedSet<FileEntry> freeList;
+   private ConcurrentSkipListMap<FileEntry, Object> expiringEntries;
    private long filePos = MAGIC.length;
 
    /** {@inheritDoc} */
@@ -107,6 +139,7 @@ public void start()   {
          // initialize data structures
          entries = newEntryMap();
          freeList = Collections.synchronizedSortedSet(new TreeSet<FileEntry>());
+         expiringEntries = new ConcurrentSkipListMap<FileEntry, Object>(EXPIRY_COMPARATOR);
 
          // check file format and read persistent state if enabled for the cache
          byte[] header = new byte[MAGIC.length];
@@ -121,16 +154,29 @@ public void start()   {
 
    private Map<Object, FileEntry> newEntryMap() {
       // only use LinkedHashMap (LRU) for entries when cache store is bounded
-      final Map<Object, FileEntry> entryMap;
       Equivalence<Object> keyEq = ctx.getCache().getCacheConfiguration().dataContainer().keyEquivalence();
       if (configuration.maxEntries() > 0)
-         entryMap = CollectionFactory.makeLinkedMap(16, 0.75f,
-                                                    EquivalentLinkedHashMap.IterationOrder.ACCESS_ORDER,
-                                                    keyEq, AnyEquivalence.<FileEntry>getInstance());
+         // access ordered maps are modified by reads, so they need to be guarded by the map's monitor
+         return Collections.synchronizedMap(CollectionFactory.makeLinkedMap(16, 0.75f,
+               EquivalentLinkedHashMap.IterationOrder.ACCESS_ORDER,
+               keyEq, AnyEquivalence.<FileEntry>getInstance()));
       else
-         entryMap = CollectionFactory.makeMap(keyEq, AnyEquivalence.<FileEntry>getInstance());
+         return CollectionFactory.makeConcurrentMap(keyEq, AnyEquivalence.<FileEntry>getInstance());
+   }
+
+   /**
+    * Removes the mapping for the key only if it is still mapped to the given file entry.
+    */
+   private boolean removeEntry(Object key, FileEntry fe) {
+      if (entries instanceof ConcurrentMap)
+         return ((ConcurrentMap<Object, FileEntry>) entries).remove(key, fe);
 
-      return Collections.synchronizedMap(entryMap);
+      synchronized (entries) {
+         if (entries.get(key) != fe)
+            return false;
+         entries.remove(key);
+         return true;
+      }
    }
 
    /** {@inheritDoc} */
@@ -143,6 +189,7 @@ public void stop()   {
             file = null;
             entries = null;
             freeList = null;
+            expiringEntries = null;
             filePos = MAGIC.length;
          }
       } catch (Exception e) {
@@ -185,6 +232,7 @@ private void rebuildIndex() throws Exception {
 
             // deserialize key and add to entries map
             Object key = ctx.getMarshaller().objectFromByteBuffer(buf.array(), 0, fe.keyLen);
+            indexExpiry(key, fe);
             entries.put(key, fe);
          } else {
             // add to free list
@@ -221,16 +269,16 @@ private FileEntry allocate(int len) {
                continue;
 
             // There's no race condition risk between locking the entry on
-            // loading and checking whether it's locked (or store allocation),
-            // because for the entry to be lockable, it needs to be in the
-            // entries collection, in which case it's not in the free list.
-            // The only way an entry can be found in the free list is if it's
-            // been removed, and to remove it, lock on "entries" needs to be
-            // acquired, which is also a pre-requisite for loading data.
-
-            // found one, remove from freeList
+            // loading and checking whether it's locked here: an entry is only
+            // in the free list after it has been marked as freed, and readers
+            // re-check that flag after incrementing the reader count. So either
+            // we see the reader, or the reader sees the entry as freed and
+            // backs off without touching the file.
+
+            // found one, remove from freeList and hand out a fresh FileEntry for the same space, so that
+            // readers which still reference the old (freed) instance never mistake it for a live entry
             it.remove();
-            return free;
+            return new FileEntry(free.offset, free.size);
          }
 
          // no appropriate free section available, append at end of file
@@ -240,11 +288,25 @@ private FileEntry allocate(int len) {
       }
    }
 
+   /**
+    * Adds the file entry to the expiry index, if it can expire. This must happen before the entry is added to the
+    * in-memory index: once there, it may be replaced and freed at any time.
+    */
+   private void indexExpiry(Object key, FileEntry fe) {
+      if (fe.expiryTime > 0)
+         expiringEntries.put(fe, key);
+   }
+
    /**
     * Frees the space of the specified file entry (for reuse by allocate).
     */
    private void free(FileEntry fe) throws IOException {
       if (fe != null) {
+         // concurrent readers which have looked up this entry must not use it anymore
+         fe.freed = true;
+         // the space may be handed out again, along with the offset identifying the entry in the expiry index
+         if (fe.expiryTime > 0)
+            expiringEntries.remove(fe);
          // invalidate entry on disk (by setting keyLen field to 0)
          file.write(ByteBuffer.wrap(ZERO_INT), fe.offset + KEYLEN_POS);
          freeList.add(fe);
@@ -255,35 +317,13 @@ private void free(FileEntry fe) throws IOException {
    /** {@inheritDoc} */
    public void write(MarshalledEntry marshalledEntry) {
       try {
-         // serialize cache value
-         org.infinispan.commons.io.ByteBuffer key = marshalledEntry.getKeyBytes();
-         org.infinispan.commons.io.ByteBuffer data = marshalledEntry.getValueBytes();
-         org.infinispan.commons.io.ByteBuffer metadata = marshalledEntry.getMetadataBytes();
-
          // allocate file entry and store in cache file
-         int metadataLength = metadata == null ? 0 : metadata.getLength();
-         int len = KEY_POS + key.getLength() + data.getLength() + metadataLength;
-         FileEntry fe = allocate(len);
+         FileEntry fe = allocate(entrySize(marshalledEntry));
          try {
-            fe.expiryTime = metadata != null ? marshalledEntry.getMetadata().expiryTime() : -1;
-            fe.keyLen = key.getLength();
-            fe.dataLen = data.getLength();
-            fe.metadataLen = metadataLength;
-
-            ByteBuffer buf = ByteBuffer.allocate(len);
-            buf.putInt(fe.size);
-            buf.putInt(fe.keyLen);
-            buf.putInt(fe.dataLen);
-            buf.putInt(fe.metadataLen);
-            buf.putLong(fe.expiryTime);
-            buf.put(key.getBuf(), key.getOffset(), key.getLength());
-            buf.put(data.getBuf(), data.getOffset(), data.getLength());
-            if (metadata != null)
-               buf.put(metadata.getBuf(), metadata.getOffset(), metadata.getLength());
-            buf.flip();
-            file.write(buf, fe.offset);
+            file.write(serialize(marshalledEntry, fe), fe.offset);
 
             // add the new entry to in-memory index
+            indexExpiry(marshalledEntry.getKey(), fe);
             fe = entries.put(marshalledEntry.getKey(), fe);
 
             // if we added an entry, check if we need to evict something
@@ -298,6 +338,122 @@ public void write(MarshalledEntry marshalledEntry) {
       }
    }
 
+   /**
+    * {@inheritDoc}
+    * <p/>
+    * Space for the whole batch is allocated first, so that entries appended at the end of the file end up next to
+    * each other and can be written with a single write.
+    */
+   @Override
+   public void writeBatch(Iterable marshalledEntries) {
+      List<MarshalledEntry> batch = new ArrayList<MarshalledEntry>();
+      for (MarshalledEntry marshalledEntry : (Iterable<MarshalledEntry>) marshalledEntries)
+         batch.add(marshalledEntry);
+      if (batch.isEmpty())
+         return;
+
+      // the entries may be marshalled while computing their size, which must not happen while holding the lock
+      int[] sizes = new int[batch.size()];
+      for (int i = 0; i < sizes.length; i++)
+         sizes[i] = entrySize(batch.get(i));
+
+      List<FileEntry> allocated = new ArrayList<FileEntry>(batch.size());
+      int indexed = 0;
+      try {
+         synchronized (freeList) {
+            for (int size : sizes)
+               allocated.add(allocate(size));
+         }
+
+         // write runs of adjacent entries with a single write each, up to MAX_RUN_SIZE bytes per write
+         int runStart = 0;
+         long runSize = allocated.get(0).size;
+         for (int i = 1; i <= batch.size(); i++) {
+            if (i < batch.size()) {
+               FileEntry previous = allocated.get(i - 1);
+               FileEntry next = allocated.get(i);
+               if (next.offset == previous.offset + previous.size && runSize + next.size <= MAX_RUN_SIZE) {
+                  runSize += next.size;
+                  continue;
+               }
+               runSize = next.size;
+            }
+            writeRun(batch, allocated, runStart, i);
+            runStart = i;
+         }
+
+         while (indexed < batch.size()) {
+            indexExpiry(batch.get(indexed).getKey(), allocated.get(indexed));
+            FileEntry fe = entries.put(batch.get(indexed).getKey(), allocated.get(indexed));
+            indexed++;
+            if (fe == null)
+               fe = evict();
+            free(fe);
+         }
+      } catch (Exception e) {
+         // give back the space of the entries which did not make it into the index
+         for (int i = indexed; i < allocated.size(); i++) {
+            try {
+               free(allocated.get(i));
+            } catch (IOException ignored) {
+            }
+         }
+         throw new PersistenceException(e);
+      }
+   }
+
+   private void writeRun(List<MarshalledEntry> batch, List<FileEntry> allocated, int from, int to) throws Exception {
+      if (to - from == 1) {
+         file.write(serialize(batch.get(from), allocated.get(from)), allocated.get(from).offset);
+         return;
+      }
+      // the run is at most MAX_RUN_SIZE bytes long, so its length fits in an int
+      FileEntry last = allocated.get(to - 1);
+      long start = allocated.get(from).offset;
+      ByteBuffer buf = ByteBuffer.allocate((int) (last.offset + last.size - start));
+      for (int i = from; i < to; i++) {
+         buf.position((int) (allocated.get(i).offset - start));
+         buf.put(serialize(batch.get(i), allocated.get(i)));
+      }
+      buf.flip();
+      file.write(buf, start);
+   }
+
+   private static int entrySize(MarshalledEntry marshalledEntry) {
+      org.infinispan.commons.io.ByteBuffer metadata = marshalledEntry.getMetadataBytes();
+      int metadataLength = metadata == null ? 0 : metadata.getLength();
+      return KEY_POS + marshalledEntry.getKeyBytes().getLength() + marshalledEntry.getValueBytes().getLength() + metadataLength;
+   }
+
+   /**
+    * Fills in the fields of the file entry allocated for the marshalled entry and serializes both into a buffer
+    * ready to be written at {@link FileEntry#offset}.
+    */
+   private ByteBuffer serialize(MarshalledEntry marshalledEntry, FileEntry fe) {
+      // serialize cache value
+      org.infinispan.commons.io.ByteBuffer key = marshalledEntry.getKeyBytes();
+      org.infinispan.commons.io.ByteBuffer data = marshalledEntry.getValueBytes();
+      org.infinispan.commons.io.ByteBuffer metadata = marshalledEntry.getMetadataBytes();
+
+      fe.expiryTime = metadata != null ? marshalledEntry.getMetadata().expiryTime() : -1;
+      fe.keyLen = key.getLength();
+      fe.dataLen = data.getLength();
+      fe.metadataLen = metadata == null ? 0 : metadata.getLength();
+
+      ByteBuffer buf = ByteBuffer.allocate(KEY_POS + fe.keyLen + fe.dataLen + fe.metadataLen);
+      buf.putInt(fe.size);
+      buf.putInt(fe.keyLen);
+      buf.putInt(fe.dataLen);
+      buf.putInt(fe.metadataLen);
+      buf.putLong(fe.expiryTime);
+      buf.put(key.getBuf(), key.getOffset(), key.getLength());
+      buf.put(data.getBuf(), data.getOffset(), data.getLength());
+      if (metadata != null)
+         buf.put(metadata.getBuf(), metadata.getOffset(), metadata.getLength());
+      buf.flip();
+      return buf;
+   }
+
    /**
     * Try to evict an entry if the capacity of the cache store is reached.
     *
@@ -324,14 +480,17 @@ public void clear()   {
          synchronized (entries) {
             synchronized (freeList) {
                // wait until all readers are done reading file entries
-               for (FileEntry fe : entries.values())
+               for (FileEntry fe : entries.values()) {
+                  fe.freed = true;
                   fe.waitUnlocked();
+               }
                for (FileEntry fe : freeList)
                   fe.waitUnlocked();
 
                // clear in-memory state
                entries.clear();
                freeList.clear();
+               expiringEntries.clear();
 
                // reset file
                file.truncate(0);
@@ -356,6 +515,13 @@ public boolean delete(Object key)   {
       }
    }
 
+   /** {@inheritDoc} */
+   @Override
+   public void deleteBatch(Iterable keys) {
+      for (Object key : keys)
+         delete(key);
+   }
+
    /** {@inheritDoc} */
    @Override
    public MarshalledEntry load(Object key) {
@@ -363,28 +529,27 @@ public MarshalledEntry load(Object key) {
    }
 
    private MarshalledEntry _load(Object key, boolean loadValue, boolean loadMetadata) {
-      final FileEntry fe;
-      final boolean expired;
-      synchronized (entries) {
+      FileEntry fe;
+      for (;;) {
          // lookup FileEntry of the key
          fe = entries.get(key);
          if (fe == null)
             return null;
 
-         // if expired, remove the entry (within entries monitor)
-         expired = fe.isExpired(System.currentTimeMillis());
-         if (expired)
-            entries.remove(key);
-
-         // lock entry for reading before releasing entries monitor
+         // pin the entry for reading, then make sure it hasn't been freed (and possibly
+         // reused) in the meantime; if it has, the key was concurrently updated or removed
          fe.lock();
+         if (!fe.freed)
+            break;
+         fe.unlock();
       }
 
       final byte[] data;
       try {
-         // if expired, free the file entry (after releasing entries monitor)
-         if (expired) {
-            free(fe);
+         // if expired, remove and free the file entry, unless another thread did it already
+         if (fe.isExpired(System.currentTimeMillis())) {
+            if (removeEntry(key, fe))
+               free(fe);
             return null;
          }
 
@@ -415,11 +580,18 @@ private MarshalledEntry _load(Object key, boolean loadValue, boolean loadMetadat
    public void process(KeyFilter filter, final CacheLoaderTask task, Executor executor, final boolean fetchValue, final boolean fetchMetadata) {
       filter = PersistenceUtil.notNull(filter);
       Set<Object> keysToLoad = new HashSet<Object>(entries.size());
-      synchronized (entries) {
+      if (entries instanceof ConcurrentMap) {
          for (Object k : entries.keySet()) {
             if (filter.shouldLoadKey(k))
                keysToLoad.add(k);
          }
+      } else {
+         synchronized (entries) {
+            for (Object k : entries.keySet()) {
+               if (filter.shouldLoadKey(k))
+                  keysToLoad.add(k);
+            }
+         }
       }
 
       ExecutorAllCompletionService eacs = new ExecutorAllCompletionService(executor);
@@ -452,33 +624,39 @@ public Void call() throws Exception {
       }
    }
 
+   /**
+    * {@inheritDoc}
+    * <p/>
+    * Only the expired entries are visited, in expiry order, through the expiry index. No lock is held on the in-memory
+    * index, so writers can proceed concurrently: an entry which is updated while being purged is left alone.
+    */
    @Override
-   /** {@inheritDoc} */
    public void purge(Executor threadPool, final PurgeListener task) {
 
       threadPool.execute(new Runnable() {
          @Override
          public void run() {
             long now = System.currentTimeMillis();
-            synchronized (entries) {
-               for (Iterator<Map.Entry<Object, FileEntry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
-                  Map.Entry<Object, FileEntry> next = it.next();
-                  FileEntry fe = next.getValue();
-                  if (fe.isExpired(now)) {
-                     it.remove();
-                     try {
-                        free(fe);
-                     } catch (Exception e) {
-                        throw new PersistenceException(e);
-                     }
-                     if (task != null) task.entryPurged(next.getKey());
-                  }
-               }
+            for (Map.Entry<FileEntry, Object> next : expiringEntries.entrySet()) {
+               FileEntry fe = next.getKey();
+               if (!fe.isExpired(now))
+                  break;
+               if (removeEntry(next.getValue(), fe))
+                  purged(next.getValue(), fe, task);
             }
          }
       });
    }
 
+   private void purged(Object key, FileEntry fe, PurgeListener task) {
+      try {
+         free(fe);
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+      if (task != null) task.entryPurged(key);
+   }
+
    @Override
    public int size() {
       return entries.size();
@@ -492,6 +670,10 @@ SortedSet<FileEntry> getFreeList() {
       return freeList;
    }
 
+   Map<FileEntry, Object> getExpiringEntries() {
+      return expiringEntries;
+   }
+
    public SingleFileStoreConfiguration getConfiguration() {
       return configuration;
    }
@@ -512,6 +694,9 @@ public SingleFileStoreConfiguration getConfiguration() {
     * </ul>
     */
    private static class FileEntry implements Comparable<Object> {
+      private static final AtomicIntegerFieldUpdater<FileEntry> READERS_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(FileEntry.class, "readers");
+
       /**
        * File offset of this block.
        */
@@ -545,25 +730,33 @@ private static class FileEntry implements Comparable<Object> {
       /**
        * Number of current readers.
        */
-      private transient int readers = 0;
+      private transient volatile int readers = 0;
+
+      /**
+       * Set once the entry has been removed from the index; its space may be reused afterwards.
+       */
+      private transient volatile boolean freed;
 
       private FileEntry(long offset, int size) {
          this.offset = offset;
          this.size = size;
       }
 
-      private synchronized boolean isLocked() {
+      private boolean isLocked() {
          return readers > 0;
       }
 
-      private synchronized void lock() {
-         readers++;
+      private void lock() {
+         READERS_UPDATER.incrementAndGet(this);
       }
 
-      private synchronized void unlock() {
-         readers--;
-         if (readers == 0)
-            notifyAll();
+      private void unlock() {
+         // only clear() waits for readers, and it marks the entry as freed before doing so
+         if (READERS_UPDATER.decrementAndGet(this) == 0 && freed) {
+            synchronized (this) {
+               notifyAll();
+            }
+         }
       }
 
       private synchronized void waitUnlocked() {
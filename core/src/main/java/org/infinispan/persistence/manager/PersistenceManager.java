@@ -51,6 +51,18 @@ public interface PersistenceManager extends Lifecycle {
 
    void writeToAllStores(MarshalledEntry marshalledEntry, boolean skipSharedStores);
 
+   /**
+    * Writes all the entries to every store, as a single batch to the {@link org.infinispan.persistence.spi.BatchingCacheWriter}s
+    * and one entry at a time to the other stores.
+    */
+   void writeBatchToAllStores(Iterable<MarshalledEntry> marshalledEntries, boolean skipSharedStores);
+
+   /**
+    * Deletes all the keys from every store, as a single batch from the {@link org.infinispan.persistence.spi.BatchingCacheWriter}s
+    * and one key at a time from the other stores.
+    */
+   void deleteBatchFromAllStores(Iterable<Object> keys, boolean skipSharedStores);
+
    /**
     * Returns the store one configured with fetch persistent state, or null if none exist.
     */
@@ -20,6 +20,13 @@
 import org.infinispan.interceptors.CacheWriterInterceptor;
 import org.infinispan.interceptors.InterceptorChain;
 import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.jmx.annotations.DataType;
+import org.infinispan.jmx.annotations.DisplayType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Units;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.marshall.core.MarshalledEntryFactory;
 import org.infinispan.metadata.InternalMetadataImpl;
@@ -27,6 +34,7 @@
 import org.infinispan.notifications.cachelistener.CacheNotifier;
 import org.infinispan.persistence.spi.PersistenceException;
 import org.infinispan.persistence.InitializationContextImpl;
+import org.infinispan.persistence.PersistenceUtil;
 import org.infinispan.persistence.async.AdvancedAsyncCacheLoader;
 import org.infinispan.persistence.async.AdvancedAsyncCacheWriter;
 import org.infinispan.persistence.async.AsyncCacheLoader;
@@ -61,6 +69,7 @@
 import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
 import static org.infinispan.factories.KnownComponentNames.PERSISTENCE_EXECUTOR;
 
+@MBean(objectName = "PersistenceManager", description = "Component that manages the cache loaders and writers of a cache")
 public class PersistenceManagerImpl implements PersistenceManager {
 
    private static final Log log = LogFactory.getLog(PersistenceManagerImpl.class);
@@ -448,6 +457,101 @@ public void writeToAllStores(MarshalledEntry marshalledEntry, boolean skipShared
       }
    }
 
+   @Override
+   public void writeBatchToAllStores(Iterable<MarshalledEntry> marshalledEntries, boolean skipSharedStores) {
+      storesMutex.readLock().lock();
+      try {
+         for (CacheWriter w : writers) {
+            if (skipSharedStores && configMap.get(w).shared())
+               continue;
+            PersistenceUtil.writeBatch(w, marshalledEntries);
+         }
+      } finally {
+         storesMutex.readLock().unlock();
+      }
+   }
+
+   @Override
+   public void deleteBatchFromAllStores(Iterable<Object> keys, boolean skipSharedStores) {
+      storesMutex.readLock().lock();
+      try {
+         for (CacheWriter w : writers) {
+            if (skipSharedStores && configMap.get(w).shared())
+               continue;
+            PersistenceUtil.deleteBatch(w, keys);
+         }
+      } finally {
+         storesMutex.readLock().unlock();
+      }
+   }
+
+   @ManagedAttribute(
+         description = "Number of modifications waiting to be applied by the asynchronous (write-behind) stores",
+         displayName = "Async store queue depth",
+         measurementType = MeasurementType.DYNAMIC,
+         dataType = DataType.MEASUREMENT
+   )
+   public int getAsyncQueueDepth() {
+      int depth = 0;
+      for (AsyncCacheWriter w : getAsyncWriters())
+         depth += w.getQueueDepth();
+      return depth;
+   }
+
+   @ManagedAttribute(
+         description = "Average number of milliseconds taken by the asynchronous (write-behind) stores to apply a batch of modifications",
+         displayName = "Async store average flush time",
+         units = Units.MILLISECONDS,
+         displayType = DisplayType.SUMMARY
+   )
+   public long getAsyncAverageFlushTime() {
+      List<AsyncCacheWriter> asyncWriters = getAsyncWriters();
+      if (asyncWriters.isEmpty())
+         return 0;
+      long total = 0;
+      for (AsyncCacheWriter w : asyncWriters)
+         total += w.getAverageFlushTime();
+      return total / asyncWriters.size();
+   }
+
+   @ManagedAttribute(
+         description = "Number of modifications received by the asynchronous (write-behind) stores for each modification they applied",
+         displayName = "Async store coalesce ratio",
+         displayType = DisplayType.SUMMARY
+   )
+   public double getAsyncCoalesceRatio() {
+      List<AsyncCacheWriter> asyncWriters = getAsyncWriters();
+      if (asyncWriters.isEmpty())
+         return 0;
+      double total = 0;
+      for (AsyncCacheWriter w : asyncWriters)
+         total += w.getCoalesceRatio();
+      return total / asyncWriters.size();
+   }
+
+   @ManagedOperation(
+         description = "Resets the statistics of the asynchronous (write-behind) stores",
+         displayName = "Reset async store statistics"
+   )
+   public void resetAsyncStatistics() {
+      for (AsyncCacheWriter w : getAsyncWriters())
+         w.resetStatistics();
+   }
+
+   private List<AsyncCacheWriter> getAsyncWriters() {
+      storesMutex.readLock().lock();
+      try {
+         List<AsyncCacheWriter> result = new ArrayList<AsyncCacheWriter>();
+         for (CacheWriter w : writers) {
+            if (w instanceof AsyncCacheWriter)
+               result.add((AsyncCacheWriter) w);
+         }
+         return result;
+      } finally {
+         storesMutex.readLock().unlock();
+      }
+   }
+
    @Override
    public AdvancedCacheLoader getStateTransferProvider() {
       storesMutex.readLock().lock();
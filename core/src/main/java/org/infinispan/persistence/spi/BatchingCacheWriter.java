@@ -0,0 +1,32 @@
+package org.infinispan.persistence.spi;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.marshall.core.MarshalledEntry;
+
+/**
+ * Optional interface for the {@link CacheWriter}s which can write or remove several entries in a single interaction
+ * with the external storage. Writers which don't implement it receive one {@link #write(MarshalledEntry)} or
+ * {@link #delete(Object)} call per entry instead.
+ *
+ * @since 6.0
+ */
+@ThreadSafe
+public interface BatchingCacheWriter<K, V> extends CacheWriter<K, V> {
+
+   /**
+    * Persists all the given entries. The outcome is the same as invoking {@link #write(MarshalledEntry)} for each of
+    * them, but implementations are expected to group the writes into as few interactions with the external storage
+    * as possible (e.g. a single JDBC batch or a single file write).
+    *
+    * @throws PersistenceException in case of an error, e.g. communicating with the external storage
+    */
+   void writeBatch(Iterable<MarshalledEntry<K, V>> entries);
+
+   /**
+    * Removes all the given keys from the storage. The outcome is the same as invoking {@link #delete(Object)} for
+    * each of them, but implementations are expected to group the deletes as {@link #writeBatch(Iterable)} does.
+    *
+    * @throws PersistenceException in case of an error, e.g. communicating with the external storage
+    */
+   void deleteBatch(Iterable<Object> keys);
+}
@@ -110,10 +110,14 @@ private boolean isExpired(long currentTimeMillis, MarshalledEntry me) {
       return me != null && me.getMetadata() != null && me.getMetadata().isExpired(currentTimeMillis);
    }
 
+   /**
+    * @return the earliest expiry time of the entries of this bucket, or {@link Long#MAX_VALUE} if none of them expires
+    */
    public long timestampOfFirstEntryToExpire() {
       long result = Long.MAX_VALUE;
       for (MarshalledEntry se : entries.values()) {
-         if (se.getMetadata() != null && se.getMetadata().expiryTime() < result) {
+         // immortal entries have a negative expiry time, they must not make the bucket look expired
+         if (se.getMetadata() != null && se.getMetadata().expiryTime() > 0 && se.getMetadata().expiryTime() < result) {
             result = se.getMetadata().expiryTime();
          }
       }
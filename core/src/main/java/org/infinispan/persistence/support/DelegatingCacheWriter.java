@@ -1,14 +1,19 @@
 package org.infinispan.persistence.support;
 
+import org.infinispan.persistence.PersistenceUtil;
+import org.infinispan.persistence.spi.BatchingCacheWriter;
 import org.infinispan.persistence.spi.CacheWriter;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.marshall.core.MarshalledEntry;
 
 /**
+ * The batches are passed on to the delegate, which receives them one entry at a time if it is not a
+ * {@link BatchingCacheWriter} itself.
+ *
  * @author Mircea Markus
  * @since 6.0
  */
-public abstract class DelegatingCacheWriter implements CacheWriter {
+public abstract class DelegatingCacheWriter implements BatchingCacheWriter {
 
    protected final CacheWriter actual;
    protected InitializationContext ctx;
@@ -48,6 +53,16 @@ public boolean delete(Object key) {
       return actual.delete(key);
    }
 
+   @Override
+   public void writeBatch(Iterable entries) {
+      PersistenceUtil.writeBatch(actual, (Iterable<MarshalledEntry>) entries);
+   }
+
+   @Override
+   public void deleteBatch(Iterable keys) {
+      PersistenceUtil.deleteBatch(actual, (Iterable<Object>) keys);
+   }
+
    public CacheWriter undelegate() {
       CacheWriter cl = this;
       do {
@@ -162,7 +162,12 @@ public void run() {
          final int commandTopologyId = extractCommandTopologyId(cmd);
 
          if (!preserveOrder && cmd.canBlock()) {
-            remoteCommandsExecutor.execute(new BlockingRunnable() {
+            remoteCommandsExecutor.execute(new RemoteCommandRunnable() {
+               @Override
+               public CacheRpcCommand getCommand() {
+                  return cmd;
+               }
+
                @Override
                public boolean isReady() {
                   return stateTransferLock.transactionDataReceived(commandTopologyId);
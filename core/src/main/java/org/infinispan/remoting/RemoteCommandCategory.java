@@ -0,0 +1,64 @@
+package org.infinispan.remoting;
+
+import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.commands.control.LockControlCommand;
+import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.remote.CacheRpcCommand;
+import org.infinispan.commands.remote.ClusteredGetCommand;
+import org.infinispan.commands.remote.MultipleRpcCommand;
+import org.infinispan.commands.remote.SingleRpcCommand;
+import org.infinispan.commands.remote.recovery.TxCompletionNotificationCommand;
+import org.infinispan.commands.tx.TransactionBoundaryCommand;
+import org.infinispan.commands.write.WriteCommand;
+import org.infinispan.statetransfer.StateRequestCommand;
+import org.infinispan.statetransfer.StateResponseCommand;
+
+/**
+ * The classes of remote commands that can be given their own thread pool by the remote commands executor, so that
+ * a burst of commands of one class cannot starve the others.
+ *
+ * @since 6.0
+ */
+public enum RemoteCommandCategory {
+   /**
+    * Remote gets.
+    */
+   READ,
+   /**
+    * Non transactional writes, replicated or distributed.
+    */
+   WRITE,
+   /**
+    * Prepares, commits, rollbacks, lock acquisitions and transaction completion notifications.
+    */
+   TRANSACTION,
+   /**
+    * State requests and the state pushed in response to them.
+    */
+   STATE_TRANSFER,
+   /**
+    * Everything else, e.g. map/reduce and distributed executor tasks.
+    */
+   OTHER;
+
+   public static RemoteCommandCategory of(CacheRpcCommand command) {
+      if (command instanceof ClusteredGetCommand) {
+         return READ;
+      } else if (command instanceof TransactionBoundaryCommand || command instanceof LockControlCommand
+            || command instanceof TxCompletionNotificationCommand) {
+         return TRANSACTION;
+      } else if (command instanceof StateRequestCommand || command instanceof StateResponseCommand) {
+         return STATE_TRANSFER;
+      } else if (command instanceof MultipleRpcCommand) {
+         return WRITE;
+      } else if (command instanceof SingleRpcCommand) {
+         ReplicableCommand innerCommand = ((SingleRpcCommand) command).getCommand();
+         if (innerCommand instanceof WriteCommand) {
+            return WRITE;
+         } else if (innerCommand instanceof GetKeyValueCommand) {
+            return READ;
+         }
+      }
+      return OTHER;
+   }
+}
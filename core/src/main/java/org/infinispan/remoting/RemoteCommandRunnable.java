@@ -0,0 +1,19 @@
+package org.infinispan.remoting;
+
+import org.infinispan.commands.remote.CacheRpcCommand;
+import org.infinispan.util.concurrent.BlockingRunnable;
+
+/**
+ * A {@link BlockingRunnable} handling a remote command, which lets the remote commands executor pick the pool the
+ * command should run in.
+ *
+ * @since 6.0
+ */
+public interface RemoteCommandRunnable extends BlockingRunnable {
+
+   /**
+    * @return the command this runnable handles
+    */
+   CacheRpcCommand getCommand();
+
+}
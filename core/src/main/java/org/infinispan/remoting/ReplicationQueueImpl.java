@@ -4,6 +4,7 @@
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.ReplicableCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
+import org.infinispan.commons.marshall.StreamingMarshaller;
 import org.infinispan.configuration.cache.AsyncConfiguration;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.factories.KnownComponentNames;
@@ -11,8 +12,17 @@
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
+import org.infinispan.jmx.annotations.DisplayType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Units;
 import org.infinispan.remoting.rpc.ResponseMode;
 import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.util.DefaultTimeService;
+import org.infinispan.util.Histogram;
+import org.infinispan.util.TimeService;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -20,16 +30,27 @@
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A default implementation of the ReplicationQueue interface.
+ * <p/>
+ * By default the queue is flushed periodically, or by the thread adding a command once the queue holds
+ * {@link AsyncConfiguration#replQueueMaxElements()} commands or {@link AsyncConfiguration#replQueueMaxBytes()} bytes.
+ * In {@link AsyncConfiguration#replQueueAdaptive() adaptive} mode all the flushes happen on the replication queue
+ * executor: a flush is scheduled as soon as a command is added, after a delay tracking the average time taken by a
+ * flush. At low load commands are sent almost immediately, while at high load the commands added while a batch is
+ * being sent make up the next batch.
  *
  * @author Manik Surtani
  * @version 4.2
  */
+@MBean(objectName = "ReplicationQueue", description = "Batches asynchronous replication commands")
 public class ReplicationQueueImpl implements ReplicationQueue {
    private static final Log log = LogFactory.getLog(ReplicationQueue.class);
 
@@ -38,6 +59,16 @@ public class ReplicationQueueImpl implements ReplicationQueue {
     */
    private long maxElements = 500;
 
+   /**
+    * Max estimated bytes before we flush, disabled if <= 0
+    */
+   private long maxBytes = -1;
+
+   /**
+    * Estimated size of the commands added since the last flush
+    */
+   private final AtomicLong queuedBytes = new AtomicLong();
+
    /**
     * Holds the replication jobs.
     */
@@ -46,7 +77,7 @@ public class ReplicationQueueImpl implements ReplicationQueue {
    /**
     * For periodical replication
     */
-   private ScheduledExecutorService scheduledExecutor = null;
+   private volatile ScheduledExecutorService scheduledExecutor = null;
    private RpcManager rpcManager;
    private Configuration configuration;
    private boolean enabled;
@@ -54,6 +85,18 @@ public class ReplicationQueueImpl implements ReplicationQueue {
    private volatile ScheduledFuture<?> scheduledFuture;
    private boolean trace;
    private String cacheName;
+   private StreamingMarshaller marshaller;
+   private TimeService timeService = new DefaultTimeService();
+
+   private boolean adaptive;
+   private long maxFlushDelayNanos;
+   private volatile long flushDelayNanos;
+   private final AtomicBoolean flushScheduled = new AtomicBoolean();
+   private final AtomicBoolean immediateFlushScheduled = new AtomicBoolean();
+
+   private final Histogram batchSizes = new Histogram();
+   private final Histogram batchBytes = new Histogram();
+   private final Histogram flushTimesMicros = new Histogram();
 
    /**
     * @return true if this replication queue is enabled, false otherwise.
@@ -79,6 +122,13 @@ public void injectDependencies(ScheduledExecutorService executor,
       this.cacheName = cacheName;
    }
 
+   @Inject
+   public void injectMarshaller(@ComponentName(KnownComponentNames.CACHE_MARSHALLER) StreamingMarshaller marshaller,
+                                TimeService timeService) {
+      this.marshaller = marshaller;
+      this.timeService = timeService;
+   }
+
    /**
     * Starts the asynchronous flush queue.
     */
@@ -92,9 +142,13 @@ public void start() {
          log.tracef("Starting replication queue, with interval %d and maxElements %s", interval, maxElements);
 
       this.maxElements = asyncCfg.replQueueMaxElements();
+      this.maxBytes = asyncCfg.replQueueMaxBytes();
+      this.adaptive = asyncCfg.replQueueAdaptive();
+      this.maxFlushDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(interval, 0));
+      this.flushDelayNanos = 0;
       // check again
       enabled = asyncCfg.useReplQueue();
-      if (enabled && interval > 0) {
+      if (enabled && interval > 0 && !adaptive) {
          scheduledFuture = scheduledExecutor.scheduleWithFixedDelay(new Runnable() {
             @Override
             public void run() {
@@ -131,19 +185,62 @@ public void add(ReplicableCommand job) {
          throw new NullPointerException("job is null");
       try {
          elements.put(job);
-         if (elements.size() >= maxElements) flush();
+         boolean full = elements.size() >= maxElements;
+         if (maxBytes > 0 && queuedBytes.addAndGet(estimateSize(job)) >= maxBytes)
+            full = true;
+         if (adaptive) {
+            if (full)
+               scheduleFlush(immediateFlushScheduled, 0);
+            else
+               scheduleFlush(flushScheduled, flushDelayNanos);
+         } else if (full) {
+            flush();
+         }
       } catch (InterruptedException ie) {
          Thread.interrupted();
       }
    }
 
+   private void scheduleFlush(final AtomicBoolean scheduled, long delayNanos) {
+      if (!scheduled.compareAndSet(false, true))
+         return;
+      Runnable task = new Runnable() {
+         @Override
+         public void run() {
+            // Commands added from now on need another flush
+            scheduled.set(false);
+            LogFactory.pushNDC(cacheName, trace);
+            try {
+               flush();
+            } finally {
+               LogFactory.popNDC(trace);
+            }
+         }
+      };
+      ScheduledExecutorService executor = scheduledExecutor;
+      try {
+         if (executor == null)
+            throw new RejectedExecutionException("Replication queue stopped");
+         executor.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+      } catch (RejectedExecutionException e) {
+         if (trace) log.tracef("Unable to schedule the flush, flushing on the caller thread");
+         task.run();
+      }
+   }
+
+   private long estimateSize(ReplicableCommand command) {
+      return marshaller == null ? 0 : marshaller.getBufferSizePredictor(command).nextSize(command);
+   }
+
    @Override
    public synchronized int flush() {
+      queuedBytes.set(0);
       List<ReplicableCommand> toReplicate = drainReplQueue();
       if (trace) log.tracef("flush(): flushing repl queue (num elements=%s)", toReplicate.size());
 
       int toReplicateSize = toReplicate.size();
       if (toReplicateSize > 0) {
+         long startNanos = timeService.time();
          try {
             log.tracef("Flushing %s elements", toReplicateSize);
             MultipleRpcCommand multipleRpcCommand = commandsFactory.buildReplicateCommand(toReplicate);
@@ -154,12 +251,30 @@ public synchronized int flush() {
                                             .skipReplicationQueue(true).build());
          } catch (Throwable t) {
             log.failedReplicatingQueue(toReplicate.size(), t);
+         } finally {
+            recordFlush(toReplicate, timeService.timeDuration(startNanos, TimeUnit.NANOSECONDS));
          }
       }
 
       return toReplicateSize;
    }
 
+   private void recordFlush(List<ReplicableCommand> flushed, long durationNanos) {
+      batchSizes.record(flushed.size());
+      if (marshaller != null) {
+         long bytes = 0;
+         for (ReplicableCommand command : flushed)
+            bytes += estimateSize(command);
+         batchBytes.record(bytes);
+      }
+      flushTimesMicros.record(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+      if (adaptive) {
+         // Moving average, the way TCP smooths its round trip time estimate
+         long delay = flushDelayNanos - (flushDelayNanos >> 3) + (durationNanos >> 3);
+         flushDelayNanos = Math.min(delay, maxFlushDelayNanos);
+      }
+   }
+
    protected List<ReplicableCommand> drainReplQueue() {
       List<ReplicableCommand> toReplicate = new LinkedList<ReplicableCommand>();
       elements.drainTo(toReplicate);
@@ -171,6 +286,7 @@ protected Configuration getConfiguration() {
    }
 
    @Override
+   @ManagedAttribute(description = "Number of commands waiting to be replicated", displayName = "Queued commands", displayType = DisplayType.SUMMARY)
    public int getElementsCount() {
       return elements.size();
    }
@@ -178,5 +294,68 @@ public int getElementsCount() {
    @Override
    public void reset() {
       elements.clear();
+      queuedBytes.set(0);
+   }
+
+   @ManagedAttribute(description = "Number of batches sent", displayName = "Number of flushes", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getFlushCount() {
+      return batchSizes.getCount();
+   }
+
+   @ManagedAttribute(description = "Average number of commands sent in a batch", displayName = "Average batch size", displayType = DisplayType.SUMMARY)
+   public double getAverageBatchSize() {
+      return batchSizes.getMean();
+   }
+
+   @ManagedAttribute(description = "Median number of commands sent in a batch", displayName = "Median batch size", displayType = DisplayType.SUMMARY)
+   public long getBatchSizeMedian() {
+      return batchSizes.getValueAtPercentile(50);
+   }
+
+   @ManagedAttribute(description = "99th percentile of the number of commands sent in a batch", displayName = "99th percentile batch size", displayType = DisplayType.SUMMARY)
+   public long getBatchSize99thPercentile() {
+      return batchSizes.getValueAtPercentile(99);
+   }
+
+   @ManagedAttribute(description = "Average estimated marshalled size of a batch, in bytes", displayName = "Average batch bytes", displayType = DisplayType.SUMMARY)
+   public double getAverageBatchBytes() {
+      return batchBytes.getMean();
+   }
+
+   @ManagedAttribute(description = "99th percentile of the estimated marshalled size of a batch, in bytes", displayName = "99th percentile batch bytes", displayType = DisplayType.SUMMARY)
+   public long getBatchBytes99thPercentile() {
+      return batchBytes.getValueAtPercentile(99);
+   }
+
+   @ManagedAttribute(description = "Average time taken to send a batch, in microseconds", displayName = "Average flush time", units = Units.MICROSECONDS, displayType = DisplayType.SUMMARY)
+   public double getAverageFlushTime() {
+      return flushTimesMicros.getMean();
+   }
+
+   @ManagedAttribute(description = "Median time taken to send a batch, in microseconds", displayName = "Median flush time", units = Units.MICROSECONDS, displayType = DisplayType.SUMMARY)
+   public long getFlushTimeMedian() {
+      return flushTimesMicros.getValueAtPercentile(50);
+   }
+
+   @ManagedAttribute(description = "99th percentile of the time taken to send a batch, in microseconds", displayName = "99th percentile flush time", units = Units.MICROSECONDS, displayType = DisplayType.SUMMARY)
+   public long getFlushTime99thPercentile() {
+      return flushTimesMicros.getValueAtPercentile(99);
+   }
+
+   @ManagedAttribute(description = "Maximum time taken to send a batch, in microseconds", displayName = "Maximum flush time", units = Units.MICROSECONDS, displayType = DisplayType.SUMMARY)
+   public long getMaxFlushTime() {
+      return flushTimesMicros.getMax();
+   }
+
+   @ManagedAttribute(description = "Current delay between adding a command and flushing the queue in adaptive mode, in microseconds", displayName = "Adaptive flush delay", units = Units.MICROSECONDS, displayType = DisplayType.SUMMARY)
+   public long getFlushDelay() {
+      return TimeUnit.NANOSECONDS.toMicros(flushDelayNanos);
+   }
+
+   @ManagedOperation(description = "Resets statistics gathered by this component", displayName = "Reset statistics")
+   public void resetStatistics() {
+      batchSizes.reset();
+      batchBytes.reset();
+      flushTimesMicros.reset();
    }
 }
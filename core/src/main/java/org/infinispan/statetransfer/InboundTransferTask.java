@@ -205,6 +205,18 @@ public void onStateReceived(int segmentId, boolean isLastChunk) {
       }
    }
 
+   /**
+    * The source failed to send all the state of a segment. The task is terminated, so that its unfinished segments are
+    * requested again from another source.
+    */
+   public void onStateFailed(int segmentId) {
+      if (!isCancelled && segments.contains(segmentId) && !finishedSegments.contains(segmentId)) {
+         log.debugf("Node %s failed to send segment %d of cache %s, requesting the segments %s again", source,
+                    segmentId, cacheName, getUnfinishedSegments());
+         terminate();
+      }
+   }
+
    private void notifyCompletion() {
       isCompletedSuccessfully = true;
       stateConsumer.onTaskCompletion(this);
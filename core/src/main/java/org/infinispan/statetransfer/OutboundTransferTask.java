@@ -2,12 +2,14 @@
 
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commons.CacheException;
+import org.infinispan.commons.marshall.StreamingMarshaller;
 import org.infinispan.commons.util.CollectionFactory;
 import org.infinispan.commons.util.InfinispanCollections;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.InternalEntryFactory;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.marshall.core.MarshalledValue;
 import org.infinispan.persistence.CollectionKeyFilter;
 import org.infinispan.persistence.manager.PersistenceManager;
 import org.infinispan.persistence.spi.AdvancedCacheLoader;
@@ -18,20 +20,33 @@
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.remoting.transport.jgroups.SuspectException;
 import org.infinispan.util.ReadOnlyDataContainerBackedKeySet;
+import org.infinispan.util.TimeService;
+import org.infinispan.util.concurrent.TimeoutException;
 import org.infinispan.util.concurrent.WithinThreadExecutor;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Outbound state transfer task. Pushes data segments to another cluster member on request. Instances of
  * OutboundTransferTask are created and managed by StateTransferManagerImpl. There should be at most
  * one such task per destination at any time.
+ * <p/>
+ * Cache entries are sent in chunks limited both by number of entries and, optionally, by the estimated size of their
+ * marshalled keys and values. Up to {@code maxInFlightChunks} chunks can be sent before the destination confirms it
+ * has applied them, each confirmation giving back the credit for sending another chunk. The last chunk of every
+ * segment is only sent after all the others were applied.
+ * <p/>
+ * If a chunk cannot be sent, or the destination doesn't apply the chunks in flight within the state transfer timeout,
+ * the transfer fails: the destination is told so, and requests the segments again.
  *
  * @author anistor@redhat.com
  * @since 5.2
@@ -42,6 +57,11 @@ public class OutboundTransferTask implements Runnable {
 
    private final boolean trace = log.isTraceEnabled();
 
+   /**
+    * For types whose size cannot be computed cheaply, one key or value in this many is marshalled to sample its size.
+    */
+   private static final int SIZE_SAMPLE_INTERVAL = 16;
+
    private final StateProviderImpl stateProvider;
 
    private final int topologyId;
@@ -52,6 +72,16 @@ public class OutboundTransferTask implements Runnable {
 
    private final int stateTransferChunkSize;
 
+   private final long stateTransferChunkBytes;
+
+   private final int maxInFlightChunks;
+
+   /**
+    * Credits for sending chunks asynchronously, one is released every time the destination confirms it has applied
+    * a chunk.
+    */
+   private final Semaphore credits;
+
    private final ConsistentHash readCh;
 
    private final DataContainer dataContainer;
@@ -73,19 +103,50 @@ public class OutboundTransferTask implements Runnable {
     */
    private int accumulatedEntries;
 
+   /**
+    * The estimated marshalled size of the keys and values accumulated in entriesBySegment, only computed if
+    * stateTransferChunkBytes is set.
+    */
+   private long accumulatedBytes;
+
+   private int sizeSamples;
+
+   /**
+    * Set when a chunk could not be sent, in which case the destination doesn't have all the state of the segments.
+    */
+   private volatile boolean failed;
+
+   private long sentEntries;
+
+   private long sentBytes;
+
+   private long startTime;
+
    /**
     * The Future obtained from submitting this task to an executor service. This is used for cancellation.
     */
    private FutureTask<Void> runnableFuture;
 
+   /**
+    * The executor sending chunks asynchronously. Its threads must never wait for credits, or all of them could be
+    * waiting for chunks queued behind them.
+    */
+   private ExecutorService chunkExecutor;
+
    private final RpcOptions rpcOptions;
 
    private InternalEntryFactory entryFactory;
 
+   private final StreamingMarshaller marshaller;
+
+   private final TimeService timeService;
+
    public OutboundTransferTask(Address destination, Set<Integer> segments, int stateTransferChunkSize,
+                               long stateTransferChunkBytes, int maxInFlightChunks,
                                int topologyId, ConsistentHash readCh, StateProviderImpl stateProvider, DataContainer dataContainer,
                                PersistenceManager persistenceManager, RpcManager rpcManager,
-                               CommandsFactory commandsFactory, InternalEntryFactory ef, long timeout, String cacheName) {
+                               CommandsFactory commandsFactory, InternalEntryFactory ef, StreamingMarshaller marshaller,
+                               TimeService timeService, long timeout, String cacheName) {
       if (segments == null || segments.isEmpty()) {
          throw new IllegalArgumentException("Segments must not be null or empty");
       }
@@ -95,10 +156,16 @@ public OutboundTransferTask(Address destination, Set<Integer> segments, int stat
       if (stateTransferChunkSize <= 0) {
          throw new IllegalArgumentException("stateTransferChunkSize must be greater than 0");
       }
+      if (maxInFlightChunks <= 0) {
+         throw new IllegalArgumentException("maxInFlightChunks must be greater than 0");
+      }
       this.stateProvider = stateProvider;
       this.destination = destination;
       this.segments.addAll(segments);
       this.stateTransferChunkSize = stateTransferChunkSize;
+      this.stateTransferChunkBytes = stateTransferChunkBytes;
+      this.maxInFlightChunks = maxInFlightChunks;
+      this.credits = new Semaphore(maxInFlightChunks);
       this.topologyId = topologyId;
       this.readCh = readCh;
       this.dataContainer = dataContainer;
@@ -108,15 +175,22 @@ public OutboundTransferTask(Address destination, Set<Integer> segments, int stat
       this.commandsFactory = commandsFactory;
       this.timeout = timeout;
       this.cacheName = cacheName;
+      this.marshaller = marshaller;
+      this.timeService = timeService;
       //the rpc options does not change in runtime. re-use the same instance
       this.rpcOptions = rpcManager.getRpcOptionsBuilder(ResponseMode.SYNCHRONOUS)
             .timeout(timeout, TimeUnit.MILLISECONDS).build();
    }
 
-   public void execute(ExecutorService executorService) {
+   /**
+    * @param executorService the executor running this task
+    * @param chunkExecutor   the executor sending chunks asynchronously, distinct from {@code executorService}
+    */
+   public void execute(ExecutorService executorService, ExecutorService chunkExecutor) {
       if (runnableFuture != null) {
          throw new IllegalStateException("This task was already submitted");
       }
+      this.chunkExecutor = chunkExecutor;
       runnableFuture = new FutureTask<Void>(this, null) {
          @Override
          protected void done() {
@@ -134,8 +208,37 @@ public Set<Integer> getSegments() {
       return segments;
    }
 
+   /**
+    * The number of cache entries sent so far.
+    */
+   public long getSentEntries() {
+      return sentEntries;
+   }
+
+   /**
+    * The estimated marshalled size of the keys and values sent so far, or 0 if the size of the chunks isn't limited.
+    */
+   public long getSentBytes() {
+      return sentBytes;
+   }
+
+   /**
+    * Whether the transfer failed, i.e. the destination did not receive all the state of the segments.
+    */
+   public boolean isFailed() {
+      return failed;
+   }
+
+   /**
+    * The time elapsed since the task started running, in nanoseconds.
+    */
+   public long getElapsedTime() {
+      return startTime == 0 ? 0 : timeService.timeDuration(startTime, TimeUnit.NANOSECONDS);
+   }
+
    //todo [anistor] check thread interrupt status in loops to implement faster cancellation
    public void run() {
+      startTime = timeService.time();
       try {
          // send data container entries
          for (InternalCacheEntry ice : dataContainer) {
@@ -176,18 +279,26 @@ public void processEntry(MarshalledEntry me, AdvancedCacheLoader.TaskContext tas
          // ignore eventual exceptions caused by cancellation (have InterruptedException as the root cause)
          if (!runnableFuture.isCancelled()) {
             log.failedOutBoundTransferExecution(t);
+            failed = true;
          }
       }
+      if (failed && !isCancelled()) {
+         notifyFailure();
+         return;
+      }
       if (trace) {
          log.tracef("Outbound transfer of segments %s of cache %s to node %s is complete", segments, cacheName, destination);
       }
    }
 
-   private void sendEntry(InternalCacheEntry ice, int segmentId) {
+   private void sendEntry(InternalCacheEntry ice, int segmentId) throws InterruptedException {
+      checkNotFailed();
       // send if we have a full chunk
-      if (accumulatedEntries >= stateTransferChunkSize) {
+      if (accumulatedEntries >= stateTransferChunkSize
+            || (stateTransferChunkBytes > 0 && accumulatedBytes >= stateTransferChunkBytes)) {
          sendEntries(false);
          accumulatedEntries = 0;
+         accumulatedBytes = 0;
       }
 
       List<InternalCacheEntry> entries = entriesBySegment.get(segmentId);
@@ -197,9 +308,42 @@ private void sendEntry(InternalCacheEntry ice, int segmentId) {
       }
       entries.add(ice);
       accumulatedEntries++;
+      if (stateTransferChunkBytes > 0) {
+         accumulatedBytes += estimateSize(ice.getKey()) + estimateSize(ice.getValue());
+      }
    }
 
-   private void sendEntries(boolean isLast) {
+   /**
+    * Marshalling every key and value only to find out its size would double the cost of marshalling the chunks. The
+    * size of byte arrays, strings and already marshalled values is known. Other objects are sampled: marshalling them
+    * records their size in the buffer size predictor of their type, which predicts the size of the others.
+    */
+   private long estimateSize(Object o) throws InterruptedException {
+      if (o == null || marshaller == null)
+         return 0;
+      if (o instanceof byte[])
+         return ((byte[]) o).length;
+      if (o instanceof String)
+         return ((String) o).length();
+      if (o instanceof MarshalledValue)
+         return ((MarshalledValue) o).getRaw().size();
+      if (sizeSamples++ % SIZE_SAMPLE_INTERVAL == 0) {
+         try {
+            return marshaller.objectToBuffer(o).getLength();
+         } catch (IOException e) {
+            // the chunk will fail to marshal anyway, so the size doesn't matter much
+         }
+      }
+      return marshaller.getBufferSizePredictor(o).nextSize(o);
+   }
+
+   private void checkNotFailed() {
+      if (failed) {
+         throw new CacheException("Failed to send state of cache " + cacheName + " to node " + destination);
+      }
+   }
+
+   private void sendEntries(boolean isLast) throws InterruptedException {
       List<StateChunk> chunks = new ArrayList<StateChunk>();
       for (Map.Entry<Integer, List<InternalCacheEntry>> e : entriesBySegment.entrySet()) {
          List<InternalCacheEntry> entries = e.getValue();
@@ -227,19 +371,91 @@ private void sendEntries(boolean isLast) {
             }
          }
 
-         StateResponseCommand cmd = commandsFactory.buildStateResponseCommand(rpcManager.getAddress(), topologyId, chunks);
-         // send synchronously, in order. it is important that the last chunk is received last in order to correctly detect completion of the stream of chunks
-         try {
-            rpcManager.invokeRemotely(Collections.singleton(destination), cmd, rpcOptions);
-         } catch (SuspectException e) {
-            log.errorf(e, "Node %s left cache %s: %s", destination, cacheName, e.getMessage());
-            cancel();
-         } catch (Exception e) {
-            log.errorf(e, "Failed to send entries to node %s : %s", destination, e.getMessage());
+         final StateResponseCommand cmd = commandsFactory.buildStateResponseCommand(rpcManager.getAddress(), topologyId, chunks);
+         sentEntries += accumulatedEntries;
+         sentBytes += accumulatedBytes;
+         if (isLast || maxInFlightChunks == 1) {
+            // send synchronously, in order. it is important that the last chunk is received last in order to correctly
+            // detect completion of the stream of chunks, so first wait for the chunks still in flight to be applied
+            acquireCredits(maxInFlightChunks);
+            try {
+               checkNotFailed();
+               sendCommand(cmd);
+            } finally {
+               credits.release(maxInFlightChunks);
+            }
+            checkNotFailed();
+         } else {
+            acquireCredits(1);
+            try {
+               chunkExecutor.submit(new Runnable() {
+                  @Override
+                  public void run() {
+                     try {
+                        sendCommand(cmd);
+                     } finally {
+                        credits.release();
+                     }
+                  }
+               });
+            } catch (RejectedExecutionException e) {
+               // the executor is saturated, send it from this thread
+               try {
+                  sendCommand(cmd);
+               } finally {
+                  credits.release();
+               }
+            }
          }
       }
    }
 
+   private void sendCommand(StateResponseCommand cmd) {
+      // chunks sent asynchronously may still be queued when the task gets cancelled
+      if (isCancelled()) {
+         if (trace) {
+            log.tracef("Not sending chunk of cache %s to node %s, the outbound transfer was cancelled", cacheName, destination);
+         }
+         return;
+      }
+      try {
+         rpcManager.invokeRemotely(Collections.singleton(destination), cmd, rpcOptions);
+      } catch (SuspectException e) {
+         log.errorf(e, "Node %s left cache %s: %s", destination, cacheName, e.getMessage());
+         cancel();
+      } catch (Exception e) {
+         log.errorf(e, "Failed to send entries to node %s : %s", destination, e.getMessage());
+         failed = true;
+      }
+   }
+
+   /**
+    * Tells the destination that it will not receive all the state of the segments, so that it requests them again
+    * instead of waiting for their last chunk.
+    */
+   private void notifyFailure() {
+      List<StateChunk> chunks = new ArrayList<StateChunk>(segments.size());
+      for (int segmentId : segments) {
+         chunks.add(new StateChunk(segmentId, null, false, true));
+      }
+      if (trace) {
+         log.tracef("Notifying node %s that the transfer of segments %s of cache %s failed", destination, segments, cacheName);
+      }
+      try {
+         StateResponseCommand cmd = commandsFactory.buildStateResponseCommand(rpcManager.getAddress(), topologyId, chunks);
+         rpcManager.invokeRemotely(Collections.singleton(destination), cmd, rpcOptions);
+      } catch (Exception e) {
+         log.errorf(e, "Failed to notify node %s that the transfer of segments %s of cache %s failed", destination, segments, cacheName);
+      }
+   }
+
+   private void acquireCredits(int count) throws InterruptedException {
+      if (!credits.tryAcquire(count, timeout, TimeUnit.MILLISECONDS)) {
+         throw new TimeoutException("Timed out waiting for node " + destination + " to apply the state of cache "
+                                          + cacheName + " sent to it");
+      }
+   }
+
    /**
     * Cancel some of the segments. If all segments get cancelled then the whole task will be cancelled.
     *
@@ -277,6 +493,8 @@ public String toString() {
             ", destination=" + destination +
             ", segments=" + segments +
             ", stateTransferChunkSize=" + stateTransferChunkSize +
+            ", stateTransferChunkBytes=" + stateTransferChunkBytes +
+            ", maxInFlightChunks=" + maxInFlightChunks +
             ", timeout=" + timeout +
             ", cacheName='" + cacheName + '\'' +
             '}';
@@ -35,10 +35,21 @@ public class StateChunk {
     */
    private final boolean isLastChunk;
 
+   /**
+    * Indicates to receiver that the sender failed to send all the cache entries of this segment, so they must be
+    * requested again.
+    */
+   private final boolean isFailed;
+
    public StateChunk(int segmentId, Collection<InternalCacheEntry> cacheEntries, boolean isLastChunk) {
+      this(segmentId, cacheEntries, isLastChunk, false);
+   }
+
+   public StateChunk(int segmentId, Collection<InternalCacheEntry> cacheEntries, boolean isLastChunk, boolean isFailed) {
       this.segmentId = segmentId;
       this.cacheEntries = cacheEntries;
       this.isLastChunk = isLastChunk;
+      this.isFailed = isFailed;
    }
 
    public int getSegmentId() {
@@ -53,12 +64,17 @@ public boolean isLastChunk() {
       return isLastChunk;
    }
 
+   public boolean isFailed() {
+      return isFailed;
+   }
+
    @Override
    public String toString() {
       return "StateChunk{" +
             "segmentId=" + segmentId +
             ", cacheEntries=" + cacheEntries +
             ", isLastChunk=" + isLastChunk +
+            ", isFailed=" + isFailed +
             '}';
    }
 
@@ -79,6 +95,7 @@ public void writeObject(ObjectOutput output, StateChunk object) throws IOExcepti
          output.writeInt(object.segmentId);
          output.writeObject(object.cacheEntries);
          output.writeBoolean(object.isLastChunk);
+         output.writeBoolean(object.isFailed);
       }
 
       @Override
@@ -87,7 +104,8 @@ public StateChunk readObject(ObjectInput input) throws IOException, ClassNotFoun
          int segmentId = input.readInt();
          Collection<InternalCacheEntry> cacheEntries = (Collection<InternalCacheEntry>) input.readObject();
          boolean isLastChunk = input.readBoolean();
-         return new StateChunk(segmentId, cacheEntries, isLastChunk);
+         boolean isFailed = input.readBoolean();
+         return new StateChunk(segmentId, cacheEntries, isLastChunk, isFailed);
       }
    }
 }
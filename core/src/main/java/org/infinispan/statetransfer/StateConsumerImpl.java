@@ -7,6 +7,7 @@
 import org.infinispan.commons.CacheException;
 import org.infinispan.commons.util.InfinispanCollections;
 import org.infinispan.commons.util.concurrent.jdk8backported.EquivalentConcurrentHashMapV8;
+import org.infinispan.commons.util.concurrent.jdk8backported.LongAdder;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
@@ -22,6 +23,11 @@
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
 import org.infinispan.interceptors.InterceptorChain;
+import org.infinispan.jmx.annotations.DisplayType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.MeasurementType;
 import org.infinispan.persistence.CollectionKeyFilter;
 import org.infinispan.persistence.manager.PersistenceManager;
 import org.infinispan.persistence.spi.AdvancedCacheLoader;
@@ -40,7 +46,9 @@
 import org.infinispan.transaction.totalorder.TotalOrderManager;
 import org.infinispan.transaction.xa.CacheTransaction;
 import org.infinispan.transaction.xa.GlobalTransaction;
+import org.infinispan.util.DefaultTimeService;
 import org.infinispan.util.ReadOnlyDataContainerBackedKeySet;
+import org.infinispan.util.TimeService;
 import org.infinispan.util.concurrent.BlockingTaskAwareExecutorService;
 import org.infinispan.util.concurrent.ConcurrentHashSet;
 import org.infinispan.util.logging.Log;
@@ -74,6 +82,7 @@
  * @author anistor@redhat.com
  * @since 5.2
  */
+@MBean(objectName = "StateConsumer", description = "Applies the cache entries received from other nodes during state transfer")
 public class StateConsumerImpl implements StateConsumer {
 
    private static final Log log = LogFactory.getLog(StateConsumerImpl.class);
@@ -152,6 +161,12 @@ public class StateConsumerImpl implements StateConsumer {
 
    private RpcOptions rpcOptions;
 
+   private TimeService timeService = new DefaultTimeService();
+
+   private final LongAdder appliedChunks = new LongAdder();
+   private final LongAdder appliedEntries = new LongAdder();
+   private final LongAdder applyTime = new LongAdder();
+
    public StateConsumerImpl() {
    }
 
@@ -257,6 +272,11 @@ public void init(Cache cache,
       timeout = configuration.clustering().stateTransfer().timeout();
    }
 
+   @Inject
+   public void injectTimeService(TimeService timeService) {
+      this.timeService = timeService;
+   }
+
    public boolean hasActiveTransfers() {
       synchronized (this) {
          return !transfersBySource.isEmpty();
@@ -489,10 +509,18 @@ public void applyState(Address sender, int topologyId, Collection<StateChunk> st
          }
          if (inboundTransfer != null) {
             if (stateChunk.getCacheEntries() != null) {
+               long start = timeService.time();
                doApplyState(sender, stateChunk.getSegmentId(), stateChunk.getCacheEntries());
+               applyTime.add(timeService.timeDuration(start, TimeUnit.NANOSECONDS));
+               appliedChunks.increment();
+               appliedEntries.add(stateChunk.getCacheEntries().size());
             }
 
-            inboundTransfer.onStateReceived(stateChunk.getSegmentId(), stateChunk.isLastChunk());
+            if (stateChunk.isFailed()) {
+               inboundTransfer.onStateFailed(stateChunk.getSegmentId());
+            } else {
+               inboundTransfer.onStateReceived(stateChunk.getSegmentId(), stateChunk.isLastChunk());
+            }
          } else {
             log.warnf("Received unsolicited state from node %s for segment %d of cache %s", sender, stateChunk.getSegmentId(), cacheName);
          }
@@ -1036,6 +1064,29 @@ void onTaskCompletion(InboundTransferTask inboundTransfer) {
       notifyEndOfRebalanceIfNeeded(cacheTopology.getTopologyId());
    }
 
+   @ManagedAttribute(description = "Number of chunks of cache entries received and applied during state transfer", displayName = "Applied chunks", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getAppliedChunks() {
+      return appliedChunks.sum();
+   }
+
+   @ManagedAttribute(description = "Number of cache entries received and applied during state transfer", displayName = "Applied entries", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getAppliedEntries() {
+      return appliedEntries.sum();
+   }
+
+   @ManagedAttribute(description = "Average number of received cache entries applied per second by a state transfer thread", displayName = "Entry apply rate", displayType = DisplayType.SUMMARY)
+   public double getEntryApplyRate() {
+      long nanos = applyTime.sum();
+      return nanos == 0 ? 0 : appliedEntries.sum() * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+   }
+
+   @ManagedOperation(description = "Resets statistics gathered by this component", displayName = "Reset statistics")
+   public void resetStatistics() {
+      appliedChunks.reset();
+      appliedEntries.reset();
+      applyTime.reset();
+   }
+
    public interface KeyInvalidationListener {
       void beforeInvalidation(Set<Integer> newSegments, Set<Integer> segmentsToL1);
    }
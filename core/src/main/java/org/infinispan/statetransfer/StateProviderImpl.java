@@ -3,6 +3,8 @@
 import org.infinispan.Cache;
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.write.WriteCommand;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.commons.util.concurrent.jdk8backported.LongAdder;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.InternalEntryFactory;
@@ -11,6 +13,12 @@
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
+import org.infinispan.jmx.annotations.DisplayType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Units;
 import org.infinispan.persistence.manager.PersistenceManager;
 import org.infinispan.notifications.Listener;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
@@ -22,14 +30,21 @@
 import org.infinispan.transaction.LocalTransaction;
 import org.infinispan.transaction.TransactionTable;
 import org.infinispan.transaction.xa.CacheTransaction;
+import org.infinispan.util.DefaultTimeService;
+import org.infinispan.util.TimeService;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 import java.util.*;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.infinispan.factories.KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR;
+import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
 
 /**
  * {@link StateProvider} implementation.
@@ -38,6 +53,7 @@
  * @since 5.2
  */
 @Listener
+@MBean(objectName = "StateProvider", description = "Sends cache entries to the nodes that become their owners")
 public class StateProviderImpl implements StateProvider {
 
    private static final Log log = LogFactory.getLog(StateProviderImpl.class);
@@ -52,13 +68,27 @@ public class StateProviderImpl implements StateProvider {
    private DataContainer dataContainer;
    private PersistenceManager persistenceManager; // optional
    private ExecutorService executorService;
+   /**
+    * Sends the chunks of the outbound transfers asynchronously. The transfers themselves run on {@link
+    * #executorService} and wait there for the credits released by these sends, so they must not share a pool.
+    */
+   private ThreadPoolExecutor chunkExecutor;
    private StateTransferLock stateTransferLock;
    private InternalEntryFactory entryFactory;
    private long timeout;
    private int chunkSize;
+   private long chunkBytes;
+   private int maxInFlightChunks;
+   private StreamingMarshaller marshaller;
+   private TimeService timeService = new DefaultTimeService();
 
    private StateConsumer stateConsumer;
 
+   private final LongAdder completedTransfers = new LongAdder();
+   private final LongAdder sentEntries = new LongAdder();
+   private final LongAdder sentBytes = new LongAdder();
+   private final LongAdder transferTime = new LongAdder();
+
    /**
     * A map that keeps track of current outbound state transfers by destination address. There could be multiple transfers
     * flowing to the same destination (but for different segments) so the values are lists.
@@ -98,6 +128,14 @@ public void init(Cache cache,
       // ignore chunk sizes <= 0
       int chunkSize = configuration.clustering().stateTransfer().chunkSize();
       this.chunkSize = chunkSize > 0 ? chunkSize : Integer.MAX_VALUE;
+      chunkBytes = configuration.clustering().stateTransfer().chunkBytes();
+      maxInFlightChunks = configuration.clustering().stateTransfer().maxInFlightChunks();
+   }
+
+   @Inject
+   public void injectMarshaller(@ComponentName(CACHE_MARSHALLER) StreamingMarshaller marshaller, TimeService timeService) {
+      this.marshaller = marshaller;
+      this.timeService = timeService;
    }
 
    public boolean isStateTransferInProgress() {
@@ -137,6 +175,17 @@ public void onTopologyUpdate(CacheTopology cacheTopology, boolean isRebalance) {
    @Start(priority = 60)
    @Override
    public void start() {
+      final AtomicInteger threadId = new AtomicInteger();
+      chunkExecutor = new ThreadPoolExecutor(maxInFlightChunks, maxInFlightChunks, 60L, TimeUnit.SECONDS,
+                                             new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+         @Override
+         public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "StateTransferChunkSender-" + cacheName + "-" + threadId.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+         }
+      });
+      chunkExecutor.allowCoreThreadTimeOut(true);
       cacheNotifier.addListener(this);
    }
 
@@ -160,6 +209,9 @@ public void stop() {
       } catch (Throwable t) {
          log.errorf(t, "Failed to stop StateProvider of cache %s on node %s", cacheName, rpcManager.getAddress());
       }
+      if (chunkExecutor != null) {
+         chunkExecutor.shutdownNow();
+      }
    }
 
    public List<TransactionInfo> getTransactionsForSegments(Address destination, int requestTopologyId, Set<Integer> segments) throws InterruptedException {
@@ -278,10 +330,11 @@ public void startOutboundTransfer(Address destination, int requestTopologyId, Se
       final CacheTopology cacheTopology = getCacheTopology(requestTopologyId, destination, false);
 
       // the destination node must already have an InboundTransferTask waiting for these segments
-      OutboundTransferTask outboundTransfer = new OutboundTransferTask(destination, segments, chunkSize, cacheTopology.getTopologyId(),
-            cacheTopology.getReadConsistentHash(), this, dataContainer, persistenceManager, rpcManager, commandsFactory, entryFactory, timeout, cacheName);
+      OutboundTransferTask outboundTransfer = new OutboundTransferTask(destination, segments, chunkSize, chunkBytes,
+            maxInFlightChunks, cacheTopology.getTopologyId(), cacheTopology.getReadConsistentHash(), this, dataContainer,
+            persistenceManager, rpcManager, commandsFactory, entryFactory, marshaller, timeService, timeout, cacheName);
       addTransfer(outboundTransfer);
-      outboundTransfer.execute(executorService);
+      outboundTransfer.execute(executorService, chunkExecutor);
    }
 
    private void addTransfer(OutboundTransferTask transferTask) {
@@ -334,6 +387,67 @@ void onTaskCompletion(OutboundTransferTask transferTask) {
                transferTask.isCancelled() ? "cancelled" : "completed", transferTask.getSegments(), transferTask.getDestination(), cacheName);
       }
 
+      if (!transferTask.isCancelled() && !transferTask.isFailed()) {
+         completedTransfers.increment();
+         sentEntries.add(transferTask.getSentEntries());
+         sentBytes.add(transferTask.getSentBytes());
+         transferTime.add(transferTask.getElapsedTime());
+      }
       removeTransfer(transferTask);
    }
+
+   @ManagedAttribute(description = "Number of outbound state transfers in progress", displayName = "Active outbound transfers", displayType = DisplayType.SUMMARY)
+   public int getActiveTransfers() {
+      int count = 0;
+      synchronized (transfersByDestination) {
+         for (List<OutboundTransferTask> transfers : transfersByDestination.values()) {
+            count += transfers.size();
+         }
+      }
+      return count;
+   }
+
+   @ManagedAttribute(description = "Number of completed outbound state transfers", displayName = "Completed outbound transfers", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getCompletedTransfers() {
+      return completedTransfers.sum();
+   }
+
+   @ManagedAttribute(description = "Number of cache entries sent by completed outbound state transfers", displayName = "Sent entries", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getSentEntries() {
+      return sentEntries.sum();
+   }
+
+   @ManagedAttribute(description = "Estimated marshalled size of the keys and values sent by completed outbound state transfers, in bytes, only counted if the size of the state transfer chunks is limited", displayName = "Sent bytes", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getSentBytes() {
+      return sentBytes.sum();
+   }
+
+   @ManagedAttribute(description = "Average number of cache entries sent per second by completed outbound state transfers", displayName = "Entry transfer rate", displayType = DisplayType.SUMMARY)
+   public double getEntryTransferRate() {
+      return perSecond(sentEntries.sum());
+   }
+
+   @ManagedAttribute(description = "Average estimated number of bytes of marshalled keys and values sent per second by completed outbound state transfers", displayName = "Byte transfer rate", displayType = DisplayType.SUMMARY)
+   public double getByteTransferRate() {
+      return perSecond(sentBytes.sum());
+   }
+
+   @ManagedAttribute(description = "Average duration of a completed outbound state transfer, in milliseconds", displayName = "Average transfer time", units = Units.MILLISECONDS, displayType = DisplayType.SUMMARY)
+   public double getAverageTransferTime() {
+      long transfers = completedTransfers.sum();
+      return transfers == 0 ? 0 : (double) TimeUnit.NANOSECONDS.toMillis(transferTime.sum()) / transfers;
+   }
+
+   @ManagedOperation(description = "Resets statistics gathered by this component", displayName = "Reset statistics")
+   public void resetStatistics() {
+      completedTransfers.reset();
+      sentEntries.reset();
+      sentBytes.reset();
+      transferTime.reset();
+   }
+
+   private double perSecond(long count) {
+      long nanos = transferTime.sum();
+      return nanos == 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+   }
 }
@@ -79,6 +79,51 @@ public interface Stats {
     */
    long getAverageRemoveTime();
 
+   /**
+    * @return Median number of nanoseconds for a cache get on the cache
+    */
+   long getReadTimeMedian();
+
+   /**
+    * @return 99th percentile of the number of nanoseconds for a cache get on the cache
+    */
+   long getReadTime99thPercentile();
+
+   /**
+    * @return 99.9th percentile of the number of nanoseconds for a cache get on the cache
+    */
+   long getReadTime999thPercentile();
+
+   /**
+    * @return Median number of nanoseconds for a cache put on the cache
+    */
+   long getWriteTimeMedian();
+
+   /**
+    * @return 99th percentile of the number of nanoseconds for a cache put on the cache
+    */
+   long getWriteTime99thPercentile();
+
+   /**
+    * @return 99.9th percentile of the number of nanoseconds for a cache put on the cache
+    */
+   long getWriteTime999thPercentile();
+
+   /**
+    * @return Median number of nanoseconds for a successful cache removal on the cache
+    */
+   long getRemoveTimeMedian();
+
+   /**
+    * @return 99th percentile of the number of nanoseconds for a successful cache removal on the cache
+    */
+   long getRemoveTime99thPercentile();
+
+   /**
+    * @return 99.9th percentile of the number of nanoseconds for a successful cache removal on the cache
+    */
+   long getRemoveTime999thPercentile();
+
    /**
     * Reset statistics
     */
@@ -26,6 +26,15 @@ public class StatsImpl implements Stats {
    final long averageReadTime;
    final long averageWriteTime;
    final long averageRemoveTime;
+   final long readTimeMedian;
+   final long readTime99thPercentile;
+   final long readTime999thPercentile;
+   final long writeTimeMedian;
+   final long writeTime99thPercentile;
+   final long writeTime999thPercentile;
+   final long removeTimeMedian;
+   final long removeTime99thPercentile;
+   final long removeTime999thPercentile;
    final CacheMgmtInterceptor mgmtInterceptor;
 
    public StatsImpl(InterceptorChain chain) {
@@ -46,6 +55,15 @@ public StatsImpl(InterceptorChain chain) {
          averageReadTime = mgmtInterceptor.getAverageReadTime();
          averageWriteTime = mgmtInterceptor.getAverageWriteTime();
          averageRemoveTime = mgmtInterceptor.getAverageRemoveTime();
+         readTimeMedian = mgmtInterceptor.getReadTimeMedian();
+         readTime99thPercentile = mgmtInterceptor.getReadTime99thPercentile();
+         readTime999thPercentile = mgmtInterceptor.getReadTime999thPercentile();
+         writeTimeMedian = mgmtInterceptor.getWriteTimeMedian();
+         writeTime99thPercentile = mgmtInterceptor.getWriteTime99thPercentile();
+         writeTime999thPercentile = mgmtInterceptor.getWriteTime999thPercentile();
+         removeTimeMedian = mgmtInterceptor.getRemoveTimeMedian();
+         removeTime99thPercentile = mgmtInterceptor.getRemoveTime99thPercentile();
+         removeTime999thPercentile = mgmtInterceptor.getRemoveTime999thPercentile();
       } else {
          timeSinceStart = -1;
          currentNumberOfEntries = -1;
@@ -60,6 +78,15 @@ public StatsImpl(InterceptorChain chain) {
          averageReadTime = -1;
          averageWriteTime = -1;
          averageRemoveTime = -1;
+         readTimeMedian = -1;
+         readTime99thPercentile = -1;
+         readTime999thPercentile = -1;
+         writeTimeMedian = -1;
+         writeTime99thPercentile = -1;
+         writeTime999thPercentile = -1;
+         removeTimeMedian = -1;
+         removeTime99thPercentile = -1;
+         removeTime999thPercentile = -1;
       }
    }
 
@@ -128,6 +155,51 @@ public long getAverageRemoveTime() {
       return averageRemoveTime;
    }
 
+   @Override
+   public long getReadTimeMedian() {
+      return readTimeMedian;
+   }
+
+   @Override
+   public long getReadTime99thPercentile() {
+      return readTime99thPercentile;
+   }
+
+   @Override
+   public long getReadTime999thPercentile() {
+      return readTime999thPercentile;
+   }
+
+   @Override
+   public long getWriteTimeMedian() {
+      return writeTimeMedian;
+   }
+
+   @Override
+   public long getWriteTime99thPercentile() {
+      return writeTime99thPercentile;
+   }
+
+   @Override
+   public long getWriteTime999thPercentile() {
+      return writeTime999thPercentile;
+   }
+
+   @Override
+   public long getRemoveTimeMedian() {
+      return removeTimeMedian;
+   }
+
+   @Override
+   public long getRemoveTime99thPercentile() {
+      return removeTime99thPercentile;
+   }
+
+   @Override
+   public long getRemoveTime999thPercentile() {
+      return removeTime999thPercentile;
+   }
+
    @Override
    public void reset() {
       mgmtInterceptor.resetStatistics();
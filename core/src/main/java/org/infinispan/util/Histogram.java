@@ -0,0 +1,141 @@
+package org.infinispan.util;
+
+import org.infinispan.commons.util.concurrent.jdk8backported.LongAdder;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free histogram of non-negative long values, in the spirit of HdrHistogram. Values below 32 are counted
+ * exactly, bigger values are counted in one of the 16 equally sized sub-buckets their power of 2 is split into, so
+ * the values reported for percentiles are at most about 6% bigger than the recorded ones.
+ * <p/>
+ * Buckets are striped {@link LongAdder}s created the first time a value falls in them, so threads recording values
+ * concurrently rarely contend on the same cache line, and recording does not allocate once the buckets in use exist.
+ * Reading the histogram sums all the buckets, so it is much more expensive than recording. Reading while values are
+ * being recorded is allowed and returns approximate results.
+ *
+ * @since 6.0
+ */
+public class Histogram {
+
+   private static final int SUB_BUCKET_BITS = 4;
+   private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+   private static final int EXACT_VALUES = 2 * SUB_BUCKETS;
+   private static final int BUCKETS = EXACT_VALUES + (Long.SIZE - 1 - (SUB_BUCKET_BITS + 1)) * SUB_BUCKETS;
+
+   private final AtomicReferenceArray<LongAdder> counts = new AtomicReferenceArray<LongAdder>(BUCKETS);
+   private final LongAdder totalValue = new LongAdder();
+   private final AtomicLong maxValue = new AtomicLong();
+
+   /**
+    * Records a value, negative values are recorded as 0.
+    */
+   public void record(long value) {
+      if (value < 0)
+         value = 0;
+      bucket(indexOf(value)).increment();
+      totalValue.add(value);
+      long max = maxValue.get();
+      while (value > max && !maxValue.compareAndSet(max, value))
+         max = maxValue.get();
+   }
+
+   public long getCount() {
+      long count = 0;
+      for (int i = 0; i < BUCKETS; i++)
+         count += countOf(i);
+      return count;
+   }
+
+   public long getMax() {
+      return maxValue.get();
+   }
+
+   /**
+    * Returns the sum of all the recorded values.
+    */
+   public long getSum() {
+      return totalValue.sum();
+   }
+
+   public double getMean() {
+      long count = getCount();
+      return count == 0 ? 0 : (double) totalValue.sum() / count;
+   }
+
+   /**
+    * Returns the smallest value such that the given percentage of the recorded values are less than or equal to it,
+    * rounded up to the end of its sub-bucket, or 0 if nothing was recorded.
+    *
+    * @param percentile a number between 0 and 100
+    */
+   public long getValueAtPercentile(double percentile) {
+      long count = getCount();
+      if (count == 0)
+         return 0;
+      long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+         seen += countOf(i);
+         if (seen >= target)
+            return Math.min(highestValueOf(i), getMax());
+      }
+      return getMax();
+   }
+
+   /**
+    * Clears the histogram. Values recorded concurrently may or may not be kept.
+    */
+   public void reset() {
+      for (int i = 0; i < BUCKETS; i++) {
+         LongAdder bucket = counts.get(i);
+         if (bucket != null)
+            bucket.reset();
+      }
+      totalValue.reset();
+      maxValue.set(0);
+   }
+
+   private LongAdder bucket(int index) {
+      LongAdder bucket = counts.get(index);
+      if (bucket == null) {
+         LongAdder newBucket = new LongAdder();
+         bucket = counts.compareAndSet(index, null, newBucket) ? newBucket : counts.get(index);
+      }
+      return bucket;
+   }
+
+   private long countOf(int index) {
+      LongAdder bucket = counts.get(index);
+      return bucket == null ? 0 : bucket.sum();
+   }
+
+   static int indexOf(long value) {
+      if (value < EXACT_VALUES)
+         return (int) value;
+      int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+      int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+      return EXACT_VALUES + (shift - 1) * SUB_BUCKETS + subBucket;
+   }
+
+   static long highestValueOf(int index) {
+      if (index < EXACT_VALUES)
+         return index;
+      int shift = (index - EXACT_VALUES) / SUB_BUCKETS + 1;
+      int subBucket = (index - EXACT_VALUES) % SUB_BUCKETS;
+      long lowest = (long) (SUB_BUCKETS + subBucket) << shift;
+      return lowest + (1L << shift) - 1;
+   }
+
+   @Override
+   public String toString() {
+      return "Histogram{" +
+            "count=" + getCount() +
+            ", mean=" + getMean() +
+            ", p50=" + getValueAtPercentile(50) +
+            ", p99=" + getValueAtPercentile(99) +
+            ", max=" + getMax() +
+            '}';
+   }
+}
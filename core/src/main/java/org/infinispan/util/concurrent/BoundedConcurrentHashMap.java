@@ -13,6 +13,7 @@
 import org.infinispan.commons.util.InfinispanCollections;
 import org.infinispan.commons.util.Util;
 import org.infinispan.container.entries.CacheEntry;
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -123,6 +124,12 @@
     */
    static final int DEFAULT_CONCURRENCY_LEVEL = 16;
 
+   /**
+    * The initial table capacity of each segment when the map is bounded by memory size, in which case the number of
+    * entries cannot be known upfront and segment tables are allowed to grow.
+    */
+   static final int MEMORY_BOUNDED_SEGMENT_CAPACITY = 16;
+
    /**
     * The maximum capacity, used if a higher value is implicitly
     * specified by either of the constructors with arguments.  MUST
@@ -170,8 +177,14 @@
    private transient final Equivalence<K> keyEquivalence;
    private transient final Equivalence<V> valueEquivalence;
    private transient final EvictionListener<K, V> evictionListener;
+   private transient final EntrySizeCalculator<? super K, ? super V> sizeCalculator;
    private final int evictCap;
 
+   /**
+    * The maximum memory size of each segment, or -1 if the map is bounded by number of entries.
+    */
+   private final long memoryCap;
+
    /* ---------------- Small Utilities -------------- */
 
    /**
@@ -220,6 +233,11 @@ final Segment<K,V> segmentFor(int hash) {
       final int hash;
       volatile V value;
       final HashEntry<K, V> next;
+      /**
+       * Estimated memory size of this entry, only maintained when the map is bounded by memory size.
+       * Guarded by the segment lock.
+       */
+      int weight;
 
       HashEntry(K key, int hash, HashEntry<K, V> next, V value) {
          this.key = key;
@@ -262,29 +280,33 @@ private enum Recency {
    public enum Eviction {
       NONE {
          @Override
-         public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf) {
+         public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, int initialCapacity, float lf) {
             return new NullEvictionPolicy<K, V>();
          }
       },
       LRU {
          @Override
-         public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf) {
+         public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, int initialCapacity, float lf) {
             boolean isIBMJavaVendor = Util.isIBMJavaVendor();
             if (isIBMJavaVendor) {
-               return new IBMLRU<K, V>(s,capacity,lf,capacity*10,lf);
+               return new IBMLRU<K, V>(s,capacity,initialCapacity,lf,batchSize(capacity),lf);
             } else {
-               return new LRU<K, V>(s,capacity,lf,capacity*10,lf);
+               return new LRU<K, V>(s,capacity,initialCapacity,lf,batchSize(capacity),lf);
             }
          }
       },
       LIRS {
          @Override
-         public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf) {
-            return new LIRS<K,V>(s,capacity,capacity*10,lf);
+         public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, int initialCapacity, float lf) {
+            return new LIRS<K,V>(s,capacity,batchSize(capacity),lf);
          }
       };
 
-      abstract <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf);
+      abstract <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, int initialCapacity, float lf);
+
+      private static int batchSize(int capacity) {
+         return (int) Math.min(capacity * 10L, Integer.MAX_VALUE);
+      }
    }
 
    public interface EvictionListener<K, V> {
@@ -388,6 +410,25 @@ public void onEntryRemoved(Object key) {
        * @return true if batching threshold has expired, false otherwise.
        */
       boolean thresholdExpired();
+
+      /**
+       * Creates a copy of <tt>original</tt> linked to <tt>next</tt>, which takes the place of the original in the
+       * eviction data structures. Invoked while holding a lock on Segment, when the segment table is resized.
+       *
+       * @param original entry being copied
+       * @param next next entry in the new bucket
+       * @return the copy
+       */
+      HashEntry<K, V> copyEntry(HashEntry<K, V> original, HashEntry<K, V> next);
+
+      /**
+       * Returns the entry that should be evicted next to reduce the memory size of the Segment, never returning
+       * <tt>protectedEntry</tt>. Invoked while holding a lock on Segment, only when the map is bounded by memory size.
+       *
+       * @param protectedEntry the entry that has just been written, which must not be evicted
+       * @return the next entry to evict, or null if there are no candidates
+       */
+      HashEntry<K, V> nextMemoryVictim(HashEntry<K, V> protectedEntry);
    }
 
    static class NullEvictionPolicy<K, V> implements EvictionPolicy<K, V> {
@@ -431,6 +472,18 @@ public Eviction strategy() {
       public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V value) {
          return new HashEntry<K, V>(key, hash, next, value);
       }
+
+      @Override
+      public HashEntry<K, V> copyEntry(HashEntry<K, V> original, HashEntry<K, V> next) {
+         HashEntry<K, V> copy = new HashEntry<K, V>(original.key, original.hash, next, original.value);
+         copy.weight = original.weight;
+         return copy;
+      }
+
+      @Override
+      public HashEntry<K, V> nextMemoryVictim(HashEntry<K, V> protectedEntry) {
+         return null;
+      }
    }
 
    static final class LRU<K, V> extends LinkedHashMap<HashEntry<K,V>, V> implements EvictionPolicy<K, V> {
@@ -446,8 +499,8 @@ public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V v
       private final Set<HashEntry<K, V>> evicted;
       private final AtomicInteger accessQueueSize = new AtomicInteger(0);
 
-      public LRU(Segment<K,V> s, int capacity, float lf, int maxBatchSize, float batchThresholdFactor) {
-         super(capacity, lf, true);
+      public LRU(Segment<K,V> s, int capacity, int initialCapacity, float lf, int maxBatchSize, float batchThresholdFactor) {
+         super(initialCapacity, lf, true);
          this.segment = s;
          this.trimDownSize = capacity;
          this.maxBatchQueueSize = maxBatchSize > MAX_BATCH_SIZE ? MAX_BATCH_SIZE : maxBatchSize;
@@ -540,6 +593,25 @@ protected boolean removeEldestEntry(Map.Entry<HashEntry<K,V>,V> eldest){
       public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V value) {
          return new HashEntry<K, V>(key, hash, next, value);
       }
+
+      @Override
+      public HashEntry<K, V> copyEntry(HashEntry<K, V> original, HashEntry<K, V> next) {
+         // entries are tracked by equality, so the original can stay in the access ordered map
+         HashEntry<K, V> copy = new HashEntry<K, V>(original.key, original.hash, next, original.value);
+         copy.weight = original.weight;
+         return copy;
+      }
+
+      @Override
+      public HashEntry<K, V> nextMemoryVictim(HashEntry<K, V> protectedEntry) {
+         // iterates from the least recently used entry
+         for (HashEntry<K, V> e : keySet()) {
+            if (!e.equals(protectedEntry)) {
+               return e;
+            }
+         }
+         return null;
+      }
    }
 
    /**
@@ -560,8 +632,8 @@ public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V v
       private LRUHashEntry<K, V> head;
       private final AtomicInteger accessQueueSize = new AtomicInteger(0);
 
-      public IBMLRU(Segment<K,V> s, int capacity, float lf, int maxBatchSize, float batchThresholdFactor) {
-         super(capacity, lf);
+      public IBMLRU(Segment<K,V> s, int capacity, int initialCapacity, float lf, int maxBatchSize, float batchThresholdFactor) {
+         super(initialCapacity, lf);
          this.segment = s;
          this.trimDownSize = capacity;
          this.maxBatchQueueSize = maxBatchSize > MAX_BATCH_SIZE ? MAX_BATCH_SIZE : maxBatchSize;
@@ -575,7 +647,11 @@ public IBMLRU(Segment<K,V> s, int capacity, float lf, int maxBatchSize, float ba
       @Override
       public Set<HashEntry<K, V>> execute() {
          Set<HashEntry<K, V>> evictedCopy = new HashSet<HashEntry<K, V>>();
-         for (HashEntry<K, V> e : accessQueue) {
+         for (LRUHashEntry<K, V> e : accessQueue) {
+            if (e.nextEntry == null) {
+               // replaced by a copy while the segment table was resized
+               continue;
+            }
             put(e, e.value);
             addAndRemoveEldest(e);
          }
@@ -661,6 +737,36 @@ protected boolean isAboveThreshold(){
       public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V value) {
          return new LRUHashEntry<K, V>(key, hash, next, value);
       }
+
+      @Override
+      public HashEntry<K, V> copyEntry(HashEntry<K, V> original, HashEntry<K, V> next) {
+         LRUHashEntry<K, V> o = (LRUHashEntry<K, V>) original;
+         LRUHashEntry<K, V> copy = new LRUHashEntry<K, V>(o.key, o.hash, next, o.value);
+         copy.weight = o.weight;
+         if (o.nextEntry != null) {
+            // take the place of the original in the doubly-linked list
+            copy.previousEntry = o.previousEntry;
+            copy.nextEntry = o.nextEntry;
+            copy.previousEntry.nextEntry = copy;
+            copy.nextEntry.previousEntry = copy;
+            o.previousEntry = o.nextEntry = null;
+         }
+         while (accessQueue.remove(o)) {
+            accessQueueSize.decrementAndGet();
+         }
+         return copy;
+      }
+
+      @Override
+      public HashEntry<K, V> nextMemoryVictim(HashEntry<K, V> protectedEntry) {
+         // iterates from the least recently used entry
+         for (LRUHashEntry<K, V> e = head.nextEntry; e != head; e = e.nextEntry) {
+            if (!e.equals(protectedEntry)) {
+               return e;
+            }
+         }
+         return null;
+      }
    }
 
    /**
@@ -845,7 +951,7 @@ private void coldHit(Set<HashEntry<K, V>> evicted) {
        */
       private Set<HashEntry<K, V>> miss() {
          Set<HashEntry<K, V>> evicted = InfinispanCollections.emptySet();
-        if (owner.hotSize < owner.maximumHotSize) {
+        if (!owner.isHotSetFull()) {
           warmupMiss();
         } else {
           evicted = new HashSet<HashEntry<K,V>>(); 
@@ -911,6 +1017,7 @@ private void fullMiss(Set<HashEntry<K, V>> evicted) {
       private void hot() {
         if (state != Recency.LIR_RESIDENT) {
           owner.hotSize++;
+          owner.hotMemory += weight;
         }
         state = Recency.LIR_RESIDENT;
       }
@@ -921,6 +1028,7 @@ private void hot() {
       private void cold() {
         if (state == Recency.LIR_RESIDENT) {
           owner.hotSize--;
+          owner.hotMemory -= weight;
         }
         state = Recency.HIR_RESIDENT;
         moveToQueueEnd();
@@ -934,6 +1042,7 @@ private void nonResident() {
         switch (state) {
           case LIR_RESIDENT:
             owner.hotSize--;
+            owner.hotMemory -= weight;
             // fallthrough
           case HIR_RESIDENT:
             owner.size--;
@@ -1161,17 +1270,40 @@ private V remove() {
       /** The actual number of hot entries. */
       private int hotSize = 0;
 
+      /**
+       * The maximum memory size of hot entries, or -1 if the segment is bounded by number of entries. When bounded by
+       * memory size, the hot set is limited by the memory size of its entries rather than by their number.
+       */
+      private final long maximumHotMemory;
+
+      /** The actual memory size of hot entries. */
+      private long hotMemory = 0;
+
             
 
       public LIRS(Segment<K,V> s, int capacity, int maxBatchSize, float batchThresholdFactor) {
          this.segment = s;
          this.maximumSize = capacity;
          this.maximumHotSize = calculateLIRSize(capacity);
+         this.maximumHotMemory = s.map.memoryCap > 0 ? (long) (L_LIRS * s.map.memoryCap) : -1;
          this.maxBatchQueueSize = maxBatchSize > MAX_BATCH_SIZE ? MAX_BATCH_SIZE : maxBatchSize;
          this.batchQueueSizeThreshold = batchThresholdFactor * this.maxBatchQueueSize;
          this.accessQueue = new ConcurrentLinkedQueue<LIRSHashEntry<K, V>>();                         
       }
       
+      private boolean isHotSetFull() {
+         return maximumHotMemory < 0 ? hotSize >= maximumHotSize : hotMemory >= maximumHotMemory;
+      }
+
+      /**
+       * Adjusts the memory size of the hot set after the weight of a resident entry changed.
+       */
+      void onWeightChange(LIRSHashEntry<K, V> e, int delta) {
+         if (e.state == Recency.LIR_RESIDENT) {
+            hotMemory += delta;
+         }
+      }
+
       private static int calculateLIRSize(int maximumSize) {
          int result = (int) (L_LIRS * maximumSize);
          return (result == maximumSize) ? maximumSize - 1 : result;
@@ -1304,6 +1436,56 @@ private LIRSHashEntry<K, V> queueEnd() {
       public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V value) {
          return new LIRSHashEntry<K, V>(this,key, hash, next, value);
       }
+
+      @Override
+      public HashEntry<K, V> copyEntry(HashEntry<K, V> original, HashEntry<K, V> next) {
+         LIRSHashEntry<K, V> o = (LIRSHashEntry<K, V>) original;
+         LIRSHashEntry<K, V> copy = new LIRSHashEntry<K, V>(this, o.key, o.hash, next, o.value);
+         copy.weight = o.weight;
+         copy.state = o.state;
+         // take the place of the original in both the stack and the queue; hot counters are unaffected
+         if (o.inStack()) {
+            copy.previousInStack = o.previousInStack;
+            copy.nextInStack = o.nextInStack;
+            copy.previousInStack.nextInStack = copy;
+            copy.nextInStack.previousInStack = copy;
+         } else {
+            copy.previousInStack = copy.nextInStack = null;
+         }
+         if (o.inQueue()) {
+            copy.previousInQueue = o.previousInQueue;
+            copy.nextInQueue = o.nextInQueue;
+            copy.previousInQueue.nextInQueue = copy;
+            copy.nextInQueue.previousInQueue = copy;
+         } else {
+            copy.previousInQueue = copy.nextInQueue = null;
+         }
+         // readers racing with the resize might still record hits on the original, make sure they are ignored
+         o.previousInStack = o.nextInStack = o.previousInQueue = o.nextInQueue = null;
+         o.state = Recency.HIR_NONRESIDENT;
+         o.owner = null;
+         while (accessQueue.remove(o)) {
+            accessQueueSize.decrementAndGet();
+         }
+         return copy;
+      }
+
+      @Override
+      public HashEntry<K, V> nextMemoryVictim(HashEntry<K, V> protectedEntry) {
+         // cold resident entries first, from the front of the queue
+         for (LIRSHashEntry<K, V> e = header.nextInQueue; e != header; e = e.nextInQueue) {
+            if (e != protectedEntry && e.isResident()) {
+               return e;
+            }
+         }
+         // then hot entries, from the bottom of the stack
+         for (LIRSHashEntry<K, V> e = header.previousInStack; e != header; e = e.previousInStack) {
+            if (e != protectedEntry && e.isResident()) {
+               return e;
+            }
+         }
+         return null;
+      }
    }
 
    /**
@@ -1390,10 +1572,16 @@ public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V v
 
       transient final BoundedConcurrentHashMap map;
 
+      /**
+       * The estimated memory size of the entries in this segment, only maintained when the map is bounded by memory
+       * size. Written while holding the lock.
+       */
+      transient volatile long memoryUsed;
+
       Segment(int cap, float lf, Eviction es, BoundedConcurrentHashMap map) {
          this.map = map;
          loadFactor = lf;
-         eviction = es.make(this, map.evictCap, lf);
+         eviction = es.make(this, map.evictCap, map.isMemoryBounded() ? cap : map.evictCap, lf);
          setTable(HashEntry.<K, V> newArray(cap));
       }
 
@@ -1503,7 +1691,7 @@ boolean containsValue(Object value) {
          return false;
       }
 
-      boolean replace(K key, int hash, V oldValue, V newValue) {
+      boolean replace(K key, int hash, V oldValue, V newValue, int weight) {
          lock();
          Set<HashEntry<K, V>> evicted = null;
          try {
@@ -1516,9 +1704,11 @@ boolean replace(K key, int hash, V oldValue, V newValue) {
             if (e != null && map.valueEquivalence.equals(oldValue, e.value)) {
                replaced = true;
                e.value = newValue;
+               updateWeight(e, weight);
                if (eviction.onEntryHit(e)) {
                   evicted = attemptEviction(true);
                }
+               evicted = trimToMemoryCap(e, evicted);
             }
             return replaced;
          } finally {
@@ -1527,7 +1717,7 @@ boolean replace(K key, int hash, V oldValue, V newValue) {
          }
       }
 
-      V replace(K key, int hash, V newValue) {
+      V replace(K key, int hash, V newValue, int weight) {
          lock();
          Set<HashEntry<K, V>> evicted = null;
          try {
@@ -1540,9 +1730,11 @@ V replace(K key, int hash, V newValue) {
             if (e != null) {
                oldValue = e.value;
                e.value = newValue;
+               updateWeight(e, weight);
                if (eviction.onEntryHit(e)) {
                   evicted = attemptEviction(true);
                }
+               evicted = trimToMemoryCap(e, evicted);
             }
             return oldValue;
          } finally {
@@ -1551,12 +1743,12 @@ V replace(K key, int hash, V newValue) {
          }
       }
 
-      V put(K key, int hash, V value, boolean onlyIfAbsent) {
+      V put(K key, int hash, V value, boolean onlyIfAbsent, int weight) {
          lock();
          Set<HashEntry<K, V>> evicted = null;
          try {
             int c = count;
-            if (c++ > threshold && eviction.strategy() == Eviction.NONE) {
+            if (c++ > threshold && (eviction.strategy() == Eviction.NONE || map.isMemoryBounded())) {
                rehash();
             }
             HashEntry<K, V>[] tab = table;
@@ -1572,7 +1764,9 @@ V put(K key, int hash, V value, boolean onlyIfAbsent) {
                oldValue = e.value;
                if (!onlyIfAbsent) {
                   e.value = value;
+                  updateWeight(e, weight);
                   eviction.onEntryHit(e);
+                  evicted = trimToMemoryCap(e, null);
                }
             } else {
                oldValue = null;
@@ -1586,9 +1780,12 @@ V put(K key, int hash, V value, boolean onlyIfAbsent) {
                      first = tab[index];
                   }
                   // add a new entry
-                  tab[index] = eviction.createNewEntry(key, hash, first, value);
+                  HashEntry<K, V> added = eviction.createNewEntry(key, hash, first, value);
+                  added.weight = weight;
+                  tab[index] = added;
+                  memoryUsed += weight;
                   // notify a miss
-                  Set<HashEntry<K, V>> newlyEvicted = eviction.onEntryMiss(tab[index]);
+                  Set<HashEntry<K, V>> newlyEvicted = eviction.onEntryMiss(added);
                   if (!newlyEvicted.isEmpty()) {
                      if (evicted != null) {
                         evicted.addAll(newlyEvicted);
@@ -1596,6 +1793,7 @@ V put(K key, int hash, V value, boolean onlyIfAbsent) {
                         evicted = newlyEvicted;
                      }
                   }
+                  evicted = trimToMemoryCap(added, evicted);
                } else {
                   tab[index] = eviction.createNewEntry(key, hash, first, value);
                }
@@ -1664,7 +1862,7 @@ void rehash() {
                   for (HashEntry<K,V> p = e; p != lastRun; p = p.next) {
                      int k = p.hash & sizeMask;
                      HashEntry<K,V> n = newTable[k];
-                     newTable[k] = eviction.createNewEntry(p.key, p.hash, n, p.value);
+                     newTable[k] = eviction.copyEntry(p, n);
                   }
                }
             }
@@ -1705,6 +1903,7 @@ V remove(Object key, int hash, Object value, boolean isEvict) {
 
                   // e was removed
                   eviction.onEntryRemove(e);
+                  memoryUsed -= e.weight;
 
                   HashEntry<K, V> newFirst = e.next;
                   for (HashEntry<K, V> p = first; p != e; p = p.next) {
@@ -1712,6 +1911,7 @@ V remove(Object key, int hash, Object value, boolean isEvict) {
                      // allow p to be GC-ed
                      eviction.onEntryRemove(p);
                      newFirst = eviction.createNewEntry(p.key, p.hash, newFirst, p.value);
+                     newFirst.weight = p.weight;
                      // and notify eviction algorithm about new hash entries
                      eviction.onEntryMiss(newFirst);
                   }
@@ -1750,6 +1950,7 @@ void clear() {
                }
                ++modCount;
                eviction.clear();
+               memoryUsed = 0;
                count = 0; // write-volatile
             } finally {
                unlock();
@@ -1757,6 +1958,54 @@ void clear() {
          }
       }
 
+      /**
+       * Updates the weight of an existing entry.  Call only while holding lock.
+       */
+      @SuppressWarnings("unchecked")
+      private void updateWeight(HashEntry<K, V> e, int weight) {
+         int delta = weight - e.weight;
+         if (delta != 0) {
+            e.weight = weight;
+            memoryUsed += delta;
+            if (eviction instanceof LIRS) {
+               ((LIRS<K, V>) eviction).onWeightChange((LIRSHashEntry<K, V>) e, delta);
+            }
+         }
+      }
+
+      /**
+       * Evicts entries, as chosen by the eviction policy, until the memory size of this segment is within its budget.
+       * The entry that has just been written is never evicted, so a single entry larger than the budget will stay in
+       * the segment on its own.  Call only while holding lock.
+       *
+       * @param written the entry that has just been written
+       * @param evicted the entries evicted so far by this write, may be null
+       * @return all the entries evicted by this write, or null if none
+       */
+      private Set<HashEntry<K, V>> trimToMemoryCap(HashEntry<K, V> written, Set<HashEntry<K, V>> evicted) {
+         if (!map.isMemoryBounded()) {
+            return evicted;
+         }
+         while (memoryUsed > map.memoryCap) {
+            HashEntry<K, V> victim = eviction.nextMemoryVictim(written);
+            if (victim == null) {
+               break;
+            }
+            V value = remove(victim.key, victim.hash, null, true);
+            if (value == null) {
+               // not in the table anymore, make sure the policy forgets about it
+               eviction.onEntryRemove(victim);
+               break;
+            }
+            if (evicted == null) {
+               evicted = new HashSet<HashEntry<K, V>>();
+            }
+            // the policy might hold a stale copy of the entry, so report the value actually removed
+            evicted.add(new HashEntry<K, V>(victim.key, victim.hash, null, value));
+         }
+         return evicted;
+      }
+
       private Set<HashEntry<K, V>> attemptEviction(boolean lockedAlready) {
          boolean shouldAttemptEvict = lockedAlready || tryLock();
 
@@ -1834,6 +2083,8 @@ public BoundedConcurrentHashMap(int capacity, int concurrencyLevel,
          Equivalence<K> keyEquivalence, Equivalence<V> valueEquivalence) {
       this.keyEquivalence = keyEquivalence;
       this.valueEquivalence = valueEquivalence;
+      this.sizeCalculator = null;
+      this.memoryCap = -1;
 
       if (capacity < 0 || concurrencyLevel <= 0) {
          throw new IllegalArgumentException();
@@ -1884,6 +2135,74 @@ public BoundedConcurrentHashMap(int capacity, int concurrencyLevel,
       }
    }
 
+   /**
+    * Creates a new, empty map bounded by the estimated memory size of its entries rather than by their number.
+    * The memory budget is split evenly among segments, and each segment evicts entries chosen by the eviction
+    * strategy whenever a write takes it over its share of the budget.
+    *
+    * @param maxMemory
+    *            is the upper bound for the estimated memory size of all the entries in this map, in bytes
+    *
+    * @param concurrencyLevel
+    *            the estimated number of concurrently updating threads. The implementation performs
+    *            internal sizing to try to accommodate this many threads.
+    *
+    * @param evictionStrategy
+    *            the algorithm used to evict elements from this map, cannot be {@link Eviction#NONE}
+    *
+    * @param evictionListener
+    *            the evicton listener callback to be notified about evicted elements
+    *
+    * @param sizeCalculator
+    *            estimates the memory size of each entry
+    *
+    * @throws IllegalArgumentException
+    *             if the maximum memory size or concurrencyLevel are nonpositive, or the eviction strategy is
+    *             {@link Eviction#NONE}.
+    */
+   public BoundedConcurrentHashMap(long maxMemory, int concurrencyLevel,
+         Eviction evictionStrategy, EvictionListener<K, V> evictionListener,
+         EntrySizeCalculator<? super K, ? super V> sizeCalculator,
+         Equivalence<K> keyEquivalence, Equivalence<V> valueEquivalence) {
+      this.keyEquivalence = keyEquivalence;
+      this.valueEquivalence = valueEquivalence;
+
+      if (maxMemory <= 0 || concurrencyLevel <= 0) {
+         throw new IllegalArgumentException();
+      }
+
+      if (evictionStrategy == null || evictionStrategy == Eviction.NONE || evictionListener == null
+            || sizeCalculator == null) {
+         throw new IllegalArgumentException();
+      }
+
+      this.evictionListener = evictionListener;
+      this.sizeCalculator = sizeCalculator;
+
+      if (concurrencyLevel > MAX_SEGMENTS) {
+         concurrencyLevel = MAX_SEGMENTS;
+      }
+
+      // Find power-of-two sizes best matching arguments
+      int sshift = 0;
+      int ssize = 1;
+      while (ssize < concurrencyLevel) {
+         ++sshift;
+         ssize <<= 1;
+      }
+      segmentShift = 32 - sshift;
+      segmentMask = ssize - 1;
+      this.segments = Segment.newArray(ssize);
+
+      // the number of entries is unknown, segment tables grow as needed
+      this.evictCap = Integer.MAX_VALUE;
+      this.memoryCap = Math.max(maxMemory / ssize, 1);
+
+      for (int i = 0; i < this.segments.length; ++i) {
+         this.segments[i] = new Segment<K, V>(MEMORY_BOUNDED_SEGMENT_CAPACITY, DEFAULT_LOAD_FACTOR, evictionStrategy, this);
+      }
+   }
+
    /**
     * Creates a new, empty map with the specified maximum capacity, load factor, concurrency
     * level and LRU eviction policy.
@@ -1951,6 +2270,38 @@ public BoundedConcurrentHashMap(Equivalence<K> keyEquivalence, Equivalence<V> va
       this(DEFAULT_MAXIMUM_CAPACITY, DEFAULT_CONCURRENCY_LEVEL, keyEquivalence, valueEquivalence);
    }
 
+   boolean isMemoryBounded() {
+      return memoryCap > 0;
+   }
+
+   /**
+    * Estimates the memory size of an entry, outside of any segment lock.
+    */
+   private int weigh(K key, V value) {
+      if (sizeCalculator == null) {
+         return 0;
+      }
+      long size = sizeCalculator.calculateSize(key, value);
+      if (size < 0) {
+         throw new IllegalStateException("Negative size " + size + " calculated for key " + key);
+      }
+      return (int) Math.min(size, Integer.MAX_VALUE);
+   }
+
+   /**
+    * Returns the estimated memory size of the entries in this map, as computed by its {@link EntrySizeCalculator}.
+    * Always 0 unless this map is bounded by memory size.
+    *
+    * @return the estimated memory size of the entries in this map, in bytes
+    */
+   public long getMemoryUsed() {
+      long sum = 0;
+      for (Segment<K, V> segment : segments) {
+         sum += segment.memoryUsed;
+      }
+      return sum;
+   }
+
    /**
     * Returns <tt>true</tt> if this map contains no key-value mappings.
     *
@@ -2186,7 +2537,7 @@ public V put(K key, V value) {
          throw new NullPointerException();
       }
       int hash = hash(keyEquivalence.hashCode(key));
-      return segmentFor(hash).put(key, hash, value, false);
+      return segmentFor(hash).put(key, hash, value, false, weigh(key, value));
    }
 
    /**
@@ -2202,7 +2553,7 @@ public V putIfAbsent(K key, V value) {
          throw new NullPointerException();
       }
       int hash = hash(keyEquivalence.hashCode(key));
-      return segmentFor(hash).put(key, hash, value, true);
+      return segmentFor(hash).put(key, hash, value, true, weigh(key, value));
    }
 
    /**
@@ -2259,7 +2610,7 @@ public boolean replace(K key, V oldValue, V newValue) {
          throw new NullPointerException();
       }
       int hash = hash(keyEquivalence.hashCode(key));
-      return segmentFor(hash).replace(key, hash, oldValue, newValue);
+      return segmentFor(hash).replace(key, hash, oldValue, newValue, weigh(key, newValue));
    }
 
    /**
@@ -2275,7 +2626,7 @@ public V replace(K key, V value) {
          throw new NullPointerException();
       }
       int hash = hash(key.hashCode());
-      return segmentFor(hash).replace(key, hash, value);
+      return segmentFor(hash).replace(key, hash, value, weigh(key, value));
    }
 
    /**
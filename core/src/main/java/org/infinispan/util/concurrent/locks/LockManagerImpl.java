@@ -19,7 +19,6 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.Lock;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.infinispan.commons.util.Util.toStr;
@@ -37,7 +36,6 @@ public class LockManagerImpl implements LockManager {
    protected volatile LockContainer<?> lockContainer;
    private static final Log log = LogFactory.getLog(LockManagerImpl.class);
    protected static final boolean trace = log.isTraceEnabled();
-   private static final String ANOTHER_THREAD = "(another thread)";
 
    @Inject
    public void injectDependencies(Configuration configuration, LockContainer<?> lockContainer) {
@@ -104,24 +102,7 @@ public boolean isLocked(Object key) {
 
    @Override
    public Object getOwner(Object key) {
-      if (lockContainer.isLocked(key)) {
-         Lock l = lockContainer.getLock(key);
-
-         if (l instanceof OwnableReentrantLock) {
-            return ((OwnableReentrantLock) l).getOwner();
-         } else if (l instanceof VisibleOwnerReentrantLock) {
-            Thread owner = ((VisibleOwnerReentrantLock) l).getOwner();
-            // Don't assume the key is unlocked if getOwner() returned null.
-            // JDK ReentrantLocks can return null e.g. if another thread is in the process of acquiring the lock
-            if (owner != null)
-               return owner;
-         }
-
-         return ANOTHER_THREAD;
-      } else {
-         // not locked
-         return null;
-      }
+      return lockContainer.getOwner(key);
    }
 
    @Override
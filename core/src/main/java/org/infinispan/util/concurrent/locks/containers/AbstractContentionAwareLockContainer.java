@@ -0,0 +1,430 @@
+package org.infinispan.util.concurrent.locks.containers;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.jmx.annotations.DataType;
+import org.infinispan.jmx.annotations.DisplayType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Parameter;
+import org.infinispan.jmx.annotations.Units;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+
+import static org.infinispan.commons.util.Util.toStr;
+
+/**
+ * A striped lock container which keeps track of the contention on its locks, and gives the keys on which lock
+ * acquisitions often wait a dedicated lock, so that they no longer block the other keys mapped to the same stripe.
+ * <p/>
+ * Acquisitions which succeed immediately are not measured. The time spent waiting by the other acquisitions is
+ * recorded per stripe and per key; the number of tracked keys is bounded, the keys with the least contention being
+ * forgotten first. The recent contention of a key decays by half every decay interval, and a key becomes hot when it
+ * reaches the hot key threshold.
+ * <p/>
+ * The lock guarding a key only changes while the key is locked: the owner releasing a hot key installs a dedicated
+ * lock for it before unlocking the stripe, and the owner releasing a key that cooled down removes its dedicated lock
+ * if nobody waits for it. A thread that was waiting for the previous lock of a key releases it and acquires the new
+ * one.
+ *
+ * @since 6.0
+ */
+@ThreadSafe
+@MBean(objectName = "LockContention", description = "Contention on the locks of the entries, and the hot keys given a dedicated lock")
+public abstract class AbstractContentionAwareLockContainer<L extends Lock> extends AbstractStripedLockContainer<L> {
+
+   public static final int DEFAULT_HOT_KEY_THRESHOLD = 8;
+   public static final int DEFAULT_MAX_TRACKED_KEYS = 1024;
+   public static final long DEFAULT_DECAY_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+   private static final int DEFAULT_TOP_KEYS = 10;
+
+   private final int hotKeyThreshold;
+   private final int maxDedicatedLocks;
+   private final int maxTrackedKeys;
+   private final long decayIntervalNanos;
+
+   private Object[] sharedLocks;
+   private final ConcurrentMap<Object, L> dedicatedLocks = new ConcurrentHashMap<Object, L>();
+   private final ConcurrentMap<Object, KeyContention> trackedKeys = new ConcurrentHashMap<Object, KeyContention>();
+   private final AtomicLong lastDecay = new AtomicLong(System.nanoTime());
+
+   private AtomicLongArray stripeContentions;
+   private AtomicLongArray stripeWaitNanos;
+   private final AtomicLong contentions = new AtomicLong();
+   private final AtomicLong waitNanos = new AtomicLong();
+   private final AtomicLong timeouts = new AtomicLong();
+   private final AtomicLong promotions = new AtomicLong();
+   private final AtomicLong demotions = new AtomicLong();
+
+   /**
+    * @param concurrencyLevel  concurrency level for number of stripes to create
+    * @param hotKeyThreshold   the recent contended acquisitions after which a key is given a dedicated lock
+    * @param maxDedicatedLocks the maximum number of keys with a dedicated lock at the same time
+    * @param maxTrackedKeys    the maximum number of keys whose contention is tracked
+    * @param decayInterval     the interval, in milliseconds, after which the recent contention of the keys is halved
+    */
+   protected AbstractContentionAwareLockContainer(int concurrencyLevel, int hotKeyThreshold, int maxDedicatedLocks,
+                                                  int maxTrackedKeys, long decayInterval) {
+      this.hotKeyThreshold = hotKeyThreshold;
+      this.maxDedicatedLocks = maxDedicatedLocks;
+      this.maxTrackedKeys = maxTrackedKeys;
+      this.decayIntervalNanos = TimeUnit.MILLISECONDS.toNanos(decayInterval);
+      initLocks(calculateNumberOfSegments(concurrencyLevel));
+   }
+
+   protected abstract L newLock();
+
+   /**
+    * @return true if the lock is held by the given owner
+    */
+   protected abstract boolean isOwnedBy(L lock, Object owner);
+
+   /**
+    * @return true if the lock is held by any owner
+    */
+   protected abstract boolean isHeld(L lock);
+
+   /**
+    * @return true if any thread is waiting to acquire the lock
+    */
+   protected abstract boolean hasWaiters(L lock);
+
+   @Override
+   protected final void initLocks(int numLocks) {
+      sharedLocks = new Object[numLocks];
+      for (int i = 0; i < numLocks; i++) sharedLocks[i] = newLock();
+      stripeContentions = new AtomicLongArray(numLocks);
+      stripeWaitNanos = new AtomicLongArray(numLocks);
+   }
+
+   @Override
+   public final L getLock(Object key) {
+      if (!dedicatedLocks.isEmpty()) {
+         L lock = dedicatedLocks.get(key);
+         if (lock != null)
+            return lock;
+      }
+      return getSharedLock(hashToIndex(key));
+   }
+
+   @Override
+   public final boolean ownsLock(Object key, Object owner) {
+      return isOwnedBy(getLock(key), owner);
+   }
+
+   @Override
+   public final boolean isLocked(Object key) {
+      return isHeld(getLock(key));
+   }
+
+   @Override
+   public final int getNumLocksHeld() {
+      int i = 0;
+      for (Object l : sharedLocks) if (isHeld(getShared(l))) i++;
+      for (L l : dedicatedLocks.values()) if (isHeld(l)) i++;
+      return i;
+   }
+
+   @Override
+   public int size() {
+      return sharedLocks.length + dedicatedLocks.size();
+   }
+
+   @Override
+   public L acquireLock(Object lockOwner, Object key, long timeout, TimeUnit unit) throws InterruptedException {
+      long remaining = unit.toNanos(timeout);
+      while (true) {
+         L lock = getLock(key);
+         boolean locked = tryLock(lock, 0, TimeUnit.NANOSECONDS, lockOwner);
+         if (!locked) {
+            long start = System.nanoTime();
+            try {
+               locked = tryLock(lock, remaining, TimeUnit.NANOSECONDS, lockOwner);
+            } finally {
+               long waited = System.nanoTime() - start;
+               remaining -= waited;
+               recordContention(key, lock, waited, !locked);
+            }
+         }
+         if (!locked)
+            return null;
+         if (getLock(key) == lock)
+            return lock;
+
+         // the key was given a dedicated lock, or lost it, while we were waiting
+         if (getLog().isTraceEnabled())
+            getLog().tracef("Lock of key %s changed while acquiring it, retrying", toStr(key));
+         unlock(lock, lockOwner);
+      }
+   }
+
+   @Override
+   public void releaseLock(Object lockOwner, Object key) {
+      L lock = getLock(key);
+      if (isOwnedBy(lock, lockOwner)) {
+         KeyContention contention = trackedKeys.get(key);
+         L dedicated = dedicatedLocks.get(key);
+         if (dedicated == null) {
+            if (contention != null && contention.recent.get() >= hotKeyThreshold && dedicatedLocks.size() < maxDedicatedLocks
+                  && dedicatedLocks.putIfAbsent(key, newLock()) == null) {
+               promotions.incrementAndGet();
+               getLog().tracef("Key %s is contended, giving it a dedicated lock", toStr(key));
+            }
+         } else {
+            // a key might stop being contended altogether, so it must cool down without recording contention
+            decayIfNeeded();
+            if ((contention == null || contention.recent.get() < hotKeyThreshold / 2) && !hasWaiters(dedicated)
+                  && dedicatedLocks.remove(key, dedicated)) {
+               demotions.incrementAndGet();
+               getLog().tracef("Key %s is no longer contended, removing its dedicated lock", toStr(key));
+            }
+         }
+      }
+      safeRelease(lock, lockOwner);
+   }
+
+   private void recordContention(Object key, L lock, long waited, boolean timedOut) {
+      contentions.incrementAndGet();
+      waitNanos.addAndGet(waited);
+      if (timedOut)
+         timeouts.incrementAndGet();
+
+      int stripe = hashToIndex(key);
+      if (lock == sharedLocks[stripe]) {
+         stripeContentions.incrementAndGet(stripe);
+         stripeWaitNanos.addAndGet(stripe, waited);
+      }
+
+      KeyContention contention = trackedKeys.get(key);
+      if (contention == null) {
+         if (trackedKeys.size() >= maxTrackedKeys)
+            forgetLeastContendedKeys();
+         contention = new KeyContention(stripe);
+         KeyContention existing = trackedKeys.putIfAbsent(key, contention);
+         if (existing != null)
+            contention = existing;
+      }
+      contention.record(waited, timedOut);
+      decayIfNeeded();
+   }
+
+   private void decayIfNeeded() {
+      long now = System.nanoTime();
+      long last = lastDecay.get();
+      if (now - last < decayIntervalNanos || !lastDecay.compareAndSet(last, now))
+         return;
+
+      for (KeyContention contention : trackedKeys.values()) {
+         int recent;
+         do {
+            recent = contention.recent.get();
+         } while (!contention.recent.compareAndSet(recent, recent >> 1));
+      }
+   }
+
+   private synchronized void forgetLeastContendedKeys() {
+      if (trackedKeys.size() < maxTrackedKeys)
+         return;
+
+      List<Map.Entry<Object, KeyContention>> entries = sortedByWaitTime();
+      int toRemove = entries.size() / 2;
+      for (int i = entries.size() - 1; i >= 0 && toRemove > 0; i--) {
+         Object key = entries.get(i).getKey();
+         if (!dedicatedLocks.containsKey(key)) {
+            trackedKeys.remove(key);
+            toRemove--;
+         }
+      }
+   }
+
+   private List<Map.Entry<Object, KeyContention>> sortedByWaitTime() {
+      List<Map.Entry<Object, KeyContention>> entries = new ArrayList<Map.Entry<Object, KeyContention>>(trackedKeys.entrySet());
+      Collections.sort(entries, new Comparator<Map.Entry<Object, KeyContention>>() {
+         @Override
+         public int compare(Map.Entry<Object, KeyContention> e1, Map.Entry<Object, KeyContention> e2) {
+            long w1 = e1.getValue().waitNanos.get();
+            long w2 = e2.getValue().waitNanos.get();
+            return w1 < w2 ? 1 : (w1 == w2 ? 0 : -1);
+         }
+      });
+      return entries;
+   }
+
+   /**
+    * Returns the keys on which lock acquisitions waited the longest, with the total time spent waiting for each of
+    * them, in nanoseconds.
+    *
+    * @param topN the maximum number of keys to return
+    * @return the keys, ordered from the most contended one
+    */
+   public Map<Object, Long> getTopContendedKeys(int topN) {
+      Map<Object, Long> topKeys = new LinkedHashMap<Object, Long>();
+      for (Map.Entry<Object, KeyContention> e : sortedByWaitTime()) {
+         if (topKeys.size() >= topN)
+            break;
+         topKeys.put(e.getKey(), e.getValue().waitNanos.get());
+      }
+      return topKeys;
+   }
+
+   /**
+    * @return true if the key currently has its own lock
+    */
+   public boolean hasDedicatedLock(Object key) {
+      return dedicatedLocks.containsKey(key);
+   }
+
+   @ManagedOperation(description = "Lists the keys on which lock acquisitions waited the longest", displayName = "Top contended keys")
+   public String printTopContendedKeys(@Parameter(name = "topN", description = "The maximum number of keys to list") int topN) {
+      StringBuilder sb = new StringBuilder();
+      for (Map.Entry<Object, KeyContention> e : sortedByWaitTime()) {
+         if (topN-- <= 0)
+            break;
+         KeyContention contention = e.getValue();
+         sb.append(toStr(e.getKey()))
+               .append(": stripe=").append(contention.stripe)
+               .append(", contended acquisitions=").append(contention.count.get())
+               .append(", wait time=").append(TimeUnit.NANOSECONDS.toMillis(contention.waitNanos.get())).append(" ms")
+               .append(", timeouts=").append(contention.timeouts.get())
+               .append(dedicatedLocks.containsKey(e.getKey()) ? ", dedicated lock" : "")
+               .append('\n');
+      }
+      return sb.toString();
+   }
+
+   @ManagedAttribute(description = "The keys on which lock acquisitions waited the longest", displayName = "Top contended keys", displayType = DisplayType.SUMMARY)
+   public String getTopContendedKeysAsString() {
+      return printTopContendedKeys(DEFAULT_TOP_KEYS);
+   }
+
+   @ManagedOperation(description = "Lists the lock stripes on which lock acquisitions waited the longest", displayName = "Top contended stripes")
+   public String printTopContendedStripes(@Parameter(name = "topN", description = "The maximum number of stripes to list") int topN) {
+      List<Integer> stripes = new ArrayList<Integer>(sharedLocks.length);
+      for (int i = 0; i < sharedLocks.length; i++) {
+         if (stripeContentions.get(i) > 0)
+            stripes.add(i);
+      }
+      Collections.sort(stripes, new Comparator<Integer>() {
+         @Override
+         public int compare(Integer s1, Integer s2) {
+            long w1 = stripeWaitNanos.get(s1);
+            long w2 = stripeWaitNanos.get(s2);
+            return w1 < w2 ? 1 : (w1 == w2 ? 0 : -1);
+         }
+      });
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < stripes.size() && i < topN; i++) {
+         int stripe = stripes.get(i);
+         sb.append("stripe ").append(stripe)
+               .append(": contended acquisitions=").append(stripeContentions.get(stripe))
+               .append(", wait time=").append(TimeUnit.NANOSECONDS.toMillis(stripeWaitNanos.get(stripe))).append(" ms")
+               .append('\n');
+      }
+      return sb.toString();
+   }
+
+   @ManagedAttribute(description = "Number of lock acquisitions which had to wait", displayName = "Contended lock acquisitions", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getContendedAcquisitions() {
+      return contentions.get();
+   }
+
+   @ManagedAttribute(description = "Average time spent by contended lock acquisitions waiting for the lock", displayName = "Average lock wait time", units = Units.MILLISECONDS, displayType = DisplayType.SUMMARY)
+   public long getAverageWaitTime() {
+      long count = contentions.get();
+      return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(waitNanos.get() / count);
+   }
+
+   @ManagedAttribute(description = "Number of lock acquisitions which timed out", displayName = "Lock acquisition timeouts", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getLockTimeouts() {
+      return timeouts.get();
+   }
+
+   @ManagedAttribute(description = "Number of keys which currently have a dedicated lock", displayName = "Dedicated locks", measurementType = MeasurementType.DYNAMIC, displayType = DisplayType.SUMMARY)
+   public int getDedicatedLocks() {
+      return dedicatedLocks.size();
+   }
+
+   @ManagedAttribute(description = "Number of times a contended key was given a dedicated lock", displayName = "Hot key promotions", measurementType = MeasurementType.TRENDSUP)
+   public long getPromotions() {
+      return promotions.get();
+   }
+
+   @ManagedAttribute(description = "Number of times a key lost its dedicated lock", displayName = "Hot key demotions", measurementType = MeasurementType.TRENDSUP)
+   public long getDemotions() {
+      return demotions.get();
+   }
+
+   @ManagedAttribute(description = "Number of lock stripes", displayName = "Lock stripes", dataType = DataType.TRAIT)
+   public int getStripes() {
+      return sharedLocks.length;
+   }
+
+   @ManagedOperation(description = "Resets statistics gathered by this component", displayName = "Reset statistics")
+   public void resetStatistics() {
+      contentions.set(0);
+      waitNanos.set(0);
+      timeouts.set(0);
+      promotions.set(0);
+      demotions.set(0);
+      for (int i = 0; i < sharedLocks.length; i++) {
+         stripeContentions.set(i, 0);
+         stripeWaitNanos.set(i, 0);
+      }
+      // the recent contention of the keys with a dedicated lock is kept, so that they are not demoted
+      for (KeyContention contention : trackedKeys.values()) {
+         contention.count.set(0);
+         contention.waitNanos.set(0);
+         contention.timeouts.set(0);
+      }
+   }
+
+   private L getSharedLock(int index) {
+      return getShared(sharedLocks[index]);
+   }
+
+   @SuppressWarnings("unchecked")
+   private L getShared(Object lock) {
+      return (L) lock;
+   }
+
+   @Override
+   public String toString() {
+      return getClass().getSimpleName() + "{" +
+            "stripes=" + sharedLocks.length +
+            ", dedicatedLocks=" + dedicatedLocks.keySet() +
+            '}';
+   }
+
+   private static final class KeyContention {
+      final int stripe;
+      final AtomicInteger recent = new AtomicInteger();
+      final AtomicLong count = new AtomicLong();
+      final AtomicLong waitNanos = new AtomicLong();
+      final AtomicLong timeouts = new AtomicLong();
+
+      KeyContention(int stripe) {
+         this.stripe = stripe;
+      }
+
+      void record(long waited, boolean timedOut) {
+         recent.incrementAndGet();
+         count.incrementAndGet();
+         waitNanos.addAndGet(waited);
+         if (timedOut)
+            timeouts.incrementAndGet();
+      }
+   }
+}
@@ -1,5 +1,7 @@
 package org.infinispan.util.concurrent.locks.containers;
 
+import org.infinispan.util.concurrent.locks.OwnableReentrantLock;
+import org.infinispan.util.concurrent.locks.VisibleOwnerReentrantLock;
 import org.infinispan.util.logging.Log;
 
 import java.util.concurrent.TimeUnit;
@@ -7,6 +9,35 @@
 
 public abstract class AbstractLockContainer<L extends Lock> implements LockContainer<L> {
 
+   private static final String ANOTHER_THREAD = "(another thread)";
+
+   @Override
+   public Object getOwner(Object key) {
+      if (isLocked(key)) {
+         return ownerOf(getLock(key));
+      } else {
+         // not locked
+         return null;
+      }
+   }
+
+   /**
+    * @return the owner of a held lock
+    */
+   protected Object ownerOf(L lock) {
+      if (lock instanceof OwnableReentrantLock) {
+         return ((OwnableReentrantLock) lock).getOwner();
+      } else if (lock instanceof VisibleOwnerReentrantLock) {
+         Thread owner = ((VisibleOwnerReentrantLock) lock).getOwner();
+         // Don't assume the key is unlocked if getOwner() returned null.
+         // JDK ReentrantLocks can return null e.g. if another thread is in the process of acquiring the lock
+         if (owner != null)
+            return owner;
+      }
+
+      return ANOTHER_THREAD;
+   }
+
    /**
     * Releases a lock and swallows any IllegalMonitorStateExceptions - so it is safe to call this method even if the
     * lock is not locked, or not locked by the current thread.
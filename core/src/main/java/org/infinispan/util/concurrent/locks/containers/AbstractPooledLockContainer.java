@@ -0,0 +1,378 @@
+package org.infinispan.util.concurrent.locks.containers;
+
+import org.infinispan.commons.util.Util;
+import org.infinispan.util.concurrent.locks.RefCountingLock;
+import org.infinispan.util.logging.Log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.infinispan.commons.util.Util.toStr;
+
+/**
+ * A lock container that maps each locked entry to its own lock, like {@link AbstractPerEntryLockContainer}, but
+ * recycles the lock instances instead of allocating a new one every time an unlocked entry is locked.
+ * <p/>
+ * The keys are split in segments, and each segment keeps an open-addressing table of the locked keys together with a
+ * small pool of released locks. Acquiring the lock of an unlocked key only needs a short critical section on the
+ * segment, takes a lock from the pool and acquires it without contention. Lookups that don't acquire or release a
+ * lock ({@link #getLock(Object)}, {@link #isLocked(Object)}, {@link #ownsLock(Object, Object)},
+ * {@link #getOwner(Object)}) don't block: they
+ * read the table optimistically and validate the read against the segment stamp, which changes every time a lock is
+ * added to or removed from the table, falling back to the critical section if a writer interfered.
+ * <p/>
+ * Since the locks are recycled, a lock returned by {@link #getLock(Object)} must not be used once the entry is
+ * released.
+ *
+ * @since 6.0
+ */
+public abstract class AbstractPooledLockContainer<L extends RefCountingLock> extends AbstractLockContainer<L> {
+
+   private static final int MAX_SEGMENTS = 1 << 16;
+   private static final int INITIAL_TABLE_CAPACITY = 8;
+   private static final int MAX_POOLED_LOCKS = 16;
+   private static final int OPTIMISTIC_READ_ATTEMPTS = 2;
+
+   private final Segment<L>[] segments;
+   private final int segmentMask;
+
+   @SuppressWarnings("unchecked")
+   protected AbstractPooledLockContainer(int concurrencyLevel) {
+      int numSegments = 1;
+      while (numSegments < concurrencyLevel && numSegments < MAX_SEGMENTS) {
+         numSegments <<= 1;
+      }
+      segments = new Segment[numSegments];
+      for (int i = 0; i < numSegments; i++) {
+         segments[i] = new Segment<L>();
+      }
+      segmentMask = numSegments - 1;
+   }
+
+   protected abstract L newLock();
+
+   /**
+    * @return true if the lock is held by the given owner
+    */
+   protected abstract boolean isOwnedBy(L lock, Object owner);
+
+   /**
+    * @return true if the lock is held by any owner
+    */
+   protected abstract boolean isHeld(L lock);
+
+   @Override
+   public final L getLock(Object key) {
+      int hash = hash(key);
+      Segment<L> segment = segmentFor(hash);
+      for (int attempt = 0; attempt < OPTIMISTIC_READ_ATTEMPTS; attempt++) {
+         int stamp = segment.stamp;
+         if ((stamp & 1) == 0) {
+            L lock = segment.table.get(key, hash);
+            if (segment.stamp == stamp)
+               return lock;
+         }
+      }
+      synchronized (segment) {
+         return segment.table.get(key, hash);
+      }
+   }
+
+   @Override
+   public boolean ownsLock(Object key, Object owner) {
+      int hash = hash(key);
+      Segment<L> segment = segmentFor(hash);
+      for (int attempt = 0; attempt < OPTIMISTIC_READ_ATTEMPTS; attempt++) {
+         int stamp = segment.stamp;
+         if ((stamp & 1) == 0) {
+            L lock = segment.table.get(key, hash);
+            // a lock removed from the table in the meantime might have been recycled for another key
+            boolean owned = lock != null && isOwnedBy(lock, owner);
+            if (segment.stamp == stamp)
+               return owned;
+         }
+      }
+      synchronized (segment) {
+         L lock = segment.table.get(key, hash);
+         return lock != null && isOwnedBy(lock, owner);
+      }
+   }
+
+   @Override
+   public boolean isLocked(Object key) {
+      int hash = hash(key);
+      Segment<L> segment = segmentFor(hash);
+      for (int attempt = 0; attempt < OPTIMISTIC_READ_ATTEMPTS; attempt++) {
+         int stamp = segment.stamp;
+         if ((stamp & 1) == 0) {
+            L lock = segment.table.get(key, hash);
+            boolean locked = lock != null && isHeld(lock);
+            if (segment.stamp == stamp)
+               return locked;
+         }
+      }
+      synchronized (segment) {
+         L lock = segment.table.get(key, hash);
+         return lock != null && isHeld(lock);
+      }
+   }
+
+   @Override
+   public Object getOwner(Object key) {
+      int hash = hash(key);
+      Segment<L> segment = segmentFor(hash);
+      for (int attempt = 0; attempt < OPTIMISTIC_READ_ATTEMPTS; attempt++) {
+         int stamp = segment.stamp;
+         if ((stamp & 1) == 0) {
+            L lock = segment.table.get(key, hash);
+            // the owner of a lock recycled for another key in the meantime is discarded by the validation
+            Object owner = lock != null && isHeld(lock) ? ownerOf(lock) : null;
+            if (segment.stamp == stamp)
+               return owner;
+         }
+      }
+      synchronized (segment) {
+         L lock = segment.table.get(key, hash);
+         return lock != null && isHeld(lock) ? ownerOf(lock) : null;
+      }
+   }
+
+   @Override
+   public int getNumLocksHeld() {
+      return size();
+   }
+
+   @Override
+   public int size() {
+      int size = 0;
+      for (Segment<L> segment : segments) {
+         size += segment.table.size;
+      }
+      return size;
+   }
+
+   @Override
+   public L acquireLock(Object lockOwner, Object key, long timeout, TimeUnit unit) throws InterruptedException {
+      int hash = hash(key);
+      Segment<L> segment = segmentFor(hash);
+      L lock;
+      synchronized (segment) {
+         lock = segment.table.get(key, hash);
+         if (lock == null) {
+            Log log = getLog();
+            if (log.isTraceEnabled())
+               log.tracef("Acquiring pooled lock instance for key %s", toStr(key));
+
+            lock = segment.borrow();
+            if (lock == null) {
+               lock = newLock();
+            } else {
+               lock.getReferenceCounter().set(1);
+            }
+            // Nobody else references this lock, so it is certainly uncontended.
+            lock(lock, lockOwner);
+            segment.put(key, hash, lock);
+            return lock;
+         }
+
+         // No need to worry about concurrent updates - releases happen in the same critical section
+         int refCount = lock.getReferenceCounter().incrementAndGet();
+         if (refCount <= 1) {
+            throw new IllegalStateException("Lock " + key + " acquired although it should have been removed: " + lock);
+         }
+      }
+
+      if (tryLock(lock, timeout, unit, lockOwner))
+         return lock;
+
+      getLog().tracef("Timed out attempting to acquire lock for key %s after %s", key, Util.prettyPrintTime(timeout, unit));
+
+      // We didn't acquire the lock, but we still incremented the reference count.
+      // The owner might have released it just after we timed out, in which case we remove it.
+      synchronized (segment) {
+         if (lock.getReferenceCounter().decrementAndGet() == 0) {
+            segment.remove(key, hash);
+            segment.recycle(lock);
+         }
+      }
+      return null;
+   }
+
+   @Override
+   public void releaseLock(Object lockOwner, Object key) {
+      int hash = hash(key);
+      Segment<L> segment = segmentFor(hash);
+      synchronized (segment) {
+         L lock = segment.table.get(key, hash);
+         if (lock == null)
+            return;
+
+         Log log = getLog();
+         if (log.isTraceEnabled())
+            log.tracef("Unlocking pooled lock instance for key %s", toStr(key));
+
+         // If the unlock is not successful, an exception will propagate and the table will not be changed.
+         unlock(lock, lockOwner);
+
+         int refCount = lock.getReferenceCounter().decrementAndGet();
+         if (refCount < 0) {
+            throw new IllegalStateException("Negative reference count for lock " + key + ": " + lock);
+         }
+         if (refCount == 0) {
+            segment.remove(key, hash);
+            segment.recycle(lock);
+         }
+      }
+   }
+
+   @Override
+   public int getLockId(Object key) {
+      L lock = getLock(key);
+      return lock == null ? -1 : System.identityHashCode(lock);
+   }
+
+   private Segment<L> segmentFor(int hash) {
+      return segments[(hash >>> 16) & segmentMask];
+   }
+
+   private static int hash(Object key) {
+      int h = key.hashCode();
+      h ^= (h >>> 20) ^ (h >>> 12);
+      return h ^ (h >>> 7) ^ (h >>> 4);
+   }
+
+   @Override
+   public String toString() {
+      return getClass().getSimpleName() + "{" +
+            "segments=" + segments.length +
+            ", size=" + size() +
+            '}';
+   }
+
+   /**
+    * The locks of the keys mapped to a segment. All modifications happen while holding the segment monitor; the stamp
+    * is odd while a modification is in progress.
+    */
+   private static final class Segment<L> {
+      volatile int stamp;
+      volatile Table<L> table = new Table<L>(INITIAL_TABLE_CAPACITY);
+      private final Object[] pool = new Object[MAX_POOLED_LOCKS];
+      private int pooled;
+
+      @SuppressWarnings("unchecked")
+      L borrow() {
+         if (pooled == 0)
+            return null;
+         L lock = (L) pool[--pooled];
+         pool[pooled] = null;
+         return lock;
+      }
+
+      void recycle(L lock) {
+         if (pooled < MAX_POOLED_LOCKS)
+            pool[pooled++] = lock;
+      }
+
+      void put(Object key, int hash, L lock) {
+         stamp++;
+         try {
+            Table<L> t = table;
+            if ((t.size + 1) * 4 > t.capacity() * 3) {
+               t = t.resize(t.capacity() * 2);
+               table = t;
+            }
+            t.put(key, hash, lock);
+         } finally {
+            stamp++;
+         }
+      }
+
+      void remove(Object key, int hash) {
+         stamp++;
+         try {
+            table.remove(key, hash);
+         } finally {
+            stamp++;
+         }
+      }
+   }
+
+   /**
+    * An open-addressing hash table with linear probing. Deletions shift the following entries back instead of leaving
+    * tombstones, so lookups never scan more than the cluster the key belongs to. The slots are read with volatile
+    * semantics, so that optimistic readers see the writes of the segment in order.
+    */
+   private static final class Table<L> {
+      private final AtomicReferenceArray<Object> keys;
+      private final AtomicReferenceArray<L> locks;
+      private final int mask;
+      int size;
+
+      Table(int capacity) {
+         keys = new AtomicReferenceArray<Object>(capacity);
+         locks = new AtomicReferenceArray<L>(capacity);
+         mask = capacity - 1;
+      }
+
+      int capacity() {
+         return mask + 1;
+      }
+
+      L get(Object key, int hash) {
+         for (int i = hash & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+            Object k = keys.get(i);
+            if (k == null)
+               return null;
+            if (k.equals(key))
+               return locks.get(i);
+         }
+         return null;
+      }
+
+      void put(Object key, int hash, L lock) {
+         int i = hash & mask;
+         while (keys.get(i) != null) {
+            i = (i + 1) & mask;
+         }
+         // publish the lock before the key, so that a reader finding the key also finds its lock
+         locks.set(i, lock);
+         keys.set(i, key);
+         size++;
+      }
+
+      void remove(Object key, int hash) {
+         int i = hash & mask;
+         Object k;
+         while ((k = keys.get(i)) != null && !k.equals(key)) {
+            i = (i + 1) & mask;
+         }
+         if (k == null)
+            return;
+
+         // shift back the following entries of the cluster that would otherwise become unreachable
+         int hole = i;
+         for (int j = (i + 1) & mask; (k = keys.get(j)) != null; j = (j + 1) & mask) {
+            int home = hash(k) & mask;
+            boolean movable = hole <= j ? (home <= hole || home > j) : (home <= hole && home > j);
+            if (movable) {
+               locks.set(hole, locks.get(j));
+               keys.set(hole, k);
+               hole = j;
+            }
+         }
+         keys.set(hole, null);
+         locks.set(hole, null);
+         size--;
+      }
+
+      Table<L> resize(int capacity) {
+         Table<L> resized = new Table<L>(capacity);
+         for (int i = 0; i <= mask; i++) {
+            Object k = keys.get(i);
+            if (k != null)
+               resized.put(k, hash(k), locks.get(i));
+         }
+         return resized;
+      }
+   }
+}
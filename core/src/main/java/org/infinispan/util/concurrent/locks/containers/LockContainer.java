@@ -32,6 +32,16 @@
     */
    L getLock(Object key);
 
+   /**
+    * Retrieves the owner of the lock for a specific object. The lookup and the read of the owner are consistent with
+    * each other, so the returned owner is never the owner of a lock guarding another object.
+    *
+    * @param key object
+    * @return the owner of the lock, a placeholder if the object is locked by an owner that is not visible (e.g. a
+    *         thread in the process of acquiring a JDK lock), or null if the object is not locked
+    */
+   Object getOwner(Object key);
+
    /**
     * @return number of locks held
     */
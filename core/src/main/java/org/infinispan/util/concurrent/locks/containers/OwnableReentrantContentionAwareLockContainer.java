@@ -0,0 +1,69 @@
+package org.infinispan.util.concurrent.locks.containers;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.util.concurrent.locks.OwnableReentrantLock;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A contention aware lock container that holds {@link OwnableReentrantLock}s.
+ *
+ * @see AbstractContentionAwareLockContainer
+ * @since 6.0
+ */
+@ThreadSafe
+public class OwnableReentrantContentionAwareLockContainer extends AbstractContentionAwareLockContainer<OwnableReentrantLock> {
+
+   private static final Log log = LogFactory.getLog(OwnableReentrantContentionAwareLockContainer.class);
+
+   @Override
+   protected Log getLog() {
+      return log;
+   }
+
+   public OwnableReentrantContentionAwareLockContainer(int concurrencyLevel) {
+      this(concurrencyLevel, DEFAULT_HOT_KEY_THRESHOLD, concurrencyLevel, DEFAULT_MAX_TRACKED_KEYS, DEFAULT_DECAY_INTERVAL);
+   }
+
+   public OwnableReentrantContentionAwareLockContainer(int concurrencyLevel, int hotKeyThreshold, int maxDedicatedLocks,
+                                                       int maxTrackedKeys, long decayInterval) {
+      super(concurrencyLevel, hotKeyThreshold, maxDedicatedLocks, maxTrackedKeys, decayInterval);
+   }
+
+   @Override
+   protected OwnableReentrantLock newLock() {
+      return new OwnableReentrantLock();
+   }
+
+   @Override
+   protected boolean isOwnedBy(OwnableReentrantLock lock, Object owner) {
+      return owner.equals(lock.getOwner());
+   }
+
+   @Override
+   protected boolean isHeld(OwnableReentrantLock lock) {
+      return lock.isLocked();
+   }
+
+   @Override
+   protected boolean hasWaiters(OwnableReentrantLock lock) {
+      return lock.hasQueuedThreads();
+   }
+
+   @Override
+   protected boolean tryLock(OwnableReentrantLock lock, long timeout, TimeUnit unit, Object lockOwner) throws InterruptedException {
+      return lock.tryLock(lockOwner, timeout, unit);
+   }
+
+   @Override
+   protected void lock(OwnableReentrantLock lock, Object lockOwner) {
+      lock.lock(lockOwner);
+   }
+
+   @Override
+   protected void unlock(OwnableReentrantLock l, Object owner) {
+      l.unlock(owner);
+   }
+}
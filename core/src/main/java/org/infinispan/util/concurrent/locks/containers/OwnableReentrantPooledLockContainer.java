@@ -0,0 +1,56 @@
+package org.infinispan.util.concurrent.locks.containers;
+
+import org.infinispan.util.concurrent.locks.OwnableRefCountingReentrantLock;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A pooled lock container for OwnableReentrantLocks
+ *
+ * @since 6.0
+ */
+public class OwnableReentrantPooledLockContainer extends AbstractPooledLockContainer<OwnableRefCountingReentrantLock> {
+
+   private static final Log log = LogFactory.getLog(OwnableReentrantPooledLockContainer.class);
+
+   @Override
+   protected Log getLog() {
+      return log;
+   }
+
+   public OwnableReentrantPooledLockContainer(int concurrencyLevel) {
+      super(concurrencyLevel);
+   }
+
+   @Override
+   protected OwnableRefCountingReentrantLock newLock() {
+      return new OwnableRefCountingReentrantLock();
+   }
+
+   @Override
+   protected boolean isOwnedBy(OwnableRefCountingReentrantLock lock, Object owner) {
+      return owner.equals(lock.getOwner());
+   }
+
+   @Override
+   protected boolean isHeld(OwnableRefCountingReentrantLock lock) {
+      return lock.isLocked();
+   }
+
+   @Override
+   protected boolean tryLock(OwnableRefCountingReentrantLock lock, long timeout, TimeUnit unit, Object lockOwner) throws InterruptedException {
+      return lock.tryLock(lockOwner, timeout, unit);
+   }
+
+   @Override
+   protected void lock(OwnableRefCountingReentrantLock lock, Object lockOwner) {
+      lock.lock(lockOwner);
+   }
+
+   @Override
+   protected void unlock(OwnableRefCountingReentrantLock l, Object owner) {
+      l.unlock(owner);
+   }
+}
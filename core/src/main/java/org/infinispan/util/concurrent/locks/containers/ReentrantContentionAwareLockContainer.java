@@ -0,0 +1,69 @@
+package org.infinispan.util.concurrent.locks.containers;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.util.concurrent.locks.VisibleOwnerReentrantLock;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A contention aware lock container that holds {@link java.util.concurrent.locks.ReentrantLock}s.
+ *
+ * @see AbstractContentionAwareLockContainer
+ * @since 6.0
+ */
+@ThreadSafe
+public class ReentrantContentionAwareLockContainer extends AbstractContentionAwareLockContainer<VisibleOwnerReentrantLock> {
+
+   private static final Log log = LogFactory.getLog(ReentrantContentionAwareLockContainer.class);
+
+   @Override
+   protected Log getLog() {
+      return log;
+   }
+
+   public ReentrantContentionAwareLockContainer(int concurrencyLevel) {
+      this(concurrencyLevel, DEFAULT_HOT_KEY_THRESHOLD, concurrencyLevel, DEFAULT_MAX_TRACKED_KEYS, DEFAULT_DECAY_INTERVAL);
+   }
+
+   public ReentrantContentionAwareLockContainer(int concurrencyLevel, int hotKeyThreshold, int maxDedicatedLocks,
+                                                int maxTrackedKeys, long decayInterval) {
+      super(concurrencyLevel, hotKeyThreshold, maxDedicatedLocks, maxTrackedKeys, decayInterval);
+   }
+
+   @Override
+   protected VisibleOwnerReentrantLock newLock() {
+      return new VisibleOwnerReentrantLock();
+   }
+
+   @Override
+   protected boolean isOwnedBy(VisibleOwnerReentrantLock lock, Object ignored) {
+      return lock.isHeldByCurrentThread();
+   }
+
+   @Override
+   protected boolean isHeld(VisibleOwnerReentrantLock lock) {
+      return lock.isLocked();
+   }
+
+   @Override
+   protected boolean hasWaiters(VisibleOwnerReentrantLock lock) {
+      return lock.hasQueuedThreads();
+   }
+
+   @Override
+   protected void unlock(VisibleOwnerReentrantLock l, Object unused) {
+      l.unlock();
+   }
+
+   @Override
+   protected boolean tryLock(VisibleOwnerReentrantLock lock, long timeout, TimeUnit unit, Object unused) throws InterruptedException {
+      return lock.tryLock(timeout, unit);
+   }
+
+   @Override
+   protected void lock(VisibleOwnerReentrantLock lock, Object lockOwner) {
+      lock.lock();
+   }
+}
@@ -0,0 +1,56 @@
+package org.infinispan.util.concurrent.locks.containers;
+
+import org.infinispan.util.concurrent.locks.VisibleOwnerRefCountingReentrantLock;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A pooled lock container for ReentrantLocks
+ *
+ * @since 6.0
+ */
+public class ReentrantPooledLockContainer extends AbstractPooledLockContainer<VisibleOwnerRefCountingReentrantLock> {
+
+   private static final Log log = LogFactory.getLog(ReentrantPooledLockContainer.class);
+
+   @Override
+   protected Log getLog() {
+      return log;
+   }
+
+   public ReentrantPooledLockContainer(int concurrencyLevel) {
+      super(concurrencyLevel);
+   }
+
+   @Override
+   protected VisibleOwnerRefCountingReentrantLock newLock() {
+      return new VisibleOwnerRefCountingReentrantLock();
+   }
+
+   @Override
+   protected boolean isOwnedBy(VisibleOwnerRefCountingReentrantLock lock, Object ignored) {
+      return lock.isHeldByCurrentThread();
+   }
+
+   @Override
+   protected boolean isHeld(VisibleOwnerRefCountingReentrantLock lock) {
+      return lock.isLocked();
+   }
+
+   @Override
+   protected void unlock(VisibleOwnerRefCountingReentrantLock l, Object unused) {
+      l.unlock();
+   }
+
+   @Override
+   protected boolean tryLock(VisibleOwnerRefCountingReentrantLock lock, long timeout, TimeUnit unit, Object unused) throws InterruptedException {
+      return lock.tryLock(timeout, unit);
+   }
+
+   @Override
+   protected void lock(VisibleOwnerRefCountingReentrantLock lock, Object lockOwner) {
+      lock.lock();
+   }
+}
@@ -1022,5 +1022,17 @@ void asyncStoreShutdownTimeoutTooHigh(long configuredAsyncStopTimeout,
 
    @Message(value = "Indexing can only be enabled if infinispan-query.jar is available on your classpath, and this jar has not been detected.", id = 276)
    CacheConfigurationException invalidConfigurationIndexingWithoutModule();
+
+   @LogMessage(level = ERROR)
+   @Message(value = "Error compacting log file %s", id = 277)
+   void errorCompactingLogFile(String file, @Cause Throwable t);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Truncating log file %s at offset %d, the rest of the file is incomplete or corrupted", id = 278)
+   void truncatingLogFile(String file, long offset);
+
+   @LogMessage(level = WARN)
+   @Message(value = "The event queue of listener %s is full, events are being dropped", id = 279)
+   void droppingListenerEvents(Object listener);
    
 }
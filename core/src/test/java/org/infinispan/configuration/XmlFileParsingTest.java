@@ -164,7 +164,7 @@ public void testBackwardCompatibleInputCacheConfiguration() throws Exception {
    public void testNoSchemaWithStuff() throws IOException {
       String config = INFINISPAN_START_TAG_NO_SCHEMA +
             "    <default>\n" +
-            "        <locking concurrencyLevel=\"10000\" isolationLevel=\"REPEATABLE_READ\" />\n" +
+            "        <locking concurrencyLevel=\"10000\" isolationLevel=\"REPEATABLE_READ\" useLockPooling=\"true\" />\n" +
             "    </default>\n" +
             INFINISPAN_END_TAG;
 
@@ -176,6 +176,7 @@ public void call() {
             Configuration cfg = cm.getDefaultCacheConfiguration();
             assertEquals(10000, cfg.locking().concurrencyLevel());
             assertEquals(IsolationLevel.REPEATABLE_READ, cfg.locking().isolationLevel());
+            assertTrue(cfg.locking().useLockPooling());
          }
 
       });
@@ -7,8 +7,14 @@
 import org.infinispan.container.entries.MortalCacheEntry;
 import org.infinispan.container.entries.TransientCacheEntry;
 import org.infinispan.container.entries.TransientMortalCacheEntry;
+import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.EvictionManager;
+import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.eviction.EvictionThreadPolicy;
+import org.infinispan.eviction.PassivationManager;
 import org.infinispan.test.AbstractInfinispanTest;
 import org.infinispan.util.CoreImmutables;
+import org.infinispan.util.DefaultTimeService;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -18,6 +24,7 @@
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import static org.mockito.Mockito.mock;
 import static org.testng.AssertJUnit.assertEquals;
 
 @Test(groups = "unit", testName = "container.SimpleDataContainerTest")
@@ -274,5 +281,73 @@ public void testGetDuringKeySetLoop() {
       }
 
       assert i == 10 : "Expected the loop to run 10 times, only ran " + i;
-   }   
+   }
+
+   public void testPurgeExpiredOnlyRemovesExpiredEntries() {
+      ControlledTimeService timeService = new ControlledTimeService();
+      DefaultDataContainer dc = new DefaultDataContainer(16, AnyEquivalence.getInstance(), AnyEquivalence.getInstance());
+      InternalEntryFactoryImpl internalEntryFactory = new InternalEntryFactoryImpl();
+      internalEntryFactory.injectTimeService(timeService);
+      dc.initialize(null, null, internalEntryFactory, null, null, timeService);
+
+      for (int i = 0; i < 100; i++) dc.put("immortal" + i, "value", new EmbeddedMetadata.Builder().build());
+      for (int i = 0; i < 10; i++) dc.put("mortal" + i, "value", new EmbeddedMetadata.Builder().lifespan(50, TimeUnit.MILLISECONDS).build());
+      dc.put("long-lived", "value", new EmbeddedMetadata.Builder().lifespan(100, TimeUnit.MINUTES).build());
+      dc.put("transient", "value", new EmbeddedMetadata.Builder().maxIdle(300, TimeUnit.MILLISECONDS).build());
+      assertEquals(12, dc.expirationIndex.size());
+
+      // removed and overwritten entries drop their records from the index
+      dc.put("removed", "value", new EmbeddedMetadata.Builder().lifespan(50, TimeUnit.MILLISECONDS).build());
+      dc.remove("removed");
+      dc.put("replaced", "value", new EmbeddedMetadata.Builder().lifespan(50, TimeUnit.MILLISECONDS).build());
+      dc.put("replaced", "value", new EmbeddedMetadata.Builder().lifespan(100, TimeUnit.MINUTES).build());
+      dc.put("immortalized", "value", new EmbeddedMetadata.Builder().lifespan(50, TimeUnit.MILLISECONDS).build());
+      dc.put("immortalized", "value", new EmbeddedMetadata.Builder().build());
+      assertEquals(114, dc.size());
+      assertEquals(13, dc.expirationIndex.size());
+
+      timeService.advance(200);
+      // touching the transient entry moves its expiry time past the next purge
+      assert dc.get("transient") != null;
+      dc.purgeExpired();
+      assertEquals(104, dc.size());
+      assertEquals(3, dc.expirationIndex.size());
+      assert dc.peek("long-lived") != null;
+      assert dc.peek("transient") != null;
+      assert dc.peek("replaced") != null;
+
+      timeService.advance(400);
+      dc.purgeExpired();
+      assertEquals(103, dc.size());
+      assertEquals(2, dc.expirationIndex.size());
+      assert dc.peek("transient") == null;
+   }
+
+   public void testEvictionDropsIndexRecords() {
+      DefaultDataContainer dc = (DefaultDataContainer) DefaultDataContainer.boundedDataContainer(1, 4,
+            EvictionStrategy.LRU, EvictionThreadPolicy.DEFAULT, AnyEquivalence.getInstance(), AnyEquivalence.getInstance());
+      InternalEntryFactoryImpl internalEntryFactory = new InternalEntryFactoryImpl();
+      internalEntryFactory.injectTimeService(TIME_SERVICE);
+      dc.initialize(mock(EvictionManager.class), mock(PassivationManager.class), internalEntryFactory,
+            mock(ActivationManager.class), null, TIME_SERVICE);
+
+      for (int i = 0; i < 20; i++) {
+         dc.put("k" + i, "value", new EmbeddedMetadata.Builder().lifespan(100, TimeUnit.MINUTES).build());
+      }
+      assert dc.size() < 20;
+      assertEquals(dc.size(), dc.expirationIndex.size());
+   }
+
+   private static class ControlledTimeService extends DefaultTimeService {
+      private volatile long now = System.currentTimeMillis();
+
+      @Override
+      public long wallClockTime() {
+         return now;
+      }
+
+      void advance(long millis) {
+         now += millis;
+      }
+   }
 }
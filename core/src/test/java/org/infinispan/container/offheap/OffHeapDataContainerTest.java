@@ -0,0 +1,132 @@
+package org.infinispan.container.offheap;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.factories.ComponentRegistry;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.TimeService;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+@Test(groups = "functional", testName = "container.offheap.OffHeapDataContainerTest")
+public class OffHeapDataContainerTest extends SingleCacheManagerTest {
+
+   private static final int MAX_ENTRIES = 128;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder cfg = new ConfigurationBuilder();
+      cfg.dataContainer().offHeap(true);
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(cfg);
+      ConfigurationBuilder bounded = new ConfigurationBuilder();
+      bounded.dataContainer().offHeap(true)
+            .eviction().strategy(EvictionStrategy.LRU).maxEntries(MAX_ENTRIES);
+      cm.defineConfiguration("bounded", bounded.build());
+      cache = cm.getCache();
+      return cm;
+   }
+
+   public void testContainerType() {
+      assertTrue(container() instanceof OffHeapDataContainer);
+   }
+
+   public void testPutGetRemove() {
+      cache.put("k1", "v1");
+      cache.put("k2", "v2");
+      assertEquals("v1", cache.get("k1"));
+      assertEquals(2, cache.size());
+      assertTrue(((OffHeapDataContainer) container()).getAllocatedMemory() > 0);
+
+      cache.put("k1", "v1-updated");
+      assertEquals("v1-updated", cache.get("k1"));
+      assertEquals(2, cache.size());
+
+      assertEquals("v2", cache.remove("k2"));
+      assertNull(cache.get("k2"));
+      assertFalse(cache.containsKey("k2"));
+      assertEquals(1, cache.size());
+
+      Set<Object> keys = new HashSet<Object>();
+      for (InternalCacheEntry ice : container())
+         keys.add(ice.getKey());
+      assertEquals(1, keys.size());
+      assertTrue(keys.contains("k1"));
+
+      cache.clear();
+      assertEquals(0, cache.size());
+   }
+
+   public void testManyEntries() {
+      for (int i = 0; i < 10000; i++)
+         cache.put(i, "value" + i);
+      assertEquals(10000, cache.size());
+      for (int i = 0; i < 10000; i++)
+         assertEquals("value" + i, cache.get(i));
+      cache.clear();
+      assertEquals(0, ((OffHeapDataContainer) container()).getNumberOfEntries());
+   }
+
+   public void testExpiration() throws Exception {
+      cache.put("mortal", "v", 50, TimeUnit.MILLISECONDS);
+      cache.put("immortal", "v");
+      InternalCacheEntry ice = container().peek("mortal");
+      assertEquals(50, ice.getLifespan());
+      Thread.sleep(100);
+      container().purgeExpired();
+      assertNull(container().peek("mortal"));
+      assertEquals("v", cache.get("immortal"));
+   }
+
+   public void testEviction() {
+      DataContainer dc = TestingUtil.extractComponent(cacheManager.getCache("bounded"), DataContainer.class);
+      for (int i = 0; i < MAX_ENTRIES * 4; i++)
+         cacheManager.getCache("bounded").put(i, i);
+      assertTrue("Container size is " + dc.size(), dc.size() <= MAX_ENTRIES + ((OffHeapDataContainer) dc).getNumberOfSegments());
+   }
+
+   public void testAccessAfterStop() {
+      ComponentRegistry registry = cache.getAdvancedCache().getComponentRegistry();
+      OffHeapDataContainer dc = new OffHeapDataContainer(4);
+      dc.initialize(registry.getCacheMarshaller(), null, null, registry.getComponent(InternalEntryFactory.class), null,
+                    null, registry.getComponent(TimeService.class));
+      dc.start();
+      dc.put("k", "v", new EmbeddedMetadata.Builder().build());
+      dc.stop();
+
+      // in-flight operations see an empty container instead of reading freed memory
+      assertNull(dc.get("k"));
+      assertNull(dc.peek("k"));
+      assertFalse(dc.containsKey("k"));
+      assertNull(dc.remove("k"));
+      assertFalse(dc.iterator().hasNext());
+      dc.purgeExpired();
+      assertEquals(0, dc.size());
+      assertEquals(0, dc.getAllocatedMemory());
+      try {
+         dc.put("k", "v", new EmbeddedMetadata.Builder().build());
+         fail("Writes to a stopped container should fail");
+      } catch (IllegalStateException expected) {
+      }
+      assertEquals(0, dc.getAllocatedMemory());
+   }
+
+   private DataContainer container() {
+      return TestingUtil.extractComponent(cache, DataContainer.class);
+   }
+}
@@ -0,0 +1,92 @@
+package org.infinispan.distexec.mapreduce;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests mapping the local keys of each node with several threads.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "distexec.mapreduce.ParallelMappingMapReduceTest")
+public class ParallelMappingMapReduceTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_KEYS = 8 * MapReduceManagerImpl.MIN_KEYS_PER_MAP_PART;
+   private static final int NUM_WORDS = 10;
+
+   static final Set<String> mappingThreads = Collections.synchronizedSet(new HashSet<String>());
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      for (int i = 0; i < 2; i++) {
+         GlobalConfigurationBuilder globalBuilder = GlobalConfigurationBuilder.defaultClusteredBuilder();
+         globalBuilder.mapReduceExecutor().addProperty("maxThreads", "4");
+         addClusterEnabledCacheManager(globalBuilder, builder);
+      }
+      waitForClusterToForm();
+   }
+
+   @BeforeMethod
+   public void populate() {
+      mappingThreads.clear();
+      Cache<String, String> c = cache(0);
+      for (int i = 0; i < NUM_KEYS; i++) {
+         StringBuilder sentence = new StringBuilder();
+         for (int w = 0; w < NUM_WORDS; w++) {
+            sentence.append(" w").append((i + w) % NUM_WORDS);
+         }
+         c.put("k" + i, sentence.toString());
+      }
+   }
+
+   public void testLocalReduction() {
+      MapReduceTask<String, String, String, Integer> task = new MapReduceTask<String, String, String, Integer>(this.<String, String>cache(0));
+      task.mappedWith(new ThreadRecordingMapper()).reducedWith(new BaseWordCountMapReduceTest.WordCountReducer());
+      verify(task.execute());
+   }
+
+   public void testDistributedReductionWithCombiner() {
+      MapReduceTask<String, String, String, Integer> task = new MapReduceTask<String, String, String, Integer>(this.<String, String>cache(0), true, false);
+      task.mappedWith(new ThreadRecordingMapper()).reducedWith(new BaseWordCountMapReduceTest.WordCountReducer())
+            .combinedWith(new BaseWordCountMapReduceTest.WordCountReducer());
+      verify(task.execute());
+   }
+
+   public void testSpillingCollectors() {
+      MapReduceTask<String, String, String, Integer> task = new MapReduceTask<String, String, String, Integer>(this.<String, String>cache(0), true, false);
+      task.mappedWith(new ThreadRecordingMapper()).reducedWith(new BaseWordCountMapReduceTest.WordCountReducer())
+            .maxCollectorSize(100);
+      verify(task.execute());
+   }
+
+   private void verify(Map<String, Integer> result) {
+      assertEquals(NUM_WORDS, result.size());
+      for (int w = 0; w < NUM_WORDS; w++) {
+         assertEquals(NUM_KEYS, result.get("w" + w).intValue());
+      }
+      // the keys of a node are split in several parts, mapped by different threads
+      assertTrue("Keys mapped by " + mappingThreads, mappingThreads.size() > 1);
+   }
+
+   static class ThreadRecordingMapper extends BaseWordCountMapReduceTest.WordCountMapper {
+      @Override
+      public void map(String key, String value, Collector<String, Integer> collector) {
+         mappingThreads.add(Thread.currentThread().getName());
+         super.map(key, value, collector);
+      }
+   }
+}
@@ -0,0 +1,97 @@
+package org.infinispan.distexec.mapreduce;
+
+import org.infinispan.marshall.TestObjectStreamMarshaller;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the combining and spilling of intermediate values by {@link SpillingCollector}.
+ *
+ * @since 6.0
+ */
+@Test(groups = "unit", testName = "distexec.mapreduce.SpillingCollectorTest")
+public class SpillingCollectorTest extends AbstractInfinispanTest {
+
+   private static final int KEYS = 100;
+   private static final int VALUES_PER_KEY = 10;
+
+   public void testSpillWithoutCombiner() {
+      SpillingCollector<String, Integer> collector = new SpillingCollector<String, Integer>(
+            "t", null, 50, new TestObjectStreamMarshaller());
+      emitAll(collector);
+      assertTrue(collector.getSpilledRuns() > 1);
+
+      Map<String, Integer> sums = sumAll(collector);
+      assertEquals(KEYS, sums.size());
+      for (int k = 0; k < KEYS; k++) {
+         assertEquals(VALUES_PER_KEY * (VALUES_PER_KEY - 1) / 2, sums.get("k" + k).intValue());
+      }
+      collector.close();
+      assertEquals(0, collector.getSpilledRuns());
+   }
+
+   public void testCombinerAvoidsSpilling() {
+      SpillingCollector<String, Integer> collector = new SpillingCollector<String, Integer>(
+            "t", new BaseWordCountMapReduceTest.WordCountReducer(), 50, new TestObjectStreamMarshaller());
+      for (int i = 0; i < 1000; i++) {
+         collector.emit("k" + (i % 10), 1);
+      }
+      assertEquals(0, collector.getSpilledRuns());
+
+      Map<String, List<Integer>> values = collector.collectedValues();
+      assertEquals(10, values.size());
+      for (List<Integer> keyValues : values.values()) {
+         int sum = 0;
+         for (Integer i : keyValues) {
+            sum += i;
+         }
+         assertEquals(100, sum);
+         assertTrue(keyValues.size() <= 5);
+      }
+   }
+
+   public void testCollectedValuesMergesRuns() {
+      SpillingCollector<String, Integer> collector = new SpillingCollector<String, Integer>(
+            "t", null, 20, new TestObjectStreamMarshaller());
+      emitAll(collector);
+      Map<String, List<Integer>> values = collector.collectedValues();
+      assertEquals(KEYS, values.size());
+      for (List<Integer> keyValues : values.values()) {
+         assertEquals(VALUES_PER_KEY, keyValues.size());
+      }
+      assertEquals(0, collector.getSpilledRuns());
+   }
+
+   private void emitAll(SpillingCollector<String, Integer> collector) {
+      for (int i = 0; i < VALUES_PER_KEY; i++) {
+         for (int k = 0; k < KEYS; k++) {
+            collector.emit("k" + k, i);
+         }
+      }
+   }
+
+   private Map<String, Integer> sumAll(SpillingCollector<String, Integer> collector) {
+      Map<String, Integer> sums = new HashMap<String, Integer>();
+      Iterator<Entry<String, List<Integer>>> it = collector.iterator();
+      while (it.hasNext()) {
+         Entry<String, List<Integer>> e = it.next();
+         assertFalse("Key returned twice: " + e.getKey(), sums.containsKey(e.getKey()));
+         int sum = 0;
+         for (Integer i : e.getValue()) {
+            sum += i;
+         }
+         sums.put(e.getKey(), sum);
+      }
+      return sums;
+   }
+}
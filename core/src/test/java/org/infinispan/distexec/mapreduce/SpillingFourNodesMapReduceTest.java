@@ -0,0 +1,21 @@
+package org.infinispan.distexec.mapreduce;
+
+import org.infinispan.Cache;
+import org.testng.annotations.Test;
+
+/**
+ * SpillingFourNodesMapReduceTest tests Map/Reduce functionality using four Infinispan nodes,
+ * distributed reduce and a collector that combines and spills intermediate values to disk
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "distexec.mapreduce.SpillingFourNodesMapReduceTest")
+public class SpillingFourNodesMapReduceTest extends DistributedFourNodesMapReduceTest {
+
+   @SuppressWarnings({ "rawtypes", "unchecked" })
+   @Override
+   protected MapReduceTask<String, String, String, Integer> createMapReduceTask(Cache c){
+      //run distributed reduce with per task cache and at most 4 intermediate values in memory
+      return new MapReduceTask<String, String, String, Integer>(c, true, false).maxCollectorSize(4);
+   }
+}
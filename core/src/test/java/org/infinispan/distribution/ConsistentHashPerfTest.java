@@ -70,6 +70,61 @@ private Long doPerfTest(int numNodes, int numOwners, int iterations) {
       return duration;
    }
 
+   public void testLookupSpeed() {
+      int[] numNodes = {2, 10, 100};
+      int iterations = 1000000;
+      List<Object> keys = new ArrayList<Object>(iterations);
+      for (int i = 0; i < iterations; i++) keys.add(i);
+      // warmup
+      doLookupPerfTest(10, keys);
+
+      for (int nn : numNodes) {
+         doLookupPerfTest(nn, keys);
+      }
+   }
+
+   private void doLookupPerfTest(int numNodes, List<Object> keys) {
+      List<Address> addresses = createAddresses(numNodes);
+      ConsistentHash ch = createNewConsistentHash(addresses);
+      Address local = addresses.get(0);
+      int iterations = keys.size();
+
+      int owners = 0;
+      long start = System.nanoTime();
+      for (Object key : keys) {
+         owners += ch.locateOwners(key).size();
+      }
+      long locateOwnersDuration = System.nanoTime() - start;
+
+      int primary = 0;
+      start = System.nanoTime();
+      for (Object key : keys) {
+         if (ch.locatePrimaryOwner(key) == local) primary++;
+      }
+      long primaryOwnerDuration = System.nanoTime() - start;
+
+      int localKeys = 0;
+      start = System.nanoTime();
+      for (Object key : keys) {
+         if (ch.isKeyLocalToNode(local, key)) localKeys++;
+      }
+      long isLocalDuration = System.nanoTime() - start;
+
+      int allOwners = 0;
+      start = System.nanoTime();
+      for (int i = 0; i < iterations; i += 10) {
+         allOwners += ch.locateAllOwners(keys.subList(i, i + 10)).size();
+      }
+      long locateAllOwnersDuration = System.nanoTime() - start;
+
+      assert owners == iterations * min(2, numNodes);
+      assert primary <= localKeys && allOwners > 0;
+      System.out.printf("With %d cache(s), %d lookups: locateOwners %d ns/op, locatePrimaryOwner %d ns/op, " +
+                              "isKeyLocalToNode %d ns/op, locateAllOwners(10 keys) %d ns/op\n", numNodes, iterations,
+                        locateOwnersDuration / iterations, primaryOwnerDuration / iterations,
+                        isLocalDuration / iterations, locateAllOwnersDuration * 10 / iterations);
+   }
+
    public void testDistribution() {
       final int numKeys = 10000;
       final int[] numNodes = {1, 2, 3, 4, 10, 100, 1000};
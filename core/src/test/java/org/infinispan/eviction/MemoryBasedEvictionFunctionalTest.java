@@ -0,0 +1,47 @@
+package org.infinispan.eviction;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.DefaultDataContainer;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+@Test(groups = "functional", testName = "eviction.MemoryBasedEvictionFunctionalTest")
+public class MemoryBasedEvictionFunctionalTest extends SingleCacheManagerTest {
+
+   private static final long MAX_MEMORY = 256 * 1024;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.eviction().maxMemory(MAX_MEMORY);
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(builder);
+      cache = cm.getCache();
+      return cm;
+   }
+
+   public void testStrategyDefaultsToLIRS() {
+      assertEquals(EvictionStrategy.LIRS, cache.getCacheConfiguration().eviction().strategy());
+      assertTrue(TestingUtil.extractComponent(cache, DataContainer.class) instanceof DefaultDataContainer);
+   }
+
+   public void testEvictionBoundedByMemory() {
+      byte[] small = new byte[16];
+      for (int i = 0; i < 1000; i++)
+         cache.put("small-" + i, small);
+      // 1000 small entries fit in the budget
+      assertEquals(1000, cache.size());
+
+      byte[] large = new byte[16 * 1024];
+      for (int i = 0; i < 100; i++)
+         cache.put("large-" + i, large);
+      // a few large entries are enough to fill it up
+      assertTrue("Cache size is " + cache.size(), cache.size() < 100);
+   }
+}
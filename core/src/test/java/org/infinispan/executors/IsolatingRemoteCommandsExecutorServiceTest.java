@@ -0,0 +1,177 @@
+package org.infinispan.executors;
+
+import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.remote.CacheRpcCommand;
+import org.infinispan.commands.remote.ClusteredGetCommand;
+import org.infinispan.commands.remote.SingleRpcCommand;
+import org.infinispan.commands.tx.PrepareCommand;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.remoting.RemoteCommandCategory;
+import org.infinispan.remoting.RemoteCommandRunnable;
+import org.infinispan.statetransfer.StateRequestCommand;
+import org.infinispan.statetransfer.StateResponseCommand;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.Test;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the routing of remote commands to isolated pools and the statistics kept for them.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "executors.IsolatingRemoteCommandsExecutorServiceTest")
+public class IsolatingRemoteCommandsExecutorServiceTest extends AbstractInfinispanTest {
+
+   public void testCategories() {
+      assertEquals(RemoteCommandCategory.READ, RemoteCommandCategory.of(new ClusteredGetCommand("c")));
+      assertEquals(RemoteCommandCategory.READ, RemoteCommandCategory.of(
+            new SingleRpcCommand("c", new GetKeyValueCommand())));
+      assertEquals(RemoteCommandCategory.WRITE, RemoteCommandCategory.of(
+            new SingleRpcCommand("c", new PutKeyValueCommand())));
+      assertEquals(RemoteCommandCategory.TRANSACTION, RemoteCommandCategory.of(new PrepareCommand("c")));
+      assertEquals(RemoteCommandCategory.STATE_TRANSFER, RemoteCommandCategory.of(new StateRequestCommand("c")));
+      assertEquals(RemoteCommandCategory.STATE_TRANSFER, RemoteCommandCategory.of(new StateResponseCommand("c")));
+   }
+
+   public void testPoolNames() {
+      assertEquals("shared", createExecutor("NONE", 1, 0).poolName(new ClusteredGetCommand("c")));
+      assertEquals("c", createExecutor("cache", 1, 0).poolName(new ClusteredGetCommand("c")));
+      assertEquals("READ", createExecutor("COMMAND", 1, 0).poolName(new ClusteredGetCommand("c")));
+      assertEquals("c/STATE_TRANSFER", createExecutor("CACHE_AND_COMMAND", 1, 0).poolName(new StateRequestCommand("c")));
+   }
+
+   public void testStateTransferDoesNotStarveReads() throws Exception {
+      IsolatingRemoteCommandsExecutorService executor = createExecutor("COMMAND", 1, 100);
+      try {
+         CountDownLatch release = new CountDownLatch(1);
+         Task first = new Task(new StateResponseCommand("c"), release);
+         Task second = new Task(new StateResponseCommand("c"), release);
+         executor.execute(first);
+         executor.execute(second);
+         assertTrue(first.started.await(10, TimeUnit.SECONDS));
+         assertEquals(1, executor.poolQueueDepth("STATE_TRANSFER"));
+
+         Task read = new Task(new ClusteredGetCommand("c"), null);
+         executor.execute(read);
+         assertTrue(read.started.await(10, TimeUnit.SECONDS));
+         assertFalse(second.started.await(100, TimeUnit.MILLISECONDS));
+         assertEquals("[READ, STATE_TRANSFER]", executor.getPoolNames());
+
+         release.countDown();
+         assertTrue(second.started.await(10, TimeUnit.SECONDS));
+         eventuallyEquals(0, executor);
+         assertEquals(3, executor.getExecutedCount());
+         assertEquals(0, executor.getRejectedCount());
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   public void testRejectionsAreCounted() throws Exception {
+      IsolatingRemoteCommandsExecutorService executor = createExecutor("CACHE", 1, 0);
+      try {
+         CountDownLatch release = new CountDownLatch(1);
+         Task blocking = new Task(new ClusteredGetCommand("c"), release);
+         executor.execute(blocking);
+         assertTrue(blocking.started.await(10, TimeUnit.SECONDS));
+
+         // the pool has no queue and its only thread is busy, so the task runs in this thread
+         Task rejected = new Task(new ClusteredGetCommand("c"), null);
+         executor.execute(rejected);
+         assertEquals(Thread.currentThread(), rejected.thread);
+         assertEquals(1, executor.poolRejectedCount("c"));
+         assertEquals(0, executor.poolRejectedCount("other"));
+
+         release.countDown();
+         executor.resetStatistics();
+         assertEquals(0, executor.getRejectedCount());
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   public void testBlockedTasksInAllPools() throws Exception {
+      IsolatingRemoteCommandsExecutorService executor = createExecutor("CACHE_AND_COMMAND", 2, 0);
+      try {
+         Task read = new Task(new ClusteredGetCommand("a"), null);
+         Task write = new Task(new SingleRpcCommand("b", new PutKeyValueCommand()), null);
+         read.ready = false;
+         write.ready = false;
+         executor.execute(read);
+         executor.execute(write);
+         assertEquals(2, executor.getQueueDepth());
+
+         read.ready = true;
+         write.ready = true;
+         executor.checkForReadyTasks();
+         assertTrue(read.started.await(10, TimeUnit.SECONDS));
+         assertTrue(write.started.await(10, TimeUnit.SECONDS));
+         assertEquals("[a/READ, b/WRITE]", executor.getPoolNames());
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   private void eventuallyEquals(final int queueDepth, final IsolatingRemoteCommandsExecutorService executor) {
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return executor.getQueueDepth() == queueDepth;
+         }
+      });
+   }
+
+   private IsolatingRemoteCommandsExecutorService createExecutor(String isolation, int maxThreads, int queueSize) {
+      Properties properties = new Properties();
+      properties.setProperty("componentName", "remote-thread");
+      properties.setProperty("maxThreads", "32");
+      properties.setProperty("queueSize", "0");
+      properties.setProperty(IsolatingRemoteCommandsExecutorService.ISOLATION, isolation);
+      properties.setProperty(IsolatingRemoteCommandsExecutorService.ISOLATED_MAX_THREADS, String.valueOf(maxThreads));
+      properties.setProperty(IsolatingRemoteCommandsExecutorService.ISOLATED_QUEUE_SIZE, String.valueOf(queueSize));
+      return new IsolatingRemoteCommandsExecutorService(new DefaultExecutorFactory(), properties, TIME_SERVICE);
+   }
+
+   private static class Task implements RemoteCommandRunnable {
+      final CacheRpcCommand command;
+      final CountDownLatch release;
+      final CountDownLatch started = new CountDownLatch(1);
+      volatile boolean ready = true;
+      volatile Thread thread;
+
+      Task(CacheRpcCommand command, CountDownLatch release) {
+         this.command = command;
+         this.release = release;
+      }
+
+      @Override
+      public CacheRpcCommand getCommand() {
+         return command;
+      }
+
+      @Override
+      public boolean isReady() {
+         return ready;
+      }
+
+      @Override
+      public void run() {
+         thread = Thread.currentThread();
+         started.countDown();
+         if (release != null) {
+            try {
+               release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+         }
+      }
+   }
+}
@@ -152,6 +152,33 @@ public void testRemoves() throws Exception {
       assertRemoveMisses(1);
    }
 
+   public void testLatencyPercentiles() throws Exception {
+      assertAttributeValue("ReadTimeMedian", 0);
+      assertAttributeValue("WriteTime99thPercentile", 0);
+      assertAttributeValue("RemoveTime999thPercentile", 0);
+
+      for (int i = 0; i < 100; i++) {
+         cache.put("key" + i, "value" + i);
+         cache.get("key" + i);
+         cache.remove("key" + i);
+      }
+
+      for (String operation : new String[]{"Read", "Write", "Remove"}) {
+         long median = (Long) server.getAttribute(mgmtInterceptor, operation + "TimeMedian");
+         long p99 = (Long) server.getAttribute(mgmtInterceptor, operation + "Time99thPercentile");
+         long p999 = (Long) server.getAttribute(mgmtInterceptor, operation + "Time999thPercentile");
+         assert median > 0 : operation + " median is " + median;
+         assert median <= p99 && p99 <= p999 : operation + " percentiles are " + median + ", " + p99 + ", " + p999;
+      }
+      assert advanced.getStats().getReadTimeMedian() > 0;
+      assert advanced.getStats().getWriteTime99thPercentile() > 0;
+      assert advanced.getStats().getRemoveTime999thPercentile() > 0;
+
+      server.invoke(mgmtInterceptor, "resetStatistics", new Object[0], new String[0]);
+      assertAttributeValue("ReadTime99thPercentile", 0);
+      assert 0 == advanced.getStats().getWriteTimeMedian();
+   }
+
    private void assertAttributeValue(String attrName, float expectedValue) throws Exception {
       String receivedVal = server.getAttribute(mgmtInterceptor, attrName).toString();
       assert Float.parseFloat(receivedVal) == expectedValue : "expecting " + expectedValue + " for " + attrName + ", but received " + receivedVal;
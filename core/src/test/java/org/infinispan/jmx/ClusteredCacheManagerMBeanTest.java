@@ -67,4 +67,13 @@ public void testJGroupsInformation() throws Exception {
       assert (Boolean) server.getAttribute(jchannelName1, "connected");
       assert (Boolean) server.getAttribute(jchannelName2, "connected");
    }
+
+   public void testRemoteCommandsExecutorInformation() throws Exception {
+      manager(0).getCache("mycache").put("k", "v");
+      ObjectName executorName = getCacheManagerObjectName(JMX_DOMAIN2, "DefaultCacheManager", "RemoteCommandsExecutor");
+      assertEquals("NONE", server.getAttribute(executorName, "Isolation"));
+      assert (Long) server.getAttribute(executorName, "ExecutedCount") > 0;
+      assertEquals(0, server.invoke(executorName, "poolQueueDepth", new Object[]{"unknown"},
+                                    new String[]{String.class.getName()}));
+   }
 }
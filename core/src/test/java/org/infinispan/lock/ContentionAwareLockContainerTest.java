@@ -0,0 +1,168 @@
+package org.infinispan.lock;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.jmx.PerThreadMBeanServerLookup;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.test.CacheManagerCallable;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.concurrent.locks.OwnableReentrantLock;
+import org.infinispan.util.concurrent.locks.containers.LockContainer;
+import org.infinispan.util.concurrent.locks.containers.OwnableReentrantContentionAwareLockContainer;
+import org.infinispan.util.concurrent.locks.containers.ReentrantContentionAwareLockContainer;
+import org.testng.annotations.Test;
+
+import javax.management.ObjectName;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the lock container which gives the contended keys a dedicated lock.
+ *
+ * @since 6.0
+ */
+@Test(groups = "unit", testName = "lock.ContentionAwareLockContainerTest")
+public class ContentionAwareLockContainerTest extends AbstractInfinispanTest {
+
+   private static final int HOT_KEY_THRESHOLD = 2;
+
+   public void testHotKeyPromotion() throws Exception {
+      // a single stripe, so that all the keys collide
+      OwnableReentrantContentionAwareLockContainer lc = new OwnableReentrantContentionAwareLockContainer(1, HOT_KEY_THRESHOLD, 4, 100, TimeUnit.HOURS.toMillis(1));
+      Object owner = new Object();
+      Object other = new Object();
+      OwnableReentrantLock stripe = lc.acquireLock(owner, "hot", 0, TimeUnit.MILLISECONDS);
+      for (int i = 0; i < HOT_KEY_THRESHOLD; i++) {
+         assertNull(lc.acquireLock(other, "hot", 10, TimeUnit.MILLISECONDS));
+      }
+      assertEquals(HOT_KEY_THRESHOLD, lc.getContendedAcquisitions());
+      assertEquals(HOT_KEY_THRESHOLD, lc.getLockTimeouts());
+      assertFalse(lc.hasDedicatedLock("hot"));
+
+      lc.releaseLock(owner, "hot");
+      assertTrue(lc.hasDedicatedLock("hot"));
+      assertEquals(1, lc.getPromotions());
+      assertEquals(2, lc.size());
+
+      // the hot key no longer blocks the other keys of its stripe
+      OwnableReentrantLock dedicated = lc.acquireLock(owner, "hot", 0, TimeUnit.MILLISECONDS);
+      assertNotSame(stripe, dedicated);
+      assertSame(stripe, lc.acquireLock(other, "cold", 0, TimeUnit.MILLISECONDS));
+      assertTrue(lc.ownsLock("hot", owner));
+      assertFalse(lc.ownsLock("hot", other));
+      assertTrue(lc.ownsLock("cold", other));
+      assertEquals(2, lc.getNumLocksHeld());
+      lc.releaseLock(owner, "hot");
+      lc.releaseLock(other, "cold");
+      assertEquals(0, lc.getNumLocksHeld());
+
+      Map<Object, Long> topKeys = lc.getTopContendedKeys(10);
+      assertEquals(1, topKeys.size());
+      assertTrue(topKeys.get("hot") > 0);
+      assertTrue(lc.printTopContendedKeys(10).contains("dedicated lock"));
+      assertTrue(lc.printTopContendedStripes(10).startsWith("stripe 0"));
+   }
+
+   public void testWaiterMovesToDedicatedLock() throws Exception {
+      final OwnableReentrantContentionAwareLockContainer lc = new OwnableReentrantContentionAwareLockContainer(1, HOT_KEY_THRESHOLD, 4, 100, TimeUnit.HOURS.toMillis(1));
+      Object owner = new Object();
+      final Object waiter = new Object();
+      lc.acquireLock(owner, "hot", 0, TimeUnit.MILLISECONDS);
+      for (int i = 0; i < HOT_KEY_THRESHOLD; i++) {
+         lc.acquireLock(new Object(), "hot", 10, TimeUnit.MILLISECONDS);
+      }
+      Future<OwnableReentrantLock> future = fork(new Callable<OwnableReentrantLock>() {
+         @Override
+         public OwnableReentrantLock call() throws Exception {
+            return lc.acquireLock(waiter, "hot", 10, TimeUnit.SECONDS);
+         }
+      });
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return lc.getLock("cold").hasQueuedThreads();
+         }
+      });
+      lc.releaseLock(owner, "hot");
+
+      OwnableReentrantLock lock = future.get(10, TimeUnit.SECONDS);
+      assertNotNull(lock);
+      assertTrue(lc.hasDedicatedLock("hot"));
+      assertSame(lc.getLock("hot"), lock);
+      assertTrue(lc.ownsLock("hot", waiter));
+      // the waiter released the stripe after finding out the key has its own lock
+      assertFalse(lc.isLocked("cold"));
+      lc.releaseLock(waiter, "hot");
+   }
+
+   public void testDemotion() throws Exception {
+      ReentrantContentionAwareLockContainer lc = new ReentrantContentionAwareLockContainer(1, HOT_KEY_THRESHOLD, 4, 100, 200);
+      makeHot(lc, "hot");
+      assertTrue(lc.hasDedicatedLock("hot"));
+
+      // without contention, the key cools down and loses its dedicated lock
+      for (int i = 0; i < 10 && lc.hasDedicatedLock("hot"); i++) {
+         Thread.sleep(250);
+         assertNotNull(lc.acquireLock(null, "hot", 0, TimeUnit.MILLISECONDS));
+         lc.releaseLock(null, "hot");
+      }
+      assertFalse(lc.hasDedicatedLock("hot"));
+      assertEquals(1, lc.getDemotions());
+      assertEquals(1, lc.size());
+   }
+
+   public void testMaxDedicatedLocks() throws Exception {
+      ReentrantContentionAwareLockContainer lc = new ReentrantContentionAwareLockContainer(1, HOT_KEY_THRESHOLD, 1, 100, TimeUnit.HOURS.toMillis(1));
+      makeHot(lc, "k1");
+      makeHot(lc, "k2");
+      assertTrue(lc.hasDedicatedLock("k1"));
+      assertFalse(lc.hasDedicatedLock("k2"));
+      assertEquals(1, lc.getDedicatedLocks());
+   }
+
+   public void testContainerConfiguration() {
+      final String jmxDomain = getClass().getSimpleName();
+      TestingUtil.withCacheManager(new CacheManagerCallable(TestCacheManagerFactory.createCacheManagerEnforceJmxDomain(jmxDomain)) {
+         @Override
+         public void call() {
+            ConfigurationBuilder builder = new ConfigurationBuilder();
+            builder.jmxStatistics().enable().locking().useLockStriping(true).adaptiveLockStriping(true);
+            cm.defineConfiguration("contended", builder.build());
+            Cache<String, String> cache = cm.getCache("contended");
+            LockContainer<?> container = TestingUtil.extractComponent(cache, LockContainer.class);
+            assertTrue(container instanceof ReentrantContentionAwareLockContainer);
+            cache.put("k", "v");
+            assertEquals("v", cache.get("k"));
+            ObjectName name = TestingUtil.getCacheObjectName(jmxDomain, "contended(local)", "LockContention");
+            assertTrue(PerThreadMBeanServerLookup.getThreadMBeanServer().isRegistered(name));
+         }
+      });
+   }
+
+   private void makeHot(final ReentrantContentionAwareLockContainer lc, final String key) throws Exception {
+      assertNotNull(lc.acquireLock(null, key, 0, TimeUnit.MILLISECONDS));
+      for (int i = 0; i < HOT_KEY_THRESHOLD; i++) {
+         // the locks are owned by threads
+         Future<Object> future = fork(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+               return lc.acquireLock(null, key, 10, TimeUnit.MILLISECONDS);
+            }
+         });
+         assertNull(future.get(10, TimeUnit.SECONDS));
+      }
+      lc.releaseLock(null, key);
+   }
+}
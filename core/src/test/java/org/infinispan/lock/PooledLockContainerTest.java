@@ -0,0 +1,208 @@
+package org.infinispan.lock;
+
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.util.concurrent.locks.OwnableRefCountingReentrantLock;
+import org.infinispan.util.concurrent.locks.containers.OwnableReentrantPooledLockContainer;
+import org.infinispan.util.concurrent.locks.containers.ReentrantPooledLockContainer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the lock containers which recycle the per-entry locks.
+ *
+ * @since 6.0
+ */
+@Test(groups = "unit", testName = "lock.PooledLockContainerTest")
+public class PooledLockContainerTest extends AbstractInfinispanTest {
+
+   private OwnableReentrantPooledLockContainer lc;
+
+   @BeforeMethod
+   public void setUp() {
+      lc = new OwnableReentrantPooledLockContainer(4);
+   }
+
+   public void testAcquireAndRelease() throws Exception {
+      Object owner = new Object();
+      Object other = new Object();
+      OwnableRefCountingReentrantLock lock = lc.acquireLock(owner, "k", 0, TimeUnit.MILLISECONDS);
+      assertNotNull(lock);
+      assertTrue(lc.isLocked("k"));
+      assertTrue(lc.ownsLock("k", owner));
+      assertFalse(lc.ownsLock("k", other));
+      assertSame(lock, lc.getLock("k"));
+      assertEquals(1, lc.getNumLocksHeld());
+
+      // reentrant for the same owner
+      assertSame(lock, lc.acquireLock(owner, "k", 0, TimeUnit.MILLISECONDS));
+      assertNull(lc.acquireLock(other, "k", 10, TimeUnit.MILLISECONDS));
+
+      lc.releaseLock(owner, "k");
+      assertTrue(lc.ownsLock("k", owner));
+      lc.releaseLock(owner, "k");
+      assertFalse(lc.isLocked("k"));
+      assertNull(lc.getLock("k"));
+      assertEquals(0, lc.getNumLocksHeld());
+      assertEquals(-1, lc.getLockId("k"));
+   }
+
+   public void testLocksAreRecycled() throws Exception {
+      Object owner = new Object();
+      OwnableRefCountingReentrantLock lock = lc.acquireLock(owner, "k", 0, TimeUnit.MILLISECONDS);
+      lc.releaseLock(owner, "k");
+
+      // the released lock is reused for the next key mapped to the same segment
+      Object other = new Object();
+      assertSame(lock, lc.acquireLock(other, "k", 0, TimeUnit.MILLISECONDS));
+      assertEquals(1, lock.getReferenceCounter().get());
+      assertTrue(lc.ownsLock("k", other));
+      assertFalse(lc.ownsLock("k", owner));
+      lc.releaseLock(other, "k");
+   }
+
+   public void testOwnerOfRecycledLock() throws Exception {
+      // a single segment, so that every released lock is reused for the next key
+      OwnableReentrantPooledLockContainer container = new OwnableReentrantPooledLockContainer(1);
+      Object owner = new Object();
+      Object other = new Object();
+      OwnableRefCountingReentrantLock lock = container.acquireLock(owner, "k", 0, TimeUnit.MILLISECONDS);
+      assertSame(owner, container.getOwner("k"));
+      container.releaseLock(owner, "k");
+
+      assertSame(lock, container.acquireLock(other, "k2", 0, TimeUnit.MILLISECONDS));
+      assertSame(other, container.getOwner("k2"));
+      assertNull(container.getOwner("k"));
+      container.releaseLock(other, "k2");
+      assertNull(container.getOwner("k2"));
+   }
+
+   public void testOwnerNeverBelongsToAnotherKey() throws Exception {
+      final OwnableReentrantPooledLockContainer container = new OwnableReentrantPooledLockContainer(1);
+      final int numKeys = 4;
+      final int iterations = 10000;
+      final Object[] owners = new Object[numKeys];
+      for (int k = 0; k < numKeys; k++) {
+         owners[k] = "owner" + k;
+      }
+      final AtomicInteger failures = new AtomicInteger();
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int t = 0; t < numKeys; t++) {
+         final int k = t;
+         futures.add(fork(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+               for (int i = 0; i < iterations; i++) {
+                  if (container.acquireLock(owners[k], k, 10, TimeUnit.SECONDS) == null) {
+                     failures.incrementAndGet();
+                     continue;
+                  }
+                  container.releaseLock(owners[k], k);
+               }
+               return null;
+            }
+         }));
+      }
+      futures.add(fork(new Callable<Void>() {
+         @Override
+         public Void call() throws Exception {
+            for (int i = 0; i < iterations; i++) {
+               int k = i % numKeys;
+               Object owner = container.getOwner(k);
+               if (owner != null && owner != owners[k])
+                  failures.incrementAndGet();
+            }
+            return null;
+         }
+      }));
+      for (Future<Void> f : futures) {
+         f.get(60, TimeUnit.SECONDS);
+      }
+      assertEquals(0, failures.get());
+      assertEquals(0, container.size());
+   }
+
+   public void testManyKeys() throws Exception {
+      int numKeys = 1000;
+      Object owner = new Object();
+      for (int i = 0; i < numKeys; i++) {
+         assertNotNull(lc.acquireLock(owner, i, 0, TimeUnit.MILLISECONDS));
+      }
+      assertEquals(numKeys, lc.size());
+      // release every other key, the remaining ones must still be found after the table entries were shifted
+      for (int i = 0; i < numKeys; i += 2) {
+         lc.releaseLock(owner, i);
+      }
+      for (int i = 0; i < numKeys; i++) {
+         assertEquals(i % 2 == 1, lc.ownsLock(i, owner));
+      }
+      for (int i = 1; i < numKeys; i += 2) {
+         lc.releaseLock(owner, i);
+      }
+      assertEquals(0, lc.size());
+   }
+
+   public void testTimedOutWaiterDoesNotLeak() throws Exception {
+      final Object owner = new Object();
+      lc.acquireLock(owner, "k", 0, TimeUnit.MILLISECONDS);
+      assertNull(lc.acquireLock(new Object(), "k", 10, TimeUnit.MILLISECONDS));
+      assertEquals(1, lc.getLock("k").getReferenceCounter().get());
+      lc.releaseLock(owner, "k");
+      assertEquals(0, lc.size());
+   }
+
+   public void testMutualExclusion() throws Exception {
+      final ReentrantPooledLockContainer container = new ReentrantPooledLockContainer(4);
+      final int numKeys = 10;
+      final int iterations = 10000;
+      final int[] counters = new int[numKeys];
+      final AtomicInteger failures = new AtomicInteger();
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int t = 0; t < 4; t++) {
+         final int offset = t;
+         futures.add(fork(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+               for (int i = 0; i < iterations; i++) {
+                  int k = (i + offset) % numKeys;
+                  if (container.acquireLock(null, k, 10, TimeUnit.SECONDS) == null) {
+                     failures.incrementAndGet();
+                     continue;
+                  }
+                  try {
+                     if (!container.ownsLock(k, null))
+                        failures.incrementAndGet();
+                     counters[k]++;
+                  } finally {
+                     container.releaseLock(null, k);
+                  }
+               }
+               return null;
+            }
+         }));
+      }
+      for (Future<Void> f : futures) {
+         f.get(60, TimeUnit.SECONDS);
+      }
+      assertEquals(0, failures.get());
+      int total = 0;
+      for (int counter : counters) {
+         total += counter;
+      }
+      assertEquals(4 * iterations, total);
+      assertEquals(0, container.size());
+   }
+}
@@ -0,0 +1,193 @@
+package org.infinispan.notifications;
+
+import org.infinispan.Cache;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryModified;
+import org.infinispan.notifications.cachelistener.event.CacheEntryModifiedEvent;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests asynchronous listeners with an event queue.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "notifications.QueuedAsyncNotificationTest")
+public class QueuedAsyncNotificationTest extends AbstractInfinispanTest {
+   private static final int KEYS = 10;
+   private static final int UPDATES = 100;
+
+   Cache<String, Integer> c;
+   EmbeddedCacheManager cm;
+
+   @BeforeMethod
+   public void setUp() {
+      cm = TestCacheManagerFactory.createCacheManager(false);
+      c = cm.getCache();
+   }
+
+   @AfterMethod
+   public void tearDown() {
+      TestingUtil.killCacheManagers(cm);
+      cm = null;
+      c = null;
+   }
+
+   public void testEventsDeliveredInOrder() throws Exception {
+      final OrderedListener listener = new OrderedListener();
+      c.addListener(listener);
+      updateKeys();
+
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return listener.size() == KEYS * UPDATES;
+         }
+      });
+      assertInOrder(listener.events());
+   }
+
+   public void testBulkDelivery() throws Exception {
+      final BulkListener listener = new BulkListener();
+      c.addListener(listener);
+      updateKeys();
+
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return listener.size() == KEYS * UPDATES;
+         }
+      });
+      assertInOrder(listener.events());
+      for (int batchSize : listener.batchSizes()) {
+         assertTrue("Batch of " + batchSize + " events", batchSize > 0 && batchSize <= 10);
+      }
+   }
+
+   public void testDropNewest() throws Exception {
+      DroppingListener listener = new DroppingListener();
+      c.addListener(listener);
+      c.put("k", 0);
+      assertTrue(listener.blocked.await(10, TimeUnit.SECONDS));
+
+      // the listener is stuck, so only the events of the first of these writes fit in
+      // its queue, the others are dropped and the writers never wait
+      for (int i = 1; i <= UPDATES; i++) {
+         c.put("k", i);
+      }
+      listener.release.countDown();
+
+      Thread.sleep(500);
+      assertEquals(Arrays.asList(0, 1), listener.values());
+   }
+
+   @Test(expectedExceptions = IncorrectListenerException.class)
+   public void testBulkDeliveryRequiresQueue() {
+      c.addListener(new SyncBulkListener());
+   }
+
+   private void updateKeys() {
+      for (int i = 0; i < UPDATES; i++) {
+         for (int k = 0; k < KEYS; k++) {
+            c.put("k" + k, i);
+         }
+      }
+   }
+
+   private void assertInOrder(List<CacheEntryModifiedEvent<String, Integer>> events) {
+      int[] lastValues = new int[KEYS];
+      for (int k = 0; k < KEYS; k++) {
+         lastValues[k] = -1;
+      }
+      for (CacheEntryModifiedEvent<String, Integer> event : events) {
+         int k = Integer.parseInt(event.getKey().substring(1));
+         assertEquals(lastValues[k] + 1, event.getValue().intValue());
+         lastValues[k] = event.getValue();
+      }
+   }
+
+   public abstract static class RecordingListener {
+      private final List<CacheEntryModifiedEvent<String, Integer>> events = new ArrayList<CacheEntryModifiedEvent<String, Integer>>();
+
+      synchronized void record(CacheEntryModifiedEvent<String, Integer> event) {
+         if (!event.isPre())
+            events.add(event);
+      }
+
+      synchronized int size() {
+         return events.size();
+      }
+
+      synchronized List<CacheEntryModifiedEvent<String, Integer>> events() {
+         return new ArrayList<CacheEntryModifiedEvent<String, Integer>>(events);
+      }
+   }
+
+   @Listener(sync = false, asyncQueueSize = 100)
+   public static class OrderedListener extends RecordingListener {
+      @CacheEntryModified
+      public void handle(CacheEntryModifiedEvent<String, Integer> e) {
+         record(e);
+      }
+   }
+
+   @Listener(sync = false, asyncQueueSize = 100, bulkSize = 10)
+   public static class BulkListener extends RecordingListener {
+      private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+
+      @CacheEntryModified
+      public void handle(List<CacheEntryModifiedEvent<String, Integer>> events) {
+         batchSizes.add(events.size());
+         for (CacheEntryModifiedEvent<String, Integer> e : events) {
+            record(e);
+         }
+      }
+
+      List<Integer> batchSizes() {
+         return new ArrayList<Integer>(batchSizes);
+      }
+   }
+
+   @Listener(sync = false, asyncQueueSize = 2, overflowPolicy = Listener.OverflowPolicy.DROP_NEWEST)
+   public static class DroppingListener {
+      final CountDownLatch blocked = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      private final List<Integer> values = Collections.synchronizedList(new ArrayList<Integer>());
+
+      @CacheEntryModified
+      public void handle(CacheEntryModifiedEvent<String, Integer> e) throws InterruptedException {
+         if (!e.isPre()) {
+            values.add(e.getValue());
+            if (e.getValue() == 0) {
+               blocked.countDown();
+               release.await(10, TimeUnit.SECONDS);
+            }
+         }
+      }
+
+      List<Integer> values() {
+         return new ArrayList<Integer>(values);
+      }
+   }
+
+   @Listener(bulkSize = 10)
+   public static class SyncBulkListener {
+      @CacheEntryModified
+      public void handle(List<CacheEntryModifiedEvent<String, Integer>> events) {
+      }
+   }
+}
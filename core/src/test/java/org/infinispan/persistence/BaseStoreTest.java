@@ -27,6 +27,7 @@
 import org.testng.annotations.Test;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -297,6 +298,27 @@ public void testStoreAndRemove() throws PersistenceException {
       assert expected.isEmpty();
    }
 
+   public void testWriteAndDeleteBatch() throws PersistenceException {
+      // stores which can't batch receive the entries one at a time
+      cl.write(new MarshalledEntryImpl("k1","v0", null, getMarshaller()));
+      PersistenceUtil.writeBatch(cl, Arrays.<MarshalledEntry>asList(
+            new MarshalledEntryImpl("k1","v1", null, getMarshaller()),
+            new MarshalledEntryImpl("k2","v2", null, getMarshaller()),
+            new MarshalledEntryImpl("k3","v3", null, getMarshaller())));
+
+      assertEquals("v1", cl.load("k1").getValue());
+      assertEquals("v2", cl.load("k2").getValue());
+      assertEquals("v3", cl.load("k3").getValue());
+      assertEquals(3, TestingUtil.allEntries(cl).size());
+
+      PersistenceUtil.deleteBatch(cl, Arrays.<Object>asList("k1", "k3", "k4"));
+
+      assert !cl.contains("k1");
+      assert cl.contains("k2");
+      assert !cl.contains("k3");
+      assertEquals(1, TestingUtil.allEntries(cl).size());
+   }
+
    public void testPurgeExpired() throws Exception {
       // Increased lifespan and idle timeouts to accommodate slower cache stores
       long lifespan = 6000;
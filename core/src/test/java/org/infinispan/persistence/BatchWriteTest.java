@@ -0,0 +1,94 @@
+package org.infinispan.persistence;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.eviction.PassivationManager;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.marshall.core.MarshalledEntryImpl;
+import org.infinispan.persistence.dummy.DummyInMemoryStore;
+import org.infinispan.persistence.dummy.DummyInMemoryStoreConfigurationBuilder;
+import org.infinispan.persistence.spi.CacheWriter;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests that the bulk writes reach the stores as batches, and that the writers which can't batch receive the entries
+ * one at a time.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "persistence.BatchWriteTest")
+public class BatchWriteTest extends SingleCacheManagerTest {
+
+   private static final int NUM_ENTRIES = 10;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.persistence().addStore(DummyInMemoryStoreConfigurationBuilder.class)
+            .storeName(BatchWriteTest.class.getName());
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(builder);
+
+      ConfigurationBuilder passivation = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      passivation.persistence().passivation(true).addStore(DummyInMemoryStoreConfigurationBuilder.class)
+            .storeName(BatchWriteTest.class.getName() + "-passivation");
+      cm.defineConfiguration("passivation", passivation.build());
+      return cm;
+   }
+
+   public void testPutAllWritesBatch() {
+      DummyInMemoryStore store = (DummyInMemoryStore) TestingUtil.getFirstWriter(cache);
+      store.clearStats();
+      cache.putAll(entries());
+
+      assertEquals(1, (int) store.stats().get("writeBatch"));
+      for (int i = 0; i < NUM_ENTRIES; i++)
+         assertTrue(store.contains("k" + i));
+   }
+
+   public void testPassivateAllWritesBatch() {
+      Cache<Object, Object> passivated = cacheManager.getCache("passivation");
+      DummyInMemoryStore store = (DummyInMemoryStore) TestingUtil.getFirstWriter(passivated);
+      passivated.putAll(entries());
+      assertEquals(0, store.size());
+      store.clearStats();
+
+      TestingUtil.extractComponent(passivated, PassivationManager.class).passivateAll();
+
+      assertEquals(1, (int) store.stats().get("writeBatch"));
+      for (int i = 0; i < NUM_ENTRIES; i++)
+         assertTrue(store.contains("k" + i));
+   }
+
+   public void testWriterWithoutBatchSupport() {
+      CacheWriter writer = mock(CacheWriter.class);
+      MarshalledEntry e1 = new MarshalledEntryImpl("k1", "v1", null, null);
+      MarshalledEntry e2 = new MarshalledEntryImpl("k2", "v2", null, null);
+      PersistenceUtil.writeBatch(writer, Arrays.asList(e1, e2));
+      PersistenceUtil.deleteBatch(writer, Arrays.<Object>asList("k3"));
+
+      verify(writer).write(same(e1));
+      verify(writer).write(same(e2));
+      verify(writer).delete("k3");
+   }
+
+   private Map<Object, Object> entries() {
+      Map<Object, Object> entries = new HashMap<Object, Object>();
+      for (int i = 0; i < NUM_ENTRIES; i++)
+         entries.put("k" + i, "v" + i);
+      return entries;
+   }
+}
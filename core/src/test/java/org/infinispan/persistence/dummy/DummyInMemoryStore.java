@@ -13,6 +13,7 @@
 import org.infinispan.persistence.spi.AdvancedCacheLoader;
 import org.infinispan.persistence.spi.AdvancedCacheWriter;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.BatchingCacheWriter;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.test.TestingUtil;
@@ -32,7 +33,7 @@
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 
-public class DummyInMemoryStore implements AdvancedLoadWriteStore {
+public class DummyInMemoryStore implements AdvancedLoadWriteStore, BatchingCacheWriter {
    private static final Log log = LogFactory.getLog(DummyInMemoryStore.class);
    private static final boolean trace = log.isTraceEnabled();
    private static final boolean debug = log.isDebugEnabled();
@@ -107,6 +108,20 @@ public boolean delete(Object key) {
       return false;
    }
 
+   @Override
+   public void writeBatch(Iterable entries) {
+      for (Object entry : entries)
+         write((MarshalledEntry) entry);
+      record("writeBatch");
+   }
+
+   @Override
+   public void deleteBatch(Iterable keys) {
+      for (Object key : keys)
+         delete(key);
+      record("deleteBatch");
+   }
+
    @Override
    public void purge(Executor threadPool, PurgeListener task) {
       long currentTimeMillis = System.currentTimeMillis();
@@ -205,6 +220,9 @@ private ConcurrentMap<String, AtomicInteger> newStatsMap() {
       for (Method method: AdvancedCacheWriter.class.getMethods()) {
          m.put(method.getName(), new AtomicInteger(0));
       }
+      for (Method method: BatchingCacheWriter.class.getMethods()) {
+         m.put(method.getName(), new AtomicInteger(0));
+      }
       return m;
    }
 
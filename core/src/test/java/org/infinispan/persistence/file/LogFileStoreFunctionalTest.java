@@ -0,0 +1,74 @@
+package org.infinispan.persistence.file;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.PersistenceConfigurationBuilder;
+import org.infinispan.persistence.BaseStoreFunctionalTest;
+import org.infinispan.test.CacheManagerCallable;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+
+import static org.infinispan.test.TestingUtil.*;
+import static org.testng.AssertJUnit.*;
+
+/**
+ * Log-structured file cache store functional test.
+ *
+ * @since 6.0
+ */
+@Test(groups = "unit", testName = "persistence.file.LogFileStoreFunctionalTest")
+public class LogFileStoreFunctionalTest extends BaseStoreFunctionalTest {
+
+   private String tmpDirectory;
+
+   @BeforeClass
+   protected void setUpTempDir() {
+      tmpDirectory = TestingUtil.tmpDirectory(this);
+   }
+
+   @AfterClass
+   protected void clearTempDir() {
+      TestingUtil.recursiveFileRemove(tmpDirectory);
+      new File(tmpDirectory).mkdirs();
+   }
+
+   @Override
+   protected PersistenceConfigurationBuilder createCacheStoreConfig(PersistenceConfigurationBuilder persistence, boolean preload) {
+      persistence
+         .addLogFileStore()
+         .location(tmpDirectory)
+         .preload(preload);
+      return persistence;
+   }
+
+   public void testParsingElement() throws Exception {
+      String config = INFINISPAN_START_TAG_NO_SCHEMA +
+            "<default>\n" +
+            "<persistence passivation=\"false\"> \n" +
+            "<logFile shared=\"false\" preload=\"true\" location=\"" + tmpDirectory + "\" maxFileSize=\"1024\" " +
+            "compactionThreshold=\"0.25\" syncWrites=\"true\"/> \n" +
+            "</persistence>\n" +
+            "</default>\n" + INFINISPAN_END_TAG;
+      InputStream is = new ByteArrayInputStream(config.getBytes());
+      withCacheManager(new CacheManagerCallable(TestCacheManagerFactory.fromStream(is)) {
+         @Override
+         public void call() {
+            Cache<Object, Object> cache = cm.getCache();
+            cache.put(1, "v1");
+            assertEquals("v1", cache.get(1));
+            LogFileStore store = (LogFileStore) TestingUtil.getFirstLoader(cache);
+            assertEquals(tmpDirectory, store.getConfiguration().location());
+            assertEquals(1024, store.getConfiguration().maxFileSize());
+            assertEquals(0.25, store.getConfiguration().compactionThreshold());
+            assertTrue(store.getConfiguration().syncWrites());
+         }
+      });
+   }
+
+}
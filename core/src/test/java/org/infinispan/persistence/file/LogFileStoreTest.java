@@ -0,0 +1,179 @@
+package org.infinispan.persistence.file;
+
+import org.infinispan.commons.io.ByteBufferFactoryImpl;
+import org.infinispan.configuration.cache.LogFileStoreConfiguration;
+import org.infinispan.configuration.cache.LogFileStoreConfigurationBuilder;
+import org.infinispan.marshall.core.MarshalledEntryFactoryImpl;
+import org.infinispan.marshall.core.MarshalledEntryImpl;
+import org.infinispan.persistence.BaseStoreTest;
+import org.infinispan.persistence.DummyInitializationContext;
+import org.infinispan.persistence.spi.AdvancedCacheWriter;
+import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
+import org.infinispan.util.concurrent.WithinThreadExecutor;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.infinispan.test.TestingUtil.marshalledEntry;
+import static org.infinispan.test.TestingUtil.recursiveFileRemove;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Low level log-structured file store tests.
+ *
+ * @since 6.0
+ */
+@Test(groups = "unit", testName = "persistence.file.LogFileStoreTest")
+public class LogFileStoreTest extends BaseStoreTest {
+
+   private static final long MAX_FILE_SIZE = 4096;
+
+   LogFileStore store;
+   String tmpDirectory;
+
+   @BeforeClass
+   protected void setUpTempDir() {
+      tmpDirectory = TestingUtil.tmpDirectory(this);
+   }
+
+   @AfterClass
+   protected void clearTempDir() {
+      recursiveFileRemove(tmpDirectory);
+   }
+
+   @Override
+   protected AdvancedLoadWriteStore createStore() throws Exception {
+      clearTempDir();
+      store = newStore();
+      store.start();
+      return store;
+   }
+
+   private LogFileStore newStore() {
+      LogFileStore fileStore = new LogFileStore();
+      LogFileStoreConfiguration configuration = TestCacheManagerFactory
+            .getDefaultCacheConfiguration(false)
+            .persistence()
+               .addStore(LogFileStoreConfigurationBuilder.class)
+                  .location(this.tmpDirectory)
+                  .maxFileSize(MAX_FILE_SIZE)
+                  .create();
+      fileStore.init(new DummyInitializationContext(configuration, getCache(), getMarshaller(), new ByteBufferFactoryImpl(),
+                                                    new MarshalledEntryFactoryImpl(getMarshaller())));
+      return fileStore;
+   }
+
+   private void reopen() {
+      store = newStore();
+      store.start();
+      cl = store;
+   }
+
+   private static int fileId(File f) {
+      return Integer.parseInt(f.getName().substring(0, f.getName().indexOf('.')));
+   }
+
+   public void testCompactionReclaimsOverwrittenFiles() throws Exception {
+      for (int round = 0; round < 100; round++) {
+         for (int i = 0; i < 10; i++)
+            store.write(new MarshalledEntryImpl("k" + i, "v" + round, null, getMarshaller()));
+      }
+
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return store.getLogFileCount() <= 3;
+         }
+      });
+      assertEquals(10, store.size());
+      for (int i = 0; i < 10; i++)
+         assertEquals("v99", store.load("k" + i).getValue());
+   }
+
+   public void testDeletesSurviveCompactionAndRestart() throws Exception {
+      for (int i = 0; i < 50; i++)
+         store.write(new MarshalledEntryImpl("k" + i, "v" + i, null, getMarshaller()));
+      for (int i = 0; i < 50; i += 2)
+         assertTrue(store.delete("k" + i));
+      // force the deleted values out of the active file so they become eligible for compaction
+      for (int round = 0; round < 20; round++)
+         store.write(new MarshalledEntryImpl("filler", "v" + round, null, getMarshaller()));
+
+      store.stop();
+      reopen();
+
+      for (int i = 0; i < 50; i++) {
+         if (i % 2 == 0) {
+            assertFalse(store.contains("k" + i));
+            assertNull(store.load("k" + i));
+         } else {
+            assertEquals("v" + i, store.load("k" + i).getValue());
+         }
+      }
+      assertEquals(26, store.size());
+   }
+
+   public void testPurgedEntriesSurviveRestart() throws Exception {
+      // more than one purge batch
+      int numExpiring = 2500;
+      for (int i = 0; i < numExpiring; i++)
+         store.write(marshalledEntry(TestInternalCacheEntryFactory.create("k" + i, "v" + i, 1), getMarshaller()));
+      store.write(new MarshalledEntryImpl("immortal", "v", null, getMarshaller()));
+      Thread.sleep(10);
+
+      final AtomicInteger purged = new AtomicInteger();
+      store.purge(new WithinThreadExecutor(), new AdvancedCacheWriter.PurgeListener<Object>() {
+         @Override
+         public void entryPurged(Object key) {
+            purged.incrementAndGet();
+         }
+      });
+      assertEquals(numExpiring, purged.get());
+      assertEquals(1, store.size());
+
+      store.stop();
+      reopen();
+      assertEquals(1, store.size());
+      assertNull(store.load("k0"));
+      assertEquals("v", store.load("immortal").getValue());
+   }
+
+   public void testTruncatedTailIsDiscardedOnRestart() throws Exception {
+      store.write(new MarshalledEntryImpl("k1", "v1", null, getMarshaller()));
+      store.write(new MarshalledEntryImpl("k2", "v2", null, getMarshaller()));
+      store.stop();
+
+      File dir = new File(tmpDirectory, getCache().getName());
+      File last = null;
+      for (File f : dir.listFiles()) {
+         if (last == null || fileId(f) > fileId(last))
+            last = f;
+      }
+      RandomAccessFile raf = new RandomAccessFile(last, "rw");
+      try {
+         // simulate a record header that was written only partially
+         raf.seek(raf.length());
+         raf.writeInt(3);
+         raf.writeShort(42);
+      } finally {
+         raf.close();
+      }
+
+      reopen();
+      assertEquals("v1", store.load("k1").getValue());
+      assertEquals("v2", store.load("k2").getValue());
+      store.write(new MarshalledEntryImpl("k3", "v3", null, getMarshaller()));
+      assertEquals("v3", store.load("k3").getValue());
+      assertEquals(3, store.size());
+   }
+}
@@ -3,17 +3,34 @@
 import org.infinispan.commons.io.ByteBufferFactoryImpl;
 import org.infinispan.configuration.cache.SingleFileStoreConfiguration;
 import org.infinispan.configuration.cache.SingleFileStoreConfigurationBuilder;
+import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.marshall.core.MarshalledEntryFactoryImpl;
+import org.infinispan.marshall.core.MarshalledEntryImpl;
 import org.infinispan.persistence.BaseStoreTest;
 import org.infinispan.persistence.DummyInitializationContext;
+import org.infinispan.persistence.spi.AdvancedCacheWriter;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
 import org.infinispan.test.TestingUtil;
 import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
+import org.infinispan.util.concurrent.WithinThreadExecutor;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.infinispan.test.TestingUtil.marshalledEntry;
 import static org.infinispan.test.TestingUtil.recursiveFileRemove;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
 
 /**
  * Low level single-file cache store tests.
@@ -52,4 +69,81 @@ protected AdvancedLoadWriteStore createStore() throws Exception {
       store.start();
       return store;
    }
+
+   public void testConcurrentLoadsNeverSeeReusedSpace() throws Exception {
+      final int numKeys = 20;
+      for (int i = 0; i < numKeys; i++)
+         store.write(new MarshalledEntryImpl("k" + i, "v" + i, null, getMarshaller()));
+
+      final AtomicBoolean running = new AtomicBoolean(true);
+      Future<Void> writer = fork(new Callable<Void>() {
+         @Override
+         public Void call() throws Exception {
+            // keep deleting and rewriting keys, so that freed space is constantly reused for other keys
+            for (int round = 0; running.get(); round++) {
+               int i = round % numKeys;
+               store.delete("k" + i);
+               store.write(new MarshalledEntryImpl("k" + i, "v" + i, null, getMarshaller()));
+            }
+            return null;
+         }
+      });
+      try {
+         for (int round = 0; round < 20000; round++) {
+            int i = round % numKeys;
+            MarshalledEntry entry = store.load("k" + i);
+            if (entry != null) {
+               assertEquals("k" + i, entry.getKey());
+               assertEquals("v" + i, entry.getValue());
+            }
+         }
+      } finally {
+         running.set(false);
+      }
+      writer.get();
+   }
+
+   public void testPurgeThroughExpiryIndex() throws Exception {
+      for (int i = 0; i < 5; i++)
+         store.write(marshalledEntry(TestInternalCacheEntryFactory.create("k" + i, "v" + i, 100), getMarshaller()));
+      store.write(marshalledEntry(TestInternalCacheEntryFactory.create("long", "v", 600000), getMarshaller()));
+      store.write(new MarshalledEntryImpl("immortal", "v", null, getMarshaller()));
+      assertEquals(6, store.getExpiringEntries().size());
+
+      // updated and deleted entries leave the index
+      store.write(new MarshalledEntryImpl("k0", "v0", null, getMarshaller()));
+      store.delete("k1");
+      assertEquals(4, store.getExpiringEntries().size());
+
+      Thread.sleep(200);
+      final Set<Object> purged = new HashSet<Object>();
+      store.purge(new WithinThreadExecutor(), new AdvancedCacheWriter.PurgeListener() {
+         @Override
+         public void entryPurged(Object key) {
+            purged.add(key);
+         }
+      });
+      assertEquals(new HashSet<Object>(Arrays.asList("k2", "k3", "k4")), purged);
+      assertEquals(1, store.getExpiringEntries().size());
+      assertTrue(store.getExpiringEntries().containsValue("long"));
+      assertEquals(3, store.size());
+      assertEquals("v0", store.load("k0").getValue());
+   }
+
+   public void testWriteBatchSplitIntoRuns() throws Exception {
+      // the batch is larger than the maximum size of a single write, so it is written in several runs
+      int numEntries = 5;
+      byte[][] values = new byte[numEntries][];
+      List<MarshalledEntry> batch = new ArrayList<MarshalledEntry>();
+      for (int i = 0; i < numEntries; i++) {
+         values[i] = new byte[1536 * 1024];
+         Arrays.fill(values[i], (byte) i);
+         batch.add(new MarshalledEntryImpl("k" + i, values[i], null, getMarshaller()));
+      }
+      store.writeBatch(batch);
+
+      assertEquals(numEntries, store.size());
+      for (int i = 0; i < numEntries; i++)
+         assertTrue(Arrays.equals(values[i], (byte[]) store.load("k" + i).getValue()));
+   }
 }
@@ -418,6 +418,50 @@ public void run() {
       }
    }
 
+   public void testModificationQueueMaxBytes(final Method m) throws Exception {
+      LockableStore underlying = new LockableStore();
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+
+      LockableStoreConfigurationBuilder lcscsBuilder = new LockableStoreConfigurationBuilder(builder.persistence());
+      lcscsBuilder.async()
+            .modificationQueueSize(1000)
+            .modificationQueueMaxBytes(256);
+
+      final TestObjectStreamMarshaller ma = new TestObjectStreamMarshaller();
+      writer = new AdvancedAsyncCacheWriter(underlying);
+      writer.init(new DummyInitializationContext(lcscsBuilder.create(), getCache(), null, new ByteBufferFactoryImpl(),
+                                                 new MarshalledEntryFactoryImpl(null)));
+      writer.start();
+      try {
+         final CountDownLatch done = new CountDownLatch(1);
+
+         underlying.lock.lock();
+         try {
+            Thread t = new Thread() {
+               @Override
+               public void run() {
+                  try {
+                     for (int i = 0; i < 100; i++)
+                        writer.write(new MarshalledEntryImpl(k(m, i), v(m, i), null, ma));
+                  } catch (Exception e) {
+                     log.error("Error storing entry", e);
+                  }
+                  done.countDown();
+               }
+            };
+            t.start();
+
+            assert !done.await(1, TimeUnit.SECONDS) : "Background thread should have blocked after adding 256 bytes";
+         } finally {
+            underlying.lock.unlock();
+         }
+         assert done.await(10, TimeUnit.SECONDS) : "Background thread should have completed once the store was released";
+      } finally {
+         writer.stop();
+         ma.stop();
+      }
+   }
+
    private static abstract class OneEntryCacheManagerCallable extends CacheManagerCallable {
       protected final Cache<String, String> cache;
       protected final LockableStore store;
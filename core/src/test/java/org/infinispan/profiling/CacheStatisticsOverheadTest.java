@@ -0,0 +1,97 @@
+package org.infinispan.profiling;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.test.CacheManagerCallable;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.infinispan.test.TestingUtil.withCacheManager;
+
+/**
+ * Compares the throughput of a local cache accessed by many threads with and without statistics, to estimate the
+ * overhead of the counters and latency histograms kept by the statistics interceptor.
+ *
+ * @since 6.0
+ */
+@Test(groups = "profiling", testName = "profiling.CacheStatisticsOverheadTest")
+public class CacheStatisticsOverheadTest extends AbstractInfinispanTest {
+
+   private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+   private static final int KEYS = 1000;
+   private static final long WARMUP_MILLIS = TimeUnit.SECONDS.toMillis(5);
+   private static final long RUN_MILLIS = TimeUnit.SECONDS.toMillis(20);
+
+   public void testStatisticsOverhead() throws Exception {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.jmxStatistics().enable();
+      withCacheManager(new CacheManagerCallable(TestCacheManagerFactory.createCacheManager(builder)) {
+         @Override
+         public void call() {
+            try {
+               Cache<Object, Object> cache = cm.getCache();
+               cache.getAdvancedCache().getStats().setStatisticsEnabled(false);
+               run(cache, WARMUP_MILLIS);
+               long withoutStats = run(cache, RUN_MILLIS);
+               cache.getAdvancedCache().getStats().setStatisticsEnabled(true);
+               run(cache, WARMUP_MILLIS);
+               long withStats = run(cache, RUN_MILLIS);
+               System.out.printf("%d threads: %d ops without statistics, %d ops with statistics, overhead %.2f%%%n",
+                                 THREADS, withoutStats, withStats, 100.0 * (withoutStats - withStats) / withoutStats);
+               System.out.println("Read latency (ns): median " + cache.getAdvancedCache().getStats().getReadTimeMedian()
+                                        + ", 99th " + cache.getAdvancedCache().getStats().getReadTime99thPercentile()
+                                        + ", 99.9th " + cache.getAdvancedCache().getStats().getReadTime999thPercentile());
+            } catch (Exception e) {
+               throw new RuntimeException(e);
+            }
+         }
+      });
+   }
+
+   private long run(final Cache<Object, Object> cache, final long durationMillis) throws Exception {
+      ExecutorService executor = Executors.newFixedThreadPool(THREADS, getTestThreadFactory("Worker"));
+      try {
+         final long end = System.currentTimeMillis() + durationMillis;
+         List<Future<Long>> futures = new ArrayList<Future<Long>>(THREADS);
+         for (int i = 0; i < THREADS; i++) {
+            final int offset = i;
+            futures.add(executor.submit(new Callable<Long>() {
+               @Override
+               public Long call() throws Exception {
+                  long ops = 0;
+                  int key = offset;
+                  while (System.currentTimeMillis() < end) {
+                     for (int j = 0; j < 100; j++) {
+                        key = (key + 7) % KEYS;
+                        if (j % 10 == 0) {
+                           cache.put(key, key);
+                        } else {
+                           cache.get(key);
+                        }
+                     }
+                     ops += 100;
+                  }
+                  return ops;
+               }
+            }));
+         }
+         long ops = 0;
+         for (Future<Long> future : futures) {
+            ops += future.get();
+         }
+         return ops;
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+}
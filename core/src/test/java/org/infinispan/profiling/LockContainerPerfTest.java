@@ -0,0 +1,89 @@
+package org.infinispan.profiling;
+
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.util.concurrent.locks.containers.LockContainer;
+import org.infinispan.util.concurrent.locks.containers.OwnableReentrantPerEntryLockContainer;
+import org.infinispan.util.concurrent.locks.containers.OwnableReentrantPooledLockContainer;
+import org.infinispan.util.concurrent.locks.containers.OwnableReentrantStripedLockContainer;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of the striped, per-entry and pooled lock containers, with threads locking and unlocking
+ * keys picked from a large key set (mostly uncontended) and from a small one (contended).
+ *
+ * @since 6.0
+ */
+@Test(groups = "profiling", testName = "profiling.LockContainerPerfTest")
+public class LockContainerPerfTest extends AbstractInfinispanTest {
+
+   private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+   private static final int CONCURRENCY_LEVEL = 32;
+   private static final long WARMUP_MILLIS = TimeUnit.SECONDS.toMillis(3);
+   private static final long RUN_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+   public void testUncontended() throws Exception {
+      compare(100000);
+   }
+
+   public void testContended() throws Exception {
+      compare(16);
+   }
+
+   private void compare(int keys) throws Exception {
+      measure("striped", new OwnableReentrantStripedLockContainer(CONCURRENCY_LEVEL), keys);
+      measure("per-entry", new OwnableReentrantPerEntryLockContainer(CONCURRENCY_LEVEL), keys);
+      measure("pooled", new OwnableReentrantPooledLockContainer(CONCURRENCY_LEVEL), keys);
+   }
+
+   private void measure(String name, LockContainer<?> container, int keys) throws Exception {
+      run(container, keys, WARMUP_MILLIS);
+      long ops = run(container, keys, RUN_MILLIS);
+      System.out.printf("%s container, %d threads, %d keys: %,d lock/unlock per second%n",
+                        name, THREADS, keys, ops * 1000 / RUN_MILLIS);
+   }
+
+   private long run(final LockContainer<?> container, final int keys, final long durationMillis) throws Exception {
+      ExecutorService executor = Executors.newFixedThreadPool(THREADS, getTestThreadFactory("Worker"));
+      try {
+         final long end = System.currentTimeMillis() + durationMillis;
+         List<Future<Long>> futures = new ArrayList<Future<Long>>(THREADS);
+         for (int i = 0; i < THREADS; i++) {
+            final int offset = i;
+            futures.add(executor.submit(new Callable<Long>() {
+               @Override
+               public Long call() throws Exception {
+                  Object owner = new Object();
+                  long ops = 0;
+                  int key = offset;
+                  while (System.currentTimeMillis() < end) {
+                     for (int j = 0; j < 1000; j++) {
+                        key = (key + 7919) % keys;
+                        Integer k = key;
+                        if (container.acquireLock(owner, k, 10, TimeUnit.SECONDS) == null)
+                           throw new IllegalStateException("Timed out locking " + k);
+                        container.releaseLock(owner, k);
+                     }
+                     ops += 1000;
+                  }
+                  return ops;
+               }
+            }));
+         }
+         long ops = 0;
+         for (Future<Long> f : futures) {
+            ops += f.get();
+         }
+         return ops;
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+}
@@ -0,0 +1,87 @@
+package org.infinispan.replication;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.remoting.ReplicationQueue;
+import org.infinispan.remoting.ReplicationQueueImpl;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the adaptive mode of the replication queue, which flushes shortly after commands are added instead of
+ * waiting for the configured interval.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "replication.AdaptiveReplicationQueueTest")
+public class AdaptiveReplicationQueueTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_KEYS = 500;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.REPL_ASYNC, false);
+      builder.clustering().async().useReplQueue(true)
+            .replQueueAdaptive(true)
+            // A periodic flush would never happen during the test
+            .replQueueInterval(60000)
+            .replQueueMaxElements(100)
+            .replQueueMaxBytes(64 * 1024);
+      createCluster(builder, 2);
+      waitForClusterToForm();
+   }
+
+   public void testReplicationWithoutWaitingForInterval() {
+      final Cache<Object, Object> cache1 = cache(0);
+      final Cache<Object, Object> cache2 = cache(1);
+      cache1.put("k", "v");
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return "v".equals(cache2.get("k"));
+         }
+      });
+   }
+
+   public void testConcurrentWritersAreBatched() throws Exception {
+      final Cache<Object, Object> cache1 = cache(0);
+      final Cache<Object, Object> cache2 = cache(1);
+      final Future<?>[] futures = new Future[4];
+      for (int t = 0; t < futures.length; t++) {
+         final int thread = t;
+         futures[t] = fork(new Callable<Void>() {
+            @Override
+            public Void call() {
+               for (int i = 0; i < NUM_KEYS; i++)
+                  cache1.put("k-" + thread + "-" + i, "v" + i);
+               return null;
+            }
+         });
+      }
+      for (Future<?> future : futures)
+         future.get();
+
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return cache2.size() >= futures.length * NUM_KEYS;
+         }
+      });
+      for (int t = 0; t < futures.length; t++)
+         for (int i = 0; i < NUM_KEYS; i++)
+            assertEquals(cache2.get("k-" + t + "-" + i), "v" + i);
+
+      ReplicationQueueImpl queue = (ReplicationQueueImpl) TestingUtil.extractComponent(cache1, ReplicationQueue.class);
+      assertTrue(queue.getFlushCount() > 0);
+      assertTrue(queue.getAverageBatchSize() >= 1);
+      assertTrue(queue.getAverageBatchBytes() > 0);
+   }
+}
@@ -0,0 +1,95 @@
+package org.infinispan.statetransfer;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.CleanupAfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests state transfer with chunks limited by size and several chunks in flight.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "statetransfer.StreamingStateTransferTest")
+@CleanupAfterMethod
+public class StreamingStateTransferTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_KEYS = 200;
+   private static final int VALUE_SIZE = 10000;
+
+   private ConfigurationBuilder builder;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      builder.clustering().hash().numOwners(2).numSegments(10)
+            .stateTransfer().fetchInMemoryState(true).chunkBytes(4 * VALUE_SIZE).maxInFlightChunks(4);
+      createCluster(builder, 1);
+   }
+
+   public void testJoinerReceivesAllEntries() {
+      Cache<Integer, byte[]> c0 = cache(0);
+      for (int i = 0; i < NUM_KEYS; i++) {
+         c0.put(i, value(i));
+      }
+
+      Cache<Integer, byte[]> c1 = addJoiner();
+      for (int i = 0; i < NUM_KEYS; i++) {
+         assertTrue(Arrays.equals(value(i), (byte[]) c1.getAdvancedCache().getDataContainer().get(i).getValue()));
+      }
+      assertTransferStats(c0, c1);
+   }
+
+   public void testChunksLimitedByMarshalledSize() {
+      // the size of values which aren't byte arrays is estimated
+      Cache<Integer, String> c0 = cache(0);
+      for (int i = 0; i < NUM_KEYS; i++) {
+         c0.put(i, stringValue(i));
+      }
+
+      Cache<Integer, String> c1 = addJoiner();
+      for (int i = 0; i < NUM_KEYS; i++) {
+         assertEquals(stringValue(i), c1.getAdvancedCache().getDataContainer().get(i).getValue());
+      }
+      assertTransferStats(c0, c1);
+   }
+
+   private <V> Cache<Integer, V> addJoiner() {
+      addClusterEnabledCacheManager(builder);
+      Cache<Integer, V> c1 = cache(1);
+      waitForClusterToForm();
+      return c1;
+   }
+
+   private void assertTransferStats(Cache<?, ?> provider, Cache<?, ?> consumer) {
+      StateProviderImpl stateProvider = (StateProviderImpl) TestingUtil.extractComponent(provider, StateProvider.class);
+      StateConsumerImpl stateConsumer = (StateConsumerImpl) TestingUtil.extractComponent(consumer, StateConsumer.class);
+      assertEquals(1, stateProvider.getCompletedTransfers());
+      assertEquals(NUM_KEYS, stateProvider.getSentEntries());
+      assertTrue(stateProvider.getSentBytes() >= NUM_KEYS * VALUE_SIZE);
+      assertTrue(stateProvider.getByteTransferRate() > 0);
+      assertEquals(NUM_KEYS, stateConsumer.getAppliedEntries());
+      // every chunk holds at most 5 values, the last one fills it up
+      assertTrue(stateConsumer.getAppliedChunks() >= NUM_KEYS / 5);
+   }
+
+   private byte[] value(int i) {
+      byte[] value = new byte[VALUE_SIZE];
+      Arrays.fill(value, (byte) i);
+      return value;
+   }
+
+   private String stringValue(int i) {
+      char[] value = new char[VALUE_SIZE];
+      Arrays.fill(value, (char) ('a' + i % 26));
+      return new String(value);
+   }
+}
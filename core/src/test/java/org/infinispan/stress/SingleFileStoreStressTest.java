@@ -0,0 +1,145 @@
+package org.infinispan.stress;
+
+import org.infinispan.commons.io.ByteBufferFactoryImpl;
+import org.infinispan.configuration.cache.SingleFileStoreConfiguration;
+import org.infinispan.configuration.cache.SingleFileStoreConfigurationBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.TestObjectStreamMarshaller;
+import org.infinispan.marshall.core.MarshalledEntryFactoryImpl;
+import org.infinispan.marshall.core.MarshalledEntryImpl;
+import org.infinispan.persistence.DummyInitializationContext;
+import org.infinispan.persistence.file.SingleFileStore;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.AssertJUnit.assertNotNull;
+
+/**
+ * Measures how {@link SingleFileStore} load throughput scales with the number of reader threads, optionally
+ * with a concurrent writer overwriting random keys.
+ *
+ * @since 6.0
+ */
+@Test(testName = "stress.SingleFileStoreStressTest", groups = "stress", enabled = false,
+      description = "Disabled by default, designed to be run manually.")
+public class SingleFileStoreStressTest extends AbstractInfinispanTest {
+
+   private static final Log log = LogFactory.getLog(SingleFileStoreStressTest.class);
+
+   static final int NUM_KEYS = Integer.getInteger("keys", 10000);
+   static final long RUNNING_TIME = TimeUnit.SECONDS.toMillis(Integer.getInteger("time", 10));
+   static final int[] READER_THREADS = {1, 2, 4, 8, 16, 32};
+
+   private final TestObjectStreamMarshaller marshaller = new TestObjectStreamMarshaller();
+   private EmbeddedCacheManager cacheManager;
+   private SingleFileStore store;
+   private String tmpDirectory;
+
+   @BeforeClass
+   public void setUp() {
+      tmpDirectory = TestingUtil.tmpDirectory(this);
+      cacheManager = TestCacheManagerFactory.createCacheManager();
+      store = new SingleFileStore();
+      SingleFileStoreConfiguration configuration = TestCacheManagerFactory
+            .getDefaultCacheConfiguration(false)
+            .persistence()
+               .addStore(SingleFileStoreConfigurationBuilder.class)
+                  .location(tmpDirectory)
+                  .create();
+      store.init(new DummyInitializationContext(configuration, cacheManager.getCache(), marshaller,
+                                                new ByteBufferFactoryImpl(), new MarshalledEntryFactoryImpl(marshaller)));
+      store.start();
+      for (int i = 0; i < NUM_KEYS; i++)
+         store.write(new MarshalledEntryImpl("key" + i, "value" + i, null, marshaller));
+   }
+
+   @AfterClass(alwaysRun = true)
+   public void tearDown() {
+      if (store != null)
+         store.stop();
+      TestingUtil.killCacheManagers(cacheManager);
+      TestingUtil.recursiveFileRemove(tmpDirectory);
+   }
+
+   public void testReadScaling() throws Exception {
+      for (int threads : READER_THREADS)
+         runReaders(threads, false);
+   }
+
+   public void testReadScalingWithConcurrentWriter() throws Exception {
+      for (int threads : READER_THREADS)
+         runReaders(threads, true);
+   }
+
+   private void runReaders(int numReaders, boolean withWriter) throws Exception {
+      final CountDownLatch startLatch = new CountDownLatch(1);
+      final AtomicBoolean running = new AtomicBoolean(true);
+      final AtomicLong reads = new AtomicLong();
+      List<Thread> threads = new ArrayList<Thread>();
+      for (int i = 0; i < numReaders; i++) {
+         threads.add(new Thread("Reader-" + i) {
+            @Override
+            public void run() {
+               Random random = new Random();
+               awaitStart(startLatch);
+               long ops = 0;
+               while (running.get()) {
+                  assertNotNull(store.load("key" + random.nextInt(NUM_KEYS)));
+                  ops++;
+               }
+               reads.addAndGet(ops);
+            }
+         });
+      }
+      if (withWriter) {
+         threads.add(new Thread("Writer") {
+            @Override
+            public void run() {
+               Random random = new Random();
+               awaitStart(startLatch);
+               while (running.get()) {
+                  int i = random.nextInt(NUM_KEYS);
+                  store.write(new MarshalledEntryImpl("key" + i, "value" + i, null, marshaller));
+               }
+            }
+         });
+      }
+
+      for (Thread t : threads)
+         t.start();
+      long start = System.nanoTime();
+      startLatch.countDown();
+      Thread.sleep(RUNNING_TIME);
+      running.set(false);
+      for (Thread t : threads)
+         t.join();
+      long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+      String result = String.format("%d reader(s)%s: %d loads/ms", numReaders,
+                                    withWriter ? " + 1 writer" : "", reads.get() / elapsedMillis);
+      System.out.println(result);
+      log.info(result);
+   }
+
+   private static void awaitStart(CountDownLatch latch) {
+      try {
+         latch.await();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+}
@@ -0,0 +1,62 @@
+package org.infinispan.util;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * @since 6.0
+ */
+@Test(groups = "unit", testName = "util.HistogramTest")
+public class HistogramTest {
+
+   public void testEmpty() {
+      Histogram histogram = new Histogram();
+      assertEquals(histogram.getCount(), 0);
+      assertEquals(histogram.getMean(), 0d);
+      assertEquals(histogram.getValueAtPercentile(99), 0);
+   }
+
+   public void testSmallValuesAreExact() {
+      Histogram histogram = new Histogram();
+      for (int i = 1; i <= 20; i++)
+         histogram.record(i);
+      assertEquals(histogram.getCount(), 20);
+      assertEquals(histogram.getMax(), 20);
+      assertEquals(histogram.getMean(), 10.5d);
+      assertEquals(histogram.getValueAtPercentile(50), 10);
+      assertEquals(histogram.getValueAtPercentile(100), 20);
+   }
+
+   public void testBucketBoundaries() {
+      for (long value : new long[]{31, 32, 33, 63, 64, 1000, 123456789, Long.MAX_VALUE}) {
+         int index = Histogram.indexOf(value);
+         long highest = Histogram.highestValueOf(index);
+         assertTrue(highest >= value, "value " + value + " highest " + highest);
+         assertTrue(highest - value <= value / 16, "value " + value + " highest " + highest);
+         if (index > 0)
+            assertTrue(Histogram.highestValueOf(index - 1) < value, "value " + value);
+      }
+   }
+
+   public void testPercentiles() {
+      Histogram histogram = new Histogram();
+      for (int i = 0; i < 990; i++)
+         histogram.record(100);
+      for (int i = 0; i < 10; i++)
+         histogram.record(100000);
+      long p50 = histogram.getValueAtPercentile(50);
+      assertTrue(p50 >= 100 && p50 <= 106, String.valueOf(p50));
+      long p999 = histogram.getValueAtPercentile(99.9);
+      assertEquals(p999, 100000);
+   }
+
+   public void testReset() {
+      Histogram histogram = new Histogram();
+      histogram.record(5);
+      histogram.reset();
+      assertEquals(histogram.getCount(), 0);
+      assertEquals(histogram.getMax(), 0);
+   }
+}
@@ -0,0 +1,125 @@
+package org.infinispan.util.concurrent;
+
+import org.infinispan.commons.equivalence.AnyEquivalence;
+import org.infinispan.eviction.EntrySizeCalculator;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.NullEvictionListener;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests {@link BoundedConcurrentHashMap} bounded by the memory size of its entries.
+ *
+ * @since 6.0
+ */
+@Test(groups = "unit", testName = "util.concurrent.MemoryBoundedConcurrentHashMapTest")
+public class MemoryBoundedConcurrentHashMapTest extends AbstractInfinispanTest {
+
+   private static final long MAX_MEMORY = 64 * 1024;
+   private static final int CONCURRENCY_LEVEL = 4;
+
+   public void testLRUStaysWithinBudget() {
+      staysWithinBudget(Eviction.LRU);
+   }
+
+   public void testLIRSStaysWithinBudget() {
+      staysWithinBudget(Eviction.LIRS);
+   }
+
+   public void testLRUAccounting() {
+      accounting(Eviction.LRU);
+   }
+
+   public void testLIRSAccounting() {
+      accounting(Eviction.LIRS);
+   }
+
+   public void testOversizedEntryIsKept() {
+      BoundedConcurrentHashMap<Integer, byte[]> map = createMap(Eviction.LRU, new CountingEvictionListener());
+      long segmentBudget = MAX_MEMORY / CONCURRENCY_LEVEL;
+      map.put(1, new byte[(int) segmentBudget * 2]);
+      assertNotNull(map.get(1));
+      assertEquals(segmentBudget * 2, map.getMemoryUsed());
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testNoEvictionStrategy() {
+      createMap(Eviction.NONE, new NullEvictionListener<Integer, byte[]>());
+   }
+
+   private void staysWithinBudget(Eviction eviction) {
+      CountingEvictionListener listener = new CountingEvictionListener();
+      BoundedConcurrentHashMap<Integer, byte[]> map = createMap(eviction, listener);
+      Random random = new Random(42);
+      int puts = 5000;
+      for (int i = 0; i < puts; i++) {
+         map.put(i, new byte[1 + random.nextInt(1024)]);
+         assertTrue("Memory used is " + map.getMemoryUsed(), map.getMemoryUsed() <= MAX_MEMORY);
+      }
+      long sum = 0;
+      for (byte[] value : map.values())
+         sum += value.length;
+      assertEquals(sum, map.getMemoryUsed());
+      // small values should have let the segments grow past their initial table size
+      assertTrue(map.size() > CONCURRENCY_LEVEL * BoundedConcurrentHashMap.MEMORY_BOUNDED_SEGMENT_CAPACITY);
+      assertEquals(puts, map.size() + listener.evicted.get());
+   }
+
+   private void accounting(Eviction eviction) {
+      BoundedConcurrentHashMap<Integer, byte[]> map = createMap(eviction, new CountingEvictionListener());
+      map.put(1, new byte[100]);
+      map.put(2, new byte[200]);
+      assertEquals(300, map.getMemoryUsed());
+      map.put(1, new byte[50]);
+      assertEquals(250, map.getMemoryUsed());
+      map.replace(2, new byte[10]);
+      assertEquals(60, map.getMemoryUsed());
+      assertNull(map.putIfAbsent(3, new byte[5]));
+      assertEquals(65, map.getMemoryUsed());
+      map.remove(1);
+      assertEquals(15, map.getMemoryUsed());
+      map.clear();
+      assertEquals(0, map.getMemoryUsed());
+   }
+
+   private BoundedConcurrentHashMap<Integer, byte[]> createMap(Eviction eviction,
+         BoundedConcurrentHashMap.EvictionListener<Integer, byte[]> listener) {
+      return new BoundedConcurrentHashMap<Integer, byte[]>(MAX_MEMORY, CONCURRENCY_LEVEL, eviction, listener,
+            new EntrySizeCalculator<Integer, byte[]>() {
+               @Override
+               public long calculateSize(Integer key, byte[] value) {
+                  return value.length;
+               }
+            }, AnyEquivalence.<Integer>getInstance(), AnyEquivalence.<byte[]>getInstance());
+   }
+
+   static class CountingEvictionListener implements BoundedConcurrentHashMap.EvictionListener<Integer, byte[]> {
+      final AtomicInteger evicted = new AtomicInteger();
+
+      @Override
+      public void onEntryEviction(Map<Integer, byte[]> evicted) {
+         this.evicted.addAndGet(evicted.size());
+      }
+
+      @Override
+      public void onEntryChosenForEviction(byte[] value) {
+      }
+
+      @Override
+      public void onEntryActivated(Object key) {
+      }
+
+      @Override
+      public void onEntryRemoved(Object key) {
+      }
+   }
+}
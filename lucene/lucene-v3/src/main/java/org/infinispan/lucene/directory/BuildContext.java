@@ -28,6 +28,25 @@ public interface BuildContext {
     */
    BuildContext chunkSize(int bytes);
 
+   /**
+    * Enables a node-local cache of the chunks read by this Directory, so that reading an index doesn't need a
+    * lookup in the chunks cache, possibly remote, every time a chunk boundary is crossed. The cached chunks are
+    * softly referenced, and discarded when the metadata of their file changes. Disabled by default.
+    *
+    * @param bytes the maximum total size of the cached chunks, or 0 to disable the cache
+    * @return the same building context to eventually create the Directory instance
+    */
+   BuildContext blockCacheSize(long bytes);
+
+   /**
+    * Sets how many chunks are fetched asynchronously ahead of sequential reads. Only used if the block cache is
+    * enabled, see {@link #blockCacheSize(long)}. Defaults to 4.
+    *
+    * @param chunks the number of chunks to read ahead, or 0 to disable reading ahead
+    * @return the same building context to eventually create the Directory instance
+    */
+   BuildContext readAheadChunks(int chunks);
+
    /**
     * Overrides the default SegmentReadLocker. In some cases you might be able to provide more efficient implementations than
     * the default one by controlling the IndexReader's lifecycle
@@ -0,0 +1,323 @@
+package org.infinispan.lucene.impl;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.commons.equivalence.AnyEquivalence;
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
+import org.infinispan.eviction.EntrySizeCalculator;
+import org.infinispan.lucene.ChunkCacheKey;
+import org.infinispan.lucene.FileMetadata;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.EvictionListener;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+/**
+ * A node-local cache of the chunks read by the IndexInputs of a Directory, so that searches and merges don't need
+ * a cache lookup, possibly remote, every time they cross a chunk boundary.
+ * <p/>
+ * The cache is bounded by the total size of the chunks it holds, each segment of the underlying
+ * {@link BoundedConcurrentHashMap} evicting its least recently used chunks first; chunks are also softly referenced,
+ * so the garbage collector can reclaim them under memory pressure. Sequential reads fetch the next chunks
+ * asynchronously ahead of time.
+ * <p/>
+ * Segment files are never modified once written, but a file name can be reused after the file was deleted: the
+ * chunks of a file are discarded when the file is deleted, renamed or written to through this Directory, and when
+ * its {@link FileMetadata} differs from the one seen when the chunks were cached, as happens when another node
+ * writes it. Every discard starts a new generation of the file: reads of the file started in an earlier generation,
+ * including the pending read aheads, are neither cached nor handed out. The reads of the other files are not affected.
+ *
+ * @since 6.0
+ */
+final class ChunkBlockCache {
+
+   private static final Log log = LogFactory.getLog(ChunkBlockCache.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   /**
+    * Smallest share of the size budget given to a segment of the map, so that small caches are not split in
+    * segments too small to hold a few chunks.
+    */
+   private static final long MIN_SEGMENT_BYTES = 1024 * 1024;
+   private static final int MAX_SEGMENTS = 16;
+
+   private final AdvancedCache<ChunkCacheKey, Object> chunksCache;
+   private final long maxBytes;
+   private final int readAheadChunks;
+
+   private final BoundedConcurrentHashMap<ChunkCacheKey, Block> blocks;
+   private final ConcurrentMap<String, FileVersion> fileVersions = new ConcurrentHashMap<String, FileVersion>();
+   private final ConcurrentMap<ChunkCacheKey, PendingRead> inFlight = new ConcurrentHashMap<ChunkCacheKey, PendingRead>();
+   /**
+    * Source of the generations of the files, unique so that a file discarded and read again never gets back a
+    * generation seen by the reads started before the discard.
+    */
+   private final AtomicLong generations = new AtomicLong();
+
+   private final AtomicLong hits = new AtomicLong();
+   private final AtomicLong misses = new AtomicLong();
+
+   ChunkBlockCache(AdvancedCache<ChunkCacheKey, Object> chunksCache, long maxBytes, int readAheadChunks) {
+      this.chunksCache = chunksCache;
+      this.maxBytes = maxBytes;
+      this.readAheadChunks = readAheadChunks;
+      int concurrencyLevel = (int) Math.max(1, Math.min(MAX_SEGMENTS, maxBytes / MIN_SEGMENT_BYTES));
+      this.blocks = new BoundedConcurrentHashMap<ChunkCacheKey, Block>(maxBytes, concurrencyLevel, Eviction.LRU,
+            new NoOpEvictionListener(), new BlockSizeCalculator(),
+            AnyEquivalence.<ChunkCacheKey>getInstance(), AnyEquivalence.<Block>getInstance());
+   }
+
+   /**
+    * Returns the chunk for the given key, loading it from the chunks cache if needed.
+    *
+    * @return the chunk, or null if it doesn't exist
+    */
+   byte[] get(ChunkCacheKey key) {
+      byte[] chunk = lookup(key);
+      if (chunk != null) {
+         hits.incrementAndGet();
+         return chunk;
+      }
+      misses.incrementAndGet();
+
+      long expectedGeneration = generationOf(key.getFileName());
+      Object value = null;
+      PendingRead pending = inFlight.get(key);
+      // a read ahead started before the file was discarded might return a stale chunk
+      if (pending != null && pending.generation == expectedGeneration) {
+         try {
+            value = pending.future.get();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         } catch (ExecutionException e) {
+            if (trace) log.tracef(e, "Read ahead of chunk %s failed", key);
+         }
+      }
+      if (value == null) {
+         value = chunksCache.get(key);
+      }
+      if (value != null) {
+         store(key, (byte[]) value, expectedGeneration);
+      }
+      return (byte[]) value;
+   }
+
+   /**
+    * Asynchronously fetches the chunks following the given one which are not cached yet.
+    *
+    * @return the number of chunks which are being read ahead, or are already cached
+    */
+   int readAhead(ChunkCacheKey key, int numberOfChunks) {
+      int last = Math.min(key.getChunkId() + readAheadChunks, numberOfChunks - 1);
+      final long expectedGeneration = generationOf(key.getFileName());
+      for (int chunkId = key.getChunkId() + 1; chunkId <= last; chunkId++) {
+         final ChunkCacheKey nextKey = new ChunkCacheKey(key.getIndexName(), key.getFileName(), chunkId, key.getBufferSize());
+         PendingRead existing = inFlight.get(nextKey);
+         if ((existing != null && existing.generation == expectedGeneration) || lookup(nextKey) != null)
+            continue;
+
+         final PendingRead pending = new PendingRead(chunksCache.getAsync(nextKey), expectedGeneration);
+         // replaces a read left over from an earlier generation
+         boolean registered = existing == null ? inFlight.putIfAbsent(nextKey, pending) == null
+               : inFlight.replace(nextKey, existing, pending);
+         if (!registered)
+            continue;
+         pending.future.attachListener(new FutureListener<Object>() {
+            @Override
+            public void futureDone(Future<Object> future) {
+               try {
+                  Object value = future.get();
+                  if (value != null)
+                     store(nextKey, (byte[]) value, expectedGeneration);
+               } catch (Exception e) {
+                  if (trace) log.tracef(e, "Read ahead of chunk %s failed", nextKey);
+               } finally {
+                  inFlight.remove(nextKey, pending);
+               }
+            }
+         });
+      }
+      return Math.max(0, last - key.getChunkId());
+   }
+
+   /**
+    * Discards the cached chunks of a file if its metadata changed since they were cached.
+    */
+   void validate(String fileName, FileMetadata metadata) {
+      while (true) {
+         FileVersion current = fileVersions.get(fileName);
+         if (current == null) {
+            if (fileVersions.putIfAbsent(fileName, new FileVersion(metadata, generations.incrementAndGet())) == null)
+               return;
+         } else if (current.describes(metadata)) {
+            return;
+         } else if (!current.hasMetadata) {
+            // first seen by a read, the chunks cached so far belong to this version of the file
+            if (fileVersions.replace(fileName, current, new FileVersion(metadata, current.generation)))
+               return;
+         } else if (fileVersions.replace(fileName, current, new FileVersion(metadata, generations.incrementAndGet()))) {
+            if (trace) log.tracef("Metadata of file %s changed, discarding its cached chunks", fileName);
+            discard(fileName);
+            return;
+         }
+      }
+   }
+
+   /**
+    * Discards the cached chunks of a file, as its content is going to change.
+    */
+   void invalidate(String fileName) {
+      // the reads in progress find no version, or a new generation if the file is read again meanwhile
+      fileVersions.remove(fileName);
+      discard(fileName);
+   }
+
+   long getHits() {
+      return hits.get();
+   }
+
+   long getMisses() {
+      return misses.get();
+   }
+
+   long getCachedBytes() {
+      return blocks.getMemoryUsed();
+   }
+
+   /**
+    * @return the current generation of the file, starting one if the file is not known yet
+    */
+   private long generationOf(String fileName) {
+      FileVersion version = fileVersions.get(fileName);
+      if (version == null) {
+         FileVersion created = new FileVersion(null, generations.incrementAndGet());
+         version = fileVersions.putIfAbsent(fileName, created);
+         if (version == null)
+            version = created;
+      }
+      return version.generation;
+   }
+
+   private boolean isCurrent(String fileName, long generation) {
+      FileVersion version = fileVersions.get(fileName);
+      return version != null && version.generation == generation;
+   }
+
+   private byte[] lookup(ChunkCacheKey key) {
+      Block block = blocks.get(key);
+      if (block == null)
+         return null;
+      byte[] chunk = block.get();
+      if (chunk == null) {
+         // reclaimed by the garbage collector
+         blocks.remove(key, block);
+      }
+      return chunk;
+   }
+
+   private void store(ChunkCacheKey key, byte[] chunk, long expectedGeneration) {
+      // the file was invalidated while the chunk was being read, it might be stale
+      if (!isCurrent(key.getFileName(), expectedGeneration) || chunk.length > maxBytes)
+         return;
+
+      Block block = new Block(chunk);
+      blocks.put(key, block);
+      // a discard running concurrently might have missed the chunk
+      if (!isCurrent(key.getFileName(), expectedGeneration))
+         blocks.remove(key, block);
+   }
+
+   /**
+    * Removes the chunks of a file. The generation of the file must have been changed first, so that the reads in
+    * progress either see the new generation or have their chunk removed here.
+    */
+   private void discard(String fileName) {
+      for (Iterator<ChunkCacheKey> it = blocks.keySet().iterator(); it.hasNext(); ) {
+         if (it.next().getFileName().equals(fileName))
+            it.remove();
+      }
+      for (Iterator<Map.Entry<ChunkCacheKey, PendingRead>> it = inFlight.entrySet().iterator(); it.hasNext(); ) {
+         if (it.next().getKey().getFileName().equals(fileName))
+            it.remove();
+      }
+   }
+
+   private static final class Block extends SoftReference<byte[]> {
+      final int length;
+
+      Block(byte[] chunk) {
+         super(chunk);
+         this.length = chunk.length;
+      }
+   }
+
+   private static final class PendingRead {
+      final NotifyingFuture<Object> future;
+      final long generation;
+
+      PendingRead(NotifyingFuture<Object> future, long generation) {
+         this.future = future;
+         this.generation = generation;
+      }
+   }
+
+   private static final class BlockSizeCalculator implements EntrySizeCalculator<ChunkCacheKey, Block> {
+      @Override
+      public long calculateSize(ChunkCacheKey key, Block block) {
+         return block.length;
+      }
+   }
+
+   private static final class NoOpEvictionListener implements EvictionListener<ChunkCacheKey, Block> {
+      @Override
+      public void onEntryEviction(Map<ChunkCacheKey, Block> evicted) {
+      }
+
+      @Override
+      public void onEntryChosenForEviction(Block block) {
+      }
+
+      @Override
+      public void onEntryActivated(Object key) {
+      }
+
+      @Override
+      public void onEntryRemoved(Object key) {
+      }
+   }
+
+   /**
+    * The metadata of a file seen by the cache, and the generation of its cached chunks. The metadata is unknown until
+    * the file is validated, when the file was only read so far.
+    */
+   private static final class FileVersion {
+      final long generation;
+      final boolean hasMetadata;
+      final long size;
+      final long lastModified;
+      final int bufferSize;
+
+      FileVersion(FileMetadata metadata, long generation) {
+         this.generation = generation;
+         this.hasMetadata = metadata != null;
+         this.size = hasMetadata ? metadata.getSize() : -1;
+         this.lastModified = hasMetadata ? metadata.getLastModified() : -1;
+         this.bufferSize = hasMetadata ? metadata.getBufferSize() : -1;
+      }
+
+      boolean describes(FileMetadata metadata) {
+         return hasMetadata && size == metadata.getSize() && lastModified == metadata.getLastModified()
+               && bufferSize == metadata.getBufferSize();
+      }
+   }
+}
@@ -21,6 +21,11 @@ public class DirectoryBuilderImpl implements BuildContext {
     */
    public final static int DEFAULT_BUFFER_SIZE = 16 * 1024;
 
+   /**
+    * Used as default number of chunks fetched ahead of sequential reads, when the block cache is enabled
+    */
+   public final static int DEFAULT_READ_AHEAD_CHUNKS = 4;
+
    /**
     * Mandatory parameters:
     */
@@ -37,6 +42,8 @@ public class DirectoryBuilderImpl implements BuildContext {
    private int chunkSize = DEFAULT_BUFFER_SIZE;
    private SegmentReadLocker srl = null;
    private LockFactory lockFactory = null;
+   private long blockCacheSize = 0;
+   private int readAheadChunks = DEFAULT_READ_AHEAD_CHUNKS;
 
    public DirectoryBuilderImpl(Cache<?, ?> metadataCache, Cache<?, ?> chunksCache, Cache<?, ?> distLocksCache, String indexName) {
       this.metadataCache = checkValidConfiguration(checkNotNull(metadataCache, "metadataCache"), indexName);
@@ -55,16 +62,16 @@ public Directory create() {
          srl = makeDefaultSegmentReadLocker(metadataCache, chunksCache, distLocksCache, indexName);
       }
       if (LuceneVersionDetector.VERSION == 3) {
-         return new DirectoryLuceneV3(metadataCache, chunksCache, indexName, lockFactory, chunkSize, srl);
+         return new DirectoryLuceneV3(metadataCache, chunksCache, indexName, lockFactory, chunkSize, srl, blockCacheSize, readAheadChunks);
       }
       else {
-         Class<?>[] ctorType = new Class[]{ Cache.class, Cache.class, String.class, LockFactory.class, int.class, SegmentReadLocker.class };
+         Class<?>[] ctorType = new Class[]{ Cache.class, Cache.class, String.class, LockFactory.class, int.class, SegmentReadLocker.class, long.class, int.class };
          Directory d;
          try {
             d = (Directory) DirectoryBuilderImpl.class.getClassLoader()
                .loadClass("org.infinispan.lucene.impl.DirectoryLuceneV4")
                .getConstructor(ctorType)
-               .newInstance(metadataCache, chunksCache, indexName, lockFactory, chunkSize, srl);
+               .newInstance(metadataCache, chunksCache, indexName, lockFactory, chunkSize, srl, blockCacheSize, readAheadChunks);
          } catch (Exception e) {
             throw log.failedToCreateLucene4Directory(e);
          }
@@ -80,6 +87,22 @@ public BuildContext chunkSize(int bytes) {
       return this;
    }
 
+   @Override
+   public BuildContext blockCacheSize(long bytes) {
+      if (bytes < 0)
+         throw new IllegalArgumentException("blockCacheSize must not be negative");
+      this.blockCacheSize = bytes;
+      return this;
+   }
+
+   @Override
+   public BuildContext readAheadChunks(int chunks) {
+      if (chunks < 0)
+         throw new IllegalArgumentException("readAheadChunks must not be negative");
+      this.readAheadChunks = chunks;
+      return this;
+   }
+
    @Override
    public BuildContext overrideSegmentReadLocker(SegmentReadLocker srl) {
       checkNotNull(srl, "srl");
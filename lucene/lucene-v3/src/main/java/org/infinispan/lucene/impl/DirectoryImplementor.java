@@ -39,7 +39,15 @@ final class DirectoryImplementor {
     private final FileListOperations fileOps;
     private final SegmentReadLocker readLocks;
 
+    // node-local cache of the chunks read, null if disabled
+    private final ChunkBlockCache blockCache;
+
     public DirectoryImplementor(Cache<?, ?> metadataCache, Cache<?, ?> chunksCache, String indexName, int chunkSize, SegmentReadLocker readLocker) {
+        this(metadataCache, chunksCache, indexName, chunkSize, readLocker, 0, 0);
+    }
+
+    public DirectoryImplementor(Cache<?, ?> metadataCache, Cache<?, ?> chunksCache, String indexName, int chunkSize, SegmentReadLocker readLocker,
+                                long blockCacheSize, int readAheadChunks) {
         if (chunkSize <= 0)
            throw new IllegalArgumentException("chunkSize must be a positive integer");
         this.metadataCache = (AdvancedCache<FileCacheKey, FileMetadata>) metadataCache.getAdvancedCache().withFlags(Flag.SKIP_INDEXING);
@@ -48,6 +56,7 @@ public DirectoryImplementor(Cache<?, ?> metadataCache, Cache<?, ?> chunksCache,
         this.chunkSize = chunkSize;
         this.fileOps = new FileListOperations(this.metadataCache, indexName);
         this.readLocks = readLocker;
+        this.blockCache = blockCacheSize > 0 ? new ChunkBlockCache(this.chunksCache, blockCacheSize, readAheadChunks) : null;
      }
 
     String[] list() {
@@ -90,6 +99,7 @@ void touchFile(final String fileName) {
     }
 
     void deleteFile(final String name) {
+       invalidateBlocks(name);
        fileOps.deleteFileName(name);
        readLocks.deleteOrReleaseReadLock(name);
        if (log.isDebugEnabled()) {
@@ -120,6 +130,8 @@ void renameFile(final String from, final String to) {
        fileOps.removeAndAdd(from, to);
 
        // now trigger deletion of old file chunks:
+       invalidateBlocks(from);
+       invalidateBlocks(to);
        readLocks.deleteOrReleaseReadLock(from);
        if (log.isTraceEnabled()) {
           log.tracef("Renamed file from: %s to: %s in index %s", from, to, indexName);
@@ -138,6 +150,7 @@ long fileLength(final String name) {
 
     IndexOutput createOutput(final String name) {
        final FileCacheKey key = new FileCacheKey(indexName, name);
+       invalidateBlocks(name);
        // creating new file, metadata is added on flush() or close() of IndexOutPut
        return new InfinispanIndexOutput(metadataCache, chunksCache, key, chunkSize, fileOps);
     }
@@ -158,10 +171,23 @@ else if (fileMetadata.getSize() <= fileMetadata.getBufferSize()) {
              // safest reaction is to tell this file doesn't exist anymore.
              throw new FileNotFoundException("Error loading metadata for index file: " + fileKey);
           }
-          return new IndexInputContext(chunksCache, fileKey, fileMetadata, readLocks);
+          if (blockCache != null) {
+             blockCache.validate(name, fileMetadata);
+          }
+          return new IndexInputContext(chunksCache, fileKey, fileMetadata, readLocks, blockCache);
        }
     }
 
+    private void invalidateBlocks(final String name) {
+       if (blockCache != null) {
+          blockCache.invalidate(name);
+       }
+    }
+
+    ChunkBlockCache getBlockCache() {
+       return blockCache;
+    }
+
     /**
      * @return The value of indexName, same constant as provided to the constructor.
      */
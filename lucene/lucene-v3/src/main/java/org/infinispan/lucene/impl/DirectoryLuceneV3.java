@@ -49,7 +49,12 @@ class DirectoryLuceneV3 extends Directory implements DirectoryExtensions {
    private final String indexName;
 
    DirectoryLuceneV3(Cache<?, ?> metadataCache, Cache<?, ?> chunksCache, String indexName, LockFactory lf, int chunkSize, SegmentReadLocker readLocker) {
-      this.impl = new DirectoryImplementor(metadataCache, chunksCache, indexName, chunkSize, readLocker);
+      this(metadataCache, chunksCache, indexName, lf, chunkSize, readLocker, 0, 0);
+   }
+
+   DirectoryLuceneV3(Cache<?, ?> metadataCache, Cache<?, ?> chunksCache, String indexName, LockFactory lf, int chunkSize, SegmentReadLocker readLocker,
+                     long blockCacheSize, int readAheadChunks) {
+      this.impl = new DirectoryImplementor(metadataCache, chunksCache, indexName, chunkSize, readLocker, blockCacheSize, readAheadChunks);
       this.indexName = indexName;
       this.lockFactory = lf;
       this.lockFactory.setLockPrefix(this.getLockID());
@@ -30,11 +30,14 @@ abstract class InfinispanIndexInput extends IndexInput {
    private final SegmentReadLocker readLocks;
    private final String filename;
    private final long fileLength;
+   private final int numberOfChunks;
+   private final ChunkBlockCache blockCache;
 
    private int currentBufferSize;
    private byte[] buffer;
    private int bufferPosition;
    private int currentLoadedChunk = -1;
+   private int readAheadMark;
 
    protected boolean isClone;
 
@@ -44,6 +47,8 @@ public InfinispanIndexInput(final IndexInputContext ctx) {
       this.fileKey = ctx.fileKey;
       this.chunkSize = ctx.fileMetadata.getBufferSize();
       this.fileLength = ctx.fileMetadata.getSize();
+      this.numberOfChunks = ctx.fileMetadata.getNumberOfChunks();
+      this.blockCache = ctx.blockCache;
       this.readLocks = ctx.readLocks;
       this.filename = fileKey.getFileName();
       if (trace) {
@@ -102,6 +107,7 @@ public void seek(final long pos) {
       final int targetChunk = (int) (pos / chunkSize);
       if (targetChunk != currentLoadedChunk) {
          currentLoadedChunk = targetChunk;
+         readAheadMark = targetChunk + 1;
          setBufferToCurrentChunkIfPossible();
       }
    }
@@ -113,7 +119,11 @@ private void nextChunk() throws IOException {
 
    private void setBufferToCurrentChunk() throws IOException {
       ChunkCacheKey key = new ChunkCacheKey(fileKey.getIndexName(), filename, currentLoadedChunk, chunkSize);
-      buffer = (byte[]) chunksCache.get(key);
+      buffer = getChunk(key);
+      // reading sequentially: fetch the next chunks before they are needed
+      if (blockCache != null && currentLoadedChunk >= readAheadMark) {
+         readAheadMark = currentLoadedChunk + Math.max(1, blockCache.readAhead(key, numberOfChunks) / 2);
+      }
       if (buffer == null) {
          throw new IOException("Read past EOF: Chunk value could not be found for key " + key);
       }
@@ -124,7 +134,7 @@ private void setBufferToCurrentChunk() throws IOException {
    // RAMDirectory teaches to position the cursor to the end of previous chunk in this case
    private void setBufferToCurrentChunkIfPossible() {
       ChunkCacheKey key = new ChunkCacheKey(fileKey.getIndexName(), filename, currentLoadedChunk, chunkSize);
-      buffer = (byte[]) chunksCache.get(key);
+      buffer = getChunk(key);
       if (buffer == null) {
          currentLoadedChunk--;
          bufferPosition = chunkSize;
@@ -134,6 +144,13 @@ private void setBufferToCurrentChunkIfPossible() {
       }
    }
 
+   private byte[] getChunk(ChunkCacheKey key) {
+      if (blockCache != null) {
+         return blockCache.get(key);
+      }
+      return (byte[]) chunksCache.get(key);
+   }
+
    @Override
    public long length() {
       return this.fileLength;
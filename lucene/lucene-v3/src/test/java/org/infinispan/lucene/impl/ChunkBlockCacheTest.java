@@ -0,0 +1,197 @@
+package org.infinispan.lucene.impl;
+
+import static org.infinispan.lucene.CacheTestSupport.assertTextIsFoundInIds;
+import static org.infinispan.lucene.CacheTestSupport.writeTextToIndex;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+
+import org.apache.lucene.store.Directory;
+import org.infinispan.AdvancedCache;
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.lucene.CacheTestSupport;
+import org.infinispan.lucene.ChunkCacheKey;
+import org.infinispan.lucene.FileMetadata;
+import org.infinispan.lucene.directory.DirectoryBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.concurrent.NotifyingFuture;
+import org.mockito.ArgumentCaptor;
+import org.testng.AssertJUnit;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the node-local cache of the chunks read by a Directory.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "lucene.impl.ChunkBlockCacheTest")
+public class ChunkBlockCacheTest extends SingleCacheManagerTest {
+
+   private static final String INDEX_NAME = "index-A";
+   private static final int BUFFER_SIZE = 16;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder configuration = CacheTestSupport.createLocalCacheConfiguration();
+      return TestCacheManagerFactory.createCacheManager(configuration);
+   }
+
+   public void testCachedChunksAreReused() {
+      ChunkBlockCache blockCache = new ChunkBlockCache(chunksCache(), 10 * BUFFER_SIZE, 0);
+      ChunkCacheKey key = putChunk("file", 0, (byte) 1);
+
+      AssertJUnit.assertEquals(1, blockCache.get(key)[0]);
+      AssertJUnit.assertEquals(1, blockCache.get(key)[0]);
+      AssertJUnit.assertEquals(1, blockCache.getHits());
+      AssertJUnit.assertEquals(1, blockCache.getMisses());
+      AssertJUnit.assertNull(blockCache.get(new ChunkCacheKey(INDEX_NAME, "file", 1, BUFFER_SIZE)));
+   }
+
+   public void testSizeBound() {
+      ChunkBlockCache blockCache = new ChunkBlockCache(chunksCache(), 2 * BUFFER_SIZE, 0);
+      for (int i = 0; i < 3; i++) {
+         blockCache.get(putChunk("file", i, (byte) i));
+      }
+      AssertJUnit.assertEquals(2 * BUFFER_SIZE, blockCache.getCachedBytes());
+
+      // the first chunk was evicted, the last one is still cached
+      blockCache.get(new ChunkCacheKey(INDEX_NAME, "file", 2, BUFFER_SIZE));
+      AssertJUnit.assertEquals(1, blockCache.getHits());
+      blockCache.get(new ChunkCacheKey(INDEX_NAME, "file", 0, BUFFER_SIZE));
+      AssertJUnit.assertEquals(4, blockCache.getMisses());
+   }
+
+   public void testInvalidationOnMetadataChange() {
+      ChunkBlockCache blockCache = new ChunkBlockCache(chunksCache(), 10 * BUFFER_SIZE, 0);
+      FileMetadata metadata = new FileMetadata(BUFFER_SIZE);
+      metadata.setSize(BUFFER_SIZE);
+      blockCache.validate("file", metadata);
+      ChunkCacheKey key = putChunk("file", 0, (byte) 1);
+      blockCache.get(key);
+
+      // same metadata, the chunk is still valid
+      blockCache.validate("file", metadata);
+      AssertJUnit.assertEquals(BUFFER_SIZE, blockCache.getCachedBytes());
+
+      // the file was written again
+      putChunk("file", 0, (byte) 2);
+      metadata.setLastModified(metadata.getLastModified() + 1);
+      blockCache.validate("file", metadata);
+      AssertJUnit.assertEquals(0, blockCache.getCachedBytes());
+      AssertJUnit.assertEquals(2, blockCache.get(key)[0]);
+
+      blockCache.invalidate("file");
+      AssertJUnit.assertEquals(0, blockCache.getCachedBytes());
+   }
+
+   public void testReadAhead() {
+      final ChunkBlockCache blockCache = new ChunkBlockCache(chunksCache(), 10 * BUFFER_SIZE, 2);
+      for (int i = 0; i < 4; i++) {
+         putChunk("file", i, (byte) i);
+      }
+      ChunkCacheKey first = new ChunkCacheKey(INDEX_NAME, "file", 0, BUFFER_SIZE);
+      blockCache.get(first);
+      AssertJUnit.assertEquals(2, blockCache.readAhead(first, 4));
+
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return blockCache.getCachedBytes() == 3 * BUFFER_SIZE;
+         }
+      });
+      AssertJUnit.assertEquals(2, blockCache.get(new ChunkCacheKey(INDEX_NAME, "file", 2, BUFFER_SIZE))[0]);
+      AssertJUnit.assertEquals(1, blockCache.getHits());
+      // never beyond the last chunk
+      AssertJUnit.assertEquals(1, blockCache.readAhead(new ChunkCacheKey(INDEX_NAME, "file", 2, BUFFER_SIZE), 4));
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testDiscardDropsPendingReadAhead() throws Exception {
+      AdvancedCache<ChunkCacheKey, Object> chunksCache = mock(AdvancedCache.class);
+      ChunkCacheKey first = new ChunkCacheKey(INDEX_NAME, "file", 0, BUFFER_SIZE);
+      ChunkCacheKey second = new ChunkCacheKey(INDEX_NAME, "file", 1, BUFFER_SIZE);
+      byte[] stale = new byte[BUFFER_SIZE];
+      stale[0] = 1;
+      byte[] fresh = new byte[BUFFER_SIZE];
+      fresh[0] = 2;
+      // the read ahead stays in flight until its listener is invoked
+      NotifyingFuture<Object> staleRead = mock(NotifyingFuture.class);
+      when(staleRead.get()).thenReturn(stale);
+      NotifyingFuture<Object> freshRead = mock(NotifyingFuture.class);
+      when(chunksCache.getAsync(second)).thenReturn(staleRead, freshRead);
+      when(chunksCache.get(second)).thenReturn(fresh);
+
+      ChunkBlockCache blockCache = new ChunkBlockCache(chunksCache, 10 * BUFFER_SIZE, 1);
+      AssertJUnit.assertEquals(1, blockCache.readAhead(first, 2));
+      ArgumentCaptor<FutureListener> listener = ArgumentCaptor.forClass(FutureListener.class);
+      verify(staleRead).attachListener(listener.capture());
+
+      // the file is written again before the read ahead completes
+      blockCache.invalidate("file");
+      AssertJUnit.assertEquals(2, blockCache.get(second)[0]);
+
+      // the late completion of the stale read doesn't replace the chunk
+      listener.getValue().futureDone(staleRead);
+      AssertJUnit.assertEquals(2, blockCache.get(second)[0]);
+      AssertJUnit.assertEquals(1, blockCache.getHits());
+
+      // the discarded read ahead doesn't prevent reading ahead again
+      blockCache.invalidate("file");
+      blockCache.readAhead(first, 2);
+      verify(chunksCache, times(2)).getAsync(second);
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testDiscardKeepsReadsOfOtherFiles() throws Exception {
+      AdvancedCache<ChunkCacheKey, Object> chunksCache = mock(AdvancedCache.class);
+      ChunkCacheKey first = new ChunkCacheKey(INDEX_NAME, "file", 0, BUFFER_SIZE);
+      ChunkCacheKey second = new ChunkCacheKey(INDEX_NAME, "file", 1, BUFFER_SIZE);
+      NotifyingFuture<Object> read = mock(NotifyingFuture.class);
+      when(read.get()).thenReturn(new byte[BUFFER_SIZE]);
+      when(chunksCache.getAsync(second)).thenReturn(read);
+
+      ChunkBlockCache blockCache = new ChunkBlockCache(chunksCache, 10 * BUFFER_SIZE, 1);
+      AssertJUnit.assertEquals(1, blockCache.readAhead(first, 2));
+      ArgumentCaptor<FutureListener> listener = ArgumentCaptor.forClass(FutureListener.class);
+      verify(read).attachListener(listener.capture());
+
+      // another file is written while the read ahead is in flight
+      blockCache.invalidate("other");
+      listener.getValue().futureDone(read);
+      AssertJUnit.assertEquals(BUFFER_SIZE, blockCache.getCachedBytes());
+      AssertJUnit.assertNotNull(blockCache.get(second));
+      AssertJUnit.assertEquals(1, blockCache.getHits());
+   }
+
+   public void testSearchWithBlockCache() throws IOException {
+      Directory dir = DirectoryBuilder.newDirectoryInstance(cache, cache, cache, INDEX_NAME)
+            .chunkSize(BUFFER_SIZE)
+            .blockCacheSize(1024 * 1024)
+            .create();
+      writeTextToIndex(dir, 0, "hello world");
+      assertTextIsFoundInIds(dir, "hello", 0);
+      // segment files are replaced by merges: reading must never return stale chunks
+      writeTextToIndex(dir, 1, "hello again");
+      assertTextIsFoundInIds(dir, "hello", 0, 1);
+      dir.close();
+   }
+
+   @SuppressWarnings("unchecked")
+   private AdvancedCache<ChunkCacheKey, Object> chunksCache() {
+      return (AdvancedCache) cache.getAdvancedCache();
+   }
+
+   private ChunkCacheKey putChunk(String fileName, int chunkId, byte content) {
+      ChunkCacheKey key = new ChunkCacheKey(INDEX_NAME, fileName, chunkId, BUFFER_SIZE);
+      byte[] chunk = new byte[BUFFER_SIZE];
+      chunk[0] = content;
+      cache.put(key, chunk);
+      return key;
+   }
+}
@@ -35,7 +35,16 @@ class DirectoryLuceneV4 extends Directory implements DirectoryExtensions {
     * @param readLocker @see org.infinispan.lucene.readlocks for some implementations; you might be able to provide more efficient implementations by controlling the IndexReader's lifecycle.
     */
    public DirectoryLuceneV4(Cache<?, ?> metadataCache, Cache<?, ?> chunksCache, String indexName, LockFactory lf, int chunkSize, SegmentReadLocker readLocker) {
-      this.impl = new DirectoryImplementor(metadataCache, chunksCache, indexName, chunkSize, readLocker);
+      this(metadataCache, chunksCache, indexName, lf, chunkSize, readLocker, 0, 0);
+   }
+
+   /**
+    * @param blockCacheSize the maximum size in bytes of the chunks cached by this node for reading, 0 to disable the cache
+    * @param readAheadChunks the number of chunks fetched ahead of sequential reads, if the chunks are cached
+    */
+   public DirectoryLuceneV4(Cache<?, ?> metadataCache, Cache<?, ?> chunksCache, String indexName, LockFactory lf, int chunkSize, SegmentReadLocker readLocker,
+                            long blockCacheSize, int readAheadChunks) {
+      this.impl = new DirectoryImplementor(metadataCache, chunksCache, indexName, chunkSize, readLocker, blockCacheSize, readAheadChunks);
       this.indexName = indexName;
       this.lockFactory = lf;
       this.lockFactory.setLockPrefix(this.getLockID());
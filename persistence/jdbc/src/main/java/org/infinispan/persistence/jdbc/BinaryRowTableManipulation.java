@@ -0,0 +1,141 @@
+package org.infinispan.persistence.jdbc;
+
+import org.infinispan.persistence.jdbc.configuration.TableManipulationConfiguration;
+import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.persistence.jdbc.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.sql.Connection;
+
+/**
+ * The table of the {@link org.infinispan.persistence.jdbc.binary.JdbcBinaryRowStore}, which stores a row per
+ * marshalled key. The id column holds the marshalled key and the rows are looked up through a column holding the hash
+ * of the key (named after the id column, with the {@link #HASH_COLUMN_SUFFIX}). The primary key of the table is made of
+ * the hash and the id columns, so the id column type must be a bounded binary type the database can index, e.g.
+ * VARBINARY(n) or RAW(n) but not BLOB (see {@link
+ * org.infinispan.persistence.jdbc.configuration.JdbcBinaryRowStoreConfigurationBuilder#table()}), and a key can never
+ * be inserted twice, even by stores running on different nodes. The timestamp column is indexed as well, so that purging
+ * the expired rows doesn't scan the whole table.
+ * <p/>
+ * The statements which access a single row take the hash and the id as their last two parameters: the insert and the
+ * update statements take the data, the timestamp, the hash and the id, while the select and delete statements only
+ * take the hash and the id.
+ *
+ * @since 6.0
+ */
+public class BinaryRowTableManipulation extends TableManipulation {
+
+   private static final Log log = LogFactory.getLog(BinaryRowTableManipulation.class, Log.class);
+
+   public static final String HASH_COLUMN_SUFFIX = "_hash";
+
+   private String insertRowSql;
+   private String updateRowSql;
+   private String selectRowSql;
+   private String selectIdRowSql;
+   private String deleteRowSql;
+   private String selectExpiredIdsSql;
+   private String deleteExpiredRowSql;
+
+   public BinaryRowTableManipulation(TableManipulationConfiguration config) {
+      super(config);
+   }
+
+   public String getHashColumnName() {
+      return config.idColumnName() + HASH_COLUMN_SUFFIX;
+   }
+
+   @Override
+   public void createTable(Connection conn) throws PersistenceException {
+      assertMandatoryElementsPresent();
+      String createTableDdl = "CREATE TABLE " + getTableName() + "(" + config.idColumnName() + " " + config.idColumnType()
+            + " NOT NULL, " + getHashColumnName() + " INTEGER NOT NULL, " + config.dataColumnName() + " "
+            + config.dataColumnType() + ", " + config.timestampColumnName() + " " + config.timestampColumnType()
+            + ", PRIMARY KEY (" + getHashColumnName() + ", " + config.idColumnName() + "))";
+      if (log.isTraceEnabled()) {
+         log.tracef("Creating table with following DDL: '%s'.", createTableDdl);
+      }
+      executeUpdateSql(conn, createTableDdl);
+      createIndexes(conn, false);
+   }
+
+   @Override
+   public String getInsertRowSql() {
+      if (insertRowSql == null) {
+         insertRowSql = "INSERT INTO " + getTableName() + " (" + config.dataColumnName() + ", " + config.timestampColumnName()
+               + ", " + getHashColumnName() + ", " + config.idColumnName() + ") VALUES(?,?,?,?)";
+      }
+      return insertRowSql;
+   }
+
+   @Override
+   public String getUpdateRowSql() {
+      if (updateRowSql == null) {
+         updateRowSql = "UPDATE " + getTableName() + " SET " + config.dataColumnName() + " = ? , "
+               + config.timestampColumnName() + " = ?" + whereKey();
+      }
+      return updateRowSql;
+   }
+
+   @Override
+   public String getSelectRowSql() {
+      if (selectRowSql == null) {
+         selectRowSql = "SELECT " + config.dataColumnName() + " FROM " + getTableName() + whereKey();
+      }
+      return selectRowSql;
+   }
+
+   @Override
+   public String getSelectIdRowSql() {
+      if (selectIdRowSql == null) {
+         selectIdRowSql = "SELECT " + getHashColumnName() + " FROM " + getTableName() + whereKey();
+      }
+      return selectIdRowSql;
+   }
+
+   @Override
+   public String getDeleteRowSql() {
+      if (deleteRowSql == null) {
+         deleteRowSql = "DELETE FROM " + getTableName() + whereKey();
+      }
+      return deleteRowSql;
+   }
+
+   /**
+    * @return the hash and the id of the rows which expired before the time passed as parameter
+    */
+   @Override
+   public String getSelectExpiredIdsSql() {
+      if (selectExpiredIdsSql == null) {
+         selectExpiredIdsSql = "SELECT " + getHashColumnName() + ", " + config.idColumnName() + " FROM " + getTableName()
+               + " WHERE " + config.timestampColumnName() + " < ? AND " + config.timestampColumnName() + " > 0";
+      }
+      return selectExpiredIdsSql;
+   }
+
+   /**
+    * Deletes a row selected by {@link #getSelectExpiredIdsSql()}, unless it was updated in the meantime. Takes the
+    * hash, the id and the time passed to the select statement.
+    */
+   @Override
+   public String getDeleteExpiredRowSql() {
+      if (deleteExpiredRowSql == null) {
+         deleteExpiredRowSql = "DELETE FROM " + getTableName() + whereKey() + " AND " + config.timestampColumnName()
+               + " < ? AND " + config.timestampColumnName() + " > 0";
+      }
+      return deleteExpiredRowSql;
+   }
+
+   /**
+    * The insert statement is used instead, and a row inserted concurrently is updated when the insert fails with a
+    * duplicate key error.
+    */
+   @Override
+   public String getUpsertRowSql() {
+      return null;
+   }
+
+   private String whereKey() {
+      return " WHERE " + getHashColumnName() + " = ? AND " + config.idColumnName() + " = ?";
+   }
+}
@@ -0,0 +1,148 @@
+package org.infinispan.persistence.jdbc;
+
+import org.infinispan.commons.io.ByteBuffer;
+import org.infinispan.commons.util.Util;
+import org.infinispan.executors.ExecutorAllCompletionService;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.TaskContextImpl;
+import org.infinispan.persistence.jdbc.connectionfactory.ConnectionFactory;
+import org.infinispan.persistence.jdbc.logging.Log;
+import org.infinispan.persistence.spi.AdvancedCacheLoader;
+import org.infinispan.persistence.spi.InitializationContext;
+import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.util.KeyValuePair;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Implements {@link AdvancedCacheLoader#process} for the stores which keep an entry per row: the rows returned by
+ * {@link TableManipulation#getLoadNonExpiredAllRowsSql()} are streamed by the calling thread, fetchSize rows at a time,
+ * and the chunks of rows are mapped back to keys, unmarshalled and processed in parallel by the executor. The chunks
+ * read ahead are bounded, so that a slow task doesn't cause the whole table to be loaded in memory.
+ * <p/>
+ * Subclasses read the id column of a row and map it back to the key of the entry.
+ *
+ * @param <R> the type of the id column, as read from the result set
+ * @since 6.0
+ */
+public abstract class ChunkedRowProcessor<R> {
+
+   private static final Log log = LogFactory.getLog(ChunkedRowProcessor.class, Log.class);
+
+   private static final int MAX_CHUNKS_IN_FLIGHT = Runtime.getRuntime().availableProcessors() * 2;
+
+   private final ConnectionFactory connectionFactory;
+   private final TableManipulation tableManipulation;
+   private final InitializationContext ctx;
+
+   protected ChunkedRowProcessor(ConnectionFactory connectionFactory, TableManipulation tableManipulation,
+                                 InitializationContext ctx) {
+      this.connectionFactory = connectionFactory;
+      this.tableManipulation = tableManipulation;
+      this.ctx = ctx;
+   }
+
+   /**
+    * Reads the id column of the current row, which is the second column of the result set.
+    */
+   protected abstract R readId(ResultSet rs) throws SQLException, IOException;
+
+   /**
+    * Maps the id read by {@link #readId(ResultSet)} back to the key of the entry. Called by the executor's threads.
+    */
+   protected abstract Object toKey(R id) throws Exception;
+
+   public void process(AdvancedCacheLoader.KeyFilter filter, AdvancedCacheLoader.CacheLoaderTask task, Executor executor,
+                       boolean fetchData) {
+      int chunkSize = Math.max(1, tableManipulation.getFetchSize());
+      Semaphore chunksInFlight = new Semaphore(MAX_CHUNKS_IN_FLIGHT);
+      TaskContextImpl taskContext = new TaskContextImpl();
+      ExecutorAllCompletionService ecs = new ExecutorAllCompletionService(executor);
+      Connection conn = null;
+      PreparedStatement ps = null;
+      ResultSet rs = null;
+      try {
+         String sql = tableManipulation.getLoadNonExpiredAllRowsSql();
+         if (log.isTraceEnabled()) {
+            log.tracef("Running sql %s", sql);
+         }
+         conn = connectionFactory.getConnection();
+         ps = conn.prepareStatement(sql);
+         ps.setLong(1, ctx.getTimeService().wallClockTime());
+         // a hint for the driver to stream the result set instead of loading all the rows
+         ps.setFetchSize(chunkSize);
+         rs = ps.executeQuery();
+
+         List<KeyValuePair<R, byte[]>> chunk = new ArrayList<KeyValuePair<R, byte[]>>(chunkSize);
+         while (!taskContext.isStopped() && !ecs.isExceptionThrown() && rs.next()) {
+            byte[] data = fetchData ? Util.readStream(rs.getBinaryStream(1)) : null;
+            chunk.add(new KeyValuePair<R, byte[]>(readId(rs), data));
+            if (chunk.size() == chunkSize) {
+               submitChunk(ecs, chunksInFlight, chunk, filter, task, taskContext);
+               chunk = new ArrayList<KeyValuePair<R, byte[]>>(chunkSize);
+            }
+         }
+         if (!chunk.isEmpty()) {
+            submitChunk(ecs, chunksInFlight, chunk, filter, task, taskContext);
+         }
+      } catch (SQLException e) {
+         log.sqlFailureFetchingAllStoredEntries(e);
+         throw new PersistenceException("SQL error while fetching all StoredEntries", e);
+      } catch (IOException e) {
+         throw new PersistenceException("I/O error while fetching all StoredEntries", e);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      } finally {
+         JdbcUtil.safeClose(rs);
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(conn);
+      }
+      ecs.waitUntilAllCompleted();
+      if (ecs.isExceptionThrown()) {
+         log.errorExecutingParallelStoreTask(ecs.getFirstException());
+         throw new PersistenceException(ecs.getFirstException());
+      }
+   }
+
+   private void submitChunk(ExecutorAllCompletionService ecs, final Semaphore chunksInFlight,
+                            final List<KeyValuePair<R, byte[]>> chunk, final AdvancedCacheLoader.KeyFilter filter,
+                            final AdvancedCacheLoader.CacheLoaderTask task, final TaskContextImpl taskContext)
+         throws InterruptedException {
+      chunksInFlight.acquire();
+      ecs.submit(new Callable<Void>() {
+         @Override
+         public Void call() throws Exception {
+            try {
+               for (KeyValuePair<R, byte[]> row : chunk) {
+                  if (taskContext.isStopped()) break;
+                  Object key = toKey(row.getKey());
+                  if (filter != null && !filter.shouldLoadKey(key))
+                     continue;
+                  MarshalledEntry entry;
+                  if (row.getValue() != null) {
+                     KeyValuePair<ByteBuffer, ByteBuffer> kvp = JdbcUtil.unmarshall(ctx.getMarshaller(), new ByteArrayInputStream(row.getValue()));
+                     entry = ctx.getMarshalledEntryFactory().newMarshalledEntry(key, kvp.getKey(), kvp.getValue());
+                  } else {
+                     entry = ctx.getMarshalledEntryFactory().newMarshalledEntry(key, (Object) null, null);
+                  }
+                  task.processEntry(entry, taskContext);
+               }
+               return null;
+            } finally {
+               chunksInFlight.release();
+            }
+         }
+      });
+   }
+}
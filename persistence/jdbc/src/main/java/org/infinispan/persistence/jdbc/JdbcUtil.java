@@ -11,6 +11,7 @@
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.sql.Statement;
 
 /**
@@ -52,6 +53,21 @@ public static void safeClose(ResultSet rs) {
       }
    }
 
+   /**
+    * @return whether the statement failed because it violated a unique or primary key constraint, which is reported
+    *         with an SQL state of class 23 (integrity constraint violation)
+    */
+   public static boolean isDuplicateKey(SQLException e) {
+      for (SQLException cause = e; cause != null; cause = cause.getNextException()) {
+         if (cause instanceof SQLIntegrityConstraintViolationException)
+            return true;
+         String state = cause.getSQLState();
+         if (state != null && state.startsWith("23"))
+            return true;
+      }
+      return false;
+   }
+
    public static ByteBuffer marshall(StreamingMarshaller marshaller, Object obj) throws PersistenceException, InterruptedException {
       try {
          return marshaller.objectToBuffer(obj);
@@ -40,6 +40,7 @@ public class TableManipulation implements Cloneable {
    /* Cache the sql for managing data */
    private String insertRowSql;
    private String updateRowSql;
+   private String upsertRowSql;
    private String selectRowSql;
    private String selectIdRowSql;
    private String deleteRowSql;
@@ -49,6 +50,8 @@ public class TableManipulation implements Cloneable {
    private String deleteAllRows;
    private String selectExpiredRowsSql;
    private String deleteExpiredRowsSql;
+   private String selectExpiredIdsSql;
+   private String deleteExpiredRowSql;
    private String loadSomeRowsSql;
    public DatabaseType databaseType;
    private String loadAllKeysBinarySql;
@@ -72,16 +75,7 @@ public boolean tableExists(Connection connection, TableName tableName) throws Pe
          // we need to make sure, that (even if the user has extended permissions) only the tables in current schema are checked
          // explicit set of the schema to the current user one to make sure only tables of the current users are requested
          DatabaseMetaData metaData = connection.getMetaData();
-         String schemaPattern = tableName.getSchema();
-         if(schemaPattern == null){
-            switch (getDatabaseType()) {
-               case ORACLE:
-                  schemaPattern = metaData.getUserName();
-                  break;
-               default:
-            }
-         }
-         rs = metaData.getTables(null, schemaPattern, tableName.getName(), new String[] {"TABLE"});
+         rs = metaData.getTables(null, getSchemaPattern(metaData, tableName), tableName.getName(), new String[] {"TABLE"});
          return rs.next();
       } catch (SQLException e) {
          if (log.isTraceEnabled())
@@ -92,6 +86,19 @@ public boolean tableExists(Connection connection, TableName tableName) throws Pe
       }
    }
 
+   private String getSchemaPattern(DatabaseMetaData metaData, TableName tableName) throws SQLException {
+      String schemaPattern = tableName.getSchema();
+      if(schemaPattern == null){
+         switch (getDatabaseType()) {
+            case ORACLE:
+               schemaPattern = metaData.getUserName();
+               break;
+            default:
+         }
+      }
+      return schemaPattern;
+   }
+
    public void createTable(Connection conn) throws PersistenceException {
       // removed CONSTRAINT clause as this causes problems with some databases, like Informix.
       assertMandatoryElementsPresent();
@@ -103,9 +110,66 @@ public void createTable(Connection conn) throws PersistenceException {
          log.tracef("Creating table with following DDL: '%s'.", createTableDdl);
       }
       executeUpdateSql(conn, createTableDdl);
+      createIndexes(conn, false);
+   }
+
+   /**
+    * Creates the indexes of the table. The store works without them, only slower, so failing to create an index is
+    * logged rather than thrown.
+    *
+    * @param onlyMissing whether the table already existed, in which case only the indexes it lacks are created
+    */
+   protected void createIndexes(Connection conn, boolean onlyMissing) {
+      // the expired rows are looked up by timestamp when purging
+      createIndex(conn, "TS", config.timestampColumnName(), onlyMissing);
+   }
+
+   /**
+    * Creates an index on one of the columns of the table, unless {@code onlyMissing} is set and the column is already
+    * the first column of an index. The name of the index is the given suffix and a hash of the table name, which
+    * keeps it short enough for any database, e.g. Oracle limits identifiers to 30 characters.
+    */
+   protected void createIndex(Connection conn, String indexSuffix, String columnName, boolean onlyMissing) {
+      if (onlyMissing && isIndexed(conn, columnName))
+         return;
+      String indexName = getIdentifierQuoteString() + "IDX_" + indexSuffix + "_"
+            + Integer.toHexString(getTableName().toString().hashCode()).toUpperCase() + getIdentifierQuoteString();
+      String createIndexDdl = "CREATE INDEX " + indexName + " ON " + getTableName() + " (" + columnName + ")";
+      if (log.isTraceEnabled()) {
+         log.tracef("Creating index with following DDL: '%s'.", createIndexDdl);
+      }
+      Statement statement = null;
+      try {
+         statement = conn.createStatement();
+         statement.executeUpdate(createIndexDdl);
+      } catch (SQLException e) {
+         log.failedCreatingIndex(indexName, columnName, getTableName(), e);
+      } finally {
+         JdbcUtil.safeClose(statement);
+      }
    }
 
-   private void assertMandatoryElementsPresent() throws PersistenceException {
+   private boolean isIndexed(Connection conn, String columnName) {
+      TableName tableName = getTableName();
+      ResultSet rs = null;
+      try {
+         DatabaseMetaData metaData = conn.getMetaData();
+         rs = metaData.getIndexInfo(null, getSchemaPattern(metaData, tableName), tableName.getName(), false, true);
+         while (rs.next()) {
+            if (rs.getShort("ORDINAL_POSITION") == 1 && columnName.equalsIgnoreCase(rs.getString("COLUMN_NAME")))
+               return true;
+         }
+         return false;
+      } catch (SQLException e) {
+         if (log.isTraceEnabled())
+            log.tracef(e, "SQLException occurs while looking up the indexes of the table %s", tableName);
+         return false;
+      } finally {
+         JdbcUtil.safeClose(rs);
+      }
+   }
+
+   protected void assertMandatoryElementsPresent() throws PersistenceException {
       assertNotNull(cacheName, "cacheName needed in order to create table");
    }
 
@@ -115,7 +179,7 @@ private void assertNotNull(String keyColumnType, String message) throws Persiste
       }
    }
 
-   private void executeUpdateSql(Connection conn, String sql) throws PersistenceException {
+   protected void executeUpdateSql(Connection conn, String sql) throws PersistenceException {
       Statement statement = null;
       try {
          statement = conn.createStatement();
@@ -146,6 +210,9 @@ public void start(ConnectionFactory connectionFactory) throws PersistenceExcepti
             conn = this.connectionFactory.getConnection();
             if (!tableExists(conn, getTableName())) {
                createTable(conn);
+            } else {
+               // the table may have been created before an index was added
+               createIndexes(conn, true);
             }
          } finally {
             this.connectionFactory.releaseConnection(conn);
@@ -189,6 +256,68 @@ public String getUpdateRowSql() {
       return updateRowSql;
    }
 
+   /**
+    * @return true if the rows are written with {@link #getUpsertRowSql()}: the upserts are enabled in the configuration
+    * and the database supports them
+    */
+   public boolean isUpsertSupported() {
+      return config.upsert() && getUpsertRowSql() != null;
+   }
+
+   /**
+    * Inserts or updates a row with a single statement. The parameters are the same as for {@link #getInsertRowSql()}:
+    * data, timestamp and id.
+    *
+    * @return the dialect specific upsert statement, or null if the database doesn't support it
+    */
+   public String getUpsertRowSql() {
+      if (upsertRowSql == null) {
+         String table = getTableName().toString();
+         String id = config.idColumnName();
+         String data = config.dataColumnName();
+         String timestamp = config.timestampColumnName();
+         String columns = data + ", " + timestamp + ", " + id;
+         String mergeClauses = " ON (" + table + "." + id + " = tmp." + id + ")" +
+               " WHEN MATCHED THEN UPDATE SET " + data + " = tmp." + data + ", " + timestamp + " = tmp." + timestamp +
+               " WHEN NOT MATCHED THEN INSERT (" + columns + ") VALUES (tmp." + data + ", tmp." + timestamp + ", tmp." + id + ")";
+         switch (getDatabaseType()) {
+            case H2:
+               upsertRowSql = "MERGE INTO " + table + " (" + columns + ") KEY(" + id + ") VALUES(?,?,?)";
+               break;
+            case MYSQL:
+               upsertRowSql = "INSERT INTO " + table + " (" + columns + ") VALUES(?,?,?) ON DUPLICATE KEY UPDATE " +
+                     data + " = VALUES(" + data + "), " + timestamp + " = VALUES(" + timestamp + ")";
+               break;
+            case POSTGRES:
+               // requires PostgreSQL 9.5 or later
+               upsertRowSql = "INSERT INTO " + table + " (" + columns + ") VALUES(?, ?, cast(? as " + config.idColumnType() + "))" +
+                     " ON CONFLICT (" + id + ") DO UPDATE SET " + data + " = EXCLUDED." + data + ", " + timestamp + " = EXCLUDED." + timestamp;
+               break;
+            case SQLITE:
+               upsertRowSql = "INSERT OR REPLACE INTO " + table + " (" + columns + ") VALUES(?,?,?)";
+               break;
+            case ORACLE:
+               upsertRowSql = "MERGE INTO " + table + " USING (SELECT ? " + data + ", ? " + timestamp + ", ? " + id + " FROM dual) tmp" + mergeClauses;
+               break;
+            case DB2:
+               upsertRowSql = "MERGE INTO " + table + " USING (VALUES (?, ?, ?)) AS tmp (" + columns + ")" + mergeClauses;
+               break;
+            case SQL_SERVER:
+               // SQL Server requires MERGE statements to be terminated
+               upsertRowSql = "MERGE INTO " + table + " USING (VALUES (?, ?, ?)) AS tmp (" + columns + ")" + mergeClauses + ";";
+               break;
+            case HSQL:
+               // HSQLDB can't infer the types of the parameters in the VALUES list
+               upsertRowSql = "MERGE INTO " + table + " USING (VALUES (CAST(? AS " + config.dataColumnType() + "), CAST(? AS " +
+                     config.timestampColumnType() + "), CAST(? AS " + config.idColumnType() + "))) AS tmp (" + columns + ")" + mergeClauses;
+               break;
+            default:
+               return null;
+         }
+      }
+      return upsertRowSql;
+   }
+
    public String getSelectRowSql() {
       if (selectRowSql == null) {
          switch(getDatabaseType()) {
@@ -283,6 +412,30 @@ public String getDeleteExpiredRowsSql() {
       return deleteExpiredRowsSql;
    }
 
+   /**
+    * @return the ids of the rows which expired before the time passed as parameter. The statement is meant to be
+    *         executed with a maximum number of rows, so that the expired rows are purged in chunks
+    */
+   public String getSelectExpiredIdsSql() {
+      if (selectExpiredIdsSql == null) {
+         selectExpiredIdsSql = "SELECT " + config.idColumnName() + " FROM " + getTableName() + " WHERE "
+               + config.timestampColumnName() + " < ? AND " + config.timestampColumnName() + " > 0";
+      }
+      return selectExpiredIdsSql;
+   }
+
+   /**
+    * Deletes a row selected by {@link #getSelectExpiredIdsSql()}, unless it was updated in the meantime. Takes the id
+    * and the time passed to the select statement.
+    */
+   public String getDeleteExpiredRowSql() {
+      if (deleteExpiredRowSql == null) {
+         deleteExpiredRowSql = "DELETE FROM " + getTableName() + " WHERE " + config.idColumnName() + " = ? AND "
+               + config.timestampColumnName() + " < ? AND " + config.timestampColumnName() + " > 0";
+      }
+      return deleteExpiredRowSql;
+   }
+
    @Override
    public TableManipulation clone() {
       try {
@@ -365,7 +518,7 @@ public String getLoadAllKeysStringSql() {
    }
 
    /**
-    * For DB queries the fetch size will be set on {@link java.sql.ResultSet#setFetchSize(int)}. This is optional parameter,
+    * For DB queries the fetch size will be set on {@link java.sql.Statement#setFetchSize(int)}. This is optional parameter,
     * if not specified will be defaulted to {@link #DEFAULT_FETCH_SIZE}.
     */
    public int getFetchSize() {
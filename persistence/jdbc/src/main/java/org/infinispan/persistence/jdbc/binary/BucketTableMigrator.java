@@ -0,0 +1,63 @@
+package org.infinispan.persistence.jdbc.binary;
+
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.jdbc.logging.Log;
+import org.infinispan.persistence.spi.AdvancedCacheLoader;
+import org.infinispan.util.concurrent.WithinThreadExecutor;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copies the entries stored in buckets by a {@link JdbcBinaryStore} to the per-key rows of a {@link
+ * JdbcBinaryRowStore}. Both stores must be started; the entries are written in batches of the batch size of the row
+ * table and the expired entries are skipped.
+ * <p/>
+ * The bucket table is left untouched, so that it can be dropped (e.g. by {@link JdbcBinaryStore#clear()}) once the
+ * migrated entries have been checked. Writes to the bucket store while the migration is running may not be migrated.
+ *
+ * @since 6.0
+ */
+public class BucketTableMigrator {
+
+   private static final Log log = LogFactory.getLog(BucketTableMigrator.class, Log.class);
+
+   private final JdbcBinaryStore source;
+   private final JdbcBinaryRowStore target;
+
+   public BucketTableMigrator(JdbcBinaryStore source, JdbcBinaryRowStore target) {
+      this.source = source;
+      this.target = target;
+   }
+
+   /**
+    * @return the number of migrated entries
+    */
+   public int migrate() {
+      final int batchSize = target.getTableManipulation().getBatchSize();
+      final List<MarshalledEntry> batch = new ArrayList<MarshalledEntry>(batchSize);
+      final int[] migrated = new int[1];
+      // the buckets are processed one at a time, so the batch doesn't need any synchronization
+      source.process(null, new AdvancedCacheLoader.CacheLoaderTask() {
+         @Override
+         public void processEntry(MarshalledEntry marshalledEntry, AdvancedCacheLoader.TaskContext taskContext) {
+            batch.add(marshalledEntry);
+            if (batch.size() == batchSize) {
+               flush(batch);
+            }
+            migrated[0]++;
+         }
+      }, new WithinThreadExecutor(), true, true);
+      flush(batch);
+      log.migratedBuckets(migrated[0], source.getTableManipulation().getTableName(), target.getTableManipulation().getTableName());
+      return migrated[0];
+   }
+
+   private void flush(List<MarshalledEntry> batch) {
+      if (!batch.isEmpty()) {
+         target.writeBatch(batch);
+         batch.clear();
+      }
+   }
+}
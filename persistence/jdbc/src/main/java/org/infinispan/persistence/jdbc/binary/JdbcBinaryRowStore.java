@@ -0,0 +1,583 @@
+package org.infinispan.persistence.jdbc.binary;
+
+import org.infinispan.commons.io.ByteBuffer;
+import org.infinispan.commons.util.Util;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.metadata.InternalMetadata;
+import org.infinispan.persistence.PersistenceUtil;
+import org.infinispan.persistence.jdbc.BinaryRowTableManipulation;
+import org.infinispan.persistence.jdbc.ChunkedRowProcessor;
+import org.infinispan.persistence.jdbc.JdbcUtil;
+import org.infinispan.persistence.jdbc.configuration.JdbcBinaryRowStoreConfiguration;
+import org.infinispan.persistence.jdbc.connectionfactory.ConnectionFactory;
+import org.infinispan.persistence.jdbc.connectionfactory.ManagedConnectionFactory;
+import org.infinispan.persistence.jdbc.logging.Log;
+import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.BatchingCacheWriter;
+import org.infinispan.persistence.spi.InitializationContext;
+import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.util.KeyValuePair;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.infinispan.persistence.PersistenceUtil.getExpiryTime;
+
+/**
+ * {@link org.infinispan.persistence.spi.AdvancedLoadWriteStore} implementation that stores each entry in its own row,
+ * keyed by the marshalled key. Like {@link JdbcBinaryStore}, it can store keys which can't be mapped to strings, but
+ * writing or removing an entry only touches the row of that entry, instead of reading and rewriting the whole bucket
+ * the entry belongs to.
+ * <p/>
+ * The rows are looked up through the hash of the marshalled key, which is stored in an indexed column, and the
+ * marshalled key itself, so equal keys must be marshalled to the same bytes. See {@link BinaryRowTableManipulation}
+ * for the layout of the table. The entries stored by a {@link JdbcBinaryStore} can be moved to this layout with the
+ * {@link BucketTableMigrator}.
+ *
+ * @see org.infinispan.persistence.jdbc.configuration.JdbcBinaryRowStoreConfiguration
+ * @since 6.0
+ */
+public class JdbcBinaryRowStore implements AdvancedLoadWriteStore, BatchingCacheWriter {
+
+   private static final Log log = LogFactory.getLog(JdbcBinaryRowStore.class, Log.class);
+
+   private JdbcBinaryRowStoreConfiguration configuration;
+   private ConnectionFactory connectionFactory;
+   private BinaryRowTableManipulation tableManipulation;
+   private InitializationContext ctx;
+
+   // guard the insertion of new rows, so that a key never gets two rows
+   private ReentrantLock[] locks;
+
+   @Override
+   public void init(InitializationContext ctx) {
+      this.ctx = ctx;
+      this.configuration = ctx.getConfiguration();
+   }
+
+   @Override
+   public void start() {
+      int numLocks = Util.findNextHighestPowerOfTwo(Math.max(1, configuration.lockConcurrencyLevel()));
+      locks = new ReentrantLock[numLocks];
+      for (int i = 0; i < numLocks; i++) {
+         locks[i] = new ReentrantLock();
+      }
+      if (configuration.manageConnectionFactory()) {
+         ConnectionFactory factory = ConnectionFactory.getConnectionFactory(configuration.connectionFactory().connectionFactoryClass());
+         factory.start(configuration.connectionFactory(), factory.getClass().getClassLoader());
+         doConnectionFactoryInitialization(factory);
+      }
+   }
+
+   @Override
+   public void stop() {
+      Throwable cause = null;
+      try {
+         tableManipulation.stop();
+      } catch (Throwable t) {
+         cause = t;
+         log.debug("Exception while stopping", t);
+      }
+
+      try {
+         if (configuration.connectionFactory() instanceof ManagedConnectionFactory) {
+            log.tracef("Stopping mananged connection factory: %s", connectionFactory);
+            connectionFactory.stop();
+         }
+      } catch (Throwable t) {
+         if (cause == null) cause = t;
+         log.debug("Exception while stopping", t);
+      }
+      if (cause != null) {
+         throw new PersistenceException("Exceptions occurred while stopping store", cause);
+      }
+   }
+
+   @Override
+   public void write(MarshalledEntry entry) {
+      InternalMetadata m = entry.getMetadata();
+      if (m != null && m.isExpired(ctx.getTimeService().wallClockTime())) {
+         delete(entry.getKey());
+         return;
+      }
+
+      ByteBuffer keyBytes = entry.getKeyBytes();
+      int hash = keyBytes.hashCode();
+      ReentrantLock lock = lockFor(hash);
+      acquire(lock);
+      Connection conn = null;
+      try {
+         conn = connectionFactory.getConnection();
+         writeRow(conn, entry, hash, keyBytes);
+      } catch (SQLException e) {
+         log.sqlFailureAccessingRow(entry.getKey(), e);
+         throw new PersistenceException(String.format("SQL error while storing key %s", entry.getKey()), e);
+      } catch (InterruptedException e) {
+         if (log.isTraceEnabled()) {
+            log.trace("Interrupted while marshalling to store");
+         }
+         Thread.currentThread().interrupt();
+      } finally {
+         connectionFactory.releaseConnection(conn);
+         lock.unlock();
+      }
+   }
+
+   /**
+    * Updates the row of a key, or inserts it if it doesn't exist. The locks only keep this store from inserting a key
+    * twice, so an insert failing because another node sharing the table inserted the key in the meantime is turned into
+    * an update.
+    */
+   private void writeRow(Connection conn, MarshalledEntry entry, int hash, ByteBuffer keyBytes) throws SQLException, InterruptedException {
+      PreparedStatement ps = null;
+      try {
+         ps = conn.prepareStatement(tableManipulation.getUpdateRowSql());
+         setRow(ps, entry, hash, keyBytes);
+         if (ps.executeUpdate() != 0)
+            return;
+         JdbcUtil.safeClose(ps);
+         ps = conn.prepareStatement(tableManipulation.getInsertRowSql());
+         setRow(ps, entry, hash, keyBytes);
+         try {
+            ps.executeUpdate();
+         } catch (SQLException e) {
+            if (!JdbcUtil.isDuplicateKey(e))
+               throw e;
+            if (log.isTraceEnabled()) {
+               log.tracef("Key %s was inserted concurrently, updating it", entry.getKey());
+            }
+            JdbcUtil.safeClose(ps);
+            ps = conn.prepareStatement(tableManipulation.getUpdateRowSql());
+            setRow(ps, entry, hash, keyBytes);
+            ps.executeUpdate();
+         }
+      } finally {
+         JdbcUtil.safeClose(ps);
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    * <p/>
+    * All the rows are updated in a single JDBC batch, and the rows which didn't exist are then inserted in a second
+    * batch. The locks of all the keys are held for the duration of the batch, and they are acquired in a fixed order,
+    * so that concurrent batches don't deadlock.
+    */
+   @Override
+   public void writeBatch(Iterable entries) {
+      long now = ctx.getTimeService().wallClockTime();
+      // only the last write for a key matters, and a key must not be inserted twice
+      Map<ByteBuffer, MarshalledEntry> byKey = new LinkedHashMap<ByteBuffer, MarshalledEntry>();
+      for (MarshalledEntry entry : (Iterable<MarshalledEntry>) entries) {
+         byKey.put(entry.getKeyBytes(), entry);
+      }
+      // the last write of a key decides whether it is removed, as an expired entry, or stored
+      List<Object> expired = new ArrayList<Object>();
+      for (Iterator<MarshalledEntry> it = byKey.values().iterator(); it.hasNext(); ) {
+         MarshalledEntry entry = it.next();
+         InternalMetadata m = entry.getMetadata();
+         if (m != null && m.isExpired(now)) {
+            expired.add(entry.getKey());
+            it.remove();
+         }
+      }
+      if (!expired.isEmpty())
+         deleteBatch(expired);
+      if (byKey.isEmpty())
+         return;
+
+      List<ReentrantLock> acquired = acquireAll(byKey.keySet());
+      Connection conn = null;
+      PreparedStatement update = null;
+      PreparedStatement insert = null;
+      try {
+         conn = connectionFactory.getConnection();
+         int batchSize = tableManipulation.getBatchSize();
+         List<ByteBuffer> keys = new ArrayList<ByteBuffer>(byKey.keySet());
+         update = conn.prepareStatement(tableManipulation.getUpdateRowSql());
+         List<ByteBuffer> missing = new ArrayList<ByteBuffer>();
+         for (int from = 0; from < keys.size(); from += batchSize) {
+            List<ByteBuffer> chunk = keys.subList(from, Math.min(keys.size(), from + batchSize));
+            for (ByteBuffer key : chunk) {
+               setRow(update, byKey.get(key), key.hashCode(), key);
+               update.addBatch();
+            }
+            int[] updated = update.executeBatch();
+            for (int i = 0; i < chunk.size(); i++) {
+               // some drivers don't report how many rows each statement of the batch updated
+               if (updated[i] == 0 || updated[i] == Statement.SUCCESS_NO_INFO && !exists(conn, chunk.get(i)))
+                  missing.add(chunk.get(i));
+            }
+         }
+         if (!missing.isEmpty()) {
+            insert = conn.prepareStatement(tableManipulation.getInsertRowSql());
+            for (int from = 0; from < missing.size(); from += batchSize) {
+               List<ByteBuffer> chunk = missing.subList(from, Math.min(missing.size(), from + batchSize));
+               for (ByteBuffer key : chunk) {
+                  setRow(insert, byKey.get(key), key.hashCode(), key);
+                  insert.addBatch();
+               }
+               try {
+                  insert.executeBatch();
+               } catch (BatchUpdateException e) {
+                  if (!JdbcUtil.isDuplicateKey(e))
+                     throw e;
+                  // another node inserted some of the keys since they were looked up: drivers differ in whether they
+                  // go on with the rest of the batch, so the keys of the chunk are written again one at a time
+                  insert.clearBatch();
+                  for (ByteBuffer key : chunk) {
+                     writeRow(conn, byKey.get(key), key.hashCode(), key);
+                  }
+               }
+            }
+         }
+         if (log.isTraceEnabled()) {
+            log.tracef("Stored a batch of %d new and %d existing keys", missing.size(), keys.size() - missing.size());
+         }
+      } catch (SQLException e) {
+         log.sqlFailureStoringKeys(e);
+         throw new PersistenceException("SQL error while storing keys to database", e);
+      } catch (InterruptedException e) {
+         if (log.isTraceEnabled()) {
+            log.trace("Interrupted while marshalling to store");
+         }
+         Thread.currentThread().interrupt();
+      } finally {
+         JdbcUtil.safeClose(insert);
+         JdbcUtil.safeClose(update);
+         connectionFactory.releaseConnection(conn);
+         for (ReentrantLock lock : acquired) {
+            lock.unlock();
+         }
+      }
+   }
+
+   @Override
+   public MarshalledEntry load(Object key) {
+      ByteBuffer keyBytes = marshallKey(key);
+      Connection conn = null;
+      PreparedStatement ps = null;
+      ResultSet rs = null;
+      MarshalledEntry storedValue = null;
+      try {
+         conn = connectionFactory.getConnection();
+         ps = conn.prepareStatement(tableManipulation.getSelectRowSql());
+         setKey(ps, 1, keyBytes.hashCode(), keyBytes);
+         rs = ps.executeQuery();
+         if (rs.next()) {
+            KeyValuePair<ByteBuffer, ByteBuffer> icv = JdbcUtil.unmarshall(ctx.getMarshaller(), rs.getBinaryStream(1));
+            storedValue = ctx.getMarshalledEntryFactory().newMarshalledEntry(key, icv.getKey(), icv.getValue());
+         }
+      } catch (SQLException e) {
+         log.sqlFailureAccessingRow(key, e);
+         throw new PersistenceException(String.format("SQL error while fetching stored entry with key: %s", key), e);
+      } finally {
+         JdbcUtil.safeClose(rs);
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(conn);
+      }
+      if (storedValue != null && storedValue.getMetadata() != null &&
+            storedValue.getMetadata().isExpired(ctx.getTimeService().wallClockTime())) {
+         return null;
+      }
+      return storedValue;
+   }
+
+   @Override
+   public boolean contains(Object key) {
+      return load(key) != null;
+   }
+
+   @Override
+   public boolean delete(Object key) {
+      ByteBuffer keyBytes = marshallKey(key);
+      Connection conn = null;
+      PreparedStatement ps = null;
+      try {
+         conn = connectionFactory.getConnection();
+         ps = conn.prepareStatement(tableManipulation.getDeleteRowSql());
+         setKey(ps, 1, keyBytes.hashCode(), keyBytes);
+         return ps.executeUpdate() == 1;
+      } catch (SQLException e) {
+         log.sqlFailureAccessingRow(key, e);
+         throw new PersistenceException(String.format("SQL error while removing key %s", key), e);
+      } finally {
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(conn);
+      }
+   }
+
+   @Override
+   public void deleteBatch(Iterable keys) {
+      Connection conn = null;
+      PreparedStatement ps = null;
+      try {
+         conn = connectionFactory.getConnection();
+         ps = conn.prepareStatement(tableManipulation.getDeleteRowSql());
+         int batchSize = tableManipulation.getBatchSize();
+         int deletes = 0;
+         for (Object key : keys) {
+            ByteBuffer keyBytes = marshallKey(key);
+            setKey(ps, 1, keyBytes.hashCode(), keyBytes);
+            ps.addBatch();
+            if (++deletes % batchSize == 0)
+               ps.executeBatch();
+         }
+         if (deletes % batchSize != 0)
+            ps.executeBatch();
+      } catch (SQLException e) {
+         log.sqlFailureRemovingKeys(e);
+         throw new PersistenceException("SQL error while removing keys from database", e);
+      } finally {
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(conn);
+      }
+   }
+
+   @Override
+   public void process(KeyFilter filter, CacheLoaderTask task, Executor executor, boolean fetchValue, boolean fetchMetadata) {
+      new ChunkedRowProcessor<byte[]>(connectionFactory, tableManipulation, ctx) {
+         @Override
+         protected byte[] readId(ResultSet rs) throws SQLException, IOException {
+            return Util.readStream(rs.getBinaryStream(2));
+         }
+
+         @Override
+         protected Object toKey(byte[] id) throws Exception {
+            return ctx.getMarshaller().objectFromByteBuffer(id);
+         }
+      }.process(filter, task, executor, fetchValue || fetchMetadata);
+   }
+
+   @Override
+   public void clear() {
+      Connection conn = null;
+      PreparedStatement ps = null;
+      try {
+         String sql = tableManipulation.getDeleteAllRowsSql();
+         conn = connectionFactory.getConnection();
+         ps = conn.prepareStatement(sql);
+         int result = ps.executeUpdate();
+         if (log.isTraceEnabled()) {
+            log.tracef("Successfully removed %d rows.", result);
+         }
+      } catch (SQLException ex) {
+         log.failedClearingJdbcCacheStore(ex);
+         throw new PersistenceException("Failed clearing cache store", ex);
+      } finally {
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(conn);
+      }
+   }
+
+   @Override
+   public int size() {
+      return PersistenceUtil.count(this, null);
+   }
+
+   /**
+    * {@inheritDoc}
+    * <p/>
+    * The expired rows are found through the index of the timestamp column and removed in batches. A row which is
+    * updated after being found is not removed.
+    */
+   @Override
+   public void purge(Executor executor, final PurgeListener listener) {
+      ExecutorCompletionService<Void> ecs = new ExecutorCompletionService<Void>(executor);
+      Future<Void> future = ecs.submit(new Callable<Void>() {
+         @Override
+         public Void call() throws Exception {
+            purgeExpiredRows(listener);
+            return null;
+         }
+      });
+      try {
+         future.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+         log.errorExecutingParallelStoreTask(e);
+         throw new PersistenceException(e);
+      }
+   }
+
+   private void purgeExpiredRows(PurgeListener listener) {
+      long now = ctx.getTimeService().wallClockTime();
+      int batchSize = tableManipulation.getBatchSize();
+      Connection conn = null;
+      PreparedStatement select = null;
+      PreparedStatement delete = null;
+      ResultSet rs = null;
+      int purged = 0;
+      try {
+         conn = connectionFactory.getConnection();
+         select = conn.prepareStatement(tableManipulation.getSelectExpiredIdsSql());
+         select.setMaxRows(batchSize);
+         delete = conn.prepareStatement(tableManipulation.getDeleteExpiredRowSql());
+         List<KeyValuePair<Integer, byte[]>> expired = new ArrayList<KeyValuePair<Integer, byte[]>>(batchSize);
+         do {
+            // the expired rows are looked up through the timestamp index and deleted a chunk at a time, so that writers
+            // are never blocked for long and the deleted rows aren't selected again
+            expired.clear();
+            select.setLong(1, now);
+            rs = select.executeQuery();
+            while (rs.next()) {
+               expired.add(new KeyValuePair<Integer, byte[]>(rs.getInt(1), Util.readStream(rs.getBinaryStream(2))));
+            }
+            // some databases don't allow modifying a table while a result set over it is open
+            JdbcUtil.safeClose(rs);
+            rs = null;
+            if (expired.isEmpty())
+               break;
+
+            for (KeyValuePair<Integer, byte[]> row : expired) {
+               delete.setInt(1, row.getKey());
+               delete.setBytes(2, row.getValue());
+               delete.setLong(3, now);
+               delete.addBatch();
+            }
+            int[] deleted = delete.executeBatch();
+            for (int i = 0; i < expired.size(); i++) {
+               if (deleted[i] != 0) {
+                  purged++;
+                  if (listener != null)
+                     listener.entryPurged(ctx.getMarshaller().objectFromByteBuffer(expired.get(i).getValue()));
+               }
+            }
+         } while (expired.size() == batchSize);
+         if (log.isTraceEnabled()) {
+            log.tracef("Purged %d expired rows", purged);
+         }
+      } catch (Exception e) {
+         log.failedClearingJdbcCacheStore(e);
+         throw new PersistenceException("Failed purging JdbcBinaryRowStore", e);
+      } finally {
+         JdbcUtil.safeClose(rs);
+         JdbcUtil.safeClose(delete);
+         JdbcUtil.safeClose(select);
+         connectionFactory.releaseConnection(conn);
+      }
+   }
+
+   public ConnectionFactory getConnectionFactory() {
+      return connectionFactory;
+   }
+
+   public void doConnectionFactoryInitialization(ConnectionFactory connectionFactory) {
+      this.connectionFactory = connectionFactory;
+      this.tableManipulation = new BinaryRowTableManipulation(configuration.table());
+      tableManipulation.setCacheName(ctx.getCache().getName());
+      tableManipulation.start(connectionFactory);
+   }
+
+   public BinaryRowTableManipulation getTableManipulation() {
+      return tableManipulation;
+   }
+
+   public JdbcBinaryRowStoreConfiguration getConfiguration() {
+      return configuration;
+   }
+
+   private boolean exists(Connection conn, ByteBuffer keyBytes) throws SQLException {
+      PreparedStatement ps = null;
+      ResultSet rs = null;
+      try {
+         ps = conn.prepareStatement(tableManipulation.getSelectIdRowSql());
+         setKey(ps, 1, keyBytes.hashCode(), keyBytes);
+         rs = ps.executeQuery();
+         return rs.next();
+      } finally {
+         JdbcUtil.safeClose(rs);
+         JdbcUtil.safeClose(ps);
+      }
+   }
+
+   private void setRow(PreparedStatement ps, MarshalledEntry entry, int hash, ByteBuffer keyBytes) throws InterruptedException, SQLException {
+      ByteBuffer byteBuffer = JdbcUtil.marshall(ctx.getMarshaller(), new KeyValuePair(entry.getValueBytes(), entry.getMetadataBytes()));
+      ps.setBinaryStream(1, new ByteArrayInputStream(byteBuffer.getBuf(), byteBuffer.getOffset(), byteBuffer.getLength()), byteBuffer.getLength());
+      ps.setLong(2, getExpiryTime(entry.getMetadata()));
+      setKey(ps, 3, hash, keyBytes);
+   }
+
+   private void setKey(PreparedStatement ps, int index, int hash, ByteBuffer keyBytes) throws SQLException {
+      ps.setInt(index, hash);
+      ps.setBytes(index + 1, toArray(keyBytes));
+   }
+
+   private static byte[] toArray(ByteBuffer buffer) {
+      byte[] buf = buffer.getBuf();
+      if (buffer.getOffset() == 0 && buffer.getLength() == buf.length)
+         return buf;
+      return Arrays.copyOfRange(buf, buffer.getOffset(), buffer.getOffset() + buffer.getLength());
+   }
+
+   private ByteBuffer marshallKey(Object key) {
+      try {
+         return JdbcUtil.marshall(ctx.getMarshaller(), key);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new PersistenceException("Interrupted while marshalling key " + key, e);
+      }
+   }
+
+   private ReentrantLock lockFor(int hash) {
+      return locks[lockIndex(hash)];
+   }
+
+   private int lockIndex(int hash) {
+      return (hash ^ (hash >>> 16)) & (locks.length - 1);
+   }
+
+   private void acquire(ReentrantLock lock) {
+      try {
+         if (!lock.tryLock(configuration.lockAcquisitionTimeout(), TimeUnit.MILLISECONDS))
+            throw new PersistenceException("Timed out acquiring the lock of a row after " + configuration.lockAcquisitionTimeout() + " ms");
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new PersistenceException("Interrupted while acquiring the lock of a row", e);
+      }
+   }
+
+   private List<ReentrantLock> acquireAll(Iterable<ByteBuffer> keys) {
+      // always acquired in the same order, so that two batches never wait for each other
+      TreeSet<Integer> indexes = new TreeSet<Integer>();
+      for (ByteBuffer key : keys) {
+         indexes.add(lockIndex(key.hashCode()));
+      }
+      List<ReentrantLock> acquired = new ArrayList<ReentrantLock>(indexes.size());
+      try {
+         for (Integer index : indexes) {
+            ReentrantLock lock = locks[index];
+            acquire(lock);
+            acquired.add(lock);
+         }
+      } catch (RuntimeException e) {
+         for (ReentrantLock lock : acquired) {
+            lock.unlock();
+         }
+         throw e;
+      }
+      return acquired;
+   }
+}
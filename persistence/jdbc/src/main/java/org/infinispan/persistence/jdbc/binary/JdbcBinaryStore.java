@@ -16,6 +16,7 @@
 import org.infinispan.persistence.jdbc.connectionfactory.ManagedConnectionFactory;
 import org.infinispan.persistence.jdbc.logging.Log;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.BatchingCacheWriter;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.persistence.support.Bucket;
 import org.infinispan.util.concurrent.locks.StripedLock;
@@ -27,10 +28,13 @@
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -53,7 +57,7 @@
  * @see org.infinispan.persistence.jdbc.configuration.JdbcBinaryStoreConfiguration
  * @see org.infinispan.persistence.jdbc.stringbased.JdbcStringBasedStore
  */
-public class JdbcBinaryStore implements AdvancedLoadWriteStore {
+public class JdbcBinaryStore implements AdvancedLoadWriteStore, BatchingCacheWriter {
 
    private static final Log log = LogFactory.getLog(JdbcBinaryStore.class, Log.class);
 
@@ -166,6 +170,70 @@ public final boolean delete(Object key) {
       }
    }
 
+   /**
+    * {@inheritDoc}
+    * <p/>
+    * The entries are grouped by bucket, so that each affected bucket is loaded and stored only once.
+    */
+   @Override
+   public final void writeBatch(Iterable entries) {
+      long now = ctx.getTimeService().wallClockTime();
+      Map<Integer, List<MarshalledEntry>> byBucket = new HashMap<Integer, List<MarshalledEntry>>();
+      List<Object> expired = new ArrayList<Object>();
+      for (MarshalledEntry entry : (Iterable<MarshalledEntry>) entries) {
+         InternalMetadata m = entry.getMetadata();
+         if (m != null && m.isExpired(now)) {
+            expired.add(entry.getKey());
+            continue;
+         }
+         Integer bucketId = getBuckedId(entry.getKey());
+         List<MarshalledEntry> bucketEntries = byBucket.get(bucketId);
+         if (bucketEntries == null) {
+            bucketEntries = new ArrayList<MarshalledEntry>();
+            byBucket.put(bucketId, bucketEntries);
+         }
+         bucketEntries.add(entry);
+      }
+      // buckets are locked one at a time, so batches never deadlock each other
+      for (Map.Entry<Integer, List<MarshalledEntry>> e : byBucket.entrySet()) {
+         lockBucketForWriting(e.getKey());
+         try {
+            storeInBucket(e.getValue(), e.getKey());
+         } finally {
+            unlock(e.getKey());
+         }
+      }
+      if (!expired.isEmpty())
+         deleteBatch(expired);
+   }
+
+   /**
+    * {@inheritDoc}
+    * <p/>
+    * The keys are grouped by bucket, so that each affected bucket is loaded and stored only once.
+    */
+   @Override
+   public final void deleteBatch(Iterable keys) {
+      Map<Integer, List<Object>> byBucket = new HashMap<Integer, List<Object>>();
+      for (Object key : keys) {
+         Integer bucketId = getBuckedId(key);
+         List<Object> bucketKeys = byBucket.get(bucketId);
+         if (bucketKeys == null) {
+            bucketKeys = new ArrayList<Object>();
+            byBucket.put(bucketId, bucketKeys);
+         }
+         bucketKeys.add(key);
+      }
+      for (Map.Entry<Integer, List<Object>> e : byBucket.entrySet()) {
+         lockBucketForWriting(e.getKey());
+         try {
+            removeKeysFromBucket(e.getValue(), e.getKey());
+         } finally {
+            unlock(e.getKey());
+         }
+      }
+   }
+
    @Override
    public void process(final KeyFilter filter, final CacheLoaderTask task, Executor executor, boolean fetchValue, boolean fetchMetadata) {
       Connection conn = null;
@@ -179,8 +247,8 @@ public void process(final KeyFilter filter, final CacheLoaderTask task, Executor
          conn = connectionFactory.getConnection();
          ps = conn.prepareStatement(sql);
          ps.setLong(1, ctx.getTimeService().wallClockTime());
+         ps.setFetchSize(tableManipulation.getFetchSize());
          rs = ps.executeQuery();
-         rs.setFetchSize(tableManipulation.getFetchSize());
          ExecutorAllCompletionService ecs = new ExecutorAllCompletionService(executor);
          final TaskContextImpl taskContext = new TaskContextImpl();
          //we can do better here: ATM we load the entries in the caller's thread and process them in parallel
@@ -526,6 +594,32 @@ protected void storeInBucket(MarshalledEntry me, Integer bucketId) {
       }
    }
 
+   protected void storeInBucket(Collection<MarshalledEntry> entries, Integer bucketId) {
+      Bucket bucket = loadBucket(bucketId);
+      boolean exists = bucket != null;
+      if (!exists) {
+         bucket = new Bucket(keyEquivalence);
+         bucket.setBucketId(bucketId);
+      }
+      for (MarshalledEntry me : entries)
+         bucket.addEntry(me.getKey(), me);
+      if (exists)
+         updateBucket(bucket);
+      else
+         insertBucket(bucket);
+   }
+
+   protected void removeKeysFromBucket(Collection<Object> keys, Integer bucketId) {
+      Bucket bucket = loadBucket(bucketId);
+      if (bucket == null)
+         return;
+      boolean removed = false;
+      for (Object key : keys)
+         removed |= bucket.removeEntry(key);
+      if (removed)
+         updateBucket(bucket);
+   }
+
    protected boolean removeKeyFromBucket(Object key, Integer bucketId) {
       Bucket bucket = loadBucket(bucketId);
       if (bucket == null) {
@@ -21,12 +21,14 @@ public enum Attribute {
    DROP_ON_EXIT("dropOnExit"),
    FETCH_SIZE("fetchSize"),
    KEY_TO_STRING_MAPPER("key2StringMapper"),
+   MAX_STATEMENTS_PER_CONNECTION("maxStatementsPerConnection"),
    NAME("name"),
    PASSIVATION("passivation"),
    PASSWORD("password"),
    PREFIX("prefix"),
    PRELOAD("true"),
    TYPE("type"),
+   UPSERT("upsert"),
    USERNAME("username")
    ;
 
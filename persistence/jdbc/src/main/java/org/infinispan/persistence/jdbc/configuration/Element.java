@@ -16,12 +16,14 @@ public enum Element {
     STRING_KEYED_JDBC_STORE("stringKeyedJdbcStore"),
     BINARY_KEYED_JDBC_STORE("binaryKeyedJdbcStore"),
     MIXED_KEYED_JDBC_STORE("mixedKeyedJdbcStore"),
+    BINARY_ROW_JDBC_STORE("binaryRowJdbcStore"),
 
     CONNECTION_POOL("connectionPool"),
     DATA_SOURCE("dataSource"),
     SIMPLE_CONNECTION("simpleConnection"),
 
     BINARY_KEYED_TABLE("binaryKeyedTable"),
+    BINARY_ROW_TABLE("binaryRowTable"),
     STRING_KEYED_TABLE("stringKeyedTable"),
 
     DATA_COLUMN("dataColumn"),
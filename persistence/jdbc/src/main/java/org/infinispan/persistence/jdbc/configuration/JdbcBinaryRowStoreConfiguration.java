@@ -0,0 +1,54 @@
+package org.infinispan.persistence.jdbc.configuration;
+
+import org.infinispan.commons.configuration.BuiltBy;
+import org.infinispan.commons.configuration.ConfigurationFor;
+import org.infinispan.configuration.cache.AsyncStoreConfiguration;
+import org.infinispan.configuration.cache.SingletonStoreConfiguration;
+import org.infinispan.persistence.jdbc.binary.JdbcBinaryRowStore;
+
+import java.util.Properties;
+
+/**
+ * The configuration of the {@link JdbcBinaryRowStore}.
+ *
+ * @since 6.0
+ */
+@BuiltBy(JdbcBinaryRowStoreConfigurationBuilder.class)
+@ConfigurationFor(JdbcBinaryRowStore.class)
+public class JdbcBinaryRowStoreConfiguration extends AbstractJdbcStoreConfiguration {
+
+   private final TableManipulationConfiguration table;
+
+   private final int concurrencyLevel;
+
+   private final long lockAcquisitionTimeout;
+
+   public JdbcBinaryRowStoreConfiguration(boolean purgeOnStartup, boolean fetchPersistentState, boolean ignoreModifications, AsyncStoreConfiguration async, SingletonStoreConfiguration singletonStore, boolean preload, boolean shared, Properties properties, ConnectionFactoryConfiguration connectionFactory, boolean manageConnectionFactory, TableManipulationConfiguration table, int concurrencyLevel, long lockAcquisitionTimeout) {
+      super(purgeOnStartup, fetchPersistentState, ignoreModifications, async, singletonStore, preload, shared, properties, connectionFactory, manageConnectionFactory);
+      this.table = table;
+      this.concurrencyLevel = concurrencyLevel;
+      this.lockAcquisitionTimeout = lockAcquisitionTimeout;
+   }
+
+   public TableManipulationConfiguration table() {
+      return table;
+   }
+
+   public int lockConcurrencyLevel() {
+      return concurrencyLevel;
+   }
+
+   public long lockAcquisitionTimeout() {
+      return lockAcquisitionTimeout;
+   }
+
+   @Override
+   public String toString() {
+      return "JdbcBinaryRowStoreConfiguration{" +
+            "table=" + table +
+            ", concurrencyLevel=" + concurrencyLevel +
+            ", lockAcquisitionTimeout=" + lockAcquisitionTimeout +
+            ", " + super.toString() +
+            '}';
+   }
+}
@@ -0,0 +1,99 @@
+package org.infinispan.persistence.jdbc.configuration;
+
+import org.infinispan.commons.util.TypedProperties;
+import org.infinispan.configuration.cache.PersistenceConfigurationBuilder;
+
+/**
+ * JdbcBinaryRowStoreConfigurationBuilder.
+ *
+ * @since 6.0
+ */
+public class JdbcBinaryRowStoreConfigurationBuilder extends
+                                                      AbstractJdbcStoreConfigurationBuilder<JdbcBinaryRowStoreConfiguration, JdbcBinaryRowStoreConfigurationBuilder> {
+   public static final int DEFAULT_CONCURRENCY_LEVEL = 2048;
+   public static final int DEFAULT_LOCK_ACQUISITION_TIMEOUT = 60000;
+
+   protected final BinaryRowTableManipulationConfigurationBuilder table;
+
+   private int concurrencyLevel = DEFAULT_CONCURRENCY_LEVEL;
+
+   private long lockAcquisitionTimeout = DEFAULT_LOCK_ACQUISITION_TIMEOUT;
+
+   public JdbcBinaryRowStoreConfigurationBuilder(PersistenceConfigurationBuilder builder) {
+      super(builder);
+      this.table = new BinaryRowTableManipulationConfigurationBuilder(this);
+   }
+
+   @Override
+   public JdbcBinaryRowStoreConfigurationBuilder self() {
+      return this;
+   }
+
+   /**
+    * Allows configuration of table-specific parameters such as column names and types. The id column stores the
+    * marshalled keys and is part of the primary key, so its type must be a binary type the database can index, whose
+    * length bounds the size of the marshalled keys: VARBINARY(n) on H2, HSQLDB, MySQL and SQL Server, BYTEA on
+    * PostgreSQL and RAW(n) on Oracle. The maximum size of an index key limits n, e.g. to 900 bytes on SQL Server and
+    * 2000 bytes on Oracle. LOB types such as BLOB are not supported: MySQL can only index a prefix of them, and Oracle
+    * can't index them at all.
+    */
+   public BinaryRowTableManipulationConfigurationBuilder table() {
+      return table;
+   }
+
+   /**
+    * The maximum time to wait for the lock of a key when writing it.
+    */
+   public JdbcBinaryRowStoreConfigurationBuilder lockAcquisitionTimeout(long lockAcquisitionTimeout) {
+      this.lockAcquisitionTimeout = lockAcquisitionTimeout;
+      return self();
+   }
+
+   /**
+    * The number of locks the keys are mapped to when writing them.
+    */
+   public JdbcBinaryRowStoreConfigurationBuilder concurrencyLevel(int concurrencyLevel) {
+      this.concurrencyLevel = concurrencyLevel;
+      return self();
+   }
+
+   @Override
+   public JdbcBinaryRowStoreConfiguration create() {
+      ConnectionFactoryConfiguration cf = connectionFactory != null ? connectionFactory.create() : null;
+      return new JdbcBinaryRowStoreConfiguration(purgeOnStartup, fetchPersistentState, ignoreModifications, async.create(),
+                                                 singletonStore.create(), preload, shared, TypedProperties.toTypedProperties(properties), cf,
+                                                 manageConnectionFactory, table.create(), concurrencyLevel, lockAcquisitionTimeout);
+   }
+
+   @Override
+   public JdbcBinaryRowStoreConfigurationBuilder read(JdbcBinaryRowStoreConfiguration template) {
+      super.readInternal(template);
+      this.table.read(template.table());
+      this.lockAcquisitionTimeout = template.lockAcquisitionTimeout();
+      this.concurrencyLevel = template.lockConcurrencyLevel();
+      return this;
+   }
+
+   public class BinaryRowTableManipulationConfigurationBuilder extends
+         TableManipulationConfigurationBuilder<JdbcBinaryRowStoreConfigurationBuilder, BinaryRowTableManipulationConfigurationBuilder> {
+
+      BinaryRowTableManipulationConfigurationBuilder(AbstractJdbcStoreConfigurationBuilder<?, JdbcBinaryRowStoreConfigurationBuilder> builder) {
+         super(builder);
+      }
+
+      @Override
+      public PooledConnectionFactoryConfigurationBuilder<JdbcBinaryRowStoreConfigurationBuilder> connectionPool() {
+         return JdbcBinaryRowStoreConfigurationBuilder.this.connectionPool();
+      }
+
+      @Override
+      public ManagedConnectionFactoryConfigurationBuilder<JdbcBinaryRowStoreConfigurationBuilder> dataSource() {
+         return JdbcBinaryRowStoreConfigurationBuilder.this.dataSource();
+      }
+
+      @Override
+      public BinaryRowTableManipulationConfigurationBuilder self() {
+         return this;
+      }
+   }
+}
@@ -49,7 +49,7 @@ public JdbcMixedStoreConfigurationBuilder batchSize(int batchSize) {
    }
 
    /**
-    * For DB queries the fetch size will be set on {@link java.sql.ResultSet#setFetchSize(int)}. This is optional
+    * For DB queries the fetch size will be set on {@link java.sql.Statement#setFetchSize(int)}. This is optional
     * parameter, if not specified will be defaulted to {@link org.infinispan.persistence.jdbc.TableManipulation#DEFAULT_FETCH_SIZE}.
     */
    public JdbcMixedStoreConfigurationBuilder fetchSize(int fetchSize) {
@@ -30,6 +30,8 @@
    @Namespace(root = "binaryKeyedJdbcStore"),
    @Namespace(uri = "urn:infinispan:config:jdbc:6.0", root = "mixedKeyedJdbcStore"),
    @Namespace(root = "mixedKeyedJdbcStore"),
+   @Namespace(uri = "urn:infinispan:config:jdbc:6.0", root = "binaryRowJdbcStore"),
+   @Namespace(root = "binaryRowJdbcStore"),
 })
 public class JdbcStoreConfigurationParser60 implements ConfigurationParser {
 
@@ -55,6 +57,10 @@ public void readElement(final XMLExtendedStreamReader reader, final Configuratio
          parseMixedKeyedJdbcStore(reader, builder.persistence());
          break;
       }
+      case BINARY_ROW_JDBC_STORE: {
+         parseBinaryRowJdbcStore(reader, builder.persistence());
+         break;
+      }
       default: {
          throw ParseUtils.unexpectedElement(reader);
       }
@@ -114,6 +120,27 @@ private void parseBinaryKeyedJdbcStore(XMLExtendedStreamReader reader, Persisten
       persistenceBuilder.addStore(builder);
    }
 
+   private void parseBinaryRowJdbcStore(XMLExtendedStreamReader reader, PersistenceConfigurationBuilder persistenceBuilder)
+         throws XMLStreamException {
+      JdbcBinaryRowStoreConfigurationBuilder builder = new JdbcBinaryRowStoreConfigurationBuilder(
+            persistenceBuilder);
+      parseCommonJdbcStoreAttributes(reader, builder);
+      while (reader.hasNext() && (reader.nextTag() != XMLStreamConstants.END_ELEMENT)) {
+         Element element = Element.forName(reader.getLocalName());
+         switch (element) {
+         case BINARY_ROW_TABLE: {
+            parseTable(reader, builder.table());
+            break;
+         }
+         default: {
+            parseCommonJdbcStoreElements(reader, element, builder);
+            break;
+         }
+         }
+      }
+      persistenceBuilder.addStore(builder);
+   }
+
    private void parseCommonJdbcStoreElements(XMLExtendedStreamReader reader, Element element, AbstractJdbcStoreConfigurationBuilder<?, ?> builder) throws XMLStreamException {
       switch (element) {
       case CONNECTION_POOL: {
@@ -163,6 +190,10 @@ private void parseConnectionPoolAttributes(XMLExtendedStreamReader reader,
             builder.driverClass(value);
             break;
          }
+         case MAX_STATEMENTS_PER_CONNECTION: {
+            builder.maxStatementsPerConnection(Integer.parseInt(value));
+            break;
+         }
          case PASSWORD: {
             builder.password(value);
             break;
@@ -272,6 +303,10 @@ private void parseTable(XMLExtendedStreamReader reader, TableManipulationConfigu
             builder.tableNamePrefix(value);
             break;
          }
+         case UPSERT: {
+            builder.upsert(Boolean.parseBoolean(value));
+            break;
+         }
          default: {
             throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -407,6 +442,9 @@ public static void parseAsyncStore(final XMLExtendedStreamReader reader, final S
             case MODIFICATION_QUEUE_SIZE:
                storeBuilder.async().modificationQueueSize(Integer.parseInt(value));
                break;
+            case MODIFICATION_QUEUE_MAX_BYTES:
+               storeBuilder.async().modificationQueueMaxBytes(Long.parseLong(value));
+               break;
             case SHUTDOWN_TIMEOUT:
                storeBuilder.async().shutdownTimeout(Long.parseLong(value));
                break;
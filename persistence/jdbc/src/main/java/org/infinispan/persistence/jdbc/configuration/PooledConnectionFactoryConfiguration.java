@@ -10,12 +10,19 @@ public class PooledConnectionFactoryConfiguration implements ConnectionFactoryCo
    private final String driverClass;
    private final String username;
    private final String password;
+   private final int maxStatementsPerConnection;
 
    protected PooledConnectionFactoryConfiguration(String connectionUrl, String driverClass, String username, String password) {
+      this(connectionUrl, driverClass, username, password, 0);
+   }
+
+   protected PooledConnectionFactoryConfiguration(String connectionUrl, String driverClass, String username, String password,
+         int maxStatementsPerConnection) {
       this.connectionUrl = connectionUrl;
       this.driverClass = driverClass;
       this.username = username;
       this.password = password;
+      this.maxStatementsPerConnection = maxStatementsPerConnection;
    }
 
    public String connectionUrl() {
@@ -34,6 +41,13 @@ public String password() {
       return password;
    }
 
+   /**
+    * @return the number of prepared statements cached by each pooled connection, 0 if the statements are not cached
+    */
+   public int maxStatementsPerConnection() {
+      return maxStatementsPerConnection;
+   }
+
    @Override
    public Class<? extends ConnectionFactory> connectionFactoryClass() {
       return PooledConnectionFactory.class;
@@ -41,7 +55,7 @@ public Class<? extends ConnectionFactory> connectionFactoryClass() {
 
    @Override
    public String toString() {
-      return "PooledConnectionFactoryConfiguration [connectionUrl=" + connectionUrl + ", driverClass=" + driverClass + ", username=" + username + ", password=" + password + "]";
+      return "PooledConnectionFactoryConfiguration [connectionUrl=" + connectionUrl + ", driverClass=" + driverClass + ", username=" + username + ", password=" + password + ", maxStatementsPerConnection=" + maxStatementsPerConnection + "]";
    }
 
 }
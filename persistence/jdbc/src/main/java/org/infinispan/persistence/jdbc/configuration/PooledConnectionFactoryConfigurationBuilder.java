@@ -21,6 +21,7 @@ protected PooledConnectionFactoryConfigurationBuilder(AbstractJdbcStoreConfigura
    private String driverClass;
    private String username;
    private String password;
+   private int maxStatementsPerConnection;
 
    public PooledConnectionFactoryConfigurationBuilder<S> connectionUrl(String connectionUrl) {
       this.connectionUrl = connectionUrl;
@@ -47,16 +48,29 @@ public PooledConnectionFactoryConfigurationBuilder<S> password(String password)
       return this;
    }
 
+   /**
+    * The number of prepared statements each pooled connection keeps open for reuse, so that the statements the store
+    * executes over and over are not prepared by the database every time. Defaults to 0, i.e. the statements are not
+    * cached.
+    */
+   public PooledConnectionFactoryConfigurationBuilder<S> maxStatementsPerConnection(int maxStatementsPerConnection) {
+      this.maxStatementsPerConnection = maxStatementsPerConnection;
+      return this;
+   }
+
    @Override
    public void validate() {
       if (connectionUrl == null) {
          throw new CacheConfigurationException("Missing connectionUrl parameter");
       }
+      if (maxStatementsPerConnection < 0) {
+         throw new CacheConfigurationException("maxStatementsPerConnection must not be negative");
+      }
    }
 
    @Override
    public PooledConnectionFactoryConfiguration create() {
-      return new PooledConnectionFactoryConfiguration(connectionUrl, driverClass, username, password);
+      return new PooledConnectionFactoryConfiguration(connectionUrl, driverClass, username, password, maxStatementsPerConnection);
    }
 
    @Override
@@ -65,6 +79,7 @@ public PooledConnectionFactoryConfigurationBuilder<S> read(PooledConnectionFacto
       this.driverClass = template.driverClass();
       this.username = template.username();
       this.password = template.password();
+      this.maxStatementsPerConnection = template.maxStatementsPerConnection();
       return this;
    }
 
@@ -16,11 +16,12 @@ public class TableManipulationConfiguration {
    private final int batchSize;
    private final boolean createOnStart;
    private final boolean dropOnExit;
+   private final boolean upsert;
    private final DatabaseType databaseType;
 
    TableManipulationConfiguration(String idColumnName, String idColumnType, String tableNamePrefix, String cacheName,
          String dataColumnName, String dataColumnType, String timestampColumnName, String timestampColumnType,
-         DatabaseType databaseType, int fetchSize, int batchSize, boolean createOnStart, boolean dropOnExit) {
+         DatabaseType databaseType, int fetchSize, int batchSize, boolean createOnStart, boolean dropOnExit, boolean upsert) {
       this.idColumnName = idColumnName;
       this.idColumnType = idColumnType;
       this.tableNamePrefix = tableNamePrefix;
@@ -34,6 +35,7 @@ public class TableManipulationConfiguration {
       this.fetchSize = fetchSize;
       this.createOnStart = createOnStart;
       this.dropOnExit = dropOnExit;
+      this.upsert = upsert;
    }
 
    public boolean createOnStart() {
@@ -44,6 +46,13 @@ public boolean dropOnExit() {
       return dropOnExit;
    }
 
+   /**
+    * @return true if the entries should be written with an upsert statement, when the database supports it
+    */
+   public boolean upsert() {
+      return upsert;
+   }
+
    public DatabaseType databaseType() {
       return databaseType;
    }
@@ -97,7 +106,7 @@ public String toString() {
             + ", tableNamePrefix=" + tableNamePrefix + ", cacheName=" + cacheName + ", dataColumnName="
             + dataColumnName + ", dataColumnType=" + dataColumnType + ", timestampColumnName=" + timestampColumnName
             + ", timestampColumnType=" + timestampColumnType + ", fetchSize=" + fetchSize + ", batchSize=" + batchSize
-            + "]";
+            + ", upsert=" + upsert + "]";
    }
 
 
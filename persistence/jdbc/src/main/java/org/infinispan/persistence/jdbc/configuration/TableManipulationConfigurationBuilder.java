@@ -20,6 +20,7 @@
    private int fetchSize = TableManipulation.DEFAULT_FETCH_SIZE;
    private boolean createOnStart = true;
    private boolean dropOnExit = false;
+   private boolean upsert = false;
    private String cacheName;
    DatabaseType databaseType;
    private String idColumnName;
@@ -46,7 +47,7 @@ public S batchSize(int batchSize) {
    }
 
    /**
-    * For DB queries the fetch size is on {@link java.sql.ResultSet#setFetchSize(int)}. This is optional
+    * For DB queries the fetch size is on {@link java.sql.Statement#setFetchSize(int)}. This is optional
     * parameter, if not specified will be defaulted to {@link TableManipulation#DEFAULT_FETCH_SIZE}.
     */
    public S fetchSize(int fetchSize) {
@@ -54,6 +55,16 @@ public S fetchSize(int fetchSize) {
       return self();
    }
 
+   /**
+    * Writes the entries with a single dialect specific upsert statement (e.g. <code>MERGE</code> or
+    * <code>INSERT ... ON CONFLICT</code>) instead of looking up the row first and then inserting or updating it.
+    * Writes to databases which don't support upserts keep using the select-then-update approach. Defaults to false.
+    */
+   public S upsert(boolean upsert) {
+      this.upsert = upsert;
+      return self();
+   }
+
    /**
     * Sets the prefix for the name of the table where the data will be stored. "_<cache name>" will
     * be appended to this prefix in order to enforce unique table names for each cache.
@@ -156,7 +167,7 @@ private void validateIfSet(String name, String value) {
    @Override
    public TableManipulationConfiguration create() {
       return new TableManipulationConfiguration(idColumnName, idColumnType, tableNamePrefix, cacheName, dataColumnName, dataColumnType, timestampColumnName, timestampColumnType,
-            databaseType, fetchSize, batchSize, createOnStart, dropOnExit);
+            databaseType, fetchSize, batchSize, createOnStart, dropOnExit, upsert);
    }
 
    @Override
@@ -165,6 +176,7 @@ public Builder<?> read(TableManipulationConfiguration template) {
       this.fetchSize = template.fetchSize();
       this.createOnStart = template.createOnStart();
       this.dropOnExit = template.dropOnExit();
+      this.upsert = template.upsert();
       this.databaseType = template.databaseType();
       this.idColumnName = template.idColumnName();
       this.idColumnType = template.idColumnType();
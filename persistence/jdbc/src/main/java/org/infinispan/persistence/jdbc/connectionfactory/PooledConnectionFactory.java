@@ -57,6 +57,10 @@ public void start(ConnectionFactoryConfiguration config, ClassLoader classLoader
       pooledDataSource.setJdbcUrl(pooledConfiguration.connectionUrl());
       pooledDataSource.setUser(pooledConfiguration.username());
       pooledDataSource.setPassword(pooledConfiguration.password());
+      if (pooledConfiguration.maxStatementsPerConnection() > 0) {
+         // c3p0 keeps the prepared statements open and hands them out again when the same SQL is prepared
+         pooledDataSource.setMaxStatementsPerConnection(pooledConfiguration.maxStatementsPerConnection());
+      }
       if (log.isTraceEnabled()) {
          log.tracef("Started connection factory with config: %s", config);
       }
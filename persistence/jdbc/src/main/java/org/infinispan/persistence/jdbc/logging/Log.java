@@ -1,6 +1,7 @@
 package org.infinispan.persistence.jdbc.logging;
 
 import org.infinispan.commons.CacheConfigurationException;
+import org.infinispan.persistence.jdbc.TableName;
 import org.infinispan.persistence.support.Bucket;
 import org.jboss.logging.Cause;
 import org.jboss.logging.LogMessage;
@@ -13,6 +14,7 @@
 import java.sql.SQLException;
 
 import static org.jboss.logging.Logger.Level.ERROR;
+import static org.jboss.logging.Logger.Level.INFO;
 import static org.jboss.logging.Logger.Level.WARN;
 
 /**
@@ -144,4 +146,16 @@ public interface Log extends org.infinispan.util.logging.Log {
 
    @Message(value = "Cannot specify a ConnectionFactory and manageConnectionFactory at the same time", id = 8030)
    CacheConfigurationException unmanagedConnectionFactory();
+
+   @LogMessage(level = ERROR)
+   @Message(value = "SQL error while accessing the row of key %s", id = 8031)
+   void sqlFailureAccessingRow(Object key, @Cause SQLException e);
+
+   @LogMessage(level = INFO)
+   @Message(value = "Migrated %d entries from the bucket table %s to the row table %s", id = 8032)
+   void migratedBuckets(int entries, TableName bucketTable, TableName rowTable);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Failed to create index %s on column %s of table %s, purging expired entries will scan the whole table", id = 8033)
+   void failedCreatingIndex(String indexName, String columnName, TableName tableName, @Cause SQLException e);
 }
@@ -12,11 +12,14 @@
 import org.infinispan.persistence.jdbc.connectionfactory.ConnectionFactory;
 import org.infinispan.persistence.jdbc.stringbased.JdbcStringBasedStore;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.BatchingCacheWriter;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executor;
 
 /**
@@ -43,7 +46,7 @@
  * @see org.infinispan.persistence.jdbc.binary.JdbcBinaryStore
  * @see org.infinispan.persistence.jdbc.stringbased.JdbcStringBasedStore
  */
-public class JdbcMixedStore implements AdvancedLoadWriteStore {
+public class JdbcMixedStore implements AdvancedLoadWriteStore, BatchingCacheWriter {
 
    private static final Log log = LogFactory.getLog(JdbcMixedStore.class);
 
@@ -126,6 +129,38 @@ public boolean delete(Object key) {
       return getStore(key).delete(key);
    }
 
+   @Override
+   public void writeBatch(Iterable entries) {
+      List<MarshalledEntry> toStringStore = new ArrayList<MarshalledEntry>();
+      List<MarshalledEntry> toBinaryStore = new ArrayList<MarshalledEntry>();
+      for (MarshalledEntry entry : (Iterable<MarshalledEntry>) entries) {
+         if (getStore(entry.getKey()) == stringStore)
+            toStringStore.add(entry);
+         else
+            toBinaryStore.add(entry);
+      }
+      if (!toStringStore.isEmpty())
+         stringStore.writeBatch(toStringStore);
+      if (!toBinaryStore.isEmpty())
+         binaryStore.writeBatch(toBinaryStore);
+   }
+
+   @Override
+   public void deleteBatch(Iterable keys) {
+      List<Object> fromStringStore = new ArrayList<Object>();
+      List<Object> fromBinaryStore = new ArrayList<Object>();
+      for (Object key : keys) {
+         if (getStore(key) == stringStore)
+            fromStringStore.add(key);
+         else
+            fromBinaryStore.add(key);
+      }
+      if (!fromStringStore.isEmpty())
+         stringStore.deleteBatch(fromStringStore);
+      if (!fromBinaryStore.isEmpty())
+         binaryStore.deleteBatch(fromBinaryStore);
+   }
+
    @Override
    public int size() {
       return stringStore.size() + binaryStore.size();
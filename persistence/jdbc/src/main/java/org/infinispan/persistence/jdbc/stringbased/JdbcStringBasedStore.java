@@ -3,7 +3,7 @@
 import org.infinispan.commons.io.ByteBuffer;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.persistence.spi.PersistenceException;
-import org.infinispan.persistence.TaskContextImpl;
+import org.infinispan.persistence.jdbc.ChunkedRowProcessor;
 import org.infinispan.persistence.jdbc.JdbcUtil;
 import org.infinispan.persistence.jdbc.TableManipulation;
 import org.infinispan.persistence.jdbc.configuration.JdbcStringBasedStoreConfiguration;
@@ -14,6 +14,7 @@
 import org.infinispan.persistence.keymappers.TwoWayKey2StringMapper;
 import org.infinispan.persistence.keymappers.UnsupportedKeyTypeException;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.BatchingCacheWriter;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.util.KeyValuePair;
 import org.infinispan.util.logging.LogFactory;
@@ -24,6 +25,10 @@
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
@@ -66,7 +71,7 @@
  * @see org.infinispan.persistence.keymappers.Key2StringMapper
  * @see org.infinispan.persistence.keymappers.DefaultTwoWayKey2StringMapper
  */
-public class JdbcStringBasedStore implements AdvancedLoadWriteStore {
+public class JdbcStringBasedStore implements AdvancedLoadWriteStore, BatchingCacheWriter {
 
    private static final Log log = LogFactory.getLog(JdbcStringBasedStore.class, Log.class);
 
@@ -144,20 +149,25 @@ public void write(MarshalledEntry entry) {
       String keyStr = key2Str(entry.getKey());
       try {
          connection = connectionFactory.getConnection();
-         String sql = tableManipulation.getSelectIdRowSql();
-         if (log.isTraceEnabled()) {
-            log.tracef("Running sql '%s'. Key string is '%s'", sql, keyStr);
-         }
-         ps = connection.prepareStatement(sql);
-         ps.setString(1, keyStr);
-         ResultSet rs = ps.executeQuery();
-         if (rs.next()) {
-            sql = tableManipulation.getUpdateRowSql();
+         String sql;
+         if (tableManipulation.isUpsertSupported()) {
+            sql = tableManipulation.getUpsertRowSql();
          } else {
-            sql = tableManipulation.getInsertRowSql();
+            sql = tableManipulation.getSelectIdRowSql();
+            if (log.isTraceEnabled()) {
+               log.tracef("Running sql '%s'. Key string is '%s'", sql, keyStr);
+            }
+            ps = connection.prepareStatement(sql);
+            ps.setString(1, keyStr);
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) {
+               sql = tableManipulation.getUpdateRowSql();
+            } else {
+               sql = tableManipulation.getInsertRowSql();
+            }
+            JdbcUtil.safeClose(rs);
+            JdbcUtil.safeClose(ps);
          }
-         JdbcUtil.safeClose(rs);
-         JdbcUtil.safeClose(ps);
          if (log.isTraceEnabled()) {
              log.tracef("Running sql '%s'. Key string is '%s'", sql, keyStr);
          }
@@ -178,6 +188,150 @@ public void write(MarshalledEntry entry) {
       }
    }
 
+   /**
+    * {@inheritDoc}
+    * <p/>
+    * Inserts and updates are sent to the database as JDBC batches of {@link TableManipulation#getBatchSize()}
+    * statements each, all on the same connection.
+    */
+   @Override
+   public void writeBatch(Iterable entries) {
+      // only the last write for a key matters, and a key must not be inserted twice
+      Map<String, MarshalledEntry> byKeyStr = new LinkedHashMap<String, MarshalledEntry>();
+      for (MarshalledEntry entry : (Iterable<MarshalledEntry>) entries)
+         byKeyStr.put(key2Str(entry.getKey()), entry);
+      if (byKeyStr.isEmpty())
+         return;
+
+      if (tableManipulation.isUpsertSupported()) {
+         upsertBatch(byKeyStr);
+         return;
+      }
+
+      int batchSize = tableManipulation.getBatchSize();
+      Connection connection = null;
+      PreparedStatement select = null;
+      PreparedStatement insert = null;
+      PreparedStatement update = null;
+      try {
+         connection = connectionFactory.getConnection();
+         select = connection.prepareStatement(tableManipulation.getSelectIdRowSql());
+         insert = connection.prepareStatement(tableManipulation.getInsertRowSql());
+         update = connection.prepareStatement(tableManipulation.getUpdateRowSql());
+         int inserts = 0;
+         int updates = 0;
+         for (Map.Entry<String, MarshalledEntry> e : byKeyStr.entrySet()) {
+            select.setString(1, e.getKey());
+            ResultSet rs = select.executeQuery();
+            boolean exists;
+            try {
+               exists = rs.next();
+            } finally {
+               JdbcUtil.safeClose(rs);
+            }
+            if (exists) {
+               updateStatement(e.getValue(), e.getKey(), update);
+               update.addBatch();
+               if (++updates % batchSize == 0)
+                  update.executeBatch();
+            } else {
+               updateStatement(e.getValue(), e.getKey(), insert);
+               insert.addBatch();
+               if (++inserts % batchSize == 0)
+                  insert.executeBatch();
+            }
+         }
+         if (inserts % batchSize != 0)
+            insert.executeBatch();
+         if (updates % batchSize != 0)
+            update.executeBatch();
+         if (log.isTraceEnabled()) {
+            log.tracef("Stored a batch of %d new and %d existing string keys", inserts, updates);
+         }
+      } catch (SQLException ex) {
+         log.sqlFailureStoringKeys(ex);
+         throw new PersistenceException("Error while storing string keys to database", ex);
+      } catch (InterruptedException e) {
+         if (log.isTraceEnabled()) {
+            log.trace("Interrupted while marshalling to store");
+         }
+         Thread.currentThread().interrupt();
+      } finally {
+         JdbcUtil.safeClose(update);
+         JdbcUtil.safeClose(insert);
+         JdbcUtil.safeClose(select);
+         connectionFactory.releaseConnection(connection);
+      }
+   }
+
+   private void upsertBatch(Map<String, MarshalledEntry> byKeyStr) {
+      int batchSize = tableManipulation.getBatchSize();
+      Connection connection = null;
+      PreparedStatement upsert = null;
+      try {
+         connection = connectionFactory.getConnection();
+         upsert = connection.prepareStatement(tableManipulation.getUpsertRowSql());
+         int upserts = 0;
+         for (Map.Entry<String, MarshalledEntry> e : byKeyStr.entrySet()) {
+            updateStatement(e.getValue(), e.getKey(), upsert);
+            upsert.addBatch();
+            if (++upserts % batchSize == 0)
+               upsert.executeBatch();
+         }
+         if (upserts % batchSize != 0)
+            upsert.executeBatch();
+         if (log.isTraceEnabled()) {
+            log.tracef("Upserted a batch of %d string keys", upserts);
+         }
+      } catch (SQLException ex) {
+         log.sqlFailureStoringKeys(ex);
+         throw new PersistenceException("Error while storing string keys to database", ex);
+      } catch (InterruptedException e) {
+         if (log.isTraceEnabled()) {
+            log.trace("Interrupted while marshalling to store");
+         }
+         Thread.currentThread().interrupt();
+      } finally {
+         JdbcUtil.safeClose(upsert);
+         connectionFactory.releaseConnection(connection);
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    * <p/>
+    * Deletes are sent to the database as JDBC batches of {@link TableManipulation#getBatchSize()} statements each.
+    */
+   @Override
+   public void deleteBatch(Iterable keys) {
+      int batchSize = tableManipulation.getBatchSize();
+      Connection connection = null;
+      PreparedStatement ps = null;
+      try {
+         String sql = tableManipulation.getDeleteRowSql();
+         connection = connectionFactory.getConnection();
+         ps = connection.prepareStatement(sql);
+         int count = 0;
+         for (Object key : keys) {
+            ps.setString(1, key2Str(key));
+            ps.addBatch();
+            if (++count % batchSize == 0)
+               ps.executeBatch();
+         }
+         if (count % batchSize != 0)
+            ps.executeBatch();
+         if (log.isTraceEnabled()) {
+            log.tracef("Ran sql '%s' on a batch of %d keys", sql, count);
+         }
+      } catch (SQLException ex) {
+         log.sqlFailureRemovingKeys(ex);
+         throw new PersistenceException("Error while removing string keys from database", ex);
+      } finally {
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(connection);
+      }
+   }
+
    @Override
    public MarshalledEntry load(Object key) {
       String lockingKey = key2Str(key);
@@ -257,29 +411,70 @@ public void clear() throws PersistenceException {
       }
    }
 
+   /**
+    * {@inheritDoc}
+    * <p/>
+    * The expired rows are found through the index of the timestamp column and removed in batches of
+    * {@link TableManipulation#getBatchSize()}, so that concurrent writers are never blocked for long. A row which is
+    * updated after being found is not removed. The purge listener is only notified when the keys can be mapped back,
+    * i.e. when a {@link TwoWayKey2StringMapper} is configured.
+    */
    @Override
-   public void purge(Executor executor, PurgeListener task) {
-      //todo we should make the notification to the purge listener here
+   public void purge(Executor executor, final PurgeListener task) {
       ExecutorCompletionService<Void> ecs = new ExecutorCompletionService<Void>(executor);
       Future<Void> future = ecs.submit(new Callable<Void>() {
          @Override
          public Void call() throws Exception {
+            long now = ctx.getTimeService().wallClockTime();
+            int batchSize = tableManipulation.getBatchSize();
             Connection conn = null;
-            PreparedStatement ps = null;
+            PreparedStatement select = null;
+            PreparedStatement delete = null;
+            ResultSet rs = null;
+            int purged = 0;
             try {
-               String sql = tableManipulation.getDeleteExpiredRowsSql();
                conn = connectionFactory.getConnection();
-               ps = conn.prepareStatement(sql);
-               ps.setLong(1, ctx.getTimeService().wallClockTime());
-               int result = ps.executeUpdate();
+               select = conn.prepareStatement(tableManipulation.getSelectExpiredIdsSql());
+               select.setMaxRows(batchSize);
+               delete = conn.prepareStatement(tableManipulation.getDeleteExpiredRowSql());
+               List<String> expired = new ArrayList<String>(batchSize);
+               do {
+                  expired.clear();
+                  select.setLong(1, now);
+                  rs = select.executeQuery();
+                  while (rs.next()) {
+                     expired.add(rs.getString(1));
+                  }
+                  // some databases don't allow modifying a table while a result set over it is open
+                  JdbcUtil.safeClose(rs);
+                  rs = null;
+                  if (expired.isEmpty())
+                     break;
+
+                  for (String id : expired) {
+                     delete.setString(1, id);
+                     delete.setLong(2, now);
+                     delete.addBatch();
+                  }
+                  int[] deleted = delete.executeBatch();
+                  for (int i = 0; i < expired.size(); i++) {
+                     if (deleted[i] != 0) {
+                        purged++;
+                        if (task != null && key2StringMapper instanceof TwoWayKey2StringMapper)
+                           task.entryPurged(((TwoWayKey2StringMapper) key2StringMapper).getKeyMapping(expired.get(i)));
+                     }
+                  }
+               } while (expired.size() == batchSize);
                if (log.isTraceEnabled()) {
-                  log.tracef("Successfully purged %d rows.", result);
+                  log.tracef("Successfully purged %d rows.", purged);
                }
             } catch (SQLException ex) {
                log.failedClearingJdbcCacheStore(ex);
                throw new PersistenceException("Failed clearing string based JDBC store", ex);
             } finally {
-               JdbcUtil.safeClose(ps);
+               JdbcUtil.safeClose(rs);
+               JdbcUtil.safeClose(delete);
+               JdbcUtil.safeClose(select);
                connectionFactory.releaseConnection(conn);
             }
             return null;
@@ -303,62 +498,18 @@ public boolean contains(Object key) {
 
 
    @Override
-   public void process(final KeyFilter filter, final CacheLoaderTask task, Executor executor, final boolean fetchValue, final boolean fetchMetadata) {
+   public void process(KeyFilter filter, CacheLoaderTask task, Executor executor, boolean fetchValue, boolean fetchMetadata) {
+      new ChunkedRowProcessor<String>(connectionFactory, tableManipulation, ctx) {
+         @Override
+         protected String readId(ResultSet rs) throws SQLException {
+            return rs.getString(2);
+         }
 
-      ExecutorCompletionService<Void> ecs = new ExecutorCompletionService<Void>(executor);
-      Future<Void> future = ecs.submit(new Callable<Void>() {
          @Override
-         public Void call() throws Exception {
-            Connection conn = null;
-            PreparedStatement ps = null;
-            ResultSet rs = null;
-            try {
-               String sql = tableManipulation.getLoadNonExpiredAllRowsSql();
-               if (log.isTraceEnabled()) {
-                  log.tracef("Running sql %s", sql);
-               }
-               conn = connectionFactory.getConnection();
-               ps = conn.prepareStatement(sql);
-               ps.setLong(1, ctx.getTimeService().wallClockTime());
-               rs = ps.executeQuery();
-               rs.setFetchSize(tableManipulation.getFetchSize());
-
-               TaskContext taskContext = new TaskContextImpl();
-               while (rs.next()) {
-                  String keyStr = rs.getString(2);
-                  Object key = ((TwoWayKey2StringMapper) key2StringMapper).getKeyMapping(keyStr);
-                  if (taskContext.isStopped()) break;
-                  if (filter != null && !filter.shouldLoadKey(key))
-                     continue;
-                  InputStream inputStream = rs.getBinaryStream(1);
-                  MarshalledEntry entry;
-                  if (fetchValue || fetchMetadata) {
-                     KeyValuePair<ByteBuffer, ByteBuffer> kvp = JdbcUtil.unmarshall(ctx.getMarshaller(), inputStream);
-                     entry = ctx.getMarshalledEntryFactory().newMarshalledEntry(key, kvp.getKey(), kvp.getValue());
-                  } else {
-                     entry = ctx.getMarshalledEntryFactory().newMarshalledEntry(key, (Object)null, null);
-                  }
-                  task.processEntry(entry, taskContext);
-               }
-               return null;
-            } catch (SQLException e) {
-               log.sqlFailureFetchingAllStoredEntries(e);
-               throw new PersistenceException("SQL error while fetching all StoredEntries", e);
-            } finally {
-               JdbcUtil.safeClose(rs);
-               JdbcUtil.safeClose(ps);
-               connectionFactory.releaseConnection(conn);
-            }
+         protected Object toKey(String id) {
+            return ((TwoWayKey2StringMapper) key2StringMapper).getKeyMapping(id);
          }
-      });
-      try {
-         future.get();
-      } catch (InterruptedException e) {
-         Thread.currentThread().interrupt();
-      } catch (ExecutionException e) {
-         log.errorExecutingParallelStoreTask(e);
-         throw new PersistenceException(e);
-      }
+      }.process(filter, task, executor, fetchValue || fetchMetadata);
    }
 
    @Override
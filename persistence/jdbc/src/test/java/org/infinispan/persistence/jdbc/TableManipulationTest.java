@@ -14,6 +14,7 @@
 import org.infinispan.persistence.jdbc.configuration.JdbcStringBasedStoreConfigurationBuilder;
 import org.infinispan.persistence.jdbc.configuration.PooledConnectionFactoryConfiguration;
 import org.infinispan.persistence.jdbc.configuration.SimpleConnectionFactoryConfiguration;
+import org.infinispan.persistence.jdbc.configuration.TableManipulationConfiguration;
 import org.infinispan.persistence.jdbc.connectionfactory.PooledConnectionFactory;
 import org.infinispan.test.fwk.TestCacheManagerFactory;
 import org.infinispan.test.fwk.UnitTestDatabaseManager;
@@ -136,6 +137,56 @@ public void testTableQuoting() throws Exception {
       assert existsTable(connection, tableManipulation.getTableName());
    }
 
+   public void testIndexCreatedOnExistingTable() throws Exception {
+      JdbcStringBasedStoreConfigurationBuilder storeBuilder = TestCacheManagerFactory
+            .getDefaultCacheConfiguration(false)
+            .persistence()
+               .addStore(JdbcStringBasedStoreConfigurationBuilder.class);
+      UnitTestDatabaseManager.buildTableManipulation(storeBuilder.table(), false);
+      TableManipulationConfiguration tableConfig = storeBuilder.table().create();
+      TableManipulation tableManipulation = new TableManipulation(tableConfig);
+      // the index name must not grow with the table name
+      tableManipulation.setCacheName("aCacheWithANameLongerThanThirtyCharacters");
+
+      PooledConnectionFactory factory = new PooledConnectionFactory();
+      factory.start(UnitTestDatabaseManager.configureUniqueConnectionFactory(storeBuilder).create(),
+                    Thread.currentThread().getContextClassLoader());
+      Connection conn = factory.getConnection();
+      Statement st = conn.createStatement();
+      try {
+         // a table created before the index was added
+         st.executeUpdate("CREATE TABLE " + tableManipulation.getTableName() + "(" + tableConfig.idColumnName() + " "
+               + tableConfig.idColumnType() + " NOT NULL, " + tableConfig.dataColumnName() + " "
+               + tableConfig.dataColumnType() + ", " + tableConfig.timestampColumnName() + " "
+               + tableConfig.timestampColumnType() + ", PRIMARY KEY (" + tableConfig.idColumnName() + "))");
+         assert !isIndexed(conn, tableManipulation.getTableName(), tableConfig.timestampColumnName());
+
+         tableManipulation.start(factory);
+         assert isIndexed(conn, tableManipulation.getTableName(), tableConfig.timestampColumnName());
+
+         // the index already exists, which is only logged
+         tableManipulation.createIndexes(conn, false);
+         tableManipulation.dropTable(conn);
+      } finally {
+         JdbcUtil.safeClose(st);
+         factory.releaseConnection(conn);
+         factory.stop();
+      }
+   }
+
+   static boolean isIndexed(Connection connection, TableName tableName, String columnName) throws Exception {
+      ResultSet rs = connection.getMetaData().getIndexInfo(null, null, tableName.getName(), false, true);
+      try {
+         while (rs.next()) {
+            if (columnName.equalsIgnoreCase(rs.getString("COLUMN_NAME")))
+               return true;
+         }
+         return false;
+      } finally {
+         JdbcUtil.safeClose(rs);
+      }
+   }
+
    static boolean existsTable(Connection connection, TableName tableName) throws Exception {
       Statement st = connection.createStatement();
       ResultSet rs = null;
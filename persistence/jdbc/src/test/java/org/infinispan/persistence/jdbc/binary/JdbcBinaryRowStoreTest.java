@@ -0,0 +1,203 @@
+package org.infinispan.persistence.jdbc.binary;
+
+import org.infinispan.Cache;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.marshall.core.MarshalledEntryImpl;
+import org.infinispan.persistence.BaseStoreTest;
+import org.infinispan.persistence.jdbc.JdbcUtil;
+import org.infinispan.persistence.jdbc.configuration.JdbcBinaryRowStoreConfigurationBuilder;
+import org.infinispan.persistence.jdbc.configuration.JdbcBinaryStoreConfigurationBuilder;
+import org.infinispan.persistence.spi.AdvancedCacheWriter;
+import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
+import org.infinispan.test.fwk.UnitTestDatabaseManager;
+import org.infinispan.util.concurrent.WithinThreadExecutor;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.infinispan.test.TestingUtil.marshalledEntry;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+/**
+ * Tester class for {@link JdbcBinaryRowStore}
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "persistence.jdbc.binary.JdbcBinaryRowStoreTest")
+public class JdbcBinaryRowStoreTest extends BaseStoreTest {
+
+   private EmbeddedCacheManager cacheManager;
+   private EmbeddedCacheManager bucketCacheManager;
+   private Cache<Object,Object> cache;
+
+   @Override
+   protected AdvancedLoadWriteStore createStore() throws Exception {
+      ConfigurationBuilder cc = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      JdbcBinaryRowStoreConfigurationBuilder storeBuilder = cc
+            .persistence()
+            .addStore(JdbcBinaryRowStoreConfigurationBuilder.class);
+      UnitTestDatabaseManager.buildTableManipulation(storeBuilder.table(), true);
+      // the ids are compared, so they need a binary type
+      storeBuilder.table().tableNamePrefix("ISPN_ROWS").idColumnType("VARBINARY(1024)").batchSize(4);
+      UnitTestDatabaseManager.configureUniqueConnectionFactory(storeBuilder);
+
+      cacheManager = TestCacheManagerFactory.createCacheManager(cc);
+      cache = cacheManager.getCache();
+
+      JdbcBinaryRowStore store = (JdbcBinaryRowStore) TestingUtil.getFirstWriter(cache);
+      assert store.getConnectionFactory() != null;
+      csc = store.getConfiguration();
+      return store;
+   }
+
+   @AfterMethod
+   @Override
+   public void tearDown() throws PersistenceException {
+      super.tearDown();
+      TestingUtil.killCacheManagers(cacheManager, bucketCacheManager);
+      bucketCacheManager = null;
+   }
+
+   @Override
+   protected StreamingMarshaller getMarshaller() {
+      StreamingMarshaller component = cache.getAdvancedCache().getComponentRegistry().getCacheMarshaller();
+      assert component != null;
+      return component;
+   }
+
+   public void testOneRowPerKey() {
+      JdbcBinaryRowStore store = (JdbcBinaryRowStore) cl;
+      List<MarshalledEntry> entries = new ArrayList<MarshalledEntry>();
+      for (int i = 0; i < 10; i++) {
+         entries.add(new MarshalledEntryImpl("k" + i, "v" + i, null, getMarshaller()));
+      }
+      store.writeBatch(entries);
+      assertRowCount(store, 10);
+
+      // updates don't add rows
+      entries.set(1, new MarshalledEntryImpl("k1", "updated", null, getMarshaller()));
+      entries.add(new MarshalledEntryImpl("k10", "v10", null, getMarshaller()));
+      store.writeBatch(entries);
+      cl.write(new MarshalledEntryImpl("k0", "updated", null, getMarshaller()));
+      assertRowCount(store, 11);
+      assertEquals("updated", cl.load("k0").getValue());
+      assertEquals("updated", cl.load("k1").getValue());
+      assertEquals("v10", cl.load("k10").getValue());
+
+      store.deleteBatch(Arrays.asList("k2", "k3", "missing"));
+      assertTrue(cl.delete("k4"));
+      assertRowCount(store, 8);
+      assertEquals(8, cl.size());
+   }
+
+   public void testLastWriteOfKeyInBatchWins() throws Exception {
+      JdbcBinaryRowStore store = (JdbcBinaryRowStore) cl;
+      cl.write(new MarshalledEntryImpl("k2", "stale", null, getMarshaller()));
+      MarshalledEntry expired1 = marshalledEntry(TestInternalCacheEntryFactory.create("k1", "expired", 1), getMarshaller());
+      MarshalledEntry expired2 = marshalledEntry(TestInternalCacheEntryFactory.create("k2", "expired", 1), getMarshaller());
+      Thread.sleep(10);
+
+      store.writeBatch(Arrays.asList(new MarshalledEntryImpl("k1", "v1", null, getMarshaller()), expired1,
+                                     expired2, new MarshalledEntryImpl("k2", "v2", null, getMarshaller())));
+      assertFalse(cl.contains("k1"));
+      assertEquals("v2", cl.load("k2").getValue());
+      assertRowCount(store, 1);
+   }
+
+   public void testKeyCannotBeInsertedTwice() throws Exception {
+      JdbcBinaryRowStore store = (JdbcBinaryRowStore) cl;
+      cl.write(new MarshalledEntryImpl("k", "v", null, getMarshaller()));
+      byte[] keyBytes = getMarshaller().objectToByteBuffer("k");
+
+      // the row another node would insert after this store found the key missing
+      Connection conn = store.getConnectionFactory().getConnection();
+      PreparedStatement ps = null;
+      try {
+         ps = conn.prepareStatement(store.getTableManipulation().getInsertRowSql());
+         ps.setBytes(1, getMarshaller().objectToByteBuffer("other"));
+         ps.setLong(2, -1);
+         ps.setInt(3, Arrays.hashCode(keyBytes));
+         ps.setBytes(4, keyBytes);
+         ps.executeUpdate();
+         fail("The key was inserted twice");
+      } catch (SQLException e) {
+         assertTrue(JdbcUtil.isDuplicateKey(e));
+      } finally {
+         JdbcUtil.safeClose(ps);
+         store.getConnectionFactory().releaseConnection(conn);
+      }
+      assertRowCount(store, 1);
+      assertEquals("v", cl.load("k").getValue());
+   }
+
+   public void testPurgeNotifiesListener() throws Exception {
+      InternalCacheEntry mortal = TestInternalCacheEntryFactory.create("mortal", "v", 100);
+      cl.write(marshalledEntry(mortal, getMarshaller()));
+      cl.write(new MarshalledEntryImpl("immortal", "v", null, getMarshaller()));
+      Thread.sleep(200);
+
+      final Set<Object> purged = new HashSet<Object>();
+      cl.purge(new WithinThreadExecutor(), new AdvancedCacheWriter.PurgeListener() {
+         @Override
+         public void entryPurged(Object key) {
+            purged.add(key);
+         }
+      });
+      assertEquals(1, purged.size());
+      assertTrue(purged.contains("mortal"));
+      assertFalse(cl.contains("mortal"));
+      assertTrue(cl.contains("immortal"));
+      assertRowCount((JdbcBinaryRowStore) cl, 1);
+      UnitTestDatabaseManager.verifyConnectionLeaks(((JdbcBinaryRowStore) cl).getConnectionFactory());
+   }
+
+   public void testMigrateFromBuckets() {
+      ConfigurationBuilder cc = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      JdbcBinaryStoreConfigurationBuilder storeBuilder = cc
+            .persistence()
+            .addStore(JdbcBinaryStoreConfigurationBuilder.class);
+      UnitTestDatabaseManager.buildTableManipulation(storeBuilder.table(), true);
+      UnitTestDatabaseManager.configureUniqueConnectionFactory(storeBuilder);
+      bucketCacheManager = TestCacheManagerFactory.createCacheManager(cc);
+      Cache<Object, Object> bucketCache = bucketCacheManager.getCache();
+      JdbcBinaryStore bucketStore = (JdbcBinaryStore) TestingUtil.getFirstWriter(bucketCache);
+      StreamingMarshaller marshaller = bucketCache.getAdvancedCache().getComponentRegistry().getCacheMarshaller();
+
+      int numEntries = 10;
+      for (int i = 0; i < numEntries; i++) {
+         bucketStore.write(new MarshalledEntryImpl("k" + i, "v" + i, null, marshaller));
+      }
+
+      JdbcBinaryRowStore store = (JdbcBinaryRowStore) cl;
+      assertEquals(numEntries, new BucketTableMigrator(bucketStore, store).migrate());
+      assertRowCount(store, numEntries);
+      for (int i = 0; i < numEntries; i++) {
+         assertEquals("v" + i, cl.load("k" + i).getValue());
+      }
+      // the buckets are left in place
+      assertEquals(numEntries, bucketStore.size());
+   }
+
+   private void assertRowCount(JdbcBinaryRowStore store, int expected) {
+      assertEquals(expected, UnitTestDatabaseManager.rowCount(store.getConnectionFactory(), store.getTableManipulation().getTableName()));
+   }
+}
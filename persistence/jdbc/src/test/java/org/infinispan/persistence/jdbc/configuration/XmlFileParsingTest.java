@@ -29,8 +29,8 @@ public void testStringKeyedJdbcStore() throws Exception {
             "   <default>\n" +
             "     <persistence>\n" +
             "       <stringKeyedJdbcStore xmlns=\"urn:infinispan:config:jdbc:6.0\" key2StringMapper=\"DummyKey2StringMapper\">\n" +
-            "         <connectionPool connectionUrl=\"jdbc:h2:mem:infinispan;DB_CLOSE_DELAY=-1\" username=\"dbuser\" password=\"dbpass\" driverClass=\"org.h2.Driver\"/>\n" +
-            "         <stringKeyedTable prefix=\"entry\" fetchSize=\"34\" batchSize=\"128\" >\n" +
+            "         <connectionPool connectionUrl=\"jdbc:h2:mem:infinispan;DB_CLOSE_DELAY=-1\" username=\"dbuser\" password=\"dbpass\" driverClass=\"org.h2.Driver\" maxStatementsPerConnection=\"20\"/>\n" +
+            "         <stringKeyedTable prefix=\"entry\" fetchSize=\"34\" batchSize=\"128\" upsert=\"true\" >\n" +
             "           <idColumn name=\"id\" type=\"VARCHAR\" />\n" +
             "           <dataColumn name=\"datum\" type=\"BINARY\" />\n" +
             "           <timestampColumn name=\"version\" type=\"BIGINT\" />\n" +
@@ -44,6 +44,7 @@ public void testStringKeyedJdbcStore() throws Exception {
       JdbcStringBasedStoreConfiguration store = (JdbcStringBasedStoreConfiguration) buildCacheManagerWithCacheStore(config);
       assertEquals(128, store.table().batchSize());
       assertEquals(34, store.table().fetchSize());
+      assertTrue(store.table().upsert());
       assertEquals("BINARY", store.table().dataColumnType());
       assertEquals("version", store.table().timestampColumnName());
       assertTrue(store.async().enabled());
@@ -53,6 +54,7 @@ public void testStringKeyedJdbcStore() throws Exception {
       assertEquals("org.h2.Driver", connectionFactory.driverClass());
       assertEquals("dbuser", connectionFactory.username());
       assertEquals("dbpass", connectionFactory.password());
+      assertEquals(20, connectionFactory.maxStatementsPerConnection());
    }
 
    public void testBinaryKeyedJdbcStore() throws Exception {
@@ -87,6 +89,33 @@ public void testBinaryKeyedJdbcStore() throws Exception {
       assertEquals("dbpass", connectionFactory.password());
    }
 
+   public void testBinaryRowJdbcStore() throws Exception {
+      String config = INFINISPAN_START_TAG +
+            "   <default>\n" +
+            "     <persistence>\n" +
+            "       <binaryRowJdbcStore xmlns=\"urn:infinispan:config:jdbc:6.0\">\n" +
+            "         <simpleConnection connectionUrl=\"jdbc:h2:mem:infinispan;DB_CLOSE_DELAY=-1\" username=\"dbuser\" password=\"dbpass\" driverClass=\"org.h2.Driver\"/>\n" +
+            "         <binaryRowTable prefix=\"rows\" fetchSize=\"34\" batchSize=\"128\">\n" +
+            "           <idColumn name=\"id\" type=\"VARBINARY(255)\" />\n" +
+            "           <dataColumn name=\"datum\" type=\"BINARY\" />\n" +
+            "           <timestampColumn name=\"version\" type=\"BIGINT\" />\n" +
+            "         </binaryRowTable>\n" +
+            "       </binaryRowJdbcStore>\n" +
+            "     </persistence>\n" +
+            "   </default>\n" +
+            TestingUtil.INFINISPAN_END_TAG;
+
+      JdbcBinaryRowStoreConfiguration store = (JdbcBinaryRowStoreConfiguration) buildCacheManagerWithCacheStore(config);
+      assertEquals("rows", store.table().tableNamePrefix());
+      assertEquals(128, store.table().batchSize());
+      assertEquals(34, store.table().fetchSize());
+      assertEquals("VARBINARY(255)", store.table().idColumnType());
+      assertEquals("version", store.table().timestampColumnName());
+      assertEquals(JdbcBinaryRowStoreConfigurationBuilder.DEFAULT_CONCURRENCY_LEVEL, store.lockConcurrencyLevel());
+      SimpleConnectionFactoryConfiguration connectionFactory = (SimpleConnectionFactoryConfiguration) store.connectionFactory();
+      assertEquals("jdbc:h2:mem:infinispan;DB_CLOSE_DELAY=-1", connectionFactory.connectionUrl());
+   }
+
    public void testMixedKeyedJdbcStore() throws Exception {
       String config = INFINISPAN_START_TAG +
             "   <default>\n" +
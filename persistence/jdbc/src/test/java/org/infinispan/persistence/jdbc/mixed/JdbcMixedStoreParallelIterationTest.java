@@ -15,9 +15,14 @@
 @Test (groups = "functional", testName = "persistence.jdbc.JdbcMixedStoreParallelIterationTest")
 public class JdbcMixedStoreParallelIterationTest extends ParallelIterationTest {
 
+   public JdbcMixedStoreParallelIterationTest() {
+      // how many executor threads get a chunk of rows depends on how fast the rows are read
+      multipleThreads = false;
+   }
+
    @Override
    protected int numThreads() {
-      return 1;
+      return KnownComponentNames.getDefaultThreads(KnownComponentNames.PERSISTENCE_EXECUTOR);
    }
 
    @Override
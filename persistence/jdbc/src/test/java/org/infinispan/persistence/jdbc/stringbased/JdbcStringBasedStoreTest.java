@@ -1,6 +1,7 @@
 package org.infinispan.persistence.jdbc.stringbased;
 
 import org.infinispan.commons.io.ByteBufferFactoryImpl;
+import org.infinispan.marshall.core.MarshalledEntryImpl;
 import org.infinispan.marshall.core.MarshalledEntryFactoryImpl;
 import org.infinispan.persistence.BaseStoreTest;
 import org.infinispan.persistence.spi.PersistenceException;
@@ -9,12 +10,21 @@
 import org.infinispan.persistence.jdbc.configuration.JdbcStringBasedStoreConfigurationBuilder;
 import org.infinispan.persistence.jdbc.connectionfactory.ConnectionFactory;
 import org.infinispan.persistence.keymappers.UnsupportedKeyTypeException;
+import org.infinispan.persistence.spi.AdvancedCacheWriter;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
 import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
 import org.infinispan.test.fwk.UnitTestDatabaseManager;
 import org.infinispan.util.DefaultTimeService;
+import org.infinispan.util.concurrent.WithinThreadExecutor;
 import org.testng.annotations.Test;
 
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.infinispan.test.TestingUtil.marshalledEntry;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 
@@ -80,4 +90,25 @@ public void testLoadAndStoreMarshalledValues() throws PersistenceException {
       super.testLoadAndStoreMarshalledValues();
    }
 
+   public void testPurgeNotifiesListener() throws Exception {
+      int numExpired = 20;
+      for (int i = 0; i < numExpired; i++)
+         cl.write(marshalledEntry(TestInternalCacheEntryFactory.create("k" + i, "v" + i, 100), getMarshaller()));
+      cl.write(new MarshalledEntryImpl("immortal", "v", null, getMarshaller()));
+      Thread.sleep(200);
+
+      final Set<Object> purged = new HashSet<Object>();
+      cl.purge(new WithinThreadExecutor(), new AdvancedCacheWriter.PurgeListener() {
+         @Override
+         public void entryPurged(Object key) {
+            purged.add(key);
+         }
+      });
+      assertEquals(numExpired, purged.size());
+      assertTrue(purged.contains("k0"));
+      JdbcStringBasedStore store = (JdbcStringBasedStore) cl;
+      assertEquals(1, UnitTestDatabaseManager.rowCount(store.getConnectionFactory(), store.getTableManipulation().getTableName()));
+      assertTrue(cl.contains("immortal"));
+   }
+
 }
@@ -0,0 +1,81 @@
+package org.infinispan.persistence.jdbc.stringbased;
+
+import org.infinispan.commons.io.ByteBufferFactoryImpl;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.marshall.core.MarshalledEntryFactoryImpl;
+import org.infinispan.marshall.core.MarshalledEntryImpl;
+import org.infinispan.persistence.InitializationContextImpl;
+import org.infinispan.persistence.jdbc.configuration.ConnectionFactoryConfigurationBuilder;
+import org.infinispan.persistence.jdbc.configuration.JdbcStringBasedStoreConfigurationBuilder;
+import org.infinispan.persistence.jdbc.configuration.PooledConnectionFactoryConfigurationBuilder;
+import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.UnitTestDatabaseManager;
+import org.infinispan.util.DefaultTimeService;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Runs the {@link JdbcStringBasedStore} tests with the rows written through upserts, the prepared statements cached by
+ * the connection pool and a fetch size small enough for the entries to be processed in several chunks.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "persistence.jdbc.stringbased.JdbcStringBasedStoreUpsertTest")
+public class JdbcStringBasedStoreUpsertTest extends JdbcStringBasedStoreTest {
+
+   private static final int FETCH_SIZE = 7;
+
+   @Override
+   protected AdvancedLoadWriteStore createStore() throws Exception {
+      JdbcStringBasedStoreConfigurationBuilder storeBuilder = TestCacheManagerFactory
+            .getDefaultCacheConfiguration(false)
+            .persistence()
+               .addStore(JdbcStringBasedStoreConfigurationBuilder.class);
+      ConnectionFactoryConfigurationBuilder<?> connectionFactory = UnitTestDatabaseManager.configureUniqueConnectionFactory(storeBuilder);
+      if (connectionFactory instanceof PooledConnectionFactoryConfigurationBuilder) {
+         ((PooledConnectionFactoryConfigurationBuilder<?>) connectionFactory).maxStatementsPerConnection(16);
+      }
+      UnitTestDatabaseManager.buildTableManipulation(storeBuilder.table(), false);
+      storeBuilder.table().upsert(true).fetchSize(FETCH_SIZE).batchSize(8);
+      JdbcStringBasedStore stringBasedCacheStore = new JdbcStringBasedStore();
+      stringBasedCacheStore.init(new InitializationContextImpl(storeBuilder.create(), getCache(), getMarshaller(),
+                                                               new DefaultTimeService(), new ByteBufferFactoryImpl(),
+                                                               new MarshalledEntryFactoryImpl(getMarshaller())));
+      stringBasedCacheStore.start();
+      return stringBasedCacheStore;
+   }
+
+   public void testUpsertSupported() {
+      assertTrue(((JdbcStringBasedStore) cl).getTableManipulation().isUpsertSupported());
+   }
+
+   public void testUpsertBatchAndProcessInChunks() throws Exception {
+      JdbcStringBasedStore store = (JdbcStringBasedStore) cl;
+      int numEntries = FETCH_SIZE * 10 + 3;
+      List<MarshalledEntry> entries = new ArrayList<MarshalledEntry>();
+      for (int i = 0; i < numEntries; i++) {
+         entries.add(new MarshalledEntryImpl("k" + i, "v" + i, null, getMarshaller()));
+      }
+      store.writeBatch(entries);
+
+      // the second batch only updates the existing rows
+      entries.clear();
+      for (int i = 0; i < numEntries; i++) {
+         entries.add(new MarshalledEntryImpl("k" + i, "updated" + i, null, getMarshaller()));
+      }
+      store.writeBatch(entries);
+
+      assertEquals(numEntries, UnitTestDatabaseManager.rowCount(store.getConnectionFactory(), store.getTableManipulation().getTableName()));
+      assertEquals(numEntries, TestingUtil.allEntries(cl).size());
+      for (int i = 0; i < numEntries; i++) {
+         assertEquals("updated" + i, cl.load("k" + i).getValue());
+      }
+   }
+}
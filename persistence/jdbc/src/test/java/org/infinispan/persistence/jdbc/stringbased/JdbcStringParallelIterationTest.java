@@ -1,6 +1,7 @@
 package org.infinispan.persistence.jdbc.stringbased;
 
 import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.factories.KnownComponentNames;
 import org.infinispan.persistence.ParallelIterationTest;
 import org.infinispan.persistence.jdbc.configuration.JdbcStringBasedStoreConfigurationBuilder;
 import org.infinispan.test.fwk.UnitTestDatabaseManager;
@@ -13,9 +14,14 @@
 @Test(groups = "functional", testName = "persistence.jdbc.stringbased.JdbcStringParallelIterationTest")
 public class JdbcStringParallelIterationTest extends ParallelIterationTest {
 
+   public JdbcStringParallelIterationTest() {
+      // how many executor threads get a chunk of rows depends on how fast the rows are read
+      multipleThreads = false;
+   }
+
    @Override
    protected int numThreads() {
-      return 1;
+      return KnownComponentNames.getDefaultThreads(KnownComponentNames.PERSISTENCE_EXECUTOR);
    }
 
    @Override
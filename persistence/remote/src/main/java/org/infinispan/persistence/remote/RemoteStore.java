@@ -21,6 +21,7 @@
 import org.infinispan.persistence.remote.logging.Log;
 import org.infinispan.persistence.remote.wrapper.HotRodEntryMarshaller;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.BatchingCacheWriter;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.metadata.EmbeddedMetadata;
@@ -29,7 +30,11 @@
 import org.infinispan.metadata.Metadata;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -48,7 +53,7 @@
  * @since 4.1
  */
 @ThreadSafe
-public class RemoteStore implements AdvancedLoadWriteStore {
+public class RemoteStore implements AdvancedLoadWriteStore, BatchingCacheWriter {
 
    private static final Log log = LogFactory.getLog(RemoteStore.class, Log.class);
 
@@ -164,6 +169,49 @@ public void write(MarshalledEntry entry) throws PersistenceException {
       remoteCache.put(entry.getKey(), configuration.rawValues() ? entry.getValue() : entry, toSeconds(lifespan, entry.getKey(), LIFESPAN), TimeUnit.SECONDS, toSeconds(maxIdle, entry.getKey(), MAXIDLE), TimeUnit.SECONDS);
    }
 
+   /**
+    * {@inheritDoc}
+    * <p/>
+    * The puts are issued asynchronously, so that they are in flight at the same time, and this method waits for all
+    * of them to complete.
+    */
+   @Override
+   public void writeBatch(Iterable entries) {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (MarshalledEntry entry : (Iterable<MarshalledEntry>) entries) {
+         InternalMetadata metadata = entry.getMetadata();
+         long lifespan = metadata != null ? metadata.lifespan() : -1;
+         long maxIdle = metadata != null ? metadata.maxIdle() : -1;
+         futures.add(remoteCache.putAsync(entry.getKey(), configuration.rawValues() ? entry.getValue() : entry, toSeconds(lifespan, entry.getKey(), LIFESPAN), TimeUnit.SECONDS, toSeconds(maxIdle, entry.getKey(), MAXIDLE), TimeUnit.SECONDS));
+      }
+      waitFor(futures);
+   }
+
+   /**
+    * {@inheritDoc}
+    * <p/>
+    * The removes are issued asynchronously, as in {@link #writeBatch(Iterable)}.
+    */
+   @Override
+   public void deleteBatch(Iterable keys) {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (Object key : keys)
+         futures.add(remoteCache.removeAsync(key));
+      waitFor(futures);
+   }
+
+   private void waitFor(List<Future<?>> futures) {
+      try {
+         for (Future<?> future : futures)
+            future.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new PersistenceException(e);
+      } catch (ExecutionException e) {
+         throw new PersistenceException(e.getCause());
+      }
+   }
+
    @Override
    public void clear() throws PersistenceException {
       remoteCache.clear();
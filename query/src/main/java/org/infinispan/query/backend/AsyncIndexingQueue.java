@@ -0,0 +1,409 @@
+package org.infinispan.query.backend;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+import org.hibernate.search.backend.TransactionContext;
+import org.hibernate.search.backend.spi.Work;
+import org.hibernate.search.backend.spi.WorkType;
+import org.hibernate.search.backend.spi.Worker;
+import org.hibernate.search.spi.SearchFactoryIntegrator;
+import org.infinispan.commons.CacheException;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Units;
+import org.infinispan.query.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+/**
+ * Queues the index changes of a cache and applies them in batches from a background thread.
+ * <p/>
+ * A batch is applied when it reaches the maximum batch size, or when its oldest change has waited for the refresh
+ * interval. Successive changes of the same document within a batch are coalesced, only the last one being applied,
+ * and purging all the documents of a type discards the changes of that type queued before it. The changes of a batch
+ * are handed to the Hibernate Search worker within a single synthetic transaction, so every index is committed once
+ * per batch rather than once per write.
+ * <p/>
+ * Changes made within a transaction are only queued when the transaction commits. Writers block when the queue is
+ * full, which bounds both the memory used and the staleness of the indexes.
+ *
+ * @since 6.0
+ */
+@MBean(objectName = "AsyncIndexing", description = "Applies the index changes of the cache asynchronously, in batches")
+public class AsyncIndexingQueue {
+
+   private static final Log log = LogFactory.getLog(AsyncIndexingQueue.class, Log.class);
+
+   /**
+    * Wakes up the indexing thread, without being applied.
+    */
+   private static final QueuedWork WAKE_UP = new QueuedWork(null, 0);
+
+   private final SearchFactoryIntegrator searchFactory;
+   private final String cacheName;
+   private final long refreshIntervalNanos;
+   private final int maxBatchSize;
+   private final BlockingQueue<QueuedWork> queue;
+
+   private final AtomicLong enqueued = new AtomicLong();
+   private final AtomicLong flushRequested = new AtomicLong();
+   private final Object appliedLock = new Object();
+   private long applied;
+
+   private final AtomicLong batches = new AtomicLong();
+   private final AtomicLong appliedWorks = new AtomicLong();
+   private final AtomicLong coalescedWorks = new AtomicLong();
+   private final AtomicLong failedBatches = new AtomicLong();
+   private final AtomicLong totalLagNanos = new AtomicLong();
+   private volatile long maxLagNanos;
+   private volatile long oldestPending;
+
+   private volatile boolean running;
+   private Thread indexingThread;
+
+   public AsyncIndexingQueue(SearchFactoryIntegrator searchFactory, String cacheName, long refreshInterval,
+                             int maxQueueSize, int maxBatchSize) {
+      this.searchFactory = searchFactory;
+      this.cacheName = cacheName;
+      this.refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refreshInterval);
+      this.maxBatchSize = maxBatchSize;
+      this.queue = new ArrayBlockingQueue<QueuedWork>(maxQueueSize);
+   }
+
+   public void start() {
+      running = true;
+      indexingThread = new Thread(new Runnable() {
+         @Override
+         public void run() {
+            applyQueuedWorks();
+         }
+      }, "AsyncIndexing-" + cacheName);
+      indexingThread.setDaemon(true);
+      indexingThread.start();
+   }
+
+   /**
+    * Applies the changes still queued and stops the indexing thread.
+    */
+   public void stop() {
+      running = false;
+      if (indexingThread == null)
+         return;
+      queue.offer(WAKE_UP);
+      try {
+         indexingThread.join();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   /**
+    * Queues the given works. If a transaction is in progress, they are queued when it commits.
+    */
+   public <T> void enqueue(final Collection<Work<T>> works, TransactionContext transactionContext) {
+      if (transactionContext.isTransactionInProgress()) {
+         transactionContext.registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+               if (status == Status.STATUS_COMMITTED)
+                  enqueue(works);
+            }
+         });
+      } else {
+         enqueue(works);
+      }
+   }
+
+   private <T> void enqueue(Collection<Work<T>> works) {
+      for (Work<T> work : works) {
+         QueuedWork queuedWork = new QueuedWork(work, System.nanoTime());
+         enqueued.incrementAndGet();
+         if (!running) {
+            // the indexing thread is gone, apply the change right away
+            apply(Collections.singletonList(queuedWork));
+            continue;
+         }
+         try {
+            queue.put(queuedWork);
+         } catch (InterruptedException e) {
+            enqueued.decrementAndGet();
+            Thread.currentThread().interrupt();
+            throw new CacheException("Interrupted while queueing the index changes of cache " + cacheName, e);
+         }
+         // The queue might have been stopped while the change was added, after the indexing thread drained the queue.
+         // Whoever removes the change from the queue applies it: the indexing thread, or this writer.
+         if (!running && queue.remove(queuedWork))
+            apply(Collections.singletonList(queuedWork));
+      }
+   }
+
+   /**
+    * Applies all the changes queued so far and waits until they are visible to queries.
+    */
+   @ManagedOperation(description = "Applies all the queued index changes and waits for them", displayName = "Flush index changes")
+   public void flush() throws InterruptedException {
+      long target = enqueued.get();
+      long requested;
+      do {
+         requested = flushRequested.get();
+      } while (requested < target && !flushRequested.compareAndSet(requested, target));
+      queue.offer(WAKE_UP);
+      synchronized (appliedLock) {
+         while (applied < target) {
+            appliedLock.wait();
+         }
+      }
+   }
+
+   private void applyQueuedWorks() {
+      List<QueuedWork> batch = new ArrayList<QueuedWork>(maxBatchSize);
+      while (running || !queue.isEmpty()) {
+         try {
+            QueuedWork first = queue.poll(refreshIntervalNanos, TimeUnit.NANOSECONDS);
+            if (first == null || first == WAKE_UP)
+               continue;
+
+            batch.add(first);
+            oldestPending = first.enqueued;
+            long deadline = first.enqueued + refreshIntervalNanos;
+            while (batch.size() < maxBatchSize) {
+               if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0)
+                  continue;
+               long wait = deadline - System.nanoTime();
+               if (wait <= 0 || !running || flushRequested.get() > appliedCount())
+                  break;
+               QueuedWork next = queue.poll(wait, TimeUnit.NANOSECONDS);
+               if (next == null)
+                  break;
+               batch.add(next);
+            }
+            apply(batch);
+         } catch (InterruptedException e) {
+            if (!batch.isEmpty())
+               apply(batch);
+            Thread.currentThread().interrupt();
+            return;
+         } finally {
+            batch.clear();
+            oldestPending = 0;
+         }
+      }
+   }
+
+   private void apply(List<QueuedWork> batch) {
+      Map<Object, Work<?>> works = new LinkedHashMap<Object, Work<?>>();
+      long start = System.nanoTime();
+      long oldest = start;
+      long waited = 0;
+      int count = 0;
+      for (QueuedWork queuedWork : batch) {
+         if (queuedWork == WAKE_UP)
+            continue;
+         count++;
+         oldest = Math.min(oldest, queuedWork.enqueued);
+         waited += start - queuedWork.enqueued;
+         coalesce(works, queuedWork.work);
+      }
+      if (count == 0)
+         return;
+
+      try {
+         BatchTransactionContext transactionContext = new BatchTransactionContext();
+         Worker worker = searchFactory.getWorker();
+         for (Work<?> work : works.values()) {
+            worker.performWork(work, transactionContext);
+         }
+         transactionContext.commit();
+         appliedWorks.addAndGet(works.size());
+         coalescedWorks.addAndGet(count - works.size());
+      } catch (RuntimeException e) {
+         failedBatches.incrementAndGet();
+         log.errorApplyingIndexChanges(count, cacheName, e);
+      } finally {
+         long end = System.nanoTime();
+         if (end - oldest > maxLagNanos)
+            maxLagNanos = end - oldest;
+         // every change of the batch waited in the queue and then for the whole batch to be applied
+         totalLagNanos.addAndGet(waited + count * (end - start));
+         batches.incrementAndGet();
+         synchronized (appliedLock) {
+            applied += count;
+            appliedLock.notifyAll();
+         }
+      }
+   }
+
+   private void coalesce(Map<Object, Work<?>> works, Work<?> work) {
+      WorkType type = work.getType();
+      if (type == WorkType.PURGE_ALL) {
+         Class<?> entityClass = work.getEntityClass();
+         for (Iterator<Object> it = works.keySet().iterator(); it.hasNext(); ) {
+            Object key = it.next();
+            if (key instanceof DocumentKey && ((DocumentKey) key).entityClass == entityClass)
+               it.remove();
+         }
+         works.put(new DocumentKey(entityClass, null), work);
+      } else if (type == WorkType.UPDATE || type == WorkType.DELETE) {
+         // an update replaces the whole document, so only the last change of a document matters
+         DocumentKey key = new DocumentKey(entityClass(work), work.getId());
+         works.remove(key);
+         works.put(key, work);
+      } else {
+         works.put(new Object(), work);
+      }
+   }
+
+   private static Class<?> entityClass(Work<?> work) {
+      return work.getEntity() != null ? work.getEntity().getClass() : work.getEntityClass();
+   }
+
+   private long appliedCount() {
+      synchronized (appliedLock) {
+         return applied;
+      }
+   }
+
+   @ManagedAttribute(description = "Number of index changes waiting to be applied", displayName = "Pending index changes", measurementType = MeasurementType.DYNAMIC)
+   public long getPendingWorks() {
+      return enqueued.get() - appliedCount();
+   }
+
+   @ManagedAttribute(description = "Age of the oldest index change waiting to be applied", displayName = "Index lag", units = Units.MILLISECONDS, measurementType = MeasurementType.DYNAMIC)
+   public long getIndexLag() {
+      long oldest = oldestPending;
+      if (oldest == 0) {
+         QueuedWork head = queue.peek();
+         oldest = head != null && head != WAKE_UP ? head.enqueued : 0;
+      }
+      return oldest == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest);
+   }
+
+   @ManagedAttribute(description = "Maximum time an index change waited before being applied", displayName = "Maximum index lag", units = Units.MILLISECONDS, measurementType = MeasurementType.TRENDSUP)
+   public long getMaxIndexLag() {
+      return TimeUnit.NANOSECONDS.toMillis(maxLagNanos);
+   }
+
+   @ManagedAttribute(description = "Average time an index change waited before being applied", displayName = "Average index lag", units = Units.MILLISECONDS, measurementType = MeasurementType.TRENDSUP)
+   public long getAverageIndexLag() {
+      long count = appliedWorks.get() + coalescedWorks.get();
+      return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLagNanos.get() / count);
+   }
+
+   @ManagedAttribute(description = "Number of batches applied", displayName = "Applied batches", measurementType = MeasurementType.TRENDSUP)
+   public long getAppliedBatches() {
+      return batches.get();
+   }
+
+   @ManagedAttribute(description = "Number of index changes applied", displayName = "Applied index changes", measurementType = MeasurementType.TRENDSUP)
+   public long getAppliedWorks() {
+      return appliedWorks.get();
+   }
+
+   @ManagedAttribute(description = "Number of index changes superseded by a later change of the same document", displayName = "Coalesced index changes", measurementType = MeasurementType.TRENDSUP)
+   public long getCoalescedWorks() {
+      return coalescedWorks.get();
+   }
+
+   @ManagedAttribute(description = "Number of batches that could not be applied", displayName = "Failed batches", measurementType = MeasurementType.TRENDSUP)
+   public long getFailedBatches() {
+      return failedBatches.get();
+   }
+
+   @ManagedOperation(description = "Resets statistics gathered by this component", displayName = "Reset statistics")
+   public void resetStatistics() {
+      batches.set(0);
+      appliedWorks.set(0);
+      coalescedWorks.set(0);
+      failedBatches.set(0);
+      totalLagNanos.set(0);
+      maxLagNanos = 0;
+   }
+
+   private static class QueuedWork {
+      final Work<?> work;
+      final long enqueued;
+
+      QueuedWork(Work<?> work, long enqueued) {
+         this.work = work;
+         this.enqueued = enqueued;
+      }
+   }
+
+   /**
+    * Identifies the document a work applies to, a {@code null} id standing for all the documents of the type.
+    */
+   private static class DocumentKey {
+      final Class<?> entityClass;
+      final Serializable id;
+
+      DocumentKey(Class<?> entityClass, Serializable id) {
+         this.entityClass = entityClass;
+         this.id = id;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o) return true;
+         if (!(o instanceof DocumentKey)) return false;
+
+         DocumentKey that = (DocumentKey) o;
+         return entityClass == that.entityClass && (id == null ? that.id == null : id.equals(that.id));
+      }
+
+      @Override
+      public int hashCode() {
+         return 31 * System.identityHashCode(entityClass) + (id != null ? id.hashCode() : 0);
+      }
+   }
+
+   /**
+    * Collects the synchronizations Hibernate Search registers for a batch, and completes them once all the works of
+    * the batch were handed over.
+    */
+   private static class BatchTransactionContext implements TransactionContext {
+      private final List<Synchronization> synchronizations = new ArrayList<Synchronization>(2);
+
+      @Override
+      public boolean isTransactionInProgress() {
+         return true;
+      }
+
+      @Override
+      public Object getTransactionIdentifier() {
+         return this;
+      }
+
+      @Override
+      public void registerSynchronization(Synchronization synchronization) {
+         synchronizations.add(synchronization);
+      }
+
+      void commit() {
+         for (Synchronization synchronization : synchronizations) {
+            synchronization.beforeCompletion();
+         }
+         for (Synchronization synchronization : synchronizations) {
+            synchronization.afterCompletion(Status.STATUS_COMMITTED);
+         }
+      }
+   }
+}
@@ -30,6 +30,7 @@
 import org.infinispan.commands.write.RemoveCommand;
 import org.infinispan.commands.write.ReplaceCommand;
 import org.infinispan.commands.write.WriteCommand;
+import org.infinispan.configuration.cache.IndexingConfiguration;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.context.Flag;
@@ -81,6 +82,9 @@ public class QueryInterceptor extends CommandInterceptor {
    private SearchWorkCreator<Object> searchWorkCreator = new DefaultSearchWorkCreator<Object>();
 
    private DataContainer dataContainer;
+   private IndexingConfiguration indexingConfiguration;
+   private String cacheName;
+   private AsyncIndexingQueue asyncIndexingQueue;
    protected TransactionManager transactionManager;
    protected TransactionSynchronizationRegistry transactionSynchronizationRegistry;
    protected ExecutorService asyncExecutor;
@@ -110,6 +114,8 @@ protected void injectDependencies(TransactionManager transactionManager,
       this.asyncExecutor = e;
       this.dataContainer = dataContainer;
       this.clusterRegistry = clusterRegistry;
+      this.indexingConfiguration = cache.getCacheConfiguration().indexing();
+      this.cacheName = cache.getName();
 
       knownClassesScope = "QueryKnownClasses#" + cache.getName();
    }
@@ -121,10 +127,19 @@ protected void start() {
       for (Class<?> c : clusterRegistry.keys(knownClassesScope)) {
          enableClass(c);
       }
+
+      if (indexingConfiguration.async()) {
+         asyncIndexingQueue = new AsyncIndexingQueue(searchFactory, cacheName, indexingConfiguration.refreshInterval(),
+                                                     indexingConfiguration.maxQueueSize(), indexingConfiguration.maxBatchSize());
+         asyncIndexingQueue.start();
+      }
    }
 
    @Stop
    protected void stop() {
+      if (asyncIndexingQueue != null) {
+         asyncIndexingQueue.stop();
+      }
       clusterRegistry.removeListener(registryListener);
    }
 
@@ -228,6 +243,10 @@ private void performSearchWork(Object value, Serializable id, WorkType workType,
    }
 
    private <T> void performSearchWorks(Collection<Work<T>> works, TransactionContext transactionContext) {
+      if (asyncIndexingQueue != null) {
+         asyncIndexingQueue.enqueue(works, transactionContext);
+         return;
+      }
       Worker worker = searchFactory.getWorker();
       for (Work<T> work : works) {
          worker.performWork(work, transactionContext);
@@ -350,6 +369,15 @@ public SearchWorkCreator<Object> getSearchWorkCreator() {
       return searchWorkCreator;
    }
 
+   /**
+    * The queue of the index changes waiting to be applied, if indexing is asynchronous.
+    *
+    * @return the queue, or null if the index changes are applied by the writers
+    */
+   public AsyncIndexingQueue getAsyncIndexingQueue() {
+      return asyncIndexingQueue;
+   }
+
    /**
     * In case of a remotely originating transactions we don't have a chance to visit the single
     * commands but receive this "batch". We then need the before-apply snapshot of some types
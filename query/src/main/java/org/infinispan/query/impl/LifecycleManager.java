@@ -35,6 +35,7 @@
 import org.infinispan.lifecycle.AbstractModuleLifecycle;
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.query.MassIndexer;
+import org.infinispan.query.backend.AsyncIndexingQueue;
 import org.infinispan.query.backend.LocalQueryInterceptor;
 import org.infinispan.query.backend.QueryInterceptor;
 import org.infinispan.query.backend.SearchableCacheConfiguration;
@@ -196,6 +197,22 @@ private void registerQueryMBeans(AdvancedCache cache,
       } catch (Exception e) {
          throw new CacheException("Unable to create ", e);
       }
+
+      // Register the async indexing MBean, if the index changes are queued
+      AsyncIndexingQueue asyncIndexingQueue = ComponentRegistryUtils.getQueryInterceptor(cache).getAsyncIndexingQueue();
+      if (asyncIndexingQueue != null) {
+         ManageableComponentMetadata queueMetadata = metadataRepo
+               .findComponentMetadata(AsyncIndexingQueue.class)
+               .toManageableComponentMetadata();
+         try {
+            ResourceDMBean mbean = new ResourceDMBean(asyncIndexingQueue, queueMetadata);
+            ObjectName queueObjName = new ObjectName(jmxDomain + ":"
+                  + queryGroupName + ",component=" + queueMetadata.getJmxObjectName());
+            JmxUtil.registerMBean(mbean, queueObjName, mbeanServer);
+         } catch (Exception e) {
+            throw new CacheException("Unable to register async indexing mbean", e);
+         }
+      }
    }
 
    private String getQueryGroupName(String cacheName) {
@@ -59,4 +59,9 @@ public interface Log extends org.infinispan.util.logging.Log {
    @Message(value = "Indexed type '%1$s' is using a default Transformer. This is slow! Register a custom implementation using @Transformable", id = 14009)
    void typeIsUsingDefaultTransformer(Class<?> keyClass);
 
+   @LogMessage(level = ERROR)
+   @Message(value = "Could not apply a batch of %d index changes of cache %s", id = 14010)
+   void errorApplyingIndexChanges(int changes, String cacheName, @Cause Throwable t);
+
+
 }
@@ -0,0 +1,85 @@
+package org.infinispan.query.api;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.apache.lucene.search.Query;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.query.Search;
+import org.infinispan.query.SearchManager;
+import org.infinispan.query.backend.AsyncIndexingQueue;
+import org.infinispan.query.impl.ComponentRegistryUtils;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+/**
+ * Tests applying the index changes asynchronously, in batches.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "query.api.AsyncIndexingTest")
+public class AsyncIndexingTest extends SingleCacheManagerTest {
+
+   private static final int NUM_KEYS = 50;
+   private static final int UPDATES = 10;
+
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder c = getDefaultStandaloneCacheConfig(false);
+      c.indexing()
+         .enable()
+         .async(true)
+         .refreshInterval(60000)
+         .maxBatchSize(100000)
+         .addProperty("default.directory_provider", "ram")
+         .addProperty("lucene_version", "LUCENE_CURRENT");
+      return TestCacheManagerFactory.createCacheManager(c);
+   }
+
+   public void testChangesCoalescedAndVisibleAfterFlush() throws Exception {
+      AsyncIndexingQueue queue = ComponentRegistryUtils.getQueryInterceptor(cache).getAsyncIndexingQueue();
+      for (int u = 0; u < UPDATES; u++) {
+         for (int i = 0; i < NUM_KEYS; i++) {
+            cache.put("k" + i, new TestEntity("name" + u, "surname", i, "note"));
+         }
+      }
+      cache.remove("k0");
+
+      // every overwrite removes the previous document and adds the new one,
+      // but nothing is applied before the refresh interval or a flush
+      int changes = NUM_KEYS + NUM_KEYS * (UPDATES - 1) * 2 + 1;
+      assertEquals(changes, queue.getPendingWorks());
+      assertEquals(0, countByName("name" + (UPDATES - 1)));
+
+      queue.flush();
+
+      assertEquals(0, queue.getPendingWorks());
+      assertEquals(1, queue.getAppliedBatches());
+      assertEquals(NUM_KEYS, queue.getAppliedWorks());
+      assertEquals(changes - NUM_KEYS, queue.getCoalescedWorks());
+      assertEquals(0, countByName("name0"));
+      assertEquals(NUM_KEYS - 1, countByName("name" + (UPDATES - 1)));
+      assertTrue(queue.getMaxIndexLag() >= 0);
+
+      cache.clear();
+      queue.flush();
+      assertEquals(0, countByName("name" + (UPDATES - 1)));
+   }
+
+   public void testStopWithoutStart() {
+      new AsyncIndexingQueue(null, "stopped", 1000, 10, 10).stop();
+   }
+
+   private int countByName(String name) {
+      SearchManager sm = Search.getSearchManager(cache);
+      Query query = sm.buildQueryBuilderForClass(TestEntity.class)
+         .get()
+            .keyword()
+               .onField("name")
+               .ignoreAnalyzer()
+               .matching(name)
+            .createQuery();
+      return sm.getQuery(query).list().size();
+   }
+}
@@ -29,11 +29,16 @@ public void testConfigurationFileParsing() throws IOException {
 
       final Configuration memoryCfg = namedConfigurations.get("memory-searchable").build();
       assert memoryCfg.indexing().enabled();
+      assert !memoryCfg.indexing().async();
       assert memoryCfg.indexing().properties().size() == 2;
       assert memoryCfg.indexing().properties().getProperty("default.directory_provider").equals("ram");
 
       final Configuration diskCfg = namedConfigurations.get("disk-searchable").build();
       assert diskCfg.indexing().enabled();
+      assert diskCfg.indexing().async();
+      assert diskCfg.indexing().refreshInterval() == 500;
+      assert diskCfg.indexing().maxQueueSize() == 2000;
+      assert diskCfg.indexing().maxBatchSize() == 200;
       assert diskCfg.indexing().properties().size() == 3;
       assert diskCfg.indexing().properties().getProperty("hibernate.search.default.directory_provider").equals("filesystem");
       assert diskCfg.indexing().properties().getProperty("hibernate.search.cats.exclusive_index_use").equals("true");
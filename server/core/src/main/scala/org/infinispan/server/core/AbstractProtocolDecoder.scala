@@ -19,6 +19,7 @@ import org.infinispan.metadata.{Metadata, EmbeddedMetadata}
 import org.infinispan.container.versioning.{NumericVersionGenerator, EntryVersion, VersionGenerator, NumericVersion}
 import org.infinispan.context.Flag
 import java.io.IOException
+import org.jboss.netty.handler.queue.BufferedWriteHandler
 
 /**
  * Common abstract decoder for Memcached and Hot Rod protocols.
@@ -274,6 +275,7 @@ abstract class AbstractProtocolDecoder[K, V](transport: NettyTransport)
             }
          }
       }
+      flushResponses(ctx)
       // After writing back an error, reset params and revert to initial state
       resetParams
    }
@@ -374,7 +376,19 @@ abstract class AbstractProtocolDecoder[K, V](transport: NettyTransport)
 
    override def messageReceived(ctx: ChannelHandlerContext, e: MessageEvent) {
       transport.updateTotalBytesRead(e)
-      super.messageReceived(ctx, e)
+      try {
+         super.messageReceived(ctx, e)
+      } finally {
+         // All complete requests in the received buffer have been executed
+         // by now, so send their responses back in a single write
+         flushResponses(ctx)
+      }
+   }
+
+   private def flushResponses(ctx: ChannelHandlerContext) {
+      val bufferedWriter = ctx.getPipeline.get(classOf[BufferedWriteHandler])
+      if (bufferedWriter != null)
+         bufferedWriter.flush()
    }
 
 }
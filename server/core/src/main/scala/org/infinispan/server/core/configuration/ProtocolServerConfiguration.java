@@ -16,8 +16,9 @@ public abstract class ProtocolServerConfiguration {
    private final SslConfiguration ssl;
    private final boolean tcpNoDelay;
    private final int workerThreads;
+   private final int executionThreads;
 
-   protected ProtocolServerConfiguration(String name, String host, int port, int idleTimeout, int recvBufSize, int sendBufSize, SslConfiguration ssl, boolean tcpNoDelay, int workerThreads) {
+   protected ProtocolServerConfiguration(String name, String host, int port, int idleTimeout, int recvBufSize, int sendBufSize, SslConfiguration ssl, boolean tcpNoDelay, int workerThreads, int executionThreads) {
       this.name = name;
       this.host = host;
       this.port = port;
@@ -27,6 +28,7 @@ protected ProtocolServerConfiguration(String name, String host, int port, int id
       this.ssl = ssl;
       this.tcpNoDelay = tcpNoDelay;
       this.workerThreads = workerThreads;
+      this.executionThreads = executionThreads;
    }
 
    public String name() {
@@ -65,10 +67,15 @@ public int workerThreads() {
       return workerThreads;
    }
 
+   public int executionThreads() {
+      return executionThreads;
+   }
+
    @Override
    public String toString() {
       return "ProtocolServerConfiguration [name=" + name + ", host=" + host + ", port=" + port + ", idleTimeout=" + idleTimeout + ", recvBufSize=" + recvBufSize + ", sendBufSize="
-            + sendBufSize + ", ssl=" + ssl + ", tcpNoDelay=" + tcpNoDelay + ", workerThreads=" + workerThreads + "]";
+            + sendBufSize + ", ssl=" + ssl + ", tcpNoDelay=" + tcpNoDelay + ", workerThreads=" + workerThreads
+            + ", executionThreads=" + executionThreads + "]";
    }
 
 }
@@ -16,6 +16,7 @@
    protected final SslConfigurationBuilder ssl;
    protected boolean tcpNoDelay = true;
    protected int workerThreads = 2 * Runtime.getRuntime().availableProcessors();
+   protected int executionThreads = 0;
 
    protected ProtocolServerConfigurationBuilder(int port) {
       this.port = port;
@@ -75,6 +76,12 @@ public S workerThreads(int workerThreads) {
       return this.self();
    }
 
+   @Override
+   public S executionThreads(int executionThreads) {
+      this.executionThreads = executionThreads;
+      return this.self();
+   }
+
    @Override
    public void validate() {
       ssl.validate();
@@ -90,6 +97,9 @@ public void validate() {
       if (workerThreads < 0) {
          throw log.illegalWorkerThreads(workerThreads);
       }
+      if (executionThreads < 0) {
+         throw log.illegalExecutionThreads(executionThreads);
+      }
    }
 
    @Override
@@ -102,6 +112,7 @@ public Builder<?> read(T template) {
       this.sendBufSize = template.sendBufSize();
       this.tcpNoDelay = template.tcpNoDelay();
       this.workerThreads = template.workerThreads();
+      this.executionThreads = template.executionThreads();
       this.ssl.read(template.ssl());
       return this;
    }
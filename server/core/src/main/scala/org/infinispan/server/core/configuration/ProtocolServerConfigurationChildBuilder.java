@@ -54,6 +54,13 @@
     */
    S workerThreads(int workerThreads);
 
+   /**
+    * Sets the number of threads used to execute requests outside of the network worker threads, so that operations
+    * which block on locks or stores never stall other connections. Requests from the same connection are still
+    * executed in order. Defaults to 0, which executes requests directly on the worker threads.
+    */
+   S executionThreads(int executionThreads);
+
    /**
     * Builds a configuration object
     */
@@ -3,15 +3,24 @@ package org.infinispan.server.core.transport
 import org.jboss.netty.channel._
 import org.jboss.netty.handler.ssl.SslHandler
 import org.infinispan.server.core.ProtocolServer
-import org.infinispan.server.core.configuration.SslConfiguration
+import org.infinispan.server.core.configuration.{ProtocolServerConfiguration, SslConfiguration}
 import javax.net.ssl.SSLEngine
 import org.infinispan.commons.util.SslContextFactory
+import org.jboss.netty.handler.queue.BufferedWriteHandler
+import org.jboss.netty.handler.execution.{OrderedMemoryAwareThreadPoolExecutor, ExecutionHandler}
+import java.util.concurrent.{ThreadFactory, TimeUnit}
+import java.util.concurrent.atomic.AtomicInteger
 
 /**
  * Pipeline factory for Netty based channels. For each pipeline created, a new decoder is created which means that
  * each incoming connection deals with a unique decoder instance. Since the encoder does not maintain any state,
  * a single encoder instance is shared by all incoming connections, if and only if, the protocol mandates an encoder.
  *
+ * Responses are queued in a per connection {@link BufferedWriteHandler} and flushed by the decoder once all the
+ * requests found in a received buffer have been processed, so pipelined requests are answered with a single write.
+ * If execution threads are configured, requests are decoded and executed in a shared pool instead of the Netty
+ * worker threads, keeping the order of the requests of each connection.
+ *
  * @author Galder Zamarreño
  * @since 4.1
  */
@@ -19,11 +28,18 @@ class NettyChannelPipelineFactory(server: ProtocolServer,
                                   encoder: ChannelDownstreamHandler)
       extends LifecycleChannelPipelineFactory {
 
+   import NettyChannelPipelineFactory._
+
+   private val executionHandler = createExecutionHandler(server.getConfiguration)
+
    override def getPipeline: ChannelPipeline = {
       val pipeline = Channels.pipeline
       val ssl = server.getConfiguration.ssl
       if (ssl.enabled())
          pipeline.addLast("ssl", new SslHandler(createSslEngine(ssl)))
+      pipeline.addLast("bufferedWriter", new BufferedWriteHandler(true))
+      if (executionHandler != null)
+         pipeline.addLast("executionHandler", executionHandler)
       pipeline.addLast("decoder", server.getDecoder)
       if (encoder != null)
          pipeline.addLast("encoder", encoder)
@@ -32,7 +48,8 @@ class NettyChannelPipelineFactory(server: ProtocolServer,
    }
 
    override def stop {
-      // No-op
+      if (executionHandler != null)
+         executionHandler.releaseExternalResources()
    }
 
    def createSslEngine(ssl: SslConfiguration): SSLEngine = {
@@ -44,3 +61,40 @@ class NettyChannelPipelineFactory(server: ProtocolServer,
       SslContextFactory.getEngine(sslContext, false, ssl.requireClientAuth)
    }
 }
+
+object NettyChannelPipelineFactory {
+
+   /**
+    * Maximum size of the requests queued for execution per connection, above which reading from the connection is
+    * suspended until the queued requests have been executed.
+    */
+   private val MaxChannelMemorySize = 1024 * 1024
+
+   /**
+    * Creates the handler executing the requests of the server in its pool of execution threads, keeping the order of
+    * the requests of each connection. It is meant to be shared by all the pipelines of the server, and its resources
+    * released when the server stops.
+    *
+    * @return the handler, or null if the server doesn't have execution threads
+    */
+   def createExecutionHandler(configuration: ProtocolServerConfiguration): ExecutionHandler = {
+      val threads = configuration.executionThreads
+      if (threads > 0)
+         new ExecutionHandler(new OrderedMemoryAwareThreadPoolExecutor(threads, MaxChannelMemorySize, 0,
+            30, TimeUnit.SECONDS, new ExecutionThreadFactory(configuration.name)))
+      else
+         null
+   }
+
+   private class ExecutionThreadFactory(serverName: String) extends ThreadFactory {
+      private val threadCounter = new AtomicInteger
+
+      override def newThread(r: Runnable): Thread = {
+         val prefix = if (serverName.length > 0) serverName + "-" else ""
+         val t = new Thread(r, prefix + "ServerExecutor-" + threadCounter.incrementAndGet())
+         t.setDaemon(true)
+         t
+      }
+   }
+
+}
@@ -28,6 +28,7 @@ class TimeoutEnabledChannelPipelineFactory(server: ProtocolServer,
    }
 
    override def stop {
+      super.stop
       timer.stop()
    }
 
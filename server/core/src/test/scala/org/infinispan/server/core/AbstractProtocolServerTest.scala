@@ -24,6 +24,12 @@ class AbstractProtocolServerTest {
       expectIllegalArgument(b, createServer)
    }
 
+   def testValidateNegativeExecutionThreads() {
+      val b = new MockServerConfigurationBuilder
+      b.executionThreads(-1);
+      expectIllegalArgument(b, createServer)
+   }
+
    def testValidateNegativeIdleTimeout() {
       val b = new MockServerConfigurationBuilder
       b.idleTimeout(-2);
@@ -121,6 +121,13 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
             if (g.status == Success) writeRangedBytes(g.data.get, buf)
          case q: QueryResponse =>
             writeRangedBytes(q.result, buf)
+         case g: GetAllResponse => {
+            writeUnsignedInt(g.entries.size, buf)
+            for ((key, value) <- g.entries) {
+               writeRangedBytes(key, buf)
+               writeRangedBytes(value, buf)
+            }
+         }
          case e: ErrorResponse => writeString(e.msg, buf)
          case _ => if (buf == null)
             throw new IllegalArgumentException("Response received is unknown: " + r)
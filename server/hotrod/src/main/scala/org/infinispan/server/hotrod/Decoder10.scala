@@ -49,6 +49,8 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
          case 0x1B => (GetWithMetadataRequest, false)
          case 0x1D => (BulkGetKeysRequest, false)
          case 0x1F => (QueryRequest, false)
+         case 0x21 if version >= Constants.VERSION_13 => (GetAllRequest, false)
+         case 0x23 if version >= Constants.VERSION_13 => (PutAllRequest, false)
          case _ => throw new HotRodUnknownOperationException(
                "Unknown operation: " + streamOp, version, messageId)
       }
@@ -87,6 +89,11 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
       header.op match {
          case RemoveRequest => (null, true)
          case RemoveIfUnmodifiedRequest => (new RequestParameters(-1, -1, -1, buffer.readLong), true)
+         case PutAllRequest => {
+            val lifespan = readLifespanOrMaxIdle(buffer, hasFlag(header, ProtocolFlag.DefaultLifespan))
+            val maxIdle = readLifespanOrMaxIdle(buffer, hasFlag(header, ProtocolFlag.DefaultMaxIdle))
+            (new RequestParameters(-1, lifespan, maxIdle, -1), false)
+         }
          case ReplaceIfUnmodifiedRequest => {
             val lifespan = readLifespanOrMaxIdle(buffer, hasFlag(header, ProtocolFlag.DefaultLifespan))
             val maxIdle = readLifespanOrMaxIdle(buffer, hasFlag(header, ProtocolFlag.DefaultMaxIdle))
@@ -223,6 +230,15 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
             new QueryResponse(h.version, h.messageId, h.cacheName, h.clientIntel,
                h.topologyId, result)
          }
+         case GetAllRequest => {
+            // Read all keys before touching the cache, in case the request has not been fully received yet
+            val count = readUnsignedInt(buffer)
+            val keys = for (i <- 0 until count) yield readKey(buffer)
+            if (isTrace) trace("About to create get all response, count = %d", count)
+            val entries = keys.flatMap(k => Option(cache.get(k)).map(v => (k, v)))
+            new GetAllResponse(h.version, h.messageId, h.cacheName, h.clientIntel,
+               h.topologyId, entries)
+         }
       }
    }
 
@@ -305,6 +321,8 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
          case BulkGetRequest => BulkGetResponse
          case GetWithMetadataRequest => GetWithMetadataResponse
          case BulkGetKeysRequest => BulkGetKeysResponse
+         case GetAllRequest => GetAllResponse
+         case PutAllRequest => PutAllResponse
       }
    }
 
@@ -328,6 +346,8 @@ object OperationResponse extends Enumeration {
    val GetWithMetadataResponse = Value(0x1C)
    val BulkGetKeysResponse = Value(0x1E)
    val QueryResponse = Value(0x20)
+   val GetAllResponse = Value(0x22)
+   val PutAllResponse = Value(0x24)
    val ErrorResponse = Value(0x50)
 }
 
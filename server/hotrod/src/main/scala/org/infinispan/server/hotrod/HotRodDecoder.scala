@@ -12,6 +12,7 @@ import org.jboss.netty.buffer.ChannelBuffer
 import org.jboss.netty.channel.Channel
 import java.lang.StringBuilder
 import org.infinispan.container.entries.CacheEntry
+import org.infinispan.context.Flag
 import org.infinispan.server.hotrod.configuration.HotRodServerConfiguration
 
 /**
@@ -134,8 +135,25 @@ class HotRodDecoder(cacheManager: EmbeddedCacheManager, transport: NettyTranspor
    override protected def customDecodeHeader(ch: Channel, buffer: ChannelBuffer): AnyRef =
       writeResponse(ch, header.decoder.customReadHeader(header, buffer, cache))
 
-   override protected def customDecodeKey(ch: Channel, buffer: ChannelBuffer): AnyRef =
-      writeResponse(ch, header.decoder.customReadKey(header, buffer, cache, server.getQueryFacades))
+   override protected def customDecodeKey(ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      header.op match {
+         case HotRodOperation.PutAllRequest => writeResponse(ch, putAll(buffer))
+         case _ => writeResponse(ch, header.decoder.customReadKey(header, buffer, cache, server.getQueryFacades))
+      }
+   }
+
+   private def putAll(buffer: ChannelBuffer): AnyRef = {
+      params = header.decoder.readParameters(header, buffer)._1
+      val count = readUnsignedInt(buffer)
+      val entries = new java.util.HashMap[Array[Byte], Array[Byte]](count * 2)
+      for (i <- 0 until count)
+         entries.put(readRangedBytes(buffer), readRangedBytes(buffer))
+      if (isTrace) trace("About to put %d entries", count)
+      // All entries are stored with a single command, sharing the same metadata
+      cache.withFlags(Flag.IGNORE_RETURN_VALUES).putAll(entries, buildMetadata())
+      new Response(header.version, header.messageId, header.cacheName, header.clientIntel,
+         OperationResponse.PutAllResponse, Success, header.topologyId)
+   }
 
    override protected def customDecodeValue(ch: Channel, buffer: ChannelBuffer): AnyRef =
       writeResponse(ch, header.decoder.customReadValue(header, buffer, cache))
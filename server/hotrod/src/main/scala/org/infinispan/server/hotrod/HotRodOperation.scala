@@ -18,4 +18,6 @@ object HotRodOperation extends Enumeration(20) {
    val GetWithMetadataRequest = Value
    val BulkGetKeysRequest = Value
    val QueryRequest = Value
+   val GetAllRequest = Value
+   val PutAllRequest = Value
 }
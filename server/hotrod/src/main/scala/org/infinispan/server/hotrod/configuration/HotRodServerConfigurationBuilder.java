@@ -82,7 +82,7 @@ public HotRodServerConfigurationBuilder topologyStateTransfer(boolean topologySt
    @Override
    public HotRodServerConfiguration create() {
       return new HotRodServerConfiguration(proxyHost, proxyPort, topologyLockTimeout, topologyReplTimeout, topologyAwaitInitialTransfer, topologyStateTransfer, name, host, port, idleTimeout,
-            recvBufSize, sendBufSize, ssl.create(), tcpNoDelay, workerThreads);
+            recvBufSize, sendBufSize, ssl.create(), tcpNoDelay, workerThreads, executionThreads);
    }
 
    @Override
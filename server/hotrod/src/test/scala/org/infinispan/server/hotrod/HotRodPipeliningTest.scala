@@ -0,0 +1,38 @@
+package org.infinispan.server.hotrod
+
+import java.lang.reflect.Method
+import org.testng.annotations.Test
+import org.testng.Assert._
+import test.HotRodTestingUtil._
+import test.{TestGetResponse, Op}
+import OperationStatus._
+
+/**
+ * Tests that requests pipelined on a connection are executed in order, and that their responses are sent back with
+ * a single write.
+ *
+ * @since 6.0
+ */
+@Test(groups = Array("functional"), testName = "server.hotrod.HotRodPipeliningTest")
+class HotRodPipeliningTest extends HotRodSingleNodeTest {
+
+   private val NumKeys = 5
+
+   def testPipelinedRequests(m: Method) {
+      val puts = for (i <- 0 until NumKeys) yield
+         new Op(0xA0, 10, 0x01, cacheName, k(m, "k" + i + "-"), 0, 0, v(m, "v" + i + "-"), 0, 0, 1, 0)
+      // each get follows the put of its key in the same buffer
+      val gets = for (i <- 0 until NumKeys) yield
+         new Op(0xA0, 10, 0x03, cacheName, k(m, "k" + i + "-"), 0, 0, null, 0, 0, 1, 0)
+      val ops = puts ++ gets
+
+      val (responses, reads) = client.executePipelined(ops)
+      assertEquals(responses.map(_.messageId), ops.map(_.id))
+      for (i <- 0 until NumKeys) {
+         assertStatus(responses(i), Success)
+         assertSuccess(responses(NumKeys + i).asInstanceOf[TestGetResponse], v(m, "v" + i + "-"))
+      }
+      assertEquals(reads, 1, "The responses to the pipelined requests should have been sent in a single write")
+   }
+
+}
@@ -5,7 +5,7 @@ import org.jboss.netty.bootstrap.ClientBootstrap
 import java.net.InetSocketAddress
 import org.jboss.netty.handler.codec.oneone.OneToOneEncoder
 import org.jboss.netty.channel._
-import org.jboss.netty.buffer.ChannelBuffer
+import org.jboss.netty.buffer.{ChannelBuffers, ChannelBuffer}
 import org.testng.Assert._
 import org.infinispan.server.hotrod.logging.Log
 import org.infinispan.server.hotrod.OperationStatus._
@@ -15,7 +15,7 @@ import collection.immutable
 import java.lang.reflect.Method
 import HotRodTestingUtil._
 import java.util.concurrent.{ConcurrentHashMap, Executors}
-import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.{AtomicInteger, AtomicLong}
 import mutable.ListBuffer
 import org.infinispan.test.TestingUtil
 import org.infinispan.commons.util.Util
@@ -160,6 +160,24 @@ class HotRodClient(host: String, port: Int, defaultCacheName: String, rspTimeout
       assertTrue(future.isSuccess)
    }
 
+   /**
+    * Writes all the operations in a single buffer, so that the server receives them pipelined, and waits for all
+    * their responses.
+    *
+    * @return the responses, in the order they were received, and the number of reads it took to receive them
+    */
+   def executePipelined(ops: Seq[Op]): (Seq[TestResponse], Int) = {
+      ops.foreach(op => idToOp.put(op.id, op))
+      val readCounter = ch.getPipeline.get(classOf[ReadCounter])
+      val readsBefore = readCounter.reads.get
+      val future = ch.write(new PipelinedOps(ops))
+      future.awaitUninterruptibly
+      assertTrue(future.isSuccess)
+      val handler = ch.getPipeline.getLast.asInstanceOf[ClientHandler]
+      val responses = ops.map(op => handler.getResponse(op.id))
+      (responses.sortBy(resp => handler.getArrival(resp.messageId)), readCounter.reads.get - readsBefore)
+   }
+
    def get(k: Array[Byte], flags: Int): TestGetResponse = {
       get(0x03, k, 0).asInstanceOf[TestGetResponse]
    }
@@ -244,6 +262,7 @@ private class ClientPipelineFactory(client: HotRodClient, rspTimeoutSeconds: Int
       val pipeline = Channels.pipeline
       if (sslEngine != null)
          pipeline.addLast("ssl", new SslHandler(sslEngine));
+      pipeline.addLast("readCounter", new ReadCounter)
       pipeline.addLast("decoder", new Decoder(client))
       pipeline.addLast("encoder", new Encoder)
       pipeline.addLast("handler", new ClientHandler(rspTimeoutSeconds))
@@ -257,6 +276,8 @@ private class Encoder extends OneToOneEncoder {
    override def encode(ctx: ChannelHandlerContext, ch: Channel, msg: AnyRef) = {
       trace("Encode %s so that it's sent to the server", msg)
       msg match {
+         case pipelined: PipelinedOps =>
+            ChannelBuffers.wrappedBuffer(pipelined.ops.map(op => encode(ctx, ch, op).asInstanceOf[ChannelBuffer]): _*)
          case partial: PartialOp => {
             val buffer = dynamicBuffer
             buffer.writeByte(partial.magic.asInstanceOf[Byte]) // magic
@@ -538,13 +559,18 @@ private class Decoder(client: HotRodClient) extends ReplayingDecoder[VoidEnum] w
 private class ClientHandler(rspTimeoutSeconds: Int) extends SimpleChannelUpstreamHandler {
 
    private val responses = new ConcurrentHashMap[Long, TestResponse]
+   private val arrivals = new ConcurrentHashMap[Long, Long]
+   private val arrivalCounter = new AtomicLong
 
    override def messageReceived(ctx: ChannelHandlerContext, e: MessageEvent) {
       val resp = e.getMessage.asInstanceOf[TestResponse]
       trace("Put %s in responses", resp)
+      arrivals.put(resp.messageId, arrivalCounter.incrementAndGet)
       responses.put(resp.messageId, resp)
    }
 
+   def getArrival(messageId: Long): Long = arrivals.get(messageId)
+
    def getResponse(messageId: Long): TestResponse = {
       // TODO: Very very primitive way of waiting for a response. Convert to a Future
       var i = 0
@@ -562,6 +588,22 @@ private class ClientHandler(rspTimeoutSeconds: Int) extends SimpleChannelUpstrea
 
 }
 
+/**
+ * Counts the buffers read from the server, to find out how many writes were needed to send a set of responses.
+ */
+private class ReadCounter extends SimpleChannelUpstreamHandler {
+
+   val reads = new AtomicInteger
+
+   override def messageReceived(ctx: ChannelHandlerContext, e: MessageEvent) {
+      reads.incrementAndGet
+      super.messageReceived(ctx, e)
+   }
+
+}
+
+class PipelinedOps(val ops: Seq[Op])
+
 class Op(val magic: Int,
          val version: Byte,
          val code: Byte,
@@ -29,7 +29,7 @@ public MemcachedServerConfigurationBuilder cache(String cache) {
 
    @Override
    public MemcachedServerConfiguration create() {
-      return new MemcachedServerConfiguration(cache, name, host, port, idleTimeout, recvBufSize, sendBufSize, ssl.create(), tcpNoDelay, workerThreads);
+      return new MemcachedServerConfiguration(cache, name, host, port, idleTimeout, recvBufSize, sendBufSize, ssl.create(), tcpNoDelay, workerThreads, executionThreads);
    }
 
    public MemcachedServerConfiguration build(boolean validate) {
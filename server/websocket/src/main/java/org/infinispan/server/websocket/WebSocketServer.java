@@ -13,6 +13,7 @@
 import org.infinispan.server.core.AbstractProtocolServer;
 import org.infinispan.server.core.configuration.ProtocolServerConfiguration;
 import org.infinispan.server.core.transport.LifecycleChannelPipelineFactory;
+import org.infinispan.server.core.transport.NettyChannelPipelineFactory;
 import org.infinispan.server.websocket.configuration.WebSocketServerConfiguration;
 import org.infinispan.server.websocket.handlers.GetHandler;
 import org.infinispan.server.websocket.handlers.NotifyHandler;
@@ -27,6 +28,7 @@
 import org.jboss.netty.handler.codec.http.HttpRequestDecoder;
 import org.jboss.netty.handler.codec.http.HttpResponseEncoder;
 import org.jboss.netty.handler.codec.oneone.OneToOneEncoder;
+import org.jboss.netty.handler.execution.ExecutionHandler;
 
 /**
  * An HTTP server which serves Web Socket requests on an Infinispan cacheManager.
@@ -59,7 +61,7 @@ public void startInternal(ProtocolServerConfiguration configuration, EmbeddedCac
 
    @Override
    public LifecycleChannelPipelineFactory getPipeline() {
-      return new WebSocketServerPipelineFactory(cacheManager());
+      return new WebSocketServerPipelineFactory(cacheManager(), configuration);
    }
 
    private static class WebSocketServerPipelineFactory extends LifecycleChannelPipelineFactory {
@@ -67,9 +69,12 @@ private static class WebSocketServerPipelineFactory extends LifecycleChannelPipe
       private CacheContainer cacheContainer;
       private Map<String, OpHandler> operationHandlers;
       private Map<String, Cache> startedCaches = CollectionFactory.makeConcurrentMap();
+      private ExecutionHandler executionHandler;
 
-      public WebSocketServerPipelineFactory(CacheContainer cacheContainer) {
+      public WebSocketServerPipelineFactory(CacheContainer cacheContainer, WebSocketServerConfiguration configuration) {
          this.cacheContainer = cacheContainer;
+         // operations are executed outside the Netty worker threads if execution threads are configured
+         this.executionHandler = NettyChannelPipelineFactory.createExecutionHandler(configuration);
 
          operationHandlers = new HashMap<String, OpHandler>();
          operationHandlers.put("put", new PutHandler());
@@ -88,6 +93,9 @@ public ChannelPipeline getPipeline() throws Exception {
          pipeline.addLast("decoder", new HttpRequestDecoder());
          pipeline.addLast("aggregator", new HttpChunkAggregator(65536));
          pipeline.addLast("encoder", new HttpResponseEncoder());
+         if (executionHandler != null) {
+            pipeline.addLast("executionHandler", executionHandler);
+         }
          pipeline.addLast("handler", new WebSocketServerHandler(cacheContainer, operationHandlers, startedCaches));
 
          return pipeline;
@@ -95,7 +103,9 @@ public ChannelPipeline getPipeline() throws Exception {
 
       @Override
       public void stop() {
-         // NO OP
+         if (executionHandler != null) {
+            executionHandler.releaseExternalResources();
+         }
       }
    }
 
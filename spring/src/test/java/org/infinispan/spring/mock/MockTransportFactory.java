@@ -47,6 +47,16 @@ public Transport getTransport(final byte[] key) {
       return null;
    }
 
+   @Override
+   public SocketAddress getServer(final byte[] key) {
+      return null;
+   }
+
+   @Override
+   public Transport getAddressTransport(final SocketAddress server) {
+      return null;
+   }
+
    @Override
    public boolean isTcpNoDelay() {
       return false;
@@ -82,4 +92,9 @@ public ConsistentHashFactory getConsistentHashFactory() {
    public SSLContext getSSLContext() {
       return null;
    }
+
+   @Override
+   public boolean isAsync() {
+      return false;
+   }
 }